@@ -0,0 +1,127 @@
+package com.example.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results by normalized expression, least recently used evicted first
+ *
+ * Memory is bounded by an estimate of the bytes held rather than by an entry count,
+ * since expressions vary in length: characters of key and result, plus the map
+ * entry and String overhead. Entries larger than the whole budget are not kept.
+ */
+public class ResultCache {
+
+    // LinkedHashMap entry, two String objects and their arrays, on a 64-bit JVM with compressed oops
+    private static final int ENTRY_OVERHEAD = 120;
+
+    private final long maxBytes;
+    private final Map<String, String> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long bytes;
+
+    public ResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Cache key for an expression: whitespace removed except between two name or
+     * number characters, where it separates tokens ("2 + 2" and "2+2" share a key,
+     * "1 2" and "12" do not). Null for a null or blank expression.
+     *
+     * The producer partitions by the same rules (ExpressionHashPartitioner.normalize);
+     * both copies are tested against test-support/src/test/resources/normalization-cases.json.
+     */
+    public static String normalize(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(expression.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = key.length() > 0;
+                continue;
+            }
+            if (pendingSpace && isWordChar(key.charAt(key.length() - 1)) && isWordChar(c)) {
+                key.append(' ');
+            }
+            pendingSpace = false;
+            key.append(c);
+        }
+        return key.length() > 0 ? key.toString() : null;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+    /**
+     * Result for a normalized key, counted as a hit or a miss
+     */
+    public String get(String key) {
+        String result;
+        synchronized (results) {
+            result = results.get(key);
+        }
+        (result != null ? hits : misses).increment();
+        return result;
+    }
+
+    public void put(String key, String result) {
+        long weight = weight(key, result);
+        if (weight > maxBytes) {
+            return;
+        }
+        synchronized (results) {
+            String previous = results.put(key, result);
+            bytes += weight - (previous != null ? weight(key, previous) : 0);
+            Iterator<Map.Entry<String, String>> eldest = results.entrySet().iterator();
+            while (bytes > maxBytes) {
+                Map.Entry<String, String> entry = eldest.next();
+                bytes -= weight(entry.getKey(), entry.getValue());
+                eldest.remove();
+            }
+        }
+    }
+
+    public void remove(String key) {
+        synchronized (results) {
+            String previous = results.remove(key);
+            if (previous != null) {
+                bytes -= weight(key, previous);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    /**
+     * Estimated memory held by the entries
+     */
+    public long bytes() {
+        synchronized (results) {
+            return bytes;
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private static long weight(String key, String result) {
+        return ENTRY_OVERHEAD + 2L * (key.length() + result.length());
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Results shared by all consumer instances through a compacted topic keyed by
+ * normalized expression
+ *
+ * Every instance tails the whole topic into its local ResultCache, so a result
+ * published by one instance is served by all of them. On start the topic is
+ * read as configured by the warm-up strategy, up to the end offsets at that
+ * moment; start() waits for that, at most the warm-up timeout, then the rest
+ * arrives in the background. Compaction keeps one record per expression.
+ * If the topic cannot be prepared, results are only cached by this instance.
+ */
+@Slf4j
+public class SharedResultCache implements AutoCloseable {
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 10;
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final long DESCRIBE_RETRY_MILLIS = 100;
+
+    /**
+     * Where the topic is read from on start
+     * - NONE: the end, only results published from now on
+     * - RECENT: the last warmUpRecords offsets of each partition
+     * - FULL: the beginning, every expression the topic holds
+     */
+    public enum WarmUp { NONE, RECENT, FULL }
+
+    /**
+     * @param partitions of the topic when it has to be created
+     */
+    public record Settings(String topic, int partitions, WarmUp warmUp, long warmUpRecords,
+                           Duration warmUpTimeout) {
+    }
+
+    private final ResultCache cache;
+    private final Admin admin;
+    private final String bootstrapServers;
+    private final Settings settings;
+
+    private final CountDownLatch warmedUp = new CountDownLatch(1);
+    private volatile long warmUpNanos = -1;
+    private volatile long warmUpRecords;
+    private volatile boolean stopped;
+    private volatile boolean started;
+    private Consumer<String, String> consumer;
+    private volatile Producer<String, String> producer;
+    private Thread loader;
+
+    public SharedResultCache(ResultCache cache, Admin admin, String bootstrapServers, Settings settings) {
+        this.cache = cache;
+        this.admin = admin;
+        this.bootstrapServers = bootstrapServers;
+        this.settings = settings;
+    }
+
+    /**
+     * Creates the topic if missing, starts loading it and waits for the warm-up
+     */
+    public synchronized void start() throws InterruptedException {
+        if (started) {
+            return;
+        }
+        started = true;
+        long startNanos = System.nanoTime();
+        List<TopicPartition> partitions = ensureTopic();
+        if (partitions.isEmpty()) {
+            return;
+        }
+        consumer = newConsumer();
+        producer = newProducer();
+        consumer.assign(partitions);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        Map<TopicPartition, Long> startOffsets = consumer.beginningOffsets(partitions);
+        for (TopicPartition partition : partitions) {
+            long end = endOffsets.get(partition);
+            long from = switch (settings.warmUp()) {
+                case NONE -> end;
+                case RECENT -> Math.max(startOffsets.get(partition), end - settings.warmUpRecords());
+                case FULL -> startOffsets.get(partition);
+            };
+            consumer.seek(partition, from);
+        }
+
+        loader = new Thread(() -> load(endOffsets, startNanos), "result-cache-loader");
+        loader.setDaemon(true);
+        loader.start();
+        if (!warmedUp.await(settings.warmUpTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Result cache warm-up not done after {}, continuing in the background ({} results so far)",
+                    settings.warmUpTimeout(), cache.size());
+        }
+    }
+
+    /**
+     * Cached result of an expression, null if unknown or the cache was not started
+     */
+    public String lookup(String expression) {
+        String key = ResultCache.normalize(expression);
+        return key != null && started ? cache.get(key) : null;
+    }
+
+    /**
+     * Caches the result here and publishes it to the other instances; does nothing
+     * if the cache was not started
+     */
+    public void publish(String expression, String result) {
+        String key = ResultCache.normalize(expression);
+        if (key == null || !started) {
+            return;
+        }
+        cache.put(key, result);
+        Producer<String, String> target = producer;
+        if (target == null) {
+            return;
+        }
+        target.send(new ProducerRecord<>(settings.topic(), key, result), (metadata, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to publish result for '{}': {}", key, ex.getMessage());
+            }
+        });
+    }
+
+    public ResultCache cache() {
+        return cache;
+    }
+
+    /**
+     * Seconds the warm-up took, -1 while it runs
+     */
+    public double warmUpSeconds() {
+        long nanos = warmUpNanos;
+        return nanos < 0 ? -1 : nanos / 1e9;
+    }
+
+    /**
+     * Records read during the warm-up
+     */
+    public long warmUpRecords() {
+        return warmUpRecords;
+    }
+
+    public boolean isWarmedUp() {
+        return warmedUp.getCount() == 0;
+    }
+
+    /**
+     * Whether results are shared through the topic, false when only cached here
+     */
+    public boolean isShared() {
+        return producer != null;
+    }
+
+    private void load(Map<TopicPartition, Long> warmUpEnd, long startNanos) {
+        long records = 0;
+        try {
+            while (!stopped) {
+                if (!isWarmedUp() && reached(warmUpEnd)) {
+                    warmUpRecords = records;
+                    warmUpNanos = System.nanoTime() - startNanos;
+                    warmedUp.countDown();
+                    log.info("Result cache warmed up ({}): {} records, {} results cached in {} ms",
+                            settings.warmUp(), records, cache.size(), warmUpNanos / 1_000_000);
+                }
+                for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.key() == null) {
+                        continue;
+                    }
+                    // Tombstones remove an expression, e.g. after a change in evaluation
+                    if (record.value() == null) {
+                        cache.remove(record.key());
+                    } else {
+                        cache.put(record.key(), record.value());
+                    }
+                    records++;
+                }
+            }
+        } catch (WakeupException e) {
+            // close()
+        } catch (Exception e) {
+            log.error("Result cache loader stopped: {}", e.getMessage(), e);
+        } finally {
+            consumer.close(Duration.ZERO);
+        }
+    }
+
+    private boolean reached(Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Partitions of the topic, created if missing; empty if it cannot be prepared
+     * within the admin timeout
+     */
+    private List<TopicPartition> ensureTopic() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ADMIN_TIMEOUT_SECONDS);
+        try {
+            NewTopic topic = new NewTopic(settings.topic(), Optional.of(settings.partitions()), Optional.empty())
+                    .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+            try {
+                admin.createTopics(List.of(topic)).all().get(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+                log.info("Created compacted result topic {}", settings.topic());
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof TopicExistsException)) {
+                    throw e;
+                }
+            }
+            // A new topic's metadata reaches the brokers after createTopics completes
+            while (true) {
+                try {
+                    TopicDescription description = admin.describeTopics(List.of(settings.topic()))
+                            .allTopicNames().get(remainingNanos(deadline), TimeUnit.NANOSECONDS)
+                            .get(settings.topic());
+                    if (!description.partitions().isEmpty()) {
+                        return description.partitions().stream()
+                                .map(p -> new TopicPartition(settings.topic(), p.partition()))
+                                .toList();
+                    }
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof UnknownTopicOrPartitionException)) {
+                        throw e;
+                    }
+                }
+                if (remainingNanos(deadline) <= TimeUnit.MILLISECONDS.toNanos(DESCRIBE_RETRY_MILLIS)) {
+                    throw new TimeoutException("partitions not visible after " + ADMIN_TIMEOUT_SECONDS + " s");
+                }
+                Thread.sleep(DESCRIBE_RETRY_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Cannot prepare result topic {}, results are only cached by this instance: {}",
+                    settings.topic(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static long remainingNanos(long deadline) {
+        return Math.max(deadline - System.nanoTime(), 0);
+    }
+
+    /**
+     * Assigned partitions only: no group, every instance reads everything
+     */
+    private Consumer<String, String> newConsumer() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 64 * 1024);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
+        return new KafkaConsumer<>(configProps);
+    }
+
+    // A lost result is only a later miss: no retries beyond the defaults, acks from the leader
+    private Producer<String, String> newProducer() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "1");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        return new KafkaProducer<>(configProps);
+    }
+
+    @Override
+    public synchronized void close() {
+        stopped = true;
+        if (loader != null) {
+            consumer.wakeup();
+            try {
+                loader.join(TimeUnit.SECONDS.toMillis(ADMIN_TIMEOUT_SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (producer != null) {
+            producer.close(Duration.ofSeconds(ADMIN_TIMEOUT_SECONDS));
+        }
+    }
+}
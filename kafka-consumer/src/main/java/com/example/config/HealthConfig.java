@@ -0,0 +1,81 @@
+package com.example.config;
+
+import com.example.health.ListenerHealthIndicator;
+import com.example.service.MathConsumerListener;
+import org.apache.kafka.streams.KafkaStreams;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Indicators for the liveness and readiness health groups
+ * (management.endpoint.health.group.*), named processingLiveness and processingReadiness
+ */
+@Configuration
+public class HealthConfig {
+
+    @Value("${app.kafka.streams.enabled:false}")
+    private boolean streamsEnabled;
+
+    // A listener thread that has not polled for this long is stuck; the instance is restarted
+    @Value("${app.kafka.health.liveness.max-poll-age-ms:120000}")
+    private long livenessMaxPollAgeMs;
+
+    @Value("${app.kafka.health.readiness.max-poll-age-ms:30000}")
+    private long readinessMaxPollAgeMs;
+
+    @Value("${app.kafka.health.readiness.max-heartbeat-age-ms:45000}")
+    private long readinessMaxHeartbeatAgeMs;
+
+    private final ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry;
+    private final ObjectProvider<StreamsBuilderFactoryBean> streamsBuilder;
+
+    public HealthConfig(ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry,
+                        ObjectProvider<StreamsBuilderFactoryBean> streamsBuilder) {
+        this.listenerRegistry = listenerRegistry;
+        this.streamsBuilder = streamsBuilder;
+    }
+
+    @Bean
+    public ListenerHealthIndicator processingLivenessHealthIndicator() {
+        return new ListenerHealthIndicator(this::containers, streamsState(),
+                Duration.ofMillis(livenessMaxPollAgeMs), Duration.ZERO);
+    }
+
+    @Bean
+    public ListenerHealthIndicator processingReadinessHealthIndicator() {
+        return new ListenerHealthIndicator(this::containers, streamsState(),
+                Duration.ofMillis(readinessMaxPollAgeMs), Duration.ofMillis(readinessMaxHeartbeatAgeMs));
+    }
+
+    private List<MessageListenerContainer> containers() {
+        KafkaListenerEndpointRegistry registry = listenerRegistry.getIfAvailable();
+        if (registry == null) {
+            return List.of();
+        }
+        return List.of(MathConsumerListener.HIGH_LISTENER_ID, MathConsumerListener.LOW_LISTENER_ID).stream()
+                .map(registry::getListenerContainer)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Supplier<KafkaStreams.State> streamsState() {
+        if (!streamsEnabled) {
+            return null;
+        }
+        return () -> {
+            StreamsBuilderFactoryBean factoryBean = streamsBuilder.getIfAvailable();
+            KafkaStreams streams = factoryBean == null ? null : factoryBean.getKafkaStreams();
+            return streams == null ? null : streams.state();
+        };
+    }
+}
@@ -1,19 +1,35 @@
 package com.example.config;
 
+import com.example.dto.MathRequest;
+import com.example.priority.BacklogTrackingInterceptor;
+import com.example.priority.PriorityScheduler;
+import com.example.serialization.MathRequestDeserializer;
+import com.example.service.MathConsumerListener;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.MessageListenerContainer;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Configuration
+@ImportRuntimeHints(KafkaNativeHints.class)
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
@@ -22,29 +38,173 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    // Comma-separated assignor class names; empty keeps the Kafka client default (eager range)
+    @Value("${app.kafka.consumer.assignment-strategy:}")
+    private String assignmentStrategy;
+
+    // Static membership: a restarted instance rejoins with the same id within
+    // session.timeout.ms and gets its partitions back without a rebalance.
+    // Off by default: the id must be unique per process and survive restarts
+    @Value("${app.kafka.consumer.static-membership.enabled:false}")
+    private boolean staticMembershipEnabled;
+
+    @Value("${app.kafka.consumer.instance-id:}")
+    private String instanceId;
+
+    @Value("${app.kafka.consumer.session-timeout-ms:45000}")
+    private int sessionTimeoutMs;
+
+    // How long a stopping container may take to finish the records it already polled
+    @Value("${app.kafka.consumer.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    // Micrometer observation on the listener containers and the reply template:
+    // spans linked through the traceparent header and spring.kafka.* timers
+    @Value("${spring.kafka.listener.observation-enabled:true}")
+    private boolean listenerObservationEnabled;
+
+    @Value("${spring.kafka.template.observation-enabled:true}")
+    private boolean templateObservationEnabled;
+
+    // Weighted sharing between the interactive (HIGH) and bulk (LOW) request topics
+    @Value("${app.kafka.priority.enabled:true}")
+    private boolean priorityEnabled;
+
+    @Value("${app.kafka.priority.high-weight:9}")
+    private int highWeight;
+
+    @Value("${app.kafka.priority.low-weight:1}")
+    private int lowWeight;
+
+    @Value("${app.kafka.priority.check-interval-ms:50}")
+    private long priorityCheckIntervalMs;
+
+    // A pause takes effect at the next poll, so this bounds the bulk records processed after it
+    @Value("${app.kafka.priority.bulk.max-poll-records:50}")
+    private int bulkMaxPollRecords;
+
+    private final ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry;
+
+    public KafkaConfig(ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry) {
+        this.listenerRegistry = listenerRegistry;
+    }
+
     // ==================== CONSUMER CONFIG ====================
 
+    /**
+     * Consumer for the interactive request topic; its polls feed the priority scheduler
+     */
+    @Bean
+    public ConsumerFactory<String, MathRequest> consumerFactory() {
+        Map<String, Object> configProps = consumerProps();
+        configProps.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, BacklogTrackingInterceptor.class.getName());
+        configProps.put(BacklogTrackingInterceptor.SCHEDULER_CONFIG, priorityScheduler());
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, MathRequest> bulkConsumerFactory() {
+        Map<String, Object> configProps = consumerProps();
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, bulkMaxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    private Map<String, Object> consumerProps() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Streams the "expression" and "variables" fields out of the request, the listener receives them as a MathRequest
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MathRequestDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMs);
+        if (!assignmentStrategy.isBlank()) {
+            configProps.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, assignmentStrategy);
+        }
+        if (staticMembershipEnabled) {
+            // The container appends "-n" per consumer thread when concurrency > 1
+            configProps.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, resolveInstanceId());
+        }
+        return configProps;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, MathRequest> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, MathRequest> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        // On shutdown, finish and commit the records already polled before leaving the group
+        factory.getContainerProperties().setShutdownTimeout(shutdownTimeoutMs);
+        factory.getContainerProperties().setObservationEnabled(listenerObservationEnabled);
         // Enable @SendTo to work - set the reply template
         factory.setReplyTemplate(kafkaTemplate());
         return factory;
     }
 
+    /**
+     * Bulk requests; paused by the priority scheduler
+     * Not pauseImmediate: a resume racing the pause then stops the container with records held back
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, MathRequest> bulkListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, MathRequest> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(bulkConsumerFactory());
+        factory.getContainerProperties().setShutdownTimeout(shutdownTimeoutMs);
+        factory.getContainerProperties().setObservationEnabled(listenerObservationEnabled);
+        factory.setReplyTemplate(kafkaTemplate());
+        return factory;
+    }
+
+    // ==================== PRIORITY CONFIG ====================
+
+    /**
+     * The containers are looked up when first used, they are created after this bean
+     */
+    @Bean
+    public PriorityScheduler priorityScheduler() {
+        PriorityScheduler scheduler = new PriorityScheduler(priorityEnabled, highWeight, lowWeight,
+                () -> lag(container(MathConsumerListener.HIGH_LISTENER_ID)),
+                () -> withContainer(MathConsumerListener.LOW_LISTENER_ID, MessageListenerContainer::pause),
+                () -> withContainer(MathConsumerListener.LOW_LISTENER_ID, MessageListenerContainer::resume));
+        if (priorityEnabled) {
+            scheduler.start(Duration.ofMillis(priorityCheckIntervalMs));
+        }
+        return scheduler;
+    }
+
+    private MessageListenerContainer container(String id) {
+        KafkaListenerEndpointRegistry registry = listenerRegistry.getIfAvailable();
+        return registry == null ? null : registry.getListenerContainer(id);
+    }
+
+    private void withContainer(String id, Consumer<MessageListenerContainer> action) {
+        MessageListenerContainer container = container(id);
+        if (container != null) {
+            action.accept(container);
+        }
+    }
+
+    /**
+     * Sum of the per-partition records-lag the consumer computed on its last fetch
+     */
+    private static long lag(MessageListenerContainer container) {
+        if (container == null || !container.isRunning()) {
+            return 0;
+        }
+        long lag = 0;
+        for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                MetricName name = metric.getKey();
+                if ("records-lag".equals(name.name()) && name.tags().containsKey("partition")
+                        && metric.getValue().metricValue() instanceof Double value && value > 0) {
+                    lag += value.longValue();
+                }
+            }
+        }
+        return lag;
+    }
+
     // ==================== PRODUCER CONFIG (for @SendTo replies) ====================
 
     @Bean
@@ -59,6 +219,24 @@ public class KafkaConfig {
 
     @Bean
     public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory());
+        template.setObservationEnabled(templateObservationEnabled);
+        return template;
+    }
+
+    /**
+     * Stable member id for static membership: the configured id (StatefulSet pod
+     * name in Kubernetes), otherwise the host name, which must then be unique
+     */
+    private String resolveInstanceId() {
+        if (!instanceId.isBlank()) {
+            return instanceId;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot derive group.instance.id from the host name, "
+                    + "set app.kafka.consumer.instance-id", e);
+        }
     }
 }
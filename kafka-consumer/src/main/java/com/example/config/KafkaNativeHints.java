@@ -0,0 +1,45 @@
+package com.example.config;
+
+import com.example.expression.MathFunction;
+import com.example.priority.BacklogTrackingInterceptor;
+import com.example.serialization.MathRequestDeserializer;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.consumer.RangeAssignor;
+import org.apache.kafka.clients.consumer.RoundRobinAssignor;
+import org.apache.kafka.clients.consumer.StickyAssignor;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Native-image hints for what the Kafka client loads by class name or from the classpath
+ * - serializers, assignors and interceptors, instantiated reflectively from the client config
+ * - the version resource read by AppInfoParser
+ * - the static methods expressions are compiled to, looked up as method handles
+ * Jackson needs none: requests are read with the streaming parser, replies built as ObjectNode
+ */
+public class KafkaNativeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        List.of(MathRequestDeserializer.class,
+                        StringDeserializer.class,
+                        StringSerializer.class,
+                        CooperativeStickyAssignor.class,
+                        RangeAssignor.class,
+                        RoundRobinAssignor.class,
+                        StickyAssignor.class,
+                        BacklogTrackingInterceptor.class)
+                .forEach(type -> hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+        hints.resources().registerPattern("kafka/kafka-version.properties");
+        hints.reflection().registerType(Math.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(MathFunction.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(TypeReference.of("com.example.expression.Operators"),
+                MemberCategory.INVOKE_DECLARED_METHODS);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.config;
+
+import com.example.service.MathMessageCodec;
+import com.example.service.MathProcessorService;
+import com.example.service.MathStreamsTopology;
+import com.example.service.RequestDeadlines;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional Kafka Streams implementation of the math processor.
+ * Enabled with app.kafka.streams.enabled=true, which also keeps the
+ * MathConsumerListener container from starting.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "app.kafka.streams.enabled", havingValue = "true")
+public class KafkaStreamsConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${app.kafka.streams.application-id:math-streams-processor}")
+    private String applicationId;
+
+    @Value("${app.kafka.streams.num-threads:1}")
+    private int numThreads;
+
+    @Value("${app.kafka.streams.result-store.enabled:false}")
+    private boolean resultStoreEnabled;
+
+    @Value("${app.kafka.topic.request}")
+    private String requestTopic;
+
+    @Value("${app.kafka.topic.request-bulk}")
+    private String bulkRequestTopic;
+
+    @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
+    public KafkaStreamsConfiguration kafkaStreamsConfiguration() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, numThreads);
+        props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Streams batches its producer for 100 ms by default; each reply is awaited, send it right away
+        props.put(StreamsConfig.producerPrefix(ProducerConfig.LINGER_MS_CONFIG), 0);
+        return new KafkaStreamsConfiguration(props);
+    }
+
+    @Bean
+    public MathStreamsTopology mathStreamsTopology(MathProcessorService mathProcessorService,
+                                                   MathMessageCodec mathMessageCodec,
+                                                   RequestDeadlines requestDeadlines,
+                                                   StreamsBuilder streamsBuilder) {
+        MathStreamsTopology topology = new MathStreamsTopology(
+                mathProcessorService, mathMessageCodec, requestDeadlines,
+                List.of(requestTopic, bulkRequestTopic), resultStoreEnabled);
+        topology.build(streamsBuilder);
+        return topology;
+    }
+}
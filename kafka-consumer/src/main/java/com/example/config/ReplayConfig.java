@@ -0,0 +1,50 @@
+package com.example.config;
+
+import com.example.replay.ReplayService;
+import com.example.service.MathMessageCodec;
+import com.example.service.MathProcessorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class ReplayConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${app.kafka.topic.request}")
+    private String requestTopic;
+
+    @Value("${app.kafka.topic.request-bulk}")
+    private String bulkRequestTopic;
+
+    @Value("${app.kafka.replay.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.kafka.replay.checkpoint-dir:${java.io.tmpdir}/math-replay}")
+    private String checkpointDir;
+
+    @Value("${app.kafka.replay.checkpoint-interval-ms:5000}")
+    private long checkpointIntervalMs;
+
+    @Value("${app.kafka.replay.output-dir:${java.io.tmpdir}/math-replay/output}")
+    private String outputDir;
+
+    @Bean(destroyMethod = "close")
+    public ReplayService replayService(Admin adminClient, MathProcessorService mathProcessorService,
+                                       MathMessageCodec mathMessageCodec, ObjectMapper objectMapper,
+                                       MeterRegistry meterRegistry) {
+        return new ReplayService(adminClient, bootstrapServers, mathProcessorService, mathMessageCodec,
+                objectMapper, meterRegistry, new ReplayService.Settings(requestTopic,
+                List.of(requestTopic, bulkRequestTopic), parallelism, Path.of(checkpointDir),
+                Duration.ofMillis(checkpointIntervalMs), Path.of(outputDir)));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.config;
+
+import com.example.cache.ResultCache;
+import com.example.cache.SharedResultCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Configuration
+public class ResultCacheConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    // Not started in Streams mode: the listener it serves does not run there
+    @Value("${app.kafka.result-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.kafka.streams.enabled:false}")
+    private boolean streamsEnabled;
+
+    @Value("${app.kafka.result-cache.topic:math-results}")
+    private String topic;
+
+    @Value("${app.kafka.result-cache.partitions:3}")
+    private int partitions;
+
+    @Value("${app.kafka.result-cache.max-memory:64MB}")
+    private DataSize maxMemory;
+
+    @Value("${app.kafka.result-cache.warm-up:full}")
+    private String warmUp;
+
+    @Value("${app.kafka.result-cache.warm-up-records:100000}")
+    private long warmUpRecords;
+
+    @Value("${app.kafka.result-cache.warm-up-timeout-ms:30000}")
+    private long warmUpTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public SharedResultCache sharedResultCache(Admin adminClient, MeterRegistry meterRegistry) {
+        ResultCache cache = new ResultCache(maxMemory.toBytes());
+        SharedResultCache shared = new SharedResultCache(cache, adminClient, bootstrapServers,
+                new SharedResultCache.Settings(topic, partitions,
+                        SharedResultCache.WarmUp.valueOf(warmUp.trim().toUpperCase(Locale.ROOT)),
+                        warmUpRecords, Duration.ofMillis(warmUpTimeoutMs)));
+
+        FunctionCounter.builder("math.result.cache.requests", cache, ResultCache::hits).tag("outcome", "hit")
+                .description("Lookups in the shared result cache").register(meterRegistry);
+        FunctionCounter.builder("math.result.cache.requests", cache, ResultCache::misses).tag("outcome", "miss")
+                .description("Lookups in the shared result cache").register(meterRegistry);
+        Gauge.builder("math.result.cache.size", cache, ResultCache::size)
+                .description("Results held in the local copy of the shared result cache")
+                .register(meterRegistry);
+        Gauge.builder("math.result.cache.memory", cache, ResultCache::bytes).baseUnit("bytes")
+                .description("Estimated memory held by the cached results")
+                .register(meterRegistry);
+        Gauge.builder("math.result.cache.warmup", shared, SharedResultCache::warmUpSeconds).baseUnit("seconds")
+                .description("Time taken to load the result topic on start, -1 while loading")
+                .register(meterRegistry);
+        return shared;
+    }
+
+    /**
+     * Warms the cache up in the phase before the listener containers start, so they
+     * begin with the shared results; bean creation does not wait for the topic
+     */
+    @Bean
+    public SmartLifecycle sharedResultCacheStarter(SharedResultCache sharedResultCache) {
+        return new SmartLifecycle() {
+
+            private volatile boolean running;
+
+            @Override
+            public void start() {
+                if (enabled && !streamsEnabled) {
+                    try {
+                        sharedResultCache.start();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                running = true;
+            }
+
+            // Closed with the bean: the topic is tailed until shutdown
+            @Override
+            public void stop() {
+                running = false;
+            }
+
+            @Override
+            public boolean isRunning() {
+                return running;
+            }
+
+            @Override
+            public int getPhase() {
+                return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+            }
+        };
+    }
+}
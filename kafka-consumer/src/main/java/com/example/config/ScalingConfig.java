@@ -0,0 +1,141 @@
+package com.example.config;
+
+import com.example.scaling.ScalingAdvisor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ScalingConfig {
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 10;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${app.kafka.priority.bulk.group-id:${spring.kafka.consumer.group-id}-bulk}")
+    private String bulkGroupId;
+
+    @Value("${app.kafka.topic.request}")
+    private String requestTopic;
+
+    @Value("${app.kafka.topic.request-bulk}")
+    private String bulkRequestTopic;
+
+    @Value("${app.kafka.scaling.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.kafka.scaling.interval-ms:10000}")
+    private long intervalMs;
+
+    @Value("${app.kafka.scaling.target-utilization:0.7}")
+    private double targetUtilization;
+
+    @Value("${app.kafka.scaling.drain-seconds:60}")
+    private long drainSeconds;
+
+    @Value("${app.kafka.scaling.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${app.kafka.scaling.min-replicas:1}")
+    private int minReplicas;
+
+    @Value("${app.kafka.scaling.max-replicas:0}")
+    private int maxReplicas;
+
+    @Value("${app.kafka.scaling.scale-down-stabilization-seconds:300}")
+    private long scaleDownStabilizationSeconds;
+
+    /**
+     * Reads the group-wide offsets for the scaling advisor
+     */
+    @Bean(destroyMethod = "close")
+    public Admin adminClient() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(AdminClientConfig.CLIENT_ID_CONFIG, "kafka-consumer-admin");
+        configProps.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, 5000);
+        configProps.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, 10000);
+        return Admin.create(configProps);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ScalingAdvisor scalingAdvisor(MeterRegistry meterRegistry) {
+        ScalingAdvisor advisor = new ScalingAdvisor(new ScalingAdvisor.Settings(targetUtilization,
+                Duration.ofSeconds(drainSeconds), maxConcurrency, minReplicas, maxReplicas,
+                Duration.ofSeconds(scaleDownStabilizationSeconds)));
+        Gauge.builder("math.scaling.recommended.replicas", advisor, a -> a.current().replicas())
+                .description("Consumer replicas recommended for the current load")
+                .register(meterRegistry);
+        Gauge.builder("math.scaling.recommended.concurrency", advisor, a -> a.current().concurrency())
+                .description("Listener threads per replica recommended for the current load")
+                .register(meterRegistry);
+        if (enabled) {
+            Admin admin = adminClient();
+            advisor.start(Duration.ofMillis(intervalMs),
+                    () -> groupOffsets(admin, Map.of(groupId, requestTopic, bulkGroupId, bulkRequestTopic)));
+        }
+        return advisor;
+    }
+
+    /**
+     * Offsets summed over all partitions of each group's topic; partitions the group has
+     * not committed yet count from the earliest offset (auto.offset.reset=earliest)
+     */
+    private static ScalingAdvisor.GroupOffsets groupOffsets(Admin admin, Map<String, String> topicByGroup) {
+        try {
+            Map<String, TopicDescription> topics = admin.describeTopics(List.copyOf(topicByGroup.values()))
+                    .allTopicNames().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            topics.values().forEach(topic -> topic.partitions().forEach(p -> {
+                TopicPartition partition = new TopicPartition(topic.name(), p.partition());
+                earliest.put(partition, OffsetSpec.earliest());
+                latest.put(partition, OffsetSpec.latest());
+            }));
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> begin =
+                    admin.listOffsets(earliest).all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> end =
+                    admin.listOffsets(latest).all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            long committed = 0;
+            long logEnd = 0;
+            for (Map.Entry<String, String> group : topicByGroup.entrySet()) {
+                Map<TopicPartition, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets(group.getKey())
+                        .partitionsToOffsetAndMetadata().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                for (TopicPartition partition : latest.keySet()) {
+                    if (!partition.topic().equals(group.getValue())) {
+                        continue;
+                    }
+                    OffsetAndMetadata offset = offsets.get(partition);
+                    committed += offset != null ? offset.offset() : begin.get(partition).offset();
+                    logEnd += end.get(partition).offset();
+                }
+            }
+            return new ScalingAdvisor.GroupOffsets(committed, logEnd, latest.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted reading group offsets", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read group offsets: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,5 +1,14 @@
 package com.example.controller;
 
+import com.example.priority.PriorityScheduler;
+import com.example.priority.PriorityScheduler.Priority;
+import com.example.scaling.ScalingAdvisor;
+import com.example.service.RequestDeadlines;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,14 +19,64 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 public class HealthController {
 
+    private final HealthEndpoint healthEndpoint;
+    private final RequestDeadlines requestDeadlines;
+    private final PriorityScheduler priorityScheduler;
+    private final ScalingAdvisor scalingAdvisor;
+
+    /**
+     * Readiness: listener containers polling and heartbeating (or the Streams topology
+     * running); 503 otherwise. Liveness alone is at /actuator/health/liveness
+     * GET /api/health
+     */
     @GetMapping("/health")
-    public ResponseEntity<Map<String, String>> health() {
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
+    public ResponseEntity<Map<String, Object>> health() {
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", readiness.getStatus().getCode());
         response.put("service", "Kafka Consumer (Math Processor)");
+        response.put("readiness", readiness);
+        return ResponseEntity.status(Status.UP.equals(readiness.getStatus())
+                ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
+    /**
+     * Requests dropped because the producer's deadline had passed
+     * GET /api/deadlines
+     */
+    @GetMapping("/deadlines")
+    public ResponseEntity<Map<String, Object>> deadlines() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", requestDeadlines.isEnabled());
+        response.put("expiredDropped", requestDeadlines.expiredCount());
         return ResponseEntity.ok(response);
     }
-}
 
+    /**
+     * Interactive backlog and whether bulk requests are held back for it
+     * GET /api/priority
+     */
+    @GetMapping("/priority")
+    public ResponseEntity<Map<String, Object>> priority() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", priorityScheduler.isEnabled());
+        response.put("highBacklog", priorityScheduler.highBacklog());
+        response.put("lowPaused", priorityScheduler.isLowPaused());
+        response.put("lowPauses", priorityScheduler.lowPauseCount());
+        response.put("highProcessed", priorityScheduler.processedCount(Priority.HIGH));
+        response.put("lowProcessed", priorityScheduler.processedCount(Priority.LOW));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Recommended replicas and listener threads per replica, with the inputs they are based on
+     * GET /api/scaling
+     */
+    @GetMapping("/scaling")
+    public ResponseEntity<ScalingAdvisor.Recommendation> scaling() {
+        return ResponseEntity.ok(scalingAdvisor.current());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.controller;
+
+import com.example.replay.ReplayConflictException;
+import com.example.replay.ReplayJob;
+import com.example.replay.ReplayRequest;
+import com.example.replay.ReplayService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/replay")
+@RequiredArgsConstructor
+public class ReplayController {
+
+    private final ReplayService replayService;
+
+    /**
+     * Start re-evaluating a range of math requests
+     * POST /api/replay
+     * Body: {"fromTime":"2024-01-01T00:00:00Z","toTime":"2024-01-02T00:00:00Z","targetFile":"replay.ndjson"}
+     */
+    @PostMapping
+    public ResponseEntity<ReplayJob.Progress> start(@RequestBody ReplayRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(replayService.start(request));
+    }
+
+    /**
+     * Continue a cancelled, failed or interrupted job from its last checkpoint
+     * POST /api/replay/{jobId}/resume
+     */
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<ReplayJob.Progress> resume(@PathVariable String jobId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(replayService.resume(jobId));
+    }
+
+    /**
+     * Jobs started or resumed since this instance started
+     * GET /api/replay
+     */
+    @GetMapping
+    public ResponseEntity<List<ReplayJob.Progress>> list() {
+        return ResponseEntity.ok(replayService.list());
+    }
+
+    /**
+     * Progress, throughput and estimated time left
+     * GET /api/replay/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ReplayJob.Progress> progress(@PathVariable String jobId) {
+        return ResponseEntity.ok(replayService.progress(jobId));
+    }
+
+    /**
+     * Stop a job after the current batches; resumable from its checkpoint
+     * DELETE /api/replay/{jobId}
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<ReplayJob.Progress> cancel(@PathVariable String jobId) {
+        return ResponseEntity.ok(replayService.cancel(jobId));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(ReplayConflictException.class)
+    public ResponseEntity<Map<String, Object>> conflict(ReplayConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Map<String, Object>> notFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.dto;
+
+import java.util.Map;
+
+/**
+ * A math request as read by MathRequestDeserializer
+ *
+ * @param variables values of the variables named in the expression, empty when none were sent
+ */
+public record MathRequest(String expression, Map<String, Double> variables) {
+
+    public static MathRequest of(String expression) {
+        return new MathRequest(expression, Map.of());
+    }
+}
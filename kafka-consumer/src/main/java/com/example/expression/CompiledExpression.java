@@ -0,0 +1,97 @@
+package com.example.expression;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A parsed expression, evaluated by walking its tree until it has been evaluated
+ * compileThreshold times, then through its compiled method handle
+ *
+ * Cold expressions never pay for compiling; hot ones, typically the same
+ * expression with different variable bindings, run without interpretation.
+ */
+public final class CompiledExpression {
+
+    private final ExpressionParser.Parsed parsed;
+    private final int compileThreshold;
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private volatile MethodHandle handle;
+
+    public CompiledExpression(String expression, int compileThreshold) {
+        this.parsed = ExpressionParser.parse(expression);
+        this.compileThreshold = compileThreshold;
+    }
+
+    /**
+     * Variable names in slot order
+     */
+    public List<String> variables() {
+        return parsed.variables();
+    }
+
+    public boolean isCompiled() {
+        return handle != null;
+    }
+
+    public double evaluate(Map<String, Double> variables) {
+        double[] bindings = bind(variables);
+        MethodHandle compiled = handle;
+        if (compiled == null) {
+            if (evaluations.incrementAndGet() < compileThreshold) {
+                return interpret(bindings);
+            }
+            compiled = compile();
+        }
+        return invoke(compiled, bindings);
+    }
+
+    /**
+     * Bindings array for the given variables, in slot order
+     */
+    public double[] bind(Map<String, Double> variables) {
+        List<String> names = parsed.variables();
+        double[] bindings = new double[names.size()];
+        for (int i = 0; i < bindings.length; i++) {
+            Double value = variables == null ? null : variables.get(names.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown variable: " + names.get(i));
+            }
+            bindings[i] = value;
+        }
+        return bindings;
+    }
+
+    /**
+     * Tree-walking evaluation
+     */
+    public double interpret(double[] bindings) {
+        return parsed.root().evaluate(bindings);
+    }
+
+    /**
+     * Evaluation through the compiled handle, compiling on first use
+     */
+    public double invoke(double[] bindings) {
+        MethodHandle compiled = handle;
+        return invoke(compiled != null ? compiled : compile(), bindings);
+    }
+
+    private synchronized MethodHandle compile() {
+        if (handle == null) {
+            handle = ExpressionCompiler.compile(parsed.root());
+        }
+        return handle;
+    }
+
+    private static double invoke(MethodHandle compiled, double[] bindings) {
+        try {
+            return (double) compiled.invokeExact(bindings);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
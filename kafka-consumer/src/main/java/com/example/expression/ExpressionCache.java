@@ -0,0 +1,54 @@
+package com.example.expression;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed and compiled expressions by their text, least recently used evicted first
+ *
+ * Lookups take a lock, held only for the map access; parsing happens outside it,
+ * so two threads may parse the same new expression once each.
+ */
+public class ExpressionCache {
+
+    private final int compileThreshold;
+    private final Map<String, CompiledExpression> expressions;
+
+    /**
+     * @param capacity         expressions kept; 0 disables caching
+     * @param compileThreshold evaluations of one expression before it is compiled
+     */
+    public ExpressionCache(int capacity, int compileThreshold) {
+        this.compileThreshold = compileThreshold;
+        this.expressions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Throws IllegalArgumentException for invalid expressions, which are not cached
+     */
+    public CompiledExpression get(String expression) {
+        CompiledExpression cached;
+        synchronized (expressions) {
+            cached = expressions.get(expression);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        CompiledExpression parsed = new CompiledExpression(expression, compileThreshold);
+        synchronized (expressions) {
+            CompiledExpression raced = expressions.putIfAbsent(expression, parsed);
+            return raced != null ? raced : parsed;
+        }
+    }
+
+    public int size() {
+        synchronized (expressions) {
+            return expressions.size();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.expression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Compiles a Node tree into a method handle of type (double[])double
+ *
+ * Every node becomes a handle over the bindings array: constants, array element
+ * reads for variables, and static operator or Math methods combined with
+ * filterArguments. Subtrees without variables are folded into constants. Chains of
+ * more than MAX_NESTED_OPERANDS operands loop over their operand handles instead, so
+ * the handle tree stays about as deep as the expression's nesting. Once a
+ * handle is called often enough the JVM customizes its lambda forms into bytecode
+ * specific to this tree, which the JIT then inlines like ordinary code; no
+ * dispatch on node types remains, unlike Node.evaluate.
+ */
+public final class ExpressionCompiler {
+
+    public static final MethodType TYPE = MethodType.methodType(double.class, double[].class);
+
+    static final int MAX_NESTED_OPERANDS = 16;
+
+    private static final MethodType BINARY = MethodType.methodType(double.class, double.class, double.class);
+    private static final MethodHandle ADD;
+    private static final MethodHandle SUBTRACT;
+    private static final MethodHandle MULTIPLY;
+    private static final MethodHandle DIVIDE;
+    private static final MethodHandle NEGATE;
+    private static final MethodHandle CHAIN;
+    private static final MethodHandle ELEMENT = MethodHandles.arrayElementGetter(double[].class);
+    private static final double[] NO_BINDINGS = new double[0];
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ADD = lookup.findStatic(Operators.class, "add", BINARY);
+            SUBTRACT = lookup.findStatic(Operators.class, "subtract", BINARY);
+            MULTIPLY = lookup.findStatic(Operators.class, "multiply", BINARY);
+            DIVIDE = lookup.findStatic(Operators.class, "divide", BINARY);
+            NEGATE = lookup.findStatic(Operators.class, "negate", MethodType.methodType(double.class, double.class));
+            CHAIN = lookup.findStatic(Operators.class, "chain",
+                    MethodType.methodType(double.class, String.class, MethodHandle[].class, double[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Division by zero in a constant subtree throws ArithmeticException here, as
+     * evaluation would
+     */
+    public static MethodHandle compile(Node node) {
+        if (isConstant(node)) {
+            return constant(node.evaluate(NO_BINDINGS));
+        }
+        if (node instanceof Node.Variable variable) {
+            return MethodHandles.insertArguments(ELEMENT, 1, variable.slot());
+        }
+        if (node instanceof Node.Negate negate) {
+            return MethodHandles.filterReturnValue(compile(negate.operand()), NEGATE);
+        }
+        if (node instanceof Node.Chain chain) {
+            return compileChain(chain);
+        }
+        return compileCall((Node.Call) node);
+    }
+
+    private static MethodHandle compileChain(Node.Chain chain) {
+        List<Node> operands = chain.operands();
+        if (operands.size() > MAX_NESTED_OPERANDS) {
+            MethodHandle[] handles = new MethodHandle[operands.size()];
+            for (int i = 0; i < handles.length; i++) {
+                handles[i] = compile(operands.get(i));
+            }
+            return MethodHandles.insertArguments(CHAIN, 0, chain.operators(), handles);
+        }
+        // Left to right, as Node.Chain evaluates
+        MethodHandle result = compile(operands.get(0));
+        for (int i = 1; i < operands.size(); i++) {
+            MethodHandle pair = MethodHandles.filterArguments(operator(chain.operators().charAt(i - 1)), 0,
+                    result, compile(operands.get(i)));
+            result = MethodHandles.permuteArguments(pair, TYPE, 0, 0);
+        }
+        return result;
+    }
+
+    private static MethodHandle compileCall(Node.Call call) {
+        MethodHandle function = call.function().handle();
+        if (call.function().arity() >= 0) {
+            return combine(function, call.arguments());
+        }
+        // min/max: fold the arguments pairwise, left to right
+        List<Node> arguments = call.arguments();
+        MethodHandle result = compile(arguments.get(0));
+        for (int i = 1; i < arguments.size(); i++) {
+            MethodHandle pair = MethodHandles.filterArguments(function, 0, result, compile(arguments.get(i)));
+            result = MethodHandles.permuteArguments(pair, TYPE, 0, 0);
+        }
+        return result;
+    }
+
+    /**
+     * target(double...)double applied to the compiled operands, all reading the same bindings
+     */
+    private static MethodHandle combine(MethodHandle target, List<Node> operands) {
+        MethodHandle[] filters = new MethodHandle[operands.size()];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = compile(operands.get(i));
+        }
+        MethodHandle filtered = MethodHandles.filterArguments(target, 0, filters);
+        return MethodHandles.permuteArguments(filtered, TYPE, new int[filters.length]);
+    }
+
+    private static MethodHandle operator(char operator) {
+        return switch (operator) {
+            case '+' -> ADD;
+            case '-' -> SUBTRACT;
+            case '*' -> MULTIPLY;
+            case '/' -> DIVIDE;
+            default -> throw new IllegalStateException("Unknown operator " + operator);
+        };
+    }
+
+    private static MethodHandle constant(double value) {
+        return MethodHandles.dropArguments(MethodHandles.constant(double.class, value), 0, double[].class);
+    }
+
+    private static boolean isConstant(Node node) {
+        if (node instanceof Node.Constant) {
+            return true;
+        }
+        if (node instanceof Node.Negate negate) {
+            return isConstant(negate.operand());
+        }
+        if (node instanceof Node.Chain chain) {
+            return chain.operands().stream().allMatch(ExpressionCompiler::isConstant);
+        }
+        if (node instanceof Node.Call call) {
+            return call.arguments().stream().allMatch(ExpressionCompiler::isConstant);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursive descent parser for math expressions
+ *
+ * expression := term (('+' | '-') term)*
+ * term       := factor (('*' | '/') factor)*
+ * factor     := ('+' | '-') factor | number | '(' expression ')'
+ *             | name '(' expression (',' expression)* ')' | name
+ *
+ * A name followed by '(' is a MathFunction; pi and e are constants; any other name
+ * is a variable, numbered in order of first appearance.
+ *
+ * Sums and products become one Node.Chain however long they are; nesting through
+ * parentheses, signs and calls is limited to MAX_DEPTH, so parsing, evaluation and
+ * compilation stay far from the thread's stack limit.
+ */
+public final class ExpressionParser {
+
+    public static final int MAX_DEPTH = 200;
+
+    private static final Map<String, Double> CONSTANTS = Map.of("pi", Math.PI, "e", Math.E);
+
+    /**
+     * @param variables names by slot, the bindings array passed to evaluation follows this order
+     */
+    public record Parsed(Node root, List<String> variables) {
+    }
+
+    private final String expression;
+    private final Map<String, Node.Variable> variables = new LinkedHashMap<>();
+    private int pos = -1;
+    private int ch;
+    private int depth;
+
+    private ExpressionParser(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Throws IllegalArgumentException with the reason for invalid expressions
+     */
+    public static Parsed parse(String expression) {
+        return new ExpressionParser(expression).parse();
+    }
+
+    private Parsed parse() {
+        nextChar();
+        Node root = parseExpression();
+        if (ch != -1) {
+            throw new IllegalArgumentException("Unexpected character: " + (char) ch);
+        }
+        return new Parsed(root, List.copyOf(variables.keySet()));
+    }
+
+    private void nextChar() {
+        ch = (++pos < expression.length()) ? expression.charAt(pos) : -1;
+    }
+
+    private void skipWhitespace() {
+        while (ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r') {
+            nextChar();
+        }
+    }
+
+    private boolean eat(int charToEat) {
+        skipWhitespace();
+        if (ch == charToEat) {
+            nextChar();
+            return true;
+        }
+        return false;
+    }
+
+    private Node parseExpression() {
+        List<Node> operands = new ArrayList<>();
+        StringBuilder operators = new StringBuilder();
+        operands.add(parseTerm());
+        for (;;) {
+            if (eat('+')) operators.append('+');
+            else if (eat('-')) operators.append('-');
+            else return chain(operators, operands);
+            operands.add(parseTerm());
+        }
+    }
+
+    private Node parseTerm() {
+        List<Node> operands = new ArrayList<>();
+        StringBuilder operators = new StringBuilder();
+        operands.add(parseFactor());
+        for (;;) {
+            if (eat('*')) operators.append('*');
+            else if (eat('/')) operators.append('/');
+            else return chain(operators, operands);
+            operands.add(parseFactor());
+        }
+    }
+
+    private static Node chain(StringBuilder operators, List<Node> operands) {
+        return operands.size() == 1 ? operands.get(0) : new Node.Chain(operators.toString(), operands);
+    }
+
+    private Node parseFactor() {
+        if (++depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Expression nested deeper than " + MAX_DEPTH + " levels");
+        }
+        try {
+            return parseNested();
+        } finally {
+            depth--;
+        }
+    }
+
+    private Node parseNested() {
+        if (eat('+')) return parseFactor();
+        if (eat('-')) return new Node.Negate(parseFactor());
+
+        skipWhitespace();
+        int startPos = pos;
+        if (eat('(')) {
+            Node result = parseExpression();
+            if (!eat(')')) {
+                throw new IllegalArgumentException("Missing closing parenthesis");
+            }
+            return result;
+        }
+        if ((ch >= '0' && ch <= '9') || ch == '.') {
+            while ((ch >= '0' && ch <= '9') || ch == '.') nextChar();
+            return new Node.Constant(Double.parseDouble(expression.substring(startPos, pos)));
+        }
+        if (Character.isLetter(ch) || ch == '_') {
+            while (Character.isLetterOrDigit(ch) || ch == '_') nextChar();
+            String name = expression.substring(startPos, pos);
+            return eat('(') ? parseCall(name) : parseName(name);
+        }
+        throw new IllegalArgumentException(ch == -1 ? "Unexpected end of expression" : "Unexpected: " + (char) ch);
+    }
+
+    private Node parseCall(String name) {
+        MathFunction function = MathFunction.byName(name);
+        if (function == null) {
+            throw new IllegalArgumentException("Unknown function: " + name);
+        }
+        List<Node> arguments = new ArrayList<>();
+        if (!eat(')')) {
+            do {
+                arguments.add(parseExpression());
+            } while (eat(','));
+            if (!eat(')')) {
+                throw new IllegalArgumentException("Missing closing parenthesis");
+            }
+        }
+        int arity = function.arity();
+        if (arity < 0 ? arguments.isEmpty() : arguments.size() != arity) {
+            throw new IllegalArgumentException(function.functionName() + " takes "
+                    + (arity < 0 ? "at least 1 argument" : arity + (arity == 1 ? " argument" : " arguments")));
+        }
+        return new Node.Call(function, List.copyOf(arguments));
+    }
+
+    private Node parseName(String name) {
+        Double constant = CONSTANTS.get(name);
+        if (constant != null) {
+            return new Node.Constant(constant);
+        }
+        return variables.computeIfAbsent(name, n -> new Node.Variable(n, variables.size()));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.expression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Functions callable from expressions, by lower-case name
+ *
+ * Each is backed by a static method taking and returning doubles, called directly
+ * by the interpreter and bound into the method handle tree by the compiler.
+ * min and max take one or more arguments and are folded pairwise.
+ * round rounds half up, like Math.round, but stays a double.
+ */
+public enum MathFunction {
+
+    SQRT("sqrt", 1, "sqrt"),
+    CBRT("cbrt", 1, "cbrt"),
+    ABS("abs", 1, "abs"),
+    EXP("exp", 1, "exp"),
+    LN("ln", 1, "log"),
+    LOG("log", 1, "log"),
+    LOG10("log10", 1, "log10"),
+    FLOOR("floor", 1, "floor"),
+    CEIL("ceil", 1, "ceil"),
+    ROUND("round", 1, MathFunction.class, "round"),
+    SIN("sin", 1, "sin"),
+    COS("cos", 1, "cos"),
+    TAN("tan", 1, "tan"),
+    ASIN("asin", 1, "asin"),
+    ACOS("acos", 1, "acos"),
+    ATAN("atan", 1, "atan"),
+    POW("pow", 2, "pow"),
+    HYPOT("hypot", 2, "hypot"),
+    ATAN2("atan2", 2, "atan2"),
+    MIN("min", -1, "min"),
+    MAX("max", -1, "max");
+
+    private static final Map<String, MathFunction> BY_NAME = new HashMap<>();
+
+    static {
+        for (MathFunction function : values()) {
+            BY_NAME.put(function.functionName, function);
+        }
+    }
+
+    private final String functionName;
+    private final int arity;
+    private final MethodHandle handle;
+
+    MathFunction(String functionName, int arity, String mathMethod) {
+        this(functionName, arity, Math.class, mathMethod);
+    }
+
+    MathFunction(String functionName, int arity, Class<?> owner, String method) {
+        this.functionName = functionName;
+        this.arity = arity;
+        int parameters = arity < 0 ? 2 : arity;
+        MethodType type = MethodType.methodType(double.class, Collections.nCopies(parameters, double.class));
+        try {
+            this.handle = MethodHandles.lookup().findStatic(owner, method, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Returns null for unknown names
+     */
+    public static MathFunction byName(String name) {
+        return BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public String functionName() {
+        return functionName;
+    }
+
+    /**
+     * Fixed number of arguments, or -1 for one or more
+     */
+    public int arity() {
+        return arity;
+    }
+
+    /**
+     * Static Math method of type (double{arity})double; (double,double)double for min and max
+     */
+    public MethodHandle handle() {
+        return handle;
+    }
+
+    public double apply(double[] args) {
+        return switch (this) {
+            case SQRT -> Math.sqrt(args[0]);
+            case CBRT -> Math.cbrt(args[0]);
+            case ABS -> Math.abs(args[0]);
+            case EXP -> Math.exp(args[0]);
+            case LN, LOG -> Math.log(args[0]);
+            case LOG10 -> Math.log10(args[0]);
+            case FLOOR -> Math.floor(args[0]);
+            case CEIL -> Math.ceil(args[0]);
+            case ROUND -> round(args[0]);
+            case SIN -> Math.sin(args[0]);
+            case COS -> Math.cos(args[0]);
+            case TAN -> Math.tan(args[0]);
+            case ASIN -> Math.asin(args[0]);
+            case ACOS -> Math.acos(args[0]);
+            case ATAN -> Math.atan(args[0]);
+            case POW -> Math.pow(args[0], args[1]);
+            case HYPOT -> Math.hypot(args[0], args[1]);
+            case ATAN2 -> Math.atan2(args[0], args[1]);
+            case MIN -> {
+                double min = args[0];
+                for (int i = 1; i < args.length; i++) {
+                    min = Math.min(min, args[i]);
+                }
+                yield min;
+            }
+            case MAX -> {
+                double max = args[0];
+                for (int i = 1; i < args.length; i++) {
+                    max = Math.max(max, args[i]);
+                }
+                yield max;
+            }
+        };
+    }
+
+    private static double round(double value) {
+        return Math.floor(value + 0.5);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.expression;
+
+import java.util.List;
+
+/**
+ * Parsed expression tree; evaluate() walks it, ExpressionCompiler turns it into a
+ * method handle tree. Variables are read by slot from the bindings array.
+ */
+public sealed interface Node {
+
+    double evaluate(double[] bindings);
+
+    record Constant(double value) implements Node {
+        @Override
+        public double evaluate(double[] bindings) {
+            return value;
+        }
+    }
+
+    record Variable(String name, int slot) implements Node {
+        @Override
+        public double evaluate(double[] bindings) {
+            return bindings[slot];
+        }
+    }
+
+    record Negate(Node operand) implements Node {
+        @Override
+        public double evaluate(double[] bindings) {
+            return -operand.evaluate(bindings);
+        }
+    }
+
+    /**
+     * Left-to-right chain of '+' and '-', or of '*' and '/': operators.charAt(i) applies
+     * operands[i + 1] to the result so far. Evaluated in a loop, so a long flat sum or
+     * product does not nest.
+     */
+    final class Chain implements Node {
+
+        private final String operators;
+        private final List<Node> operands;
+        // The same as arrays, read by evaluate
+        private final Node[] operandArray;
+        private final char[] operatorArray;
+
+        public Chain(String operators, List<Node> operands) {
+            if (operands.size() != operators.length() + 1) {
+                throw new IllegalArgumentException("One operator between each two operands");
+            }
+            this.operators = operators;
+            this.operands = List.copyOf(operands);
+            this.operandArray = operands.toArray(Node[]::new);
+            this.operatorArray = operators.toCharArray();
+        }
+
+        public String operators() {
+            return operators;
+        }
+
+        public List<Node> operands() {
+            return operands;
+        }
+
+        @Override
+        public double evaluate(double[] bindings) {
+            Node[] nodes = operandArray;
+            char[] ops = operatorArray;
+            if (ops.length == 1) {
+                // Most chains are a single operator; own call sites keep their type profiles apart
+                return Operators.apply(ops[0], nodes[0].evaluate(bindings), nodes[1].evaluate(bindings));
+            }
+            double result = nodes[0].evaluate(bindings);
+            for (int i = 0; i < ops.length; i++) {
+                result = Operators.apply(ops[i], result, nodes[i + 1].evaluate(bindings));
+            }
+            return result;
+        }
+    }
+
+    record Call(MathFunction function, List<Node> arguments) implements Node {
+        @Override
+        public double evaluate(double[] bindings) {
+            double[] values = new double[arguments.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = arguments.get(i).evaluate(bindings);
+            }
+            return function.apply(values);
+        }
+    }
+}
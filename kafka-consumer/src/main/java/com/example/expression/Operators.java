@@ -0,0 +1,57 @@
+package com.example.expression;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Arithmetic shared by the interpreter and the compiled handles, so both fail alike
+ */
+final class Operators {
+
+    private Operators() {
+    }
+
+    static double add(double left, double right) {
+        return left + right;
+    }
+
+    static double subtract(double left, double right) {
+        return left - right;
+    }
+
+    static double multiply(double left, double right) {
+        return left * right;
+    }
+
+    static double divide(double left, double right) {
+        if (right == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return left / right;
+    }
+
+    static double apply(char operator, double left, double right) {
+        return switch (operator) {
+            case '+' -> left + right;
+            case '-' -> left - right;
+            case '*' -> left * right;
+            case '/' -> divide(left, right);
+            default -> throw new IllegalStateException("Unknown operator " + operator);
+        };
+    }
+
+    /**
+     * Chain of more operands than ExpressionCompiler nests: the operand handles are
+     * invoked in a loop
+     */
+    static double chain(String operators, MethodHandle[] operands, double[] bindings) throws Throwable {
+        double result = (double) operands[0].invokeExact(bindings);
+        for (int i = 0; i < operators.length(); i++) {
+            result = apply(operators.charAt(i), result, (double) operands[i + 1].invokeExact(bindings));
+        }
+        return result;
+    }
+
+    static double negate(double value) {
+        return -value;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.health;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Health of the math request processing, from state the Kafka clients already keep
+ *
+ * A listener container is healthy while it runs, has not stopped on an error, and
+ * its consumers polled recently (the last-poll-seconds-ago client metric); a stuck
+ * listener thread stops polling. With a heartbeat limit the consumers must also have
+ * heartbeated to the group coordinator recently, which fails while the broker is
+ * unreachable even though the poll loop keeps going. In Streams mode the KafkaStreams
+ * state is checked instead. Nothing here calls the broker, so probes are cheap.
+ *
+ * One instance per probe: liveness with a generous poll limit and no heartbeat limit,
+ * readiness with tighter limits.
+ */
+public class ListenerHealthIndicator implements HealthIndicator {
+
+    private static final Set<KafkaStreams.State> STREAMS_UP =
+            Set.of(KafkaStreams.State.CREATED, KafkaStreams.State.REBALANCING, KafkaStreams.State.RUNNING);
+
+    private final Supplier<List<MessageListenerContainer>> containers;
+    private final Supplier<KafkaStreams.State> streamsState;
+    private final Duration maxPollAge;
+    private final Duration maxHeartbeatAge;
+
+    /**
+     * @param streamsState    null unless the Streams topology replaces the containers
+     * @param maxHeartbeatAge Duration.ZERO to not check heartbeats, and to accept
+     *                        consumers that have not polled yet
+     */
+    public ListenerHealthIndicator(Supplier<List<MessageListenerContainer>> containers,
+                                   Supplier<KafkaStreams.State> streamsState,
+                                   Duration maxPollAge, Duration maxHeartbeatAge) {
+        this.containers = containers;
+        this.streamsState = streamsState;
+        this.maxPollAge = maxPollAge;
+        this.maxHeartbeatAge = maxHeartbeatAge;
+    }
+
+    @Override
+    public Health health() {
+        if (streamsState != null) {
+            KafkaStreams.State state = streamsState.get();
+            Health.Builder builder = state != null && STREAMS_UP.contains(state) ? Health.up() : Health.down();
+            return builder.withDetail("streams", String.valueOf(state)).build();
+        }
+
+        boolean up = true;
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (MessageListenerContainer container : containers.get()) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            String problem = check(container, detail);
+            if (problem != null) {
+                up = false;
+                detail.put("problem", problem);
+            }
+            details.put(container.getListenerId(), detail);
+        }
+        return (up ? Health.up() : Health.down()).withDetails(details).build();
+    }
+
+    private String check(MessageListenerContainer container, Map<String, Object> detail) {
+        detail.put("running", container.isRunning());
+        detail.put("paused", container.isContainerPaused());
+        if (!container.isInExpectedState()) {
+            return "stopped after an error";
+        }
+        if (!container.isRunning()) {
+            return "not running";
+        }
+        Map<String, Map<MetricName, ? extends Metric>> metrics = container.metrics();
+        double pollAge = maxMetric(metrics, "last-poll-seconds-ago");
+        detail.put("lastPollSecondsAgo", pollAge);
+        boolean checkHeartbeat = !maxHeartbeatAge.isZero();
+        if (pollAge < 0) {
+            return checkHeartbeat ? "no poll yet" : null;
+        }
+        if (pollAge > maxPollAge.toSeconds()) {
+            return "no poll for " + (long) pollAge + "s";
+        }
+        if (checkHeartbeat) {
+            double heartbeatAge = maxMetric(metrics, "last-heartbeat-seconds-ago");
+            detail.put("lastHeartbeatSecondsAgo", heartbeatAge);
+            if (heartbeatAge < 0 || heartbeatAge > maxHeartbeatAge.toSeconds()) {
+                return "no heartbeat to the group coordinator";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Highest value over the container's consumers, -1 when a consumer has none yet
+     */
+    private static double maxMetric(Map<String, Map<MetricName, ? extends Metric>> metrics, String name) {
+        double max = -1;
+        for (Map<MetricName, ? extends Metric> clientMetrics : metrics.values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : clientMetrics.entrySet()) {
+                if (name.equals(metric.getKey().name())
+                        && metric.getValue().metricValue() instanceof Double value) {
+                    if (value < 0) {
+                        return -1;
+                    }
+                    max = Math.max(max, value);
+                }
+            }
+        }
+        return max;
+    }
+}
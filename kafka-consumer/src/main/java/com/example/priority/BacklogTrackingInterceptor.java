@@ -0,0 +1,44 @@
+package com.example.priority;
+
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+
+/**
+ * Tells the PriorityScheduler how many records each poll of the HIGH consumer returned
+ *
+ * Kafka instantiates interceptors by class name; the scheduler instance is passed in
+ * the consumer config under SCHEDULER_CONFIG.
+ */
+public class BacklogTrackingInterceptor implements ConsumerInterceptor<Object, Object> {
+
+    public static final String SCHEDULER_CONFIG = "math.priority.scheduler";
+
+    private PriorityScheduler scheduler;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object configured = configs.get(SCHEDULER_CONFIG);
+        if (!(configured instanceof PriorityScheduler)) {
+            throw new IllegalStateException(SCHEDULER_CONFIG + " must be a PriorityScheduler");
+        }
+        this.scheduler = (PriorityScheduler) configured;
+    }
+
+    @Override
+    public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+        scheduler.fetched(records.count());
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.priority;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Weighted sharing of the consumer between interactive and bulk math requests
+ *
+ * Each priority has its own request topic and listener container. While the HIGH
+ * container has a backlog, the LOW container is paused except for its weighted
+ * share: with weights 9:1 it processes one bulk request for every nine interactive
+ * ones. Without a HIGH backlog LOW runs freely. A LOW weight of 0 is strict priority.
+ *
+ * The HIGH backlog is the records its consumer fetched but the listener has not
+ * processed yet (counted by BacklogTrackingInterceptor) plus the broker-side lag
+ * sampled from the container metrics. Decisions are taken after each processed
+ * record and on a timer, so LOW resumes as soon as the backlog is gone.
+ */
+@Slf4j
+public class PriorityScheduler implements AutoCloseable {
+
+    public enum Priority { HIGH, LOW }
+
+    // Records that were fetched but never processed (revoked mid-batch) stop counting after this
+    private static final long STALE_FETCH_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final boolean enabled;
+    private final int highWeight;
+    private final int lowWeight;
+    private final LongSupplier highLag;
+    private final Runnable pauseLow;
+    private final Runnable resumeLow;
+
+    private final AtomicLong highFetched = new AtomicLong();
+    private final LongAdder highProcessed = new LongAdder();
+    private final LongAdder lowProcessed = new LongAdder();
+    private final LongAdder lowPauses = new LongAdder();
+    private volatile long sampledHighLag;
+    private volatile long lastHighProcessedNanos = System.nanoTime();
+
+    // Processed per priority since the HIGH backlog started, guarded by this
+    private long highInRound;
+    private long lowInRound;
+    private boolean lowPaused;
+
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param highLag   broker-side lag of the HIGH consumer, sampled on the timer
+     * @param pauseLow  pauses the LOW container
+     * @param resumeLow resumes the LOW container
+     */
+    public PriorityScheduler(boolean enabled, int highWeight, int lowWeight,
+                             LongSupplier highLag, Runnable pauseLow, Runnable resumeLow) {
+        if (highWeight <= 0 || lowWeight < 0) {
+            throw new IllegalArgumentException("HIGH weight must be positive and LOW weight not negative");
+        }
+        this.enabled = enabled;
+        this.highWeight = highWeight;
+        this.lowWeight = lowWeight;
+        this.highLag = highLag;
+        this.pauseLow = pauseLow;
+        this.resumeLow = resumeLow;
+    }
+
+    /**
+     * Sample the HIGH lag and re-evaluate every interval
+     */
+    public synchronized void start(Duration interval) {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "priority-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::tick, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records returned by a poll of the HIGH consumer
+     */
+    public void fetched(int count) {
+        if (count > 0) {
+            highFetched.addAndGet(count);
+            evaluate();
+        }
+    }
+
+    /**
+     * Called by the listener after each request, evaluated or not
+     */
+    public void processed(Priority priority) {
+        if (priority == Priority.HIGH) {
+            highProcessed.increment();
+            lastHighProcessedNanos = System.nanoTime();
+            highFetched.updateAndGet(n -> Math.max(n - 1, 0));
+        } else {
+            lowProcessed.increment();
+        }
+        synchronized (this) {
+            if (priority == Priority.HIGH) {
+                highInRound++;
+            } else {
+                lowInRound++;
+            }
+        }
+        evaluate();
+    }
+
+    public long highBacklog() {
+        return highFetched.get() + sampledHighLag;
+    }
+
+    /**
+     * Pause or resume LOW for the current backlog and share
+     */
+    public synchronized void evaluate() {
+        if (!enabled) {
+            return;
+        }
+        if (highBacklog() == 0) {
+            highInRound = 0;
+            lowInRound = 0;
+            setLowPaused(false);
+            return;
+        }
+        // LOW runs only while it is behind its share of this round: low/high < lowWeight/highWeight
+        setLowPaused(lowInRound * highWeight >= highInRound * lowWeight);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized boolean isLowPaused() {
+        return lowPaused;
+    }
+
+    public long processedCount(Priority priority) {
+        return priority == Priority.HIGH ? highProcessed.sum() : lowProcessed.sum();
+    }
+
+    /**
+     * How often LOW was paused for a HIGH backlog
+     */
+    public long lowPauseCount() {
+        return lowPauses.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    private void tick() {
+        try {
+            sampledHighLag = Math.max(highLag.getAsLong(), 0);
+            if (highFetched.get() > 0 && System.nanoTime() - lastHighProcessedNanos > STALE_FETCH_NANOS) {
+                highFetched.set(0);
+            }
+            evaluate();
+        } catch (RuntimeException e) {
+            // Containers may be stopping; the next tick tries again
+            log.debug("Priority evaluation failed: {}", e.getMessage());
+        }
+    }
+
+    private void setLowPaused(boolean paused) {
+        if (paused == lowPaused) {
+            return;
+        }
+        lowPaused = paused;
+        if (paused) {
+            lowPauses.increment();
+            pauseLow.run();
+        } else {
+            resumeLow.run();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Persisted state of a replay job: the request and, per partition, the range and the
+ * next offset to read. Everything before position has reached the sink.
+ * Stored as &lt;dir&gt;/&lt;jobId&gt;.json, replaced atomically on every save.
+ */
+public record ReplayCheckpoint(ReplayRequest request, ReplayJob.State state, List<Partition> partitions) {
+
+    /**
+     * @param end exclusive
+     */
+    public record Partition(int partition, long start, long end, long position) {
+    }
+
+    public void save(ObjectMapper objectMapper, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = file(dir, request.jobId());
+        Path temp = dir.resolve(request.jobId() + ".json.tmp");
+        objectMapper.writeValue(temp.toFile(), this);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns null if the job has no checkpoint in dir
+     */
+    public static ReplayCheckpoint load(ObjectMapper objectMapper, Path dir, String jobId) throws IOException {
+        Path file = file(dir, jobId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return objectMapper.readValue(file.toFile(), ReplayCheckpoint.class);
+    }
+
+    static Path file(Path dir, String jobId) {
+        return dir.resolve(jobId + ".json");
+    }
+}
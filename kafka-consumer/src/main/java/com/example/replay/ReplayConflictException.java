@@ -0,0 +1,12 @@
+package com.example.replay;
+
+/**
+ * A job cannot be started or resumed in its current state: it is running, has
+ * completed or its ID is taken
+ */
+public class ReplayConflictException extends RuntimeException {
+
+    public ReplayConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.replay;
+
+import com.example.dto.MathRequest;
+import com.example.service.MathMessageCodec;
+import com.example.service.MathProcessorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Re-evaluates a range of math requests, one reader per partition on a pool of
+ * parallelism threads, and writes the replies to a ReplaySink
+ *
+ * Every checkpoint interval the reader positions are snapshotted, the sink is
+ * flushed and the positions are saved (ReplayCheckpoint). A resumed job starts from
+ * the saved positions, so results written after the last checkpoint are written
+ * again: the output is at-least-once.
+ */
+@Slf4j
+public class ReplayJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final ReplayRequest request;
+    private final List<PartitionProgress> partitions;
+    private final Supplier<Consumer<String, MathRequest>> consumers;
+    private final MathProcessorService processor;
+    private final MathMessageCodec codec;
+    private final ReplaySink sink;
+    private final ObjectMapper objectMapper;
+    private final Path checkpointDir;
+    private final Duration checkpointInterval;
+    private final Counter succeeded;
+    private final Counter failed;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicReference<String> error = new AtomicReference<>();
+    private final long offsetsDoneAtStart;
+    private final Instant startedAt = Instant.now();
+    private final long startedNanos = System.nanoTime();
+
+    private volatile State state = State.RUNNING;
+    private volatile boolean stopped;
+    private volatile long finishedNanos;
+    private volatile Instant finishedAt;
+
+    /**
+     * @param request    with jobId, topic and parallelism resolved
+     * @param partitions ranges and start positions, from a checkpoint when resumed
+     * @param consumers  new consumer per partition reader, without group
+     */
+    public ReplayJob(ReplayRequest request, List<ReplayCheckpoint.Partition> partitions,
+                     Supplier<Consumer<String, MathRequest>> consumers, MathProcessorService processor,
+                     MathMessageCodec codec, ReplaySink sink, ObjectMapper objectMapper, Path checkpointDir,
+                     Duration checkpointInterval, Counter succeeded, Counter failed) {
+        this.request = request;
+        this.partitions = partitions.stream().map(PartitionProgress::new).toList();
+        this.consumers = consumers;
+        this.processor = processor;
+        this.codec = codec;
+        this.sink = sink;
+        this.objectMapper = objectMapper;
+        this.checkpointDir = checkpointDir;
+        this.checkpointInterval = checkpointInterval;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.offsetsDoneAtStart = offsetsDone();
+    }
+
+    public String id() {
+        return request.jobId();
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Stops the readers after their current batch; what was read is checkpointed
+     */
+    public void cancel() {
+        stopped = true;
+    }
+
+    /**
+     * Reads until every partition reached the end of its range, or the job is
+     * cancelled or a reader fails; runs on the caller's thread
+     */
+    public void run() {
+        List<PartitionProgress> pending = partitions.stream().filter(p -> p.position < p.end).toList();
+        int threads = Math.max(1, Math.min(request.parallelism(), pending.size()));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "replay-" + request.jobId() + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Replay {}: {} of {} partitions of {} to read with {} threads", request.jobId(),
+                pending.size(), partitions.size(), request.topic(), threads);
+        try {
+            pending.forEach(p -> readers.execute(() -> read(p)));
+            readers.shutdown();
+            while (!readers.awaitTermination(checkpointInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                checkpoint(State.RUNNING);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+            readers.shutdownNow();
+            fail(e);
+        } catch (Exception e) {
+            stopped = true;
+            readers.shutdownNow();
+            fail(e);
+        }
+
+        State end = error.get() != null ? State.FAILED : stopped ? State.CANCELLED : State.COMPLETED;
+        try {
+            checkpoint(end);
+        } catch (Exception e) {
+            fail(e);
+            end = State.FAILED;
+        } finally {
+            sink.close();
+        }
+        finishedNanos = System.nanoTime();
+        finishedAt = Instant.now();
+        state = end;
+        log.info("Replay {} {}: {} records, {} errors", request.jobId(), end, processed.sum(), errors.sum());
+    }
+
+    private void read(PartitionProgress progress) {
+        TopicPartition partition = new TopicPartition(request.topic(), progress.partition);
+        try (Consumer<String, MathRequest> consumer = consumers.get()) {
+            consumer.assign(List.of(partition));
+            consumer.seek(partition, progress.position);
+            while (progress.position < progress.end && !stopped) {
+                for (ConsumerRecord<String, MathRequest> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.offset() >= progress.end) {
+                        break;
+                    }
+                    MathRequest math = record.value() != null ? record.value() : MathRequest.of(null);
+                    MathProcessorService.Evaluation evaluation =
+                            processor.evaluate(math.expression(), math.variables());
+                    String result = evaluation.result();
+                    if (evaluation.failed()) {
+                        errors.increment();
+                        failed.increment();
+                    } else {
+                        succeeded.increment();
+                    }
+                    processed.increment();
+                    sink.write(record, codec.reply(math.expression(), result));
+                }
+                // Skips offsets without records too (compaction, transaction markers)
+                progress.position = Math.max(progress.position, Math.min(consumer.position(partition), progress.end));
+            }
+        } catch (Exception | Error e) {
+            // An Error too: the reader ends either way, and the job must not look complete
+            stopped = true;
+            fail(e);
+        }
+    }
+
+    /**
+     * Positions are taken before the flush: everything before them was written to the
+     * sink, and is durable once the flush returns
+     */
+    private synchronized void checkpoint(State checkpointState) throws IOException {
+        List<ReplayCheckpoint.Partition> positions = positions();
+        sink.flush();
+        new ReplayCheckpoint(request, checkpointState, positions).save(objectMapper, checkpointDir);
+    }
+
+    private void fail(Throwable e) {
+        if (error.compareAndSet(null, e.getMessage() != null ? e.getMessage() : e.toString())) {
+            log.error("Replay {} failed: {}", request.jobId(), e.getMessage(), e);
+        }
+    }
+
+    public Progress progress() {
+        long total = partitions.stream().mapToLong(p -> p.end - p.start).sum();
+        long done = offsetsDone();
+        Instant finished = finishedAt;
+        double seconds = ((finished != null ? finishedNanos : System.nanoTime()) - startedNanos) / 1e9;
+        double offsetsPerSecond = seconds > 0 ? (done - offsetsDoneAtStart) / seconds : 0;
+        Double eta = state != State.RUNNING ? null
+                : offsetsPerSecond > 0 ? (total - done) / offsetsPerSecond : null;
+        return new Progress(request.jobId(), state, request.topic(), processed.sum(), errors.sum(), done, total,
+                total > 0 ? 100.0 * done / total : 100.0, seconds > 0 ? processed.sum() / seconds : 0, eta,
+                startedAt, finished, error.get(), positions());
+    }
+
+    private long offsetsDone() {
+        return partitions.stream().mapToLong(p -> p.position - p.start).sum();
+    }
+
+    private List<ReplayCheckpoint.Partition> positions() {
+        return partitions.stream()
+                .map(p -> new ReplayCheckpoint.Partition(p.partition, p.start, p.end, p.position))
+                .toList();
+    }
+
+    /**
+     * @param processed        records evaluated by this run, not counting earlier runs of a resumed job
+     * @param offsetsDone      offsets behind the reader positions, over all runs
+     * @param recordsPerSecond records evaluated per second of this run
+     * @param etaSeconds       null when not running or nothing read yet
+     */
+    public record Progress(String jobId, State state, String topic, long processed, long errors,
+                           long offsetsDone, long offsetsTotal, double percent, double recordsPerSecond,
+                           Double etaSeconds, Instant startedAt, Instant finishedAt, String error,
+                           List<ReplayCheckpoint.Partition> partitions) {
+    }
+
+    // Position is written by the partition's reader only
+    private static final class PartitionProgress {
+
+        private final int partition;
+        private final long start;
+        private final long end;
+        private volatile long position;
+
+        private PartitionProgress(ReplayCheckpoint.Partition partition) {
+            this.partition = partition.partition();
+            this.start = partition.start();
+            this.end = partition.end();
+            this.position = partition.position();
+        }
+    }
+}
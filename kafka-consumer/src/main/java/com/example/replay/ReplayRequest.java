@@ -0,0 +1,21 @@
+package com.example.replay;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What to replay and where the recomputed results go
+ *
+ * The range per partition starts at fromOffset, else at the first record at or
+ * after fromTime, else at the beginning; it ends before toOffset, else before the
+ * first record at or after toTime, else at the end offset when the job starts.
+ * Exactly one of targetTopic and targetFile is set.
+ *
+ * @param topic       defaults to app.kafka.topic.request
+ * @param partitions  all partitions when null or empty
+ * @param parallelism partition readers running at once, defaults to app.kafka.replay.parallelism
+ */
+public record ReplayRequest(String jobId, String topic, List<Integer> partitions,
+                            Long fromOffset, Long toOffset, Instant fromTime, Instant toTime,
+                            String targetTopic, String targetFile, Integer parallelism) {
+}
@@ -0,0 +1,357 @@
+package com.example.replay;
+
+import com.example.dto.MathRequest;
+import com.example.serialization.MathRequestDeserializer;
+import com.example.service.MathMessageCodec;
+import com.example.service.MathProcessorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Starts, resumes and tracks replay jobs (ReplayJob), each on its own thread
+ *
+ * Ranges are resolved against the topic when a job starts and saved in its first
+ * checkpoint, so a resumed job ends where the original would have. Target files
+ * are resolved inside the output directory. Throws IllegalArgumentException for
+ * invalid requests, ReplayConflictException for jobs that are running, completed
+ * or already exist, NoSuchElementException for unknown jobs and
+ * IllegalStateException when the topic cannot be read.
+ */
+public class ReplayService {
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 10;
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9._-]{1,100}");
+
+    /**
+     * @param defaultTopic  replayed when the request names no topic
+     * @param requestTopics topics the listeners consume, never a replay target
+     * @param outputDir     directory target files are resolved against, never left
+     */
+    public record Settings(String defaultTopic, List<String> requestTopics, int parallelism,
+                           Path checkpointDir, Duration checkpointInterval, Path outputDir) {
+    }
+
+    private final Admin admin;
+    private final String bootstrapServers;
+    private final MathProcessorService processor;
+    private final MathMessageCodec codec;
+    private final ObjectMapper objectMapper;
+    private final Settings settings;
+    private final Counter replied;
+    private final Counter failed;
+
+    private final Map<String, ReplayJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService runner = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplayService(Admin admin, String bootstrapServers, MathProcessorService processor,
+                         MathMessageCodec codec, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         Settings settings) {
+        this.admin = admin;
+        this.bootstrapServers = bootstrapServers;
+        this.processor = processor;
+        this.codec = codec;
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+        this.replied = Counter.builder("math.replay.records").tag("outcome", "replied")
+                .description("Requests re-evaluated by replay jobs").register(meterRegistry);
+        this.failed = Counter.builder("math.replay.records").tag("outcome", "error")
+                .description("Requests re-evaluated by replay jobs").register(meterRegistry);
+        Gauge.builder("math.replay.running", jobs,
+                        j -> j.values().stream().filter(job -> job.state() == ReplayJob.State.RUNNING).count())
+                .description("Replay jobs running on this instance")
+                .register(meterRegistry);
+    }
+
+    public ReplayJob.Progress start(ReplayRequest request) {
+        boolean toTopic = isSet(request.targetTopic());
+        if (toTopic == isSet(request.targetFile())) {
+            throw new IllegalArgumentException("Set exactly one of targetTopic and targetFile");
+        }
+        String topic = isSet(request.topic()) ? request.topic() : settings.defaultTopic();
+        if (toTopic && (request.targetTopic().equals(topic) || settings.requestTopics().contains(request.targetTopic()))) {
+            throw new IllegalArgumentException("targetTopic must not be a request topic: " + request.targetTopic());
+        }
+        int parallelism = request.parallelism() != null ? request.parallelism() : settings.parallelism();
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        String jobId = isSet(request.jobId()) ? request.jobId() : "replay-" + UUID.randomUUID().toString().substring(0, 8);
+        if (!JOB_ID.matcher(jobId).matches()) {
+            throw new IllegalArgumentException("jobId may only contain letters, digits, '.', '_' and '-'");
+        }
+        if (jobs.containsKey(jobId) || loadCheckpoint(jobId) != null) {
+            throw new ReplayConflictException("Replay job " + jobId + " exists, resume it or use another jobId");
+        }
+        if (!toTopic) {
+            targetPath(request.targetFile());
+        }
+
+        ReplayRequest resolved = new ReplayRequest(jobId, topic, request.partitions(), request.fromOffset(),
+                request.toOffset(), request.fromTime(), request.toTime(), request.targetTopic(),
+                request.targetFile(), parallelism);
+        List<ReplayCheckpoint.Partition> ranges = resolveRanges(resolved);
+        ReplayCheckpoint checkpoint = new ReplayCheckpoint(resolved, ReplayJob.State.RUNNING, ranges);
+        try {
+            checkpoint.save(objectMapper, settings.checkpointDir());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write checkpoint of " + jobId, e);
+        }
+        return launch(checkpoint);
+    }
+
+    /**
+     * Continues a job from its checkpoint, e.g. after a restart or a cancel
+     */
+    public ReplayJob.Progress resume(String jobId) {
+        ReplayJob current = jobs.get(jobId);
+        if (current != null && current.state() == ReplayJob.State.RUNNING) {
+            throw new ReplayConflictException("Replay job " + jobId + " is running");
+        }
+        ReplayCheckpoint checkpoint = loadCheckpoint(jobId);
+        if (checkpoint == null) {
+            throw new NoSuchElementException("No checkpoint for replay job " + jobId);
+        }
+        if (checkpoint.state() == ReplayJob.State.COMPLETED) {
+            throw new ReplayConflictException("Replay job " + jobId + " has completed");
+        }
+        return launch(checkpoint);
+    }
+
+    public ReplayJob.Progress progress(String jobId) {
+        ReplayJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NoSuchElementException("Unknown replay job " + jobId);
+        }
+        return job.progress();
+    }
+
+    public List<ReplayJob.Progress> list() {
+        return jobs.values().stream()
+                .map(ReplayJob::progress)
+                .sorted(Comparator.comparing(ReplayJob.Progress::startedAt))
+                .toList();
+    }
+
+    public ReplayJob.Progress cancel(String jobId) {
+        ReplayJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NoSuchElementException("Unknown replay job " + jobId);
+        }
+        job.cancel();
+        return job.progress();
+    }
+
+    /**
+     * Cancels running jobs and waits for their final checkpoint
+     */
+    public void close() {
+        jobs.values().forEach(ReplayJob::cancel);
+        runner.shutdown();
+        try {
+            runner.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized ReplayJob.Progress launch(ReplayCheckpoint checkpoint) {
+        ReplayRequest request = checkpoint.request();
+        ReplayJob current = jobs.get(request.jobId());
+        if (current != null && current.state() == ReplayJob.State.RUNNING) {
+            throw new ReplayConflictException("Replay job " + request.jobId() + " is running");
+        }
+        ReplayJob job = new ReplayJob(request, checkpoint.partitions(), this::newConsumer, processor, codec,
+                openSink(request), objectMapper, settings.checkpointDir(), settings.checkpointInterval(),
+                replied, failed);
+        jobs.put(job.id(), job);
+        runner.execute(job::run);
+        return job.progress();
+    }
+
+    private ReplaySink openSink(ReplayRequest request) {
+        if (isSet(request.targetTopic())) {
+            return new ReplaySink.TopicSink(newProducer(), request.targetTopic());
+        }
+        try {
+            return new ReplaySink.FileSink(objectMapper, targetPath(request.targetFile()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot open targetFile " + request.targetFile() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The target file inside the output directory; absolute paths, '..' and anything
+     * resolving outside it are rejected
+     */
+    private Path targetPath(String targetFile) {
+        Path relative;
+        try {
+            relative = Path.of(targetFile);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid targetFile " + targetFile);
+        }
+        Path outputDir = settings.outputDir().toAbsolutePath().normalize();
+        Path resolved = outputDir.resolve(relative).normalize();
+        boolean parentReference = false;
+        for (Path name : relative) {
+            parentReference |= name.toString().equals("..");
+        }
+        if (relative.isAbsolute() || relative.getRoot() != null || parentReference
+                || !resolved.startsWith(outputDir) || resolved.equals(outputDir)) {
+            throw new IllegalArgumentException("targetFile must be a relative path inside the replay output directory: "
+                    + targetFile);
+        }
+        return resolved;
+    }
+
+    /**
+     * Per partition: from fromOffset, fromTime or the log start; up to toOffset,
+     * toTime or the current end offset
+     */
+    private List<ReplayCheckpoint.Partition> resolveRanges(ReplayRequest request) {
+        try {
+            TopicDescription description = admin.describeTopics(List.of(request.topic()))
+                    .allTopicNames().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS).get(request.topic());
+            List<Integer> existing = description.partitions().stream().map(p -> p.partition()).toList();
+            List<Integer> selected = request.partitions() == null || request.partitions().isEmpty()
+                    ? existing : request.partitions();
+            for (Integer partition : selected) {
+                if (!existing.contains(partition)) {
+                    throw new IllegalArgumentException("Topic " + request.topic() + " has no partition " + partition);
+                }
+            }
+
+            List<TopicPartition> partitions = selected.stream()
+                    .map(p -> new TopicPartition(request.topic(), p)).toList();
+            Map<TopicPartition, Long> earliest = listOffsets(partitions, OffsetSpec.earliest());
+            Map<TopicPartition, Long> latest = listOffsets(partitions, OffsetSpec.latest());
+            Map<TopicPartition, Long> fromTime = request.fromTime() == null ? Map.of()
+                    : listOffsets(partitions, OffsetSpec.forTimestamp(request.fromTime().toEpochMilli()));
+            Map<TopicPartition, Long> toTime = request.toTime() == null ? Map.of()
+                    : listOffsets(partitions, OffsetSpec.forTimestamp(request.toTime().toEpochMilli()));
+
+            List<ReplayCheckpoint.Partition> ranges = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                long first = earliest.get(partition);
+                long last = latest.get(partition);
+                long start = request.fromOffset() != null ? request.fromOffset()
+                        : request.fromTime() != null ? atTime(fromTime.get(partition), last) : first;
+                long end = request.toOffset() != null ? request.toOffset()
+                        : request.toTime() != null ? atTime(toTime.get(partition), last) : last;
+                start = Math.min(Math.max(start, first), last);
+                end = Math.min(Math.max(end, start), last);
+                ranges.add(new ReplayCheckpoint.Partition(partition.partition(), start, end, start));
+            }
+            return ranges;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted resolving the replay range", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnknownTopicOrPartitionException) {
+                throw new IllegalArgumentException("Unknown topic " + request.topic());
+            }
+            throw new IllegalStateException("Failed to resolve the replay range: " + e.getMessage(), e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out resolving the replay range", e);
+        }
+    }
+
+    // No record at or after the timestamp: the range ends (or starts) at the end offset
+    private static long atTime(long offset, long endOffset) {
+        return offset >= 0 ? offset : endOffset;
+    }
+
+    private Map<TopicPartition, Long> listOffsets(List<TopicPartition> partitions, OffsetSpec spec)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Map<TopicPartition, OffsetSpec> specs = new HashMap<>();
+        partitions.forEach(p -> specs.put(p, spec));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> result =
+                admin.listOffsets(specs).all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        result.forEach((partition, info) -> offsets.put(partition, info.offset()));
+        return offsets;
+    }
+
+    /**
+     * Assigned partitions only: no group, nothing committed
+     */
+    private KafkaConsumer<String, MathRequest> newConsumer() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MathRequestDeserializer.class);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // Records removed by retention since the range was resolved are skipped
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 64 * 1024);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
+        return new KafkaConsumer<>(configProps);
+    }
+
+    // Throughput over latency: batched and compressed, idempotent so retries add no duplicates
+    private KafkaProducer<String, String> newProducer() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 128 * 1024);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        return new KafkaProducer<>(configProps);
+    }
+
+    private ReplayCheckpoint loadCheckpoint(String jobId) {
+        if (!JOB_ID.matcher(jobId).matches()) {
+            return null;
+        }
+        try {
+            return ReplayCheckpoint.load(objectMapper, settings.checkpointDir(), jobId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read checkpoint of " + jobId, e);
+        }
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Where a replay job writes its recomputed results; called by several partition
+ * readers at once. Everything written before flush() returns is durable, which is
+ * what makes a checkpoint taken after it safe.
+ */
+public interface ReplaySink extends AutoCloseable {
+
+    // Source of a replayed result: topic-partition@offset of the request
+    String SOURCE_HEADER = "math_replay_source";
+
+    void write(ConsumerRecord<String, ?> request, String reply);
+
+    void flush();
+
+    @Override
+    void close();
+
+    /**
+     * Replies on a topic, keyed like the requests, with the correlation ID copied over
+     */
+    final class TopicSink implements ReplaySink {
+
+        private final KafkaProducer<String, String> producer;
+        private final String topic;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        public TopicSink(KafkaProducer<String, String> producer, String topic) {
+            this.producer = producer;
+            this.topic = topic;
+        }
+
+        @Override
+        public void write(ConsumerRecord<String, ?> request, String reply) {
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic, request.key(), reply);
+            Header correlationId = request.headers().lastHeader(KafkaHeaders.CORRELATION_ID);
+            if (correlationId != null) {
+                record.headers().add(correlationId);
+            }
+            record.headers().add(SOURCE_HEADER, (request.topic() + "-" + request.partition() + "@" + request.offset())
+                    .getBytes(StandardCharsets.UTF_8));
+            producer.send(record, (metadata, ex) -> {
+                if (ex != null) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+        }
+
+        @Override
+        public void flush() {
+            producer.flush();
+            Exception ex = failure.get();
+            if (ex != null) {
+                throw new IllegalStateException("Sending replayed results failed: " + ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            producer.close();
+        }
+    }
+
+    /**
+     * One JSON object per line: partition, offset, key and the reply; appended to,
+     * so a resumed job continues the same file
+     */
+    final class FileSink implements ReplaySink {
+
+        private final ObjectMapper objectMapper;
+        private final BufferedWriter writer;
+
+        public FileSink(ObjectMapper objectMapper, Path file) throws IOException {
+            this.objectMapper = objectMapper;
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void write(ConsumerRecord<String, ?> request, String reply) {
+            try {
+                ObjectNode line = objectMapper.createObjectNode();
+                line.put("partition", request.partition());
+                line.put("offset", request.offset());
+                line.put("key", request.key());
+                line.putRawValue("reply", new RawValue(reply));
+                String text = objectMapper.writeValueAsString(line);
+                synchronized (writer) {
+                    writer.write(text);
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                synchronized (writer) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.scaling;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Recommended consumer replicas and listener concurrency for the math request groups
+ *
+ * Each evaluation combines the group-wide offsets (arrival rate from the log-end
+ * offsets, lag from the committed ones) with the time this instance's listener
+ * threads spend per record, smoothed over evaluations. The threads needed are
+ *
+ *   (arrival rate + lag / drain time) * service time / target utilization
+ *
+ * capped at the partition count, since a partition is consumed by one thread of
+ * the group at most. Threads are spread over replicas of at most maxConcurrency
+ * threads each.
+ *
+ * Scaling up is recommended at once; scaling down only once every recommendation
+ * in the stabilization window agrees, so a short dip does not remove replicas
+ * that the next burst needs.
+ */
+@Slf4j
+public class ScalingAdvisor implements AutoCloseable {
+
+    // Weight of the newest window in the smoothed service time
+    private static final double SERVICE_TIME_ALPHA = 0.3;
+
+    private final Settings settings;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    // Evaluation state, guarded by this
+    private long lastTimeMs = -1;
+    private GroupOffsets lastOffsets;
+    private long lastProcessed;
+    private long lastBusyNanos;
+    private double serviceTimeNanos = Double.NaN;
+    private final Deque<long[]> recentThreads = new ArrayDeque<>();
+    private volatile Recommendation current;
+
+    private ScheduledExecutorService timer;
+
+    public ScalingAdvisor(Settings settings) {
+        if (settings.targetUtilization() <= 0 || settings.targetUtilization() > 1
+                || settings.maxConcurrency() <= 0 || settings.minReplicas() <= 0) {
+            throw new IllegalArgumentException("targetUtilization must be in (0, 1], "
+                    + "maxConcurrency and minReplicas positive");
+        }
+        this.settings = settings;
+        this.current = new Recommendation(settings.minReplicas(), 1, 0, 0, 0, 0, "no sample yet");
+    }
+
+    /**
+     * Evaluate on a daemon thread every interval
+     *
+     * @param offsets group-wide committed and log-end offsets of the request topics
+     */
+    public synchronized void start(Duration interval, Supplier<GroupOffsets> offsets) {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "scaling-advisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                evaluate(System.currentTimeMillis(), offsets.get());
+            } catch (Exception e) {
+                log.debug("Scaling evaluation skipped: {}", e.getMessage());
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called by the listener after each request, evaluated or not, with the time
+     * its thread spent on it
+     */
+    public void recordProcessed(long busyNanos) {
+        processed.increment();
+        this.busyNanos.add(busyNanos);
+    }
+
+    /**
+     * Compute a new recommendation from the offsets and the processing since the last call
+     */
+    public synchronized Recommendation evaluate(long nowMs, GroupOffsets offsets) {
+        long processedNow = processed.sum();
+        long busyNow = busyNanos.sum();
+        if (lastTimeMs < 0 || nowMs <= lastTimeMs) {
+            remember(nowMs, offsets, processedNow, busyNow);
+            return current;
+        }
+
+        double seconds = (nowMs - lastTimeMs) / 1000.0;
+        long processedDelta = processedNow - lastProcessed;
+        long busyDelta = busyNow - lastBusyNanos;
+        double arrivalRate = Math.max(offsets.logEnd() - lastOffsets.logEnd(), 0) / seconds;
+        if (processedDelta > 0) {
+            double windowServiceTime = (double) busyDelta / processedDelta;
+            serviceTimeNanos = Double.isNaN(serviceTimeNanos) ? windowServiceTime
+                    : SERVICE_TIME_ALPHA * windowServiceTime + (1 - SERVICE_TIME_ALPHA) * serviceTimeNanos;
+        }
+        long lag = offsets.lag();
+        remember(nowMs, offsets, processedNow, busyNow);
+
+        String reason;
+        int threads;
+        if (Double.isNaN(serviceTimeNanos)) {
+            // Nothing processed yet: no basis for sizing, keep what is recommended
+            threads = current.replicas() * current.concurrency();
+            reason = "no processing time measured yet";
+        } else {
+            double demand = arrivalRate + lag / (double) settings.drainTime().toSeconds();
+            threads = (int) Math.ceil(demand * serviceTimeNanos / 1e9 / settings.targetUtilization());
+            reason = "demand " + Math.round(demand) + "/s at " + Math.round(serviceTimeNanos / 1000) + "us per record";
+        }
+        int maxThreads = offsets.partitions() > 0 ? offsets.partitions() : Integer.MAX_VALUE;
+        if (threads > maxThreads) {
+            reason += ", capped at " + maxThreads + " partitions";
+        }
+        threads = Math.max(Math.min(threads, maxThreads), 1);
+        threads = stabilize(nowMs, threads);
+
+        int replicas = Math.max((threads + settings.maxConcurrency() - 1) / settings.maxConcurrency(),
+                settings.minReplicas());
+        if (settings.maxReplicas() > 0) {
+            replicas = Math.min(replicas, settings.maxReplicas());
+        }
+        int concurrency = Math.min((threads + replicas - 1) / replicas, settings.maxConcurrency());
+
+        Recommendation recommendation = new Recommendation(replicas, concurrency, arrivalRate, lag,
+                Double.isNaN(serviceTimeNanos) ? 0 : serviceTimeNanos / 1e6, offsets.partitions(), reason);
+        if (recommendation.replicas() != current.replicas() || recommendation.concurrency() != current.concurrency()) {
+            log.info("Scaling recommendation: {} replicas x {} threads ({})", replicas, concurrency, reason);
+        }
+        current = recommendation;
+        return recommendation;
+    }
+
+    public Recommendation current() {
+        return current;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    private void remember(long nowMs, GroupOffsets offsets, long processedNow, long busyNow) {
+        lastTimeMs = nowMs;
+        lastOffsets = offsets;
+        lastProcessed = processedNow;
+        lastBusyNanos = busyNow;
+    }
+
+    /**
+     * Highest thread count recommended within the stabilization window
+     */
+    private int stabilize(long nowMs, int threads) {
+        recentThreads.addLast(new long[] {nowMs, threads});
+        long windowStart = nowMs - settings.scaleDownStabilization().toMillis();
+        while (recentThreads.peekFirst()[0] < windowStart) {
+            recentThreads.removeFirst();
+        }
+        long max = 0;
+        for (long[] entry : recentThreads) {
+            max = Math.max(max, entry[1]);
+        }
+        return (int) max;
+    }
+
+    /**
+     * @param drainTime              how fast an existing lag should be worked off
+     * @param maxConcurrency         listener threads per replica, at most the cores a replica has
+     * @param maxReplicas            0 for no limit besides the partition count
+     * @param scaleDownStabilization how long a lower recommendation must hold before it is followed
+     */
+    public record Settings(double targetUtilization, Duration drainTime, int maxConcurrency,
+                           int minReplicas, int maxReplicas, Duration scaleDownStabilization) {}
+
+    /**
+     * Committed and log-end offsets summed over the partitions of the request topics
+     */
+    public record GroupOffsets(long committed, long logEnd, int partitions) {
+
+        public long lag() {
+            return Math.max(logEnd - committed, 0);
+        }
+    }
+
+    public record Recommendation(int replicas, int concurrency, double arrivalRatePerSecond, long lag,
+                                 double serviceTimeMs, int partitions, String reason) {}
+}
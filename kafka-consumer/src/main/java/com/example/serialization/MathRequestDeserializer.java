@@ -0,0 +1,97 @@
+package com.example.serialization;
+
+import com.example.dto.MathRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deserializes a math request to its expression and variables
+ *
+ * - Plain text (anything not starting with '{') is the expression itself, without
+ *   variables, decoded without touching the JSON parser
+ * - JSON objects are scanned with a streaming JsonParser for the top-level
+ *   "expression" and "variables" fields, without building a JsonNode tree;
+ *   variables with non-numeric values are left out
+ * - JSON without an "expression" field, or malformed JSON, is returned as text
+ */
+public class MathRequestDeserializer implements Deserializer<MathRequest> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String EXPRESSION_FIELD = "expression";
+    private static final String VARIABLES_FIELD = "variables";
+
+    @Override
+    public MathRequest deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!startsWithObject(data)) {
+            return MathRequest.of(new String(data, StandardCharsets.UTF_8));
+        }
+
+        MathRequest request = readFields(data);
+        return request != null ? request : MathRequest.of(new String(data, StandardCharsets.UTF_8));
+    }
+
+    private static boolean startsWithObject(byte[] data) {
+        for (byte b : data) {
+            if (b == '{') {
+                return true;
+            }
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns null if the "expression" field is absent
+     */
+    private static MathRequest readFields(byte[] data) {
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String expression = null;
+            Map<String, Double> variables = Map.of();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (EXPRESSION_FIELD.equals(field)) {
+                    // Same text as JsonNode.asText(): scalars as text, containers as ""
+                    expression = value.isScalarValue() ? parser.getValueAsString("null") : "";
+                    parser.skipChildren();
+                } else if (VARIABLES_FIELD.equals(field) && value == JsonToken.START_OBJECT) {
+                    variables = readVariables(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return expression != null ? new MathRequest(expression, variables) : null;
+        } catch (IOException e) {
+            // Starts like JSON but is not valid JSON, treat as plain text
+            return null;
+        }
+    }
+
+    private static Map<String, Double> readVariables(JsonParser parser) throws IOException {
+        Map<String, Double> variables = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken().isNumeric()) {
+                variables.put(name, parser.getDoubleValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return variables;
+    }
+}
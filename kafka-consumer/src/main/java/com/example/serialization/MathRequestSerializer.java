@@ -0,0 +1,44 @@
+package com.example.serialization;
+
+import com.example.dto.MathRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes a math request as the JSON MathRequestDeserializer reads back
+ *
+ * {"expression":"x*2","variables":{"x":3.0}}; "variables" is left out when empty.
+ */
+public class MathRequestSerializer implements Serializer<MathRequest> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public byte[] serialize(String topic, MathRequest request) {
+        if (request == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("expression", request.expression());
+            if (!request.variables().isEmpty()) {
+                generator.writeObjectFieldStart("variables");
+                for (Map.Entry<String, Double> variable : request.variables().entrySet()) {
+                    generator.writeNumberField(variable.getKey(), variable.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write math request", e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,11 +1,20 @@
 package com.example.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.cache.SharedResultCache;
+import com.example.dto.MathRequest;
+import com.example.priority.PriorityScheduler;
+import com.example.priority.PriorityScheduler.Priority;
+import com.example.scaling.ScalingAdvisor;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -13,8 +22,16 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class MathConsumerListener {
 
+    public static final String HIGH_LISTENER_ID = "math-requests-high";
+    public static final String LOW_LISTENER_ID = "math-requests-low";
+
     private final MathProcessorService mathProcessorService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MathMessageCodec mathMessageCodec;
+    private final RequestDeadlines requestDeadlines;
+    private final PriorityScheduler priorityScheduler;
+    private final ScalingAdvisor scalingAdvisor;
+    private final ObservationRegistry observationRegistry;
+    private final SharedResultCache sharedResultCache;
 
     /**
      * Listen for math requests and automatically send replies using @SendTo
@@ -25,24 +42,109 @@ public class MathConsumerListener {
      * - Correlation is handled automatically via CORRELATION_ID header
      * 
      * The return value of this method is automatically sent to the reply topic!
+     * 
+     * The record value arrives as a MathRequest: MathRequestDeserializer extracts
+     * the expression and its variables from JSON or plain text before the listener
+     * is invoked.
+     * 
+     * The container does not start when the Kafka Streams topology is enabled,
+     * so each request is evaluated by exactly one of the two implementations.
+     * 
+     * Requests past their deadline header are dropped before evaluation: returning
+     * null sends no reply, the producer has already failed the request.
+     * 
+     * This container serves the interactive topic; bulk requests arrive through
+     * listenBulkMathRequests, which the PriorityScheduler pauses while this one has a backlog.
+     * 
+     * The reply carries HopTimestamps headers, and evaluation is observed as
+     * "math.evaluate": a span in the request's trace (context from the traceparent
+     * header) and a timer. Time per request also feeds the ScalingAdvisor.
+     * 
+     * Requests without variables are looked up in the SharedResultCache first;
+     * results evaluated here are published to it for the other instances.
      */
-    @KafkaListener(topics = "${app.kafka.topic.request}", groupId = "${spring.kafka.consumer.group-id}")
+    @KafkaListener(id = HIGH_LISTENER_ID, topics = "${app.kafka.topic.request}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            autoStartup = "#{!${app.kafka.streams.enabled:false}}")
     @SendTo  // Replies to the topic specified in the REPLY_TOPIC header (set by ReplyingKafkaTemplate)
-    public String listenMathRequests(String message) {
-        log.info("Received math request: {}", message);
+    public Message<String> listenMathRequests(ConsumerRecord<String, MathRequest> record) {
+        long startNanos = System.nanoTime();
+        try {
+            return process(record, Priority.HIGH);
+        } finally {
+            priorityScheduler.processed(Priority.HIGH);
+            scalingAdvisor.recordProcessed(System.nanoTime() - startNanos);
+        }
+    }
 
+    /**
+     * Bulk requests (calculate-async), in their own consumer group so rebalances
+     * of one container do not stop the other
+     */
+    @KafkaListener(id = LOW_LISTENER_ID, topics = "${app.kafka.topic.request-bulk}",
+            groupId = "${app.kafka.priority.bulk.group-id}",
+            containerFactory = "bulkListenerContainerFactory",
+            autoStartup = "#{!${app.kafka.streams.enabled:false}}")
+    @SendTo
+    public Message<String> listenBulkMathRequests(ConsumerRecord<String, MathRequest> record) {
+        long startNanos = System.nanoTime();
         try {
-            // Parse the incoming message (expecting JSON with "expression" field)
-            String expression = extractExpression(message);
-            
-            // Process the math expression
-            String result = mathProcessorService.processExpression(expression);
+            return process(record, Priority.LOW);
+        } finally {
+            priorityScheduler.processed(Priority.LOW);
+            scalingAdvisor.recordProcessed(System.nanoTime() - startNanos);
+        }
+    }
+
+    private Message<String> process(ConsumerRecord<String, MathRequest> record, Priority priority) {
+        long receivedMicros = HopTimestamps.nowMicros();
+        MathRequest request = record.value() != null ? record.value() : MathRequest.of(null);
+        String expression = request.expression();
+        if (requestDeadlines.isExpired(record.headers())) {
+            log.debug("Dropping expired math request: {}", expression);
+            return null;
+        }
+
+        log.info("Received math request: {}", expression);
+
+        String response = Observation.createNotStarted("math.evaluate", observationRegistry)
+                .contextualName("math evaluate")
+                .lowCardinalityKeyValue("priority", priority.name().toLowerCase())
+                .observe(() -> evaluate(request));
+
+        // Without a reply topic there is nobody to answer (fire-and-forget without REPLY_TOPIC)
+        if (record.headers().lastHeader(KafkaHeaders.REPLY_TOPIC) == null) {
+            return null;
+        }
+        long sentMicros = HopTimestamps.read(record.headers(), HopTimestamps.SENT);
+        return MessageBuilder.withPayload(response)
+                .setHeader(HopTimestamps.SENT,
+                        HopTimestamps.encode(sentMicros >= 0 ? sentMicros : record.timestamp() * 1000))
+                .setHeader(HopTimestamps.RECEIVED, HopTimestamps.encode(receivedMicros))
+                .setHeader(HopTimestamps.PROCESSED, HopTimestamps.encode(HopTimestamps.nowMicros()))
+                .build();
+    }
+
+    private String evaluate(MathRequest request) {
+        String expression = request.expression();
+        try {
+            // Results only depend on the expression when there are no variables
+            boolean shared = request.variables().isEmpty();
+            String result = shared ? sharedResultCache.lookup(expression) : null;
+            if (result == null) {
+                // Process the math expression
+                MathProcessorService.Evaluation evaluation =
+                        mathProcessorService.evaluate(expression, request.variables());
+                result = evaluation.result();
+                if (shared && !evaluation.failed()) {
+                    sharedResultCache.publish(expression, result);
+                }
+            }
             
             log.info("Calculated result for '{}': {}", expression, result);
 
             // Create response JSON - this will be automatically sent to the reply topic
-            String response = String.format("{\"expression\":\"%s\",\"result\":\"%s\"}", 
-                    expression, result);
+            String response = mathMessageCodec.reply(expression, result);
 
             log.info("Sending reply: {}", response);
             return response;
@@ -51,26 +153,7 @@ public class MathConsumerListener {
             log.error("Error processing message: {}", e.getMessage());
             
             // Return error response
-            return String.format("{\"error\":\"%s\"}", e.getMessage());
-        }
-    }
-
-    /**
-     * Extract the math expression from the incoming message
-     * Supports both plain text and JSON format
-     */
-    private String extractExpression(String message) {
-        // Try to parse as JSON first
-        try {
-            JsonNode jsonNode = objectMapper.readTree(message);
-            if (jsonNode.has("expression")) {
-                return jsonNode.get("expression").asText();
-            }
-        } catch (Exception e) {
-            // Not valid JSON, treat as plain text
+            return mathMessageCodec.error(e.getMessage());
         }
-        
-        // Return as plain text expression
-        return message;
     }
 }
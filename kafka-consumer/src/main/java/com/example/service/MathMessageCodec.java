@@ -0,0 +1,35 @@
+package com.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes math replies in the wire format shared by the listener container
+ * and the Kafka Streams topology
+ * Requests are read by MathRequestDeserializer
+ */
+@Component
+public class MathMessageCodec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Build the reply JSON for a calculated expression
+     */
+    public String reply(String expression, String result) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("expression", expression);
+        node.put("result", result);
+        return node.toString();
+    }
+
+    /**
+     * Build the reply JSON for a request that could not be processed
+     */
+    public String error(String message) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("error", message);
+        return node.toString();
+    }
+}
@@ -1,29 +1,69 @@
 package com.example.service;
 
+import com.example.expression.CompiledExpression;
+import com.example.expression.ExpressionCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
-import java.util.regex.Matcher;
+import java.util.Map;
 import java.util.regex.Pattern;
 
+/**
+ * Evaluates math expressions: numbers, + - * / and parentheses, functions such as
+ * sqrt, pow, min and max (MathFunction), the constants pi and e, and variables
+ * bound per request
+ *
+ * Parsed expressions are cached by their text (ExpressionCache); one evaluated
+ * compile-threshold times is compiled to a method handle tree, so repeating it with
+ * other variable values skips parsing and interpretation.
+ */
 @Slf4j
 @Service
 public class MathProcessorService {
 
-    // Pattern to validate simple math expressions (numbers and basic operators)
-    private static final Pattern MATH_PATTERN = Pattern.compile("^[\\d\\s+\\-*/().]+$");
+    // Characters allowed in expressions (numbers, names, operators, parentheses, commas)
+    private static final Pattern MATH_PATTERN = Pattern.compile("^[\\w\\s+\\-*/().,]+$");
+
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final int DEFAULT_COMPILE_THRESHOLD = 3;
+
+    private final ExpressionCache expressionCache;
+
+    public MathProcessorService() {
+        this(DEFAULT_CACHE_SIZE, DEFAULT_COMPILE_THRESHOLD);
+    }
+
+    @Autowired
+    public MathProcessorService(@Value("${app.math.expression.cache-size:10000}") int cacheSize,
+                                @Value("${app.math.expression.compile-threshold:3}") int compileThreshold) {
+        this.expressionCache = new ExpressionCache(cacheSize, compileThreshold);
+    }
 
     /**
      * Process a math expression and return the result
      */
     public String processExpression(String expression) {
+        return processExpression(expression, Map.of());
+    }
+
+    /**
+     * Process a math expression with the given variable values and return the result
+     */
+    public String processExpression(String expression, Map<String, Double> variables) {
+        return evaluate(expression, variables).result();
+    }
+
+    /**
+     * Evaluate a math expression with the given variable values; an expression that
+     * cannot be evaluated gives a failed Evaluation with the error message as result
+     */
+    public Evaluation evaluate(String expression, Map<String, Double> variables) {
         log.info("Processing math expression: {}", expression);
         
         if (expression == null || expression.trim().isEmpty()) {
-            return "Error: Empty expression";
+            return Evaluation.failed("Error: Empty expression");
         }
 
         String cleanExpression = expression.trim();
@@ -31,110 +71,35 @@ public class MathProcessorService {
         // Validate the expression only contains safe characters
         if (!MATH_PATTERN.matcher(cleanExpression).matches()) {
             log.warn("Invalid expression received: {}", expression);
-            return "Error: Invalid expression. Only numbers and +, -, *, /, (), . are allowed";
+            return Evaluation.failed("Error: Invalid expression. Only numbers, names and +, -, *, /, (), ., ',' are allowed");
         }
 
         try {
-            double result = evaluateExpression(cleanExpression);
+            CompiledExpression compiled = expressionCache.get(cleanExpression);
+            double result = compiled.evaluate(variables);
+            if (!Double.isFinite(result)) {
+                return Evaluation.failed("Error: Result is not a finite number");
+            }
             
             // Format result - remove unnecessary decimal places
             if (result == (long) result) {
-                return String.valueOf((long) result);
+                return new Evaluation(String.valueOf((long) result), false);
             } else {
-                return String.valueOf(result);
+                return new Evaluation(String.valueOf(result), false);
             }
         } catch (Exception e) {
             log.error("Error evaluating expression '{}': {}", expression, e.getMessage());
-            return "Error: " + e.getMessage();
+            return Evaluation.failed("Error: " + e.getMessage());
         }
     }
 
     /**
-     * Evaluate a math expression using a simple recursive descent parser
-     */
-    private double evaluateExpression(String expression) {
-        return new ExpressionParser(expression).parse();
-    }
-
-    /**
-     * Simple recursive descent parser for math expressions
+     * Outcome of an evaluation: the formatted value, or the error message when failed
      */
-    private static class ExpressionParser {
-        private final String expression;
-        private int pos = -1;
-        private int ch;
-
-        ExpressionParser(String expression) {
-            this.expression = expression.replaceAll("\\s+", "");
-        }
+    public record Evaluation(String result, boolean failed) {
 
-        void nextChar() {
-            ch = (++pos < expression.length()) ? expression.charAt(pos) : -1;
-        }
-
-        boolean eat(int charToEat) {
-            while (ch == ' ') nextChar();
-            if (ch == charToEat) {
-                nextChar();
-                return true;
-            }
-            return false;
-        }
-
-        double parse() {
-            nextChar();
-            double result = parseExpression();
-            if (pos < expression.length()) {
-                throw new RuntimeException("Unexpected character: " + (char) ch);
-            }
-            return result;
-        }
-
-        double parseExpression() {
-            double result = parseTerm();
-            for (;;) {
-                if (eat('+')) result += parseTerm();
-                else if (eat('-')) result -= parseTerm();
-                else return result;
-            }
-        }
-
-        double parseTerm() {
-            double result = parseFactor();
-            for (;;) {
-                if (eat('*')) result *= parseFactor();
-                else if (eat('/')) {
-                    double divisor = parseFactor();
-                    if (divisor == 0) {
-                        throw new RuntimeException("Division by zero");
-                    }
-                    result /= divisor;
-                }
-                else return result;
-            }
-        }
-
-        double parseFactor() {
-            if (eat('+')) return parseFactor();
-            if (eat('-')) return -parseFactor();
-
-            double result;
-            int startPos = pos;
-            
-            if (eat('(')) {
-                result = parseExpression();
-                if (!eat(')')) {
-                    throw new RuntimeException("Missing closing parenthesis");
-                }
-            } else if ((ch >= '0' && ch <= '9') || ch == '.') {
-                while ((ch >= '0' && ch <= '9') || ch == '.') nextChar();
-                result = Double.parseDouble(expression.substring(startPos, pos));
-            } else {
-                throw new RuntimeException("Unexpected: " + (char) ch);
-            }
-
-            return result;
+        static Evaluation failed(String message) {
+            return new Evaluation(message, true);
         }
     }
 }
-
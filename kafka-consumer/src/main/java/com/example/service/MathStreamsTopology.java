@@ -0,0 +1,145 @@
+package com.example.service;
+
+import com.example.dto.MathRequest;
+import com.example.serialization.MathRequestDeserializer;
+import com.example.serialization.MathRequestSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kafka Streams alternative to MathConsumerListener + @SendTo
+ *
+ * math-requests, math-requests-bulk -> evaluate -> REPLY_TOPIC header
+ *
+ * Record headers (including the CORRELATION_ID set by the producer) are carried
+ * from the request to the reply, so the producer correlates replies exactly as it
+ * does for the listener container. As with @SendTo, each reply goes to the topic
+ * named in the request's REPLY_TOPIC header, and requests without one (fire-and-forget)
+ * get no reply. Requests past their deadline header are dropped without a reply, as
+ * in the listener. Both priority topics are read without weighting; use the listener
+ * containers for priority scheduling.
+ */
+@Slf4j
+public class MathStreamsTopology {
+
+    public static final String RESULT_STORE = "math-results-store";
+
+    private final MathProcessorService mathProcessorService;
+    private final MathMessageCodec mathMessageCodec;
+    private final RequestDeadlines requestDeadlines;
+    private final List<String> requestTopics;
+    private final boolean resultStoreEnabled;
+
+    public MathStreamsTopology(MathProcessorService mathProcessorService, MathMessageCodec mathMessageCodec,
+                               RequestDeadlines requestDeadlines, List<String> requestTopics, boolean resultStoreEnabled) {
+        this.mathProcessorService = mathProcessorService;
+        this.mathMessageCodec = mathMessageCodec;
+        this.requestDeadlines = requestDeadlines;
+        this.requestTopics = requestTopics;
+        this.resultStoreEnabled = resultStoreEnabled;
+    }
+
+    /**
+     * Add the request -> reply stream to the given builder
+     */
+    public void build(StreamsBuilder builder) {
+        if (resultStoreEnabled) {
+            // In-memory store backed by a changelog topic, keyed by expression
+            builder.addStateStore(Stores.keyValueStoreBuilder(
+                    Stores.inMemoryKeyValueStore(RESULT_STORE), Serdes.String(), Serdes.String()));
+        }
+
+        String[] storeNames = resultStoreEnabled ? new String[] { RESULT_STORE } : new String[0];
+
+        // Request values are read straight to the expression and variables
+        Serde<MathRequest> requestSerde = Serdes.serdeFrom(new MathRequestSerializer(), new MathRequestDeserializer());
+
+        builder.stream(requestTopics, Consumed.with(Serdes.String(), requestSerde))
+                .processValues(MathProcessor::new, storeNames)
+                .to((key, reply, context) -> replyTopic(context.headers()),
+                        Produced.with(Serdes.String(), Serdes.String()));
+    }
+
+    /**
+     * The REPLY_TOPIC header, null when absent
+     */
+    private static String replyTopic(Headers headers) {
+        Header header = headers.lastHeader(KafkaHeaders.REPLY_TOPIC);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Evaluates one request; forwarding the same record keeps its key and headers
+     */
+    private class MathProcessor implements FixedKeyProcessor<String, MathRequest, String> {
+
+        private FixedKeyProcessorContext<String, String> context;
+        private KeyValueStore<String, String> resultStore;
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, String> context) {
+            this.context = context;
+            if (resultStoreEnabled) {
+                this.resultStore = context.getStateStore(RESULT_STORE);
+            }
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, MathRequest> record) {
+            // Without a reply topic there is nobody to answer
+            if (replyTopic(record.headers()) == null || requestDeadlines.isExpired(record.headers())) {
+                return;
+            }
+
+            long receivedMicros = HopTimestamps.nowMicros();
+            String reply;
+            try {
+                MathRequest request = record.value() != null ? record.value() : MathRequest.of(null);
+                String expression = request.expression();
+                String result = evaluate(expression, request.variables());
+                reply = mathMessageCodec.reply(expression, result);
+            } catch (Exception e) {
+                log.error("Error processing message: {}", e.getMessage());
+                reply = mathMessageCodec.error(e.getMessage());
+            }
+            // Same hop headers as the listener; the request's SENT header is carried over
+            record.headers().add(HopTimestamps.RECEIVED, HopTimestamps.encode(receivedMicros));
+            record.headers().add(HopTimestamps.PROCESSED, HopTimestamps.encode(HopTimestamps.nowMicros()));
+            context.forward(record.withValue(reply));
+        }
+
+        /**
+         * Results depend on the variable values, so only requests without variables are cached
+         */
+        private String evaluate(String expression, Map<String, Double> variables) {
+            if (resultStore == null || expression == null || !variables.isEmpty()) {
+                return mathProcessorService.processExpression(expression, variables);
+            }
+
+            String cached = resultStore.get(expression);
+            if (cached != null) {
+                return cached;
+            }
+
+            String result = mathProcessorService.processExpression(expression);
+            resultStore.put(expression, result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops math requests whose producer has already given up on them
+ *
+ * The producer sets DEADLINE_HEADER to the epoch millisecond after which nobody
+ * waits for the reply. Evaluating such a request only delays the ones behind it,
+ * so both the listener container and the Streams topology skip it without
+ * replying. Requests without the header never expire. The check uses the
+ * consumer's wall clock, so clock skew between hosts shifts the cut-off.
+ */
+@Slf4j
+@Component
+public class RequestDeadlines {
+
+    public static final String DEADLINE_HEADER = "math_deadline_ms";
+
+    @Value("${app.kafka.deadline.enabled:true}")
+    private boolean enabled = true;
+
+    private final LongAdder expired = new LongAdder();
+
+    public boolean isExpired(Headers headers) {
+        Header header = headers.lastHeader(DEADLINE_HEADER);
+        return isExpired(header == null ? null : header.value());
+    }
+
+    /**
+     * True, and counted, when the deadline header is present and already past
+     */
+    public boolean isExpired(byte[] deadlineHeader) {
+        if (!enabled || deadlineHeader == null) {
+            return false;
+        }
+        long deadline;
+        try {
+            deadline = Long.parseLong(new String(deadlineHeader, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed deadline header");
+            return false;
+        }
+        if (System.currentTimeMillis() <= deadline) {
+            return false;
+        }
+        expired.increment();
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Requests dropped since startup because their deadline had passed
+     */
+    public long expiredCount() {
+        return expired.sum();
+    }
+}
@@ -0,0 +1,208 @@
+package com.example;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Performance regression suite for the consumer listener and the Kafka Streams topology
+ *
+ * Starts the consumer application against an embedded broker and keeps a fixed
+ * number of requests in flight through a ReplyingKafkaTemplate, like the producer's
+ * /calculate. After a warm-up it measures replies per second and the p99 round trip.
+ * The same load runs once against the listener containers and once with
+ * app.kafka.streams.enabled=true, each on its own request topics.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test [-Dperf.tolerance=0.5] [-Dperf.seconds=10]
+ */
+@Tag("perf")
+@EmbeddedKafka(partitions = 3, topics = { "math-requests", "math-requests-bulk", "math-requests-streams",
+        "math-requests-bulk-streams", ConsumerPerfRegressionTest.REPLY_TOPIC })
+class ConsumerPerfRegressionTest {
+
+    static final String REPLY_TOPIC = "math-replies";
+
+    private static final int IN_FLIGHT = Integer.getInteger("perf.inflight", 16);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup.seconds", 3);
+    private static final int SECONDS = Integer.getInteger("perf.seconds", 5);
+
+    @Test
+    void listenerStaysWithinBudget() throws Exception {
+        measure("listener", "math-requests");
+    }
+
+    @Test
+    void streamsStaysWithinBudget() throws Exception {
+        measure("streams", "math-requests-streams",
+                "--app.kafka.streams.enabled=true",
+                "--app.kafka.streams.application-id=perf-streams-" + System.nanoTime(),
+                "--app.kafka.topic.request=math-requests-streams",
+                "--app.kafka.topic.request-bulk=math-requests-bulk-streams");
+    }
+
+    /**
+     * Budgets are named name.throughput-per-second and name.latency-p99-ms
+     */
+    private void measure(String name, String requestTopic, String... args) throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        String[] common = {
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka.scaling.enabled=false",
+                "--management.tracing.sampling.probability=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.com.example=WARN",
+                "--logging.level.org.springframework.kafka=WARN"
+        };
+        String[] all = Arrays.copyOf(common, common.length + args.length);
+        System.arraycopy(args, 0, all, common.length, args.length);
+        ConfigurableApplicationContext consumer = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .run(all);
+        ReplyingKafkaTemplate<String, String, String> template = startTemplate(broker);
+        try {
+            ClosedLoop load = new ClosedLoop(template, requestTopic);
+            load.start();
+            Thread.sleep(WARMUP_SECONDS * 1000L);
+            load.measuring.set(true);
+            long start = System.nanoTime();
+            Thread.sleep(SECONDS * 1000L);
+            load.measuring.set(false);
+            long elapsed = System.nanoTime() - start;
+            load.stop();
+
+            long[] latencies = load.latencies();
+            assertEquals(0, load.failures.get(), "Requests timed out or failed");
+            double throughput = latencies.length / (elapsed / 1e9);
+            double p99 = PerfBudget.percentileMillis(latencies, 99);
+            System.out.printf("%-8s %8.0f replies/s, p99 %6.1f ms%n", name, throughput, p99);
+            PerfBudget budget = new PerfBudget();
+            budget.atLeast(name + ".throughput-per-second", throughput);
+            budget.atMost(name + ".latency-p99-ms", p99);
+            budget.assertWithinBudget();
+        } finally {
+            template.stop();
+            consumer.close();
+        }
+    }
+
+    private ReplyingKafkaTemplate<String, String, String> startTemplate(EmbeddedKafkaBroker broker) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("perf-producer", "false", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        KafkaMessageListenerContainer<String, String> replyContainer = new KafkaMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), new ContainerProperties(REPLY_TOPIC));
+        ReplyingKafkaTemplate<String, String, String> template = new ReplyingKafkaTemplate<>(
+                new DefaultKafkaProducerFactory<>(producerProps), replyContainer);
+        template.setSharedReplyTopic(true);
+        template.setDefaultReplyTimeout(Duration.ofSeconds(30));
+        template.start();
+        try {
+            assertTrue(template.waitForAssignment(Duration.ofSeconds(30)), "Reply container not assigned");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return template;
+    }
+
+    /**
+     * IN_FLIGHT requests outstanding at all times; round trips completed while
+     * measuring are recorded
+     */
+    private static class ClosedLoop {
+
+        private final ReplyingKafkaTemplate<String, String, String> template;
+        private final String requestTopic;
+        private final AtomicBoolean measuring = new AtomicBoolean();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private long[] samples = new long[4096];
+        private int count;
+        private volatile boolean running;
+
+        ClosedLoop(ReplyingKafkaTemplate<String, String, String> template, String requestTopic) {
+            this.template = template;
+            this.requestTopic = requestTopic;
+        }
+
+        void start() {
+            running = true;
+            for (int i = 0; i < IN_FLIGHT; i++) {
+                sendNext();
+            }
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+
+        private void sendNext() {
+            if (!running) {
+                return;
+            }
+            long n = sequence.incrementAndGet();
+            long sentAt = System.nanoTime();
+            inFlight.incrementAndGet();
+            template.sendAndReceive(new ProducerRecord<>(requestTopic, Long.toString(n),
+                            "{\"expression\":\"(" + n + "+1)*2\"}"))
+                    .whenComplete((reply, ex) -> {
+                        inFlight.decrementAndGet();
+                        if (ex != null) {
+                            failures.incrementAndGet();
+                        } else if (measuring.get()) {
+                            record(System.nanoTime() - sentAt);
+                        }
+                        sendNext();
+                    });
+        }
+
+        private synchronized void record(long latency) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = latency;
+        }
+
+        synchronized long[] latencies() {
+            return Arrays.copyOf(samples, count);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example;
+
+import com.example.expression.CompiledExpression;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiled expressions against tree-walking interpretation
+ *
+ * Evaluates the same expressions both ways with changing variable values, as a hot
+ * expression sees them, and reports nanoseconds per evaluation. Binding the variables
+ * is left out of the measurement: both paths share it.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=ExpressionBenchmarkTest
+ */
+@Tag("perf")
+class ExpressionBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final int EVALUATIONS = 1_000_000;
+    private static final int BINDINGS = 1024;
+
+    private volatile double sink;
+
+    @Test
+    void compiledBeatsInterpreted() throws Exception {
+        PerfBudget budget = new PerfBudget();
+        measure(budget, "arithmetic", "(x + y) * (x - y) / 2 + x * 3 - y / 4");
+        measure(budget, "functions", "sqrt(x * x + y * y) + max(x, y, 1) * pow(x, 2) - abs(y)");
+        budget.assertWithinBudget();
+    }
+
+    private void measure(PerfBudget budget, String name, String text) {
+        CompiledExpression expression = new CompiledExpression(text, Integer.MAX_VALUE);
+        double[][] bindings = new double[BINDINGS][];
+        for (int i = 0; i < BINDINGS; i++) {
+            bindings[i] = expression.bind(Map.of("x", 1.0 + i, "y", 0.5 * i - 100));
+        }
+        for (double[] binding : bindings) {
+            assertEquals(expression.interpret(binding), expression.invoke(binding), 0.0);
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            interpreted(expression, bindings);
+            compiled(expression, bindings);
+        }
+        double interpreted = Double.MAX_VALUE;
+        double compiled = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            interpreted = Math.min(interpreted, interpreted(expression, bindings));
+            compiled = Math.min(compiled, compiled(expression, bindings));
+        }
+        System.out.printf("%-12s interpreted %.1f ns/op, compiled %.1f ns/op (%.1fx)%n",
+                name, interpreted, compiled, interpreted / compiled);
+
+        budget.atMost("expression." + name + ".interpreted-ns", interpreted);
+        budget.atMost("expression." + name + ".compiled-ns", compiled);
+    }
+
+    private double interpreted(CompiledExpression expression, double[][] bindings) {
+        long start = System.nanoTime();
+        double sum = 0;
+        for (int i = 0; i < EVALUATIONS; i++) {
+            sum += expression.interpret(bindings[i & (BINDINGS - 1)]);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = sum;
+        return (double) elapsed / EVALUATIONS;
+    }
+
+    private double compiled(CompiledExpression expression, double[][] bindings) {
+        long start = System.nanoTime();
+        double sum = 0;
+        for (int i = 0; i < EVALUATIONS; i++) {
+            sum += expression.invoke(bindings[i & (BINDINGS - 1)]);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = sum;
+        return (double) elapsed / EVALUATIONS;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example;
+
+import com.example.expression.CompiledExpression;
+import com.example.expression.ExpressionCache;
+import com.example.expression.ExpressionParser;
+import com.example.service.MathProcessorService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionCompilerTest {
+
+    private static final List<String> EXPRESSIONS = List.of(
+            "1 + 2 * 3",
+            "(1 + 2) * 3 - -4",
+            "x * x + 2 * x * y + y * y",
+            "sqrt(x * x + y * y)",
+            "pow(x, 3) / (1 + abs(y))",
+            "min(x, y, 3) + max(x, -y)",
+            "hypot(x, y) - atan2(y, x) * 180 / pi",
+            "round(x / 3) + floor(y) + ceil(x / 7)",
+            "e * ln(x) + log10(100) + log(8) + exp(0)",
+            "sin(x) * sin(x) + cos(x) * cos(x)");
+
+    @Test
+    void testCompiledMatchesInterpreted() {
+        for (String text : EXPRESSIONS) {
+            CompiledExpression expression = new CompiledExpression(text, Integer.MAX_VALUE);
+            for (double x = 0.5; x < 10; x += 1.25) {
+                double[] bindings = expression.bind(Map.of("x", x, "y", 3 - x));
+                assertEquals(expression.interpret(bindings), expression.invoke(bindings), 0.0, text);
+            }
+        }
+    }
+
+    @Test
+    void testCompilesAfterThreshold() {
+        CompiledExpression expression = new CompiledExpression("a * b + c", 3);
+        assertEquals(List.of("a", "b", "c"), expression.variables());
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(7, expression.evaluate(Map.of("a", 2.0, "b", 3.0, "c", 1.0)));
+            assertFalse(expression.isCompiled());
+        }
+        assertEquals(11, expression.evaluate(Map.of("a", 2.0, "b", 5.0, "c", 1.0)));
+        assertTrue(expression.isCompiled());
+        assertEquals(-1, expression.evaluate(Map.of("a", 1.0, "b", 1.0, "c", -2.0)));
+    }
+
+    @Test
+    void testErrors() {
+        CompiledExpression division = new CompiledExpression("1 / x", Integer.MAX_VALUE);
+        double[] zero = division.bind(Map.of("x", 0.0));
+        assertThrows(ArithmeticException.class, () -> division.interpret(zero));
+        assertThrows(ArithmeticException.class, () -> division.invoke(zero));
+
+        assertEquals("Unknown variable: x",
+                assertThrows(IllegalArgumentException.class, () -> division.bind(Map.of("y", 1.0))).getMessage());
+        assertEquals("Unknown function: foo", parseError("foo(1)"));
+        assertEquals("sqrt takes 1 argument", parseError("sqrt(1, 2)"));
+        assertEquals("pow takes 2 arguments", parseError("pow(2)"));
+        assertEquals("max takes at least 1 argument", parseError("max()"));
+        assertEquals("Missing closing parenthesis", parseError("min(1, 2"));
+        assertEquals("Unexpected end of expression", parseError("2 *"));
+    }
+
+    @Test
+    void testCacheEvictsLeastRecentlyUsed() {
+        ExpressionCache cache = new ExpressionCache(2, 1);
+        CompiledExpression first = cache.get("x + 1");
+        cache.get("x + 2");
+        assertSame(first, cache.get("x + 1"));
+        cache.get("x + 3");
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("x + 1"));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("x +"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testProcessorWithVariables() {
+        MathProcessorService processor = new MathProcessorService();
+
+        assertEquals("14", processor.processExpression("2 + 3 * 4"));
+        assertEquals("5", processor.processExpression("sqrt(x * x + y * y)", Map.of("x", 3.0, "y", 4.0)));
+        assertEquals("2.5", processor.processExpression("max(a, b) / 2", Map.of("a", 5.0, "b", -1.0)));
+        assertEquals("Error: Unknown variable: x", processor.processExpression("x + 1"));
+        assertEquals("Error: Division by zero", processor.processExpression("1 / (x - x)", Map.of("x", 2.0)));
+        assertEquals("Error: Result is not a finite number", processor.processExpression("ln(0)"));
+        assertTrue(processor.processExpression("x; 1").startsWith("Error: Invalid expression"));
+
+        assertFalse(processor.evaluate("6 * 7", Map.of()).failed());
+        assertTrue(processor.evaluate("x + 1", Map.of()).failed());
+        assertTrue(processor.evaluate("", Map.of()).failed());
+    }
+
+    @Test
+    void testLongFlatChainsDoNotNest() {
+        // Chains are evaluated in a loop, interpreted and compiled
+        String constants = "1" + "+1".repeat(99_999);
+        assertEquals("100000", new MathProcessorService().processExpression(constants));
+
+        CompiledExpression sum = new CompiledExpression("x" + "+x".repeat(4_999), 3);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(10_000, sum.evaluate(Map.of("x", 2.0)), 0.0);
+        }
+        assertTrue(sum.isCompiled());
+
+        CompiledExpression mixed = new CompiledExpression("x" + "*x/x-x+x".repeat(2_000), Integer.MAX_VALUE);
+        double[] bindings = mixed.bind(Map.of("x", 3.0));
+        assertEquals(mixed.interpret(bindings), mixed.invoke(bindings), 0.0);
+        assertEquals(3, mixed.invoke(bindings), 0.0);
+    }
+
+    @Test
+    void testDeepNestingIsRejected() {
+        int depth = ExpressionParser.MAX_DEPTH;
+        String nested = "(".repeat(depth - 1) + "x" + ")".repeat(depth - 1);
+        assertEquals(4, new CompiledExpression(nested, 1).evaluate(Map.of("x", 4.0)), 0.0);
+
+        String message = "Expression nested deeper than " + depth + " levels";
+        assertEquals(message, parseError("(".repeat(depth) + "1" + ")".repeat(depth)));
+        assertEquals(message, parseError("-".repeat(50_000) + "1"));
+        assertEquals("Error: " + message,
+                new MathProcessorService().processExpression("sqrt(".repeat(10_000) + "1" + ")".repeat(10_000)));
+    }
+
+    private static String parseError(String text) {
+        return assertThrows(IllegalArgumentException.class, () -> new CompiledExpression(text, 1)).getMessage();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example;
+
+import com.example.config.KafkaNativeHints;
+import com.example.serialization.MathRequestDeserializer;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaNativeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    KafkaNativeHintsTest() {
+        new KafkaNativeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testClassesLoadedFromClientConfig() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(MathRequestDeserializer.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(CooperativeStickyAssignor.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+    }
+
+    @Test
+    void testExpressionMethodHandleTargets() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Math.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of("com.example.expression.Operators"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_METHODS).test(hints));
+    }
+
+    @Test
+    void testKafkaVersionResource() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("kafka/kafka-version.properties").test(hints));
+    }
+}
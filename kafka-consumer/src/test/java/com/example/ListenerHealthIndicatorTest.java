@@ -0,0 +1,127 @@
+package com.example;
+
+import com.example.health.ListenerHealthIndicator;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ListenerHealthIndicatorTest {
+
+    private static final Duration LIVENESS_POLL_AGE = Duration.ofSeconds(120);
+    private static final Duration READINESS_POLL_AGE = Duration.ofSeconds(30);
+    private static final Duration READINESS_HEARTBEAT_AGE = Duration.ofSeconds(45);
+
+    @Test
+    void testPollingContainerIsLiveAndReady() {
+        MessageListenerContainer container = container(true, true, 2, 1);
+
+        assertEquals(Status.UP, liveness(container).getStatus());
+        assertEquals(Status.UP, readiness(container).getStatus());
+    }
+
+    @Test
+    void testStuckListenerFailsLiveness() {
+        MessageListenerContainer container = container(true, true, 200, 1);
+
+        Health health = liveness(container);
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("no poll for 200s", problem(health));
+    }
+
+    @Test
+    void testUnreachableBrokerFailsReadinessOnly() {
+        // The poll loop keeps running without a broker, heartbeats stop
+        MessageListenerContainer container = container(true, true, 0, 60);
+
+        assertEquals(Status.UP, liveness(container).getStatus());
+        Health readiness = readiness(container);
+        assertEquals(Status.DOWN, readiness.getStatus());
+        assertEquals("no heartbeat to the group coordinator", problem(readiness));
+    }
+
+    @Test
+    void testNotYetPolledIsLiveButNotReady() {
+        MessageListenerContainer container = container(true, true, -1, -1);
+
+        assertEquals(Status.UP, liveness(container).getStatus());
+        assertEquals(Status.DOWN, readiness(container).getStatus());
+    }
+
+    @Test
+    void testContainerStoppedByErrorIsDown() {
+        MessageListenerContainer container = container(false, false, 1, 1);
+
+        Health health = liveness(container);
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("stopped after an error", problem(health));
+    }
+
+    @Test
+    void testStreamsStateReplacesContainerChecks() {
+        ListenerHealthIndicator running = new ListenerHealthIndicator(List::of, () -> KafkaStreams.State.RUNNING,
+                LIVENESS_POLL_AGE, Duration.ZERO);
+        ListenerHealthIndicator failed = new ListenerHealthIndicator(List::of, () -> KafkaStreams.State.ERROR,
+                LIVENESS_POLL_AGE, Duration.ZERO);
+
+        assertEquals(Status.UP, running.health().getStatus());
+        assertEquals(Status.DOWN, failed.health().getStatus());
+    }
+
+    private static Health liveness(MessageListenerContainer container) {
+        return new ListenerHealthIndicator(() -> List.of(container), null, LIVENESS_POLL_AGE, Duration.ZERO).health();
+    }
+
+    private static Health readiness(MessageListenerContainer container) {
+        return new ListenerHealthIndicator(() -> List.of(container), null,
+                READINESS_POLL_AGE, READINESS_HEARTBEAT_AGE).health();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String problem(Health health) {
+        return (String) ((Map<String, Object>) health.getDetails().get("math-requests-high")).get("problem");
+    }
+
+    private static MessageListenerContainer container(boolean running, boolean expectedState,
+                                                      double pollAge, double heartbeatAge) {
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.getListenerId()).thenReturn("math-requests-high");
+        when(container.isRunning()).thenReturn(running);
+        when(container.isInExpectedState()).thenReturn(expectedState);
+        Map<MetricName, Metric> metrics = Map.of(
+                metricName("last-poll-seconds-ago", "consumer-metrics"), metric(pollAge),
+                metricName("last-heartbeat-seconds-ago", "consumer-coordinator-metrics"), metric(heartbeatAge));
+        doReturn(Map.of("consumer-math-0", metrics)).when(container).metrics();
+        return container;
+    }
+
+    private static MetricName metricName(String name, String group) {
+        return new MetricName(name, group, "", Map.of("client-id", "consumer-math-0"));
+    }
+
+    private static Metric metric(double value) {
+        return new Metric() {
+            @Override
+            public MetricName metricName() {
+                return null;
+            }
+
+            @Override
+            public Object metricValue() {
+                return value;
+            }
+        };
+    }
+}
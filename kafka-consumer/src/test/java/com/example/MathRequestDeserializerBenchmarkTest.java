@@ -0,0 +1,118 @@
+package com.example;
+
+import com.example.serialization.MathRequestDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Request payload to expression: MathRequestDeserializer against the tree path it replaced
+ *
+ * The old path read the request as a String (StringDeserializer) and looked the
+ * "expression" field up in an ObjectMapper.readTree tree, falling back to the text when
+ * parsing failed (MathMessageCodec.extractExpression, copied here as it was). The new one
+ * streams the bytes into a MathRequest. Measured for a JSON request and a plain-text
+ * one, reported per request: CPU time and bytes allocated on the measuring thread, best
+ * of ROUNDS after WARMUP_ROUNDS.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=MathRequestDeserializerBenchmarkTest
+ */
+@Tag("perf")
+class MathRequestDeserializerBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final int REQUESTS = 1_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile int sink;
+
+    @Test
+    void streamingDeserializerBeatsTree() throws Exception {
+        StringDeserializer strings = new StringDeserializer();
+        MathRequestDeserializer requests = new MathRequestDeserializer();
+        Decoder legacy = data -> extractExpression(strings.deserialize("math-requests", data));
+        Decoder streaming = data -> requests.deserialize("math-requests", data).expression();
+
+        PerfBudget budget = new PerfBudget();
+        measure(budget, "json", "{\"expression\":\"(10+5)*2/3\"}", legacy, streaming);
+        measure(budget, "plain-text", "(10+5)*2/3", legacy, streaming);
+        budget.assertWithinBudget();
+    }
+
+    private void measure(PerfBudget budget, String name, String request, Decoder legacy, Decoder streaming) {
+        byte[] payload = request.getBytes(StandardCharsets.UTF_8);
+        assertEquals(legacy.decode(payload), streaming.decode(payload));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(legacy, payload);
+            run(streaming, payload);
+        }
+        Result legacyBest = null;
+        Result streamingBest = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            legacyBest = Result.best(legacyBest, run(legacy, payload));
+            streamingBest = Result.best(streamingBest, run(streaming, payload));
+        }
+        System.out.printf("%-10s string + readTree %6.1f ns CPU, %5.0f B; streaming %6.1f ns CPU, %5.0f B per request%n",
+                name, legacyBest.cpuNanos(), legacyBest.bytes(), streamingBest.cpuNanos(), streamingBest.bytes());
+
+        assertTrue(streamingBest.cpuNanos() < legacyBest.cpuNanos(), name + ": streaming is slower than readTree");
+        assertTrue(streamingBest.bytes() < legacyBest.bytes(), name + ": streaming allocates more than readTree");
+        budget.atMost("request-deserializer." + name + ".cpu-ns", streamingBest.cpuNanos());
+        budget.atMost("request-deserializer." + name + ".bytes", streamingBest.bytes());
+    }
+
+    private Result run(Decoder decoder, byte[] payload) {
+        long cpuBefore = THREADS.getCurrentThreadCpuTime();
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        int length = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            length += decoder.decode(payload).length();
+        }
+        Result result = new Result((double) (THREADS.getCurrentThreadCpuTime() - cpuBefore) / REQUESTS,
+                (double) (THREADS.getCurrentThreadAllocatedBytes() - bytesBefore) / REQUESTS);
+        sink = length;
+        return result;
+    }
+
+    /**
+     * MathMessageCodec.extractExpression before MathRequestDeserializer
+     */
+    private String extractExpression(String message) {
+        try {
+            JsonNode jsonNode = objectMapper.readTree(message);
+            if (jsonNode.has("expression")) {
+                return jsonNode.get("expression").asText();
+            }
+        } catch (Exception e) {
+            // Not valid JSON, treat as plain text
+        }
+        return message;
+    }
+
+    private interface Decoder {
+
+        String decode(byte[] data);
+    }
+
+    private record Result(double cpuNanos, double bytes) {
+
+        static Result best(Result previous, Result current) {
+            return previous == null || current.cpuNanos() < previous.cpuNanos() ? current : previous;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example;
+
+import com.example.dto.MathRequest;
+import com.example.serialization.MathRequestDeserializer;
+import com.example.serialization.MathRequestSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MathRequestDeserializerTest {
+
+    private final MathRequestDeserializer deserializer = new MathRequestDeserializer();
+
+    private String deserialize(String payload) {
+        return request(payload).expression();
+    }
+
+    private MathRequest request(String payload) {
+        return deserializer.deserialize("math-requests", payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testJsonExpression() {
+        assertEquals("2+2", deserialize("{\"expression\":\"2+2\"}"));
+        assertEquals("(1+2)*3", deserialize("  \n{ \"id\": 7, \"expression\" : \"(1+2)*3\" }"));
+    }
+
+    @Test
+    void testNestedFieldsAreSkipped() {
+        assertEquals("5*5", deserialize(
+                "{\"meta\":{\"expression\":\"wrong\"},\"tags\":[\"a\",{\"b\":1}],\"expression\":\"5*5\"}"));
+    }
+
+    @Test
+    void testEscapedCharacters() {
+        assertEquals("say \"hi\"", deserialize("{\"expression\":\"say \\\"hi\\\"\"}"));
+    }
+
+    @Test
+    void testNonStringExpressionMatchesAsText() {
+        assertEquals("42", deserialize("{\"expression\":42}"));
+        assertEquals("null", deserialize("{\"expression\":null}"));
+        assertEquals("", deserialize("{\"expression\":{\"a\":1}}"));
+    }
+
+    @Test
+    void testPlainTextIsReturnedAsIs() {
+        assertEquals("10*5+3", deserialize("10*5+3"));
+        assertEquals("(2+3)", deserialize("(2+3)"));
+    }
+
+    @Test
+    void testJsonWithoutExpressionOrMalformedIsReturnedAsText() {
+        assertEquals("{\"value\":\"1+1\"}", deserialize("{\"value\":\"1+1\"}"));
+        assertEquals("{\"expression\":", deserialize("{\"expression\":"));
+    }
+
+    @Test
+    void testVariables() {
+        MathRequest request = request(
+                "{\"variables\":{\"x\":2,\"rate\":0.5,\"name\":\"skip\",\"nested\":{\"y\":1}},\"expression\":\"x*rate\"}");
+        assertEquals("x*rate", request.expression());
+        assertEquals(Map.of("x", 2.0, "rate", 0.5), request.variables());
+
+        assertEquals(Map.of(), request("{\"expression\":\"1+1\"}").variables());
+        assertEquals(Map.of(), request("1+1").variables());
+    }
+
+    @Test
+    void testNullPayload() {
+        assertNull(deserializer.deserialize("math-requests", null));
+    }
+
+    @Test
+    void testSerializerRoundTrip() {
+        MathRequestSerializer serializer = new MathRequestSerializer();
+        for (MathRequest request : new MathRequest[] {
+                MathRequest.of("say \"hi\""),
+                new MathRequest("x*rate", Map.of("x", 2.0, "rate", 0.5)) }) {
+            assertEquals(request, deserializer.deserialize("math-requests", serializer.serialize("math-requests", request)));
+        }
+        assertEquals("{\"expression\":\"1+1\"}",
+                new String(serializer.serialize("math-requests", MathRequest.of("1+1")), StandardCharsets.UTF_8));
+        assertNull(serializer.serialize("math-requests", null));
+    }
+}
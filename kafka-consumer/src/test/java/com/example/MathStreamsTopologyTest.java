@@ -0,0 +1,159 @@
+package com.example;
+
+import com.example.service.MathMessageCodec;
+import com.example.service.HopTimestamps;
+import com.example.service.MathProcessorService;
+import com.example.service.MathStreamsTopology;
+import com.example.service.RequestDeadlines;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MathStreamsTopologyTest {
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, String> requests;
+    private TestOutputTopic<String, String> replies;
+    private RequestDeadlines requestDeadlines;
+
+    @AfterEach
+    void tearDown() {
+        if (driver != null) {
+            driver.close();
+        }
+    }
+
+    private void createDriver(boolean resultStoreEnabled) {
+        StreamsBuilder builder = new StreamsBuilder();
+        requestDeadlines = new RequestDeadlines();
+        new MathStreamsTopology(new MathProcessorService(), new MathMessageCodec(), requestDeadlines,
+                List.of("math-requests"), resultStoreEnabled).build(builder);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "math-streams-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+
+        driver = new TopologyTestDriver(builder.build(), props);
+        requests = driver.createInputTopic("math-requests", new StringSerializer(), new StringSerializer());
+        replies = driver.createOutputTopic("math-replies", new StringDeserializer(), new StringDeserializer());
+    }
+
+    private static Headers replyTo(String topic) {
+        Headers headers = new RecordHeaders();
+        headers.add(KafkaHeaders.REPLY_TOPIC, topic.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    private void pipeRequest(String key, String value) {
+        requests.pipeInput(new TestRecord<>(key, value, replyTo("math-replies")));
+    }
+
+    @Test
+    void testJsonRequestProducesReply() {
+        createDriver(false);
+
+        pipeRequest("corr-1", "{\"expression\":\"(2+3)*4\"}");
+
+        TestRecord<String, String> reply = replies.readRecord();
+        assertEquals("corr-1", reply.key());
+        assertEquals("{\"expression\":\"(2+3)*4\",\"result\":\"20\"}", reply.value());
+    }
+
+    @Test
+    void testPlainTextRequestProducesReply() {
+        createDriver(false);
+
+        pipeRequest("corr-2", "10/4");
+
+        assertEquals("{\"expression\":\"10/4\",\"result\":\"2.5\"}", replies.readValue());
+    }
+
+    @Test
+    void testCorrelationHeadersArePreserved() {
+        createDriver(false);
+
+        byte[] correlationId = "abc-123".getBytes(StandardCharsets.UTF_8);
+        Headers headers = replyTo("math-replies");
+        headers.add(KafkaHeaders.CORRELATION_ID, correlationId);
+
+        requests.pipeInput(new TestRecord<>("corr-3", "{\"expression\":\"1+1\"}", headers));
+
+        TestRecord<String, String> reply = replies.readRecord();
+        assertArrayEquals(correlationId, reply.headers().lastHeader(KafkaHeaders.CORRELATION_ID).value());
+        assertTrue(HopTimestamps.read(reply.headers(), HopTimestamps.PROCESSED)
+                >= HopTimestamps.read(reply.headers(), HopTimestamps.RECEIVED));
+        assertEquals("{\"expression\":\"1+1\",\"result\":\"2\"}", reply.value());
+    }
+
+    @Test
+    void testResultStoreCachesByExpression() {
+        createDriver(true);
+
+        pipeRequest("corr-4", "{\"expression\":\"6*7\"}");
+        pipeRequest("corr-5", "{\"expression\":\"6*7\"}");
+
+        assertEquals(2, replies.readValuesToList().size());
+        KeyValueStore<String, String> store = driver.getKeyValueStore(MathStreamsTopology.RESULT_STORE);
+        assertEquals("42", store.get("6*7"));
+    }
+
+    @Test
+    void testExpiredRequestIsDroppedWithoutReply() {
+        createDriver(false);
+
+        Headers expired = replyTo("math-replies");
+        expired.add(RequestDeadlines.DEADLINE_HEADER,
+                Long.toString(System.currentTimeMillis() - 1000).getBytes(StandardCharsets.US_ASCII));
+        Headers live = replyTo("math-replies");
+        live.add(RequestDeadlines.DEADLINE_HEADER,
+                Long.toString(System.currentTimeMillis() + 60_000).getBytes(StandardCharsets.US_ASCII));
+
+        requests.pipeInput(new TestRecord<>("corr-6", "{\"expression\":\"1+2\"}", expired));
+        requests.pipeInput(new TestRecord<>("corr-7", "{\"expression\":\"2+2\"}", live));
+
+        TestRecord<String, String> reply = replies.readRecord();
+        assertEquals("corr-7", reply.key());
+        assertTrue(replies.isEmpty());
+        assertEquals(1, requestDeadlines.expiredCount());
+    }
+
+    @Test
+    void testReplyGoesToRequestedTopic() {
+        createDriver(false);
+        TestOutputTopic<String, String> otherReplies =
+                driver.createOutputTopic("math-replies-other", new StringDeserializer(), new StringDeserializer());
+
+        requests.pipeInput(new TestRecord<>("corr-8", "3*3", replyTo("math-replies-other")));
+
+        assertEquals("{\"expression\":\"3*3\",\"result\":\"9\"}", otherReplies.readValue());
+        assertTrue(replies.isEmpty());
+    }
+
+    @Test
+    void testRequestWithoutReplyTopicGetsNoReply() {
+        createDriver(false);
+
+        requests.pipeInput("corr-9", "{\"expression\":\"1+1\"}");
+        pipeRequest("corr-10", "{\"expression\":\"2+2\"}");
+
+        assertEquals("corr-10", replies.readRecord().key());
+        assertTrue(replies.isEmpty());
+    }
+}
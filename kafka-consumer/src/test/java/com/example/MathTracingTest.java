@@ -0,0 +1,120 @@
+package com.example;
+
+import com.example.service.HopTimestamps;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.group-id=tracing-test",
+        "app.kafka.consumer.instance-id=tracing-test"
+})
+@EmbeddedKafka(partitions = 1, topics = { "math-requests", "math-requests-bulk", "math-replies" })
+@AutoConfigureObservability
+class MathTracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @TestConfiguration
+    static class InMemoryExporterConfig {
+
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private InMemorySpanExporter spanExporter;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void testTraceAndHopTimestampsFollowTheRequest() throws Exception {
+        long sentMicros = HopTimestamps.nowMicros();
+        ProducerRecord<String, String> request =
+                new ProducerRecord<>("math-requests", "corr-1", "{\"expression\":\"(2+3)*4\"}");
+        request.headers().add("traceparent", ("00-" + TRACE_ID + "-00f067aa0ba902b7-01").getBytes(StandardCharsets.UTF_8));
+        request.headers().add(KafkaHeaders.CORRELATION_ID, "corr-1".getBytes(StandardCharsets.UTF_8));
+        request.headers().add(KafkaHeaders.REPLY_TOPIC, "math-replies".getBytes(StandardCharsets.UTF_8));
+        request.headers().add(HopTimestamps.SENT, HopTimestamps.encode(sentMicros));
+
+        try (Consumer<String, String> replies = replyConsumer(); KafkaProducer<String, String> producer = producer()) {
+            broker.consumeFromAnEmbeddedTopic(replies, "math-replies");
+            producer.send(request).get();
+
+            ConsumerRecord<String, String> reply =
+                    KafkaTestUtils.getSingleRecord(replies, "math-replies", Duration.ofSeconds(60));
+
+            assertEquals("{\"expression\":\"(2+3)*4\",\"result\":\"20\"}", reply.value());
+            String traceparent = new String(reply.headers().lastHeader("traceparent").value(), StandardCharsets.UTF_8);
+            assertTrue(traceparent.contains(TRACE_ID), traceparent);
+
+            long received = HopTimestamps.read(reply.headers(), HopTimestamps.RECEIVED);
+            long processed = HopTimestamps.read(reply.headers(), HopTimestamps.PROCESSED);
+            assertEquals(sentMicros, HopTimestamps.read(reply.headers(), HopTimestamps.SENT));
+            assertTrue(received >= sentMicros, "received before sent");
+            assertTrue(processed >= received, "processed before received");
+        }
+
+        // Spans are exported in batches
+        List<SpanData> spans = List.of();
+        for (int i = 0; i < 150 && !hasSpanKinds(spans); i++) {
+            Thread.sleep(100);
+            spans = spanExporter.getFinishedSpanItems().stream()
+                    .filter(span -> span.getTraceId().equals(TRACE_ID))
+                    .toList();
+        }
+        assertTrue(hasSpanKinds(spans), "spans: " + spans);
+        assertTrue(spans.stream().anyMatch(span -> span.getName().equals("math evaluate")), "spans: " + spans);
+    }
+
+    private static boolean hasSpanKinds(List<SpanData> spans) {
+        Set<SpanKind> kinds = spans.stream().map(SpanData::getKind).collect(Collectors.toSet());
+        return kinds.contains(SpanKind.CONSUMER) && kinds.contains(SpanKind.PRODUCER);
+    }
+
+    private KafkaProducer<String, String> producer() {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return new KafkaProducer<>(props);
+    }
+
+    private Consumer<String, String> replyConsumer() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("tracing-test-replies", "false", broker);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        return new DefaultKafkaConsumerFactory<String, String>(props).createConsumer();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Smoke test for the packaged consumer: starts the native binary and the JVM jar
+ * against an embedded broker, sends one math request to each and reports
+ * time to the "Started" log line, time to the first reply and peak RSS
+ *
+ * Run by failsafe in the native profile, after the binary is built:
+ *   mvn -Pnative verify
+ */
+@EmbeddedKafka(partitions = 1, topics = { "math-requests", NativeSmokeIT.REPLY_TOPIC })
+class NativeSmokeIT {
+
+    static final String REPLY_TOPIC = "math-replies";
+
+    @Test
+    void testPackagedApplicationsReply() throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        List<String> report = new ArrayList<>();
+
+        ReplyingKafkaTemplate<String, String, String> template = startReplyingTemplate(broker);
+        try {
+            String nativeBinary = System.getProperty("native.binary");
+            String jvmJar = System.getProperty("jvm.jar");
+            assertTrue(nativeBinary != null || jvmJar != null, "Set native.binary and/or jvm.jar");
+
+            if (nativeBinary != null) {
+                assertTrue(Files.isExecutable(Path.of(nativeBinary)), "Native binary not built: " + nativeBinary);
+                report.add(run("native", List.of(nativeBinary), broker, template));
+            }
+            if (jvmJar != null) {
+                report.add(run("jvm", List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-jar", jvmJar), broker, template));
+            }
+        } finally {
+            template.stop();
+        }
+
+        System.out.printf("%n=== packaged consumer: started / first reply / peak RSS ===%n");
+        report.forEach(System.out::println);
+    }
+
+    private String run(String name, List<String> command, EmbeddedKafkaBroker broker,
+                       ReplyingKafkaTemplate<String, String, String> template) throws Exception {
+        List<String> args = new ArrayList<>(command);
+        args.add("--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString());
+        args.add("--spring.kafka.consumer.group-id=smoke-" + name);
+        args.add("--app.kafka.consumer.instance-id=smoke-" + name);
+        args.add("--server.port=0");
+        args.add("--spring.main.banner-mode=off");
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(args).redirectErrorStream(true).start();
+        CompletableFuture<Long> started = new CompletableFuture<>();
+        Thread output = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.contains("Started App")) {
+                        started.complete(System.nanoTime() - start);
+                    }
+                }
+            } catch (Exception e) {
+                started.completeExceptionally(e);
+            }
+        });
+        output.setDaemon(true);
+        output.start();
+
+        try {
+            long startedNanos = started.get(120, TimeUnit.SECONDS);
+
+            ConsumerRecord<String, String> reply = template
+                    .sendAndReceive(new ProducerRecord<>("math-requests", name, "{\"expression\":\"(2+3)*4\"}"))
+                    .get(120, TimeUnit.SECONDS);
+            long firstReplyNanos = System.nanoTime() - start;
+
+            assertTrue(reply.value().contains("\"result\":\"20\""), name + " replied " + reply.value());
+            return String.format("%-6s: %7.0f ms / %7.0f ms / %s", name,
+                    startedNanos / 1e6, firstReplyNanos / 1e6, peakRss(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * VmHWM from /proc, available on Linux only
+     */
+    private String peakRss(long pid) {
+        try {
+            return Files.readAllLines(Path.of("/proc", Long.toString(pid), "status")).stream()
+                    .filter(line -> line.startsWith("VmHWM:"))
+                    .map(line -> line.substring("VmHWM:".length()).trim())
+                    .findFirst()
+                    .orElse("n/a");
+        } catch (Exception e) {
+            return "n/a";
+        }
+    }
+
+    private ReplyingKafkaTemplate<String, String, String> startReplyingTemplate(EmbeddedKafkaBroker broker)
+            throws InterruptedException {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("smoke-replies", "false", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        KafkaMessageListenerContainer<String, String> replyContainer = new KafkaMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), new ContainerProperties(REPLY_TOPIC));
+
+        ReplyingKafkaTemplate<String, String, String> template = new ReplyingKafkaTemplate<>(
+                new DefaultKafkaProducerFactory<>(producerProps), replyContainer);
+        template.setDefaultReplyTimeout(Duration.ofSeconds(120));
+        template.start();
+        assertTrue(template.waitForAssignment(Duration.ofSeconds(30)), "Reply container not assigned");
+        return template;
+    }
+}
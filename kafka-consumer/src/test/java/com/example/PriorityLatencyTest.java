@@ -0,0 +1,250 @@
+package com.example;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Interactive reply latency while a bulk flood is queued
+ *
+ * Queues a bulk backlog, then sends interactive requests at a fixed rate and
+ * measures their reply latency and how long the bulk backlog takes to drain:
+ * - shared topic: bulk requests on the interactive topic, as before priority classes
+ * - separate topics without the scheduler: both containers compete for the CPU
+ * - separate topics with the weighted scheduler
+ *
+ * Fails unless every bulk request is answered in each scenario and the weighted
+ * scheduler's interactive p99 is below the shared topic's.
+ *
+ * Excluded from the default build, run with:
+ *   mvn test -Pscale-test -Dtest=PriorityLatencyTest -Dpriority.bulk=200000
+ */
+@Tag("scale")
+@EmbeddedKafka(partitions = 3, topics = PriorityLatencyTest.REPLY_TOPIC)
+class PriorityLatencyTest {
+
+    static final String REPLY_TOPIC = "math-replies";
+    private static final int PARTITIONS = 3;
+
+    private static final int BULK = Integer.getInteger("priority.bulk", 200_000);
+    private static final int INTERACTIVE_RATE = Integer.getInteger("priority.interactive.rate", 20);
+    private static final int INTERACTIVE_SECONDS = Integer.getInteger("priority.interactive.seconds", 5);
+
+    private static final AtomicInteger SCENARIO = new AtomicInteger();
+
+    @Test
+    void schedulerCutsInteractiveLatencyUnderBulkFlood() throws Exception {
+        Result shared = interactiveLatencyUnderBulkFlood("shared-topic", true, false);
+        interactiveLatencyUnderBulkFlood("separate-topics", false, true);
+        Result scheduled = interactiveLatencyUnderBulkFlood("weighted-scheduler", true, true);
+
+        assertTrue(scheduled.p99Millis() < shared.p99Millis(), String.format(
+                "Interactive p99 with the weighted scheduler (%.1f ms) is not below the shared topic's (%.1f ms)",
+                scheduled.p99Millis(), shared.p99Millis()));
+    }
+
+    private Result interactiveLatencyUnderBulkFlood(String name, boolean priorityEnabled, boolean separateTopics)
+            throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        String scenario = name + "-" + SCENARIO.incrementAndGet();
+        String requestTopic = "math-requests-" + scenario;
+        String bulkTopic = "math-requests-bulk-" + scenario;
+        String bulkReplyTopic = "math-replies-bulk-" + scenario;
+        broker.addTopics(new NewTopic(requestTopic, PARTITIONS, (short) 1),
+                new NewTopic(bulkTopic, PARTITIONS, (short) 1),
+                new NewTopic(bulkReplyTopic, PARTITIONS, (short) 1));
+
+        ConfigurableApplicationContext consumer = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--spring.kafka.consumer.group-id=math-consumer-group-" + scenario,
+                        "--app.kafka.consumer.instance-id=" + scenario,
+                        "--app.kafka.topic.request=" + requestTopic,
+                        "--app.kafka.topic.request-bulk=" + bulkTopic,
+                        "--app.kafka.priority.enabled=" + priorityEnabled,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.com.example=WARN",
+                        "--logging.level.org.springframework.kafka=WARN");
+        ReplyingKafkaTemplate<String, String, String> interactive = startInteractiveProducer(broker, scenario);
+        try {
+            // Warm-up: the interactive container is assigned and replies flow
+            interactive.sendAndReceive(new ProducerRecord<>(requestTopic, "warm-up", "{\"expression\":\"1+1\"}"))
+                    .get(60, TimeUnit.SECONDS);
+
+            BulkReplyCounter bulkReplies = new BulkReplyCounter(broker, bulkReplyTopic);
+            bulkReplies.start();
+            long floodStart = System.nanoTime();
+            flood(broker, separateTopics ? bulkTopic : requestTopic, bulkReplyTopic);
+
+            List<CompletableFuture<Long>> latencies = new ArrayList<>();
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / INTERACTIVE_RATE;
+            long next = System.nanoTime();
+            for (int i = 0; i < INTERACTIVE_RATE * INTERACTIVE_SECONDS; i++) {
+                TimeUnit.NANOSECONDS.sleep(Math.max(next - System.nanoTime(), 0));
+                next += intervalNanos;
+                long sent = System.nanoTime();
+                latencies.add(interactive.sendAndReceive(new ProducerRecord<>(requestTopic, "i-" + i,
+                                "{\"expression\":\"(" + i + "+1)*2\"}"))
+                        .thenApply(reply -> System.nanoTime() - sent));
+            }
+            long[] sorted = new long[latencies.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = latencies.get(i).get(120, TimeUnit.SECONDS);
+            }
+            Arrays.sort(sorted);
+
+            long drainedNanos = bulkReplies.awaitCount(BULK, Duration.ofSeconds(300)) - floodStart;
+
+            System.out.printf("%n=== %s: %d bulk requests queued, %d interactive/s for %d s ===%n",
+                    name, BULK, INTERACTIVE_RATE, INTERACTIVE_SECONDS);
+            System.out.printf("interactive: p50 %8.1f ms, p99 %8.1f ms, max %8.1f ms%n",
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 99), percentileMillis(sorted, 100));
+            System.out.printf("bulk       : drained in %6.1f s (%d replies)%n",
+                    drainedNanos / 1e9, bulkReplies.count.get());
+
+            assertEquals(BULK, bulkReplies.count.get(), name + ": bulk requests were not all answered");
+            bulkReplies.stop();
+            return new Result(percentileMillis(sorted, 99));
+        } finally {
+            interactive.stop();
+            consumer.close();
+        }
+    }
+
+    private record Result(double p99Millis) {
+    }
+
+    private static double percentileMillis(long[] sorted, int percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private void flood(EmbeddedKafkaBroker broker, String topic, String replyTopic) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        byte[] replyTopicHeader = replyTopic.getBytes(StandardCharsets.UTF_8);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(props)) {
+            for (int i = 0; i < BULK; i++) {
+                ProducerRecord<String, String> record = new ProducerRecord<>(topic, "b-" + i,
+                        "{\"expression\":\"(" + i + "+3)*4-" + (i % 7) + "/2\"}");
+                record.headers().add(KafkaHeaders.REPLY_TOPIC, replyTopicHeader);
+                producer.send(record);
+            }
+            producer.flush();
+        }
+    }
+
+    private ReplyingKafkaTemplate<String, String, String> startInteractiveProducer(EmbeddedKafkaBroker broker,
+                                                                                   String scenario)
+            throws InterruptedException {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("interactive-" + scenario, "false", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        KafkaMessageListenerContainer<String, String> replyContainer = new KafkaMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), new ContainerProperties(REPLY_TOPIC));
+
+        ReplyingKafkaTemplate<String, String, String> template = new ReplyingKafkaTemplate<>(
+                new DefaultKafkaProducerFactory<>(producerProps), replyContainer);
+        template.setSharedReplyTopic(true);
+        template.setDefaultReplyTimeout(Duration.ofSeconds(120));
+        template.start();
+        assertTrue(template.waitForAssignment(Duration.ofSeconds(30)), "Reply container not assigned");
+        return template;
+    }
+
+    /**
+     * Counts bulk replies and remembers when the last one arrived
+     */
+    private static class BulkReplyCounter {
+
+        private final KafkaConsumer<String, String> consumer;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong lastReplyNanos = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        BulkReplyCounter(EmbeddedKafkaBroker broker, String topic) {
+            Map<String, Object> props = KafkaTestUtils.consumerProps("bulk-replies-" + topic, "true", broker);
+            props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            consumer = new KafkaConsumer<>(props);
+            consumer.subscribe(List.of(topic));
+            thread = new Thread(this::run, "bulk-reply-counter");
+            thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    int received = consumer.poll(Duration.ofMillis(100)).count();
+                    if (received > 0) {
+                        count.addAndGet(received);
+                        lastReplyNanos.set(System.nanoTime());
+                    }
+                }
+            } finally {
+                consumer.close();
+            }
+        }
+
+        long awaitCount(long expected, Duration timeout) throws InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (count.get() < expected && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            return lastReplyNanos.get();
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join(5000);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example;
+
+import com.example.priority.PriorityScheduler;
+import com.example.priority.PriorityScheduler.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrioritySchedulerTest {
+
+    private final AtomicInteger pauses = new AtomicInteger();
+    private final AtomicInteger resumes = new AtomicInteger();
+
+    private PriorityScheduler scheduler(boolean enabled, int highWeight, int lowWeight) {
+        return new PriorityScheduler(enabled, highWeight, lowWeight, () -> 0,
+                pauses::incrementAndGet, resumes::incrementAndGet);
+    }
+
+    @Test
+    void testLowRunsFreelyWithoutHighBacklog() {
+        PriorityScheduler scheduler = scheduler(true, 9, 1);
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.processed(Priority.LOW);
+        }
+
+        assertFalse(scheduler.isLowPaused());
+        assertEquals(0, pauses.get());
+    }
+
+    @Test
+    void testLowGetsItsWeightedShareDuringHighBacklog() {
+        PriorityScheduler scheduler = scheduler(true, 3, 1);
+
+        scheduler.fetched(9);
+        assertTrue(scheduler.isLowPaused());
+
+        int lowRuns = 0;
+        for (int i = 0; i < 9; i++) {
+            scheduler.processed(Priority.HIGH);
+            if (scheduler.highBacklog() > 0 && !scheduler.isLowPaused()) {
+                lowRuns++;
+                scheduler.processed(Priority.LOW);
+                assertTrue(scheduler.isLowPaused());
+            }
+        }
+
+        assertEquals(3, lowRuns);
+        assertEquals(0, scheduler.highBacklog());
+        assertFalse(scheduler.isLowPaused());
+    }
+
+    @Test
+    void testZeroLowWeightIsStrictPriority() {
+        PriorityScheduler scheduler = scheduler(true, 1, 0);
+
+        scheduler.fetched(5);
+        for (int i = 0; i < 4; i++) {
+            scheduler.processed(Priority.HIGH);
+            assertTrue(scheduler.isLowPaused());
+        }
+        scheduler.processed(Priority.HIGH);
+
+        assertFalse(scheduler.isLowPaused());
+        assertEquals(1, pauses.get());
+        assertEquals(1, resumes.get());
+    }
+
+    @Test
+    void testDisabledNeverPauses() {
+        PriorityScheduler scheduler = scheduler(false, 9, 1);
+
+        scheduler.fetched(100);
+        scheduler.processed(Priority.HIGH);
+
+        assertFalse(scheduler.isLowPaused());
+        assertEquals(0, pauses.get());
+    }
+}
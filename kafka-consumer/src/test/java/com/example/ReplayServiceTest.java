@@ -0,0 +1,230 @@
+package com.example;
+
+import com.example.replay.ReplayCheckpoint;
+import com.example.replay.ReplayConflictException;
+import com.example.replay.ReplayJob;
+import com.example.replay.ReplayRequest;
+import com.example.replay.ReplayService;
+import com.example.replay.ReplaySink;
+import com.example.service.MathMessageCodec;
+import com.example.service.MathProcessorService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 3)
+class ReplayServiceTest {
+
+    private static final int PARTITIONS = 3;
+    private static final int PER_PARTITION = 10;
+    private static final AtomicInteger TOPICS = new AtomicInteger();
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EmbeddedKafkaBroker broker;
+    private Admin admin;
+    private ReplayService service;
+    private String topic;
+
+    @BeforeEach
+    void setUp() {
+        broker = EmbeddedKafkaCondition.getBroker();
+        topic = "replay-requests-" + TOPICS.incrementAndGet();
+        broker.addTopics(new NewTopic(topic, PARTITIONS, (short) 1));
+        admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+        service = newService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+        admin.close();
+    }
+
+    @Test
+    void testFullRangeToFile() throws Exception {
+        // Partition p gets "p+i" for i < 10; the first record of partition 0 is invalid
+        Instant base = Instant.now().minusSeconds(60);
+        produce(base, (p, i) -> p == 0 && i == 0 ? "abc" : p + "+" + i);
+        Path out = dir.resolve("output/out/replay.ndjson");
+
+        ReplayJob.Progress progress = await(service.start(request("full", null, null, null, "out/replay.ndjson")));
+
+        assertEquals(ReplayJob.State.COMPLETED, progress.state());
+        assertEquals(PARTITIONS * PER_PARTITION, progress.processed());
+        assertEquals(1, progress.errors());
+        assertEquals(100.0, progress.percent());
+        List<JsonNode> lines = readLines(out);
+        assertEquals(PARTITIONS * PER_PARTITION, lines.size());
+        JsonNode line = lines.stream()
+                .filter(l -> l.get("partition").asInt() == 2 && l.get("offset").asLong() == 5)
+                .findFirst().orElseThrow();
+        assertEquals("7", line.get("reply").get("result").asText());
+        assertEquals(1.0, meterRegistry.get("math.replay.records").tag("outcome", "error").counter().count());
+
+        ReplayCheckpoint checkpoint = ReplayCheckpoint.load(objectMapper, dir.resolve("checkpoints"), "full");
+        assertEquals(ReplayJob.State.COMPLETED, checkpoint.state());
+        checkpoint.partitions().forEach(p -> assertEquals(p.end(), p.position()));
+    }
+
+    @Test
+    void testTimeRangeToTopic() throws Exception {
+        // One second between records, so [base+3s, base+7s) holds records 3..6 of each partition
+        Instant base = Instant.now().minusSeconds(60);
+        produce(base, (p, i) -> i + "*2");
+        String target = topic + "-replayed";
+        broker.addTopics(new NewTopic(target, 1, (short) 1));
+
+        ReplayJob.Progress progress = await(service.start(new ReplayRequest("by-time", topic, null, null, null,
+                base.plusSeconds(3), base.plusSeconds(7), target, null, 2)));
+
+        assertEquals(ReplayJob.State.COMPLETED, progress.state());
+        assertEquals(PARTITIONS * 4, progress.processed());
+        List<ConsumerRecord<String, String>> replies = consume(target, PARTITIONS * 4);
+        for (ConsumerRecord<String, String> reply : replies) {
+            String source = new String(reply.headers().lastHeader(ReplaySink.SOURCE_HEADER).value(),
+                    StandardCharsets.UTF_8);
+            long offset = Long.parseLong(source.substring(source.indexOf('@') + 1));
+            assertTrue(offset >= 3 && offset < 7, source);
+            assertEquals(String.valueOf(offset * 2), objectMapper.readTree(reply.value()).get("result").asText());
+        }
+    }
+
+    @Test
+    void testResumeReadsOnlyWhatTheCheckpointHasNotCovered() throws Exception {
+        produce(Instant.now().minusSeconds(60), (p, i) -> p + "+" + i);
+        Path out = dir.resolve("output/resumed.ndjson");
+        // As left by an instance that stopped after offset 5 of every partition
+        List<ReplayCheckpoint.Partition> partitions = new ArrayList<>();
+        for (int p = 0; p < PARTITIONS; p++) {
+            partitions.add(new ReplayCheckpoint.Partition(p, 0, PER_PARTITION, 6));
+        }
+        new ReplayCheckpoint(new ReplayRequest("resumed", topic, null, null, null, null, null, null,
+                "resumed.ndjson", 2), ReplayJob.State.RUNNING, partitions).save(objectMapper, dir.resolve("checkpoints"));
+
+        ReplayJob.Progress progress = await(service.resume("resumed"));
+
+        assertEquals(ReplayJob.State.COMPLETED, progress.state());
+        assertEquals(PARTITIONS * 4, progress.processed());
+        List<JsonNode> lines = readLines(out);
+        assertEquals(PARTITIONS * 4, lines.size());
+        assertTrue(lines.stream().allMatch(l -> l.get("offset").asLong() >= 6));
+        assertThrows(ReplayConflictException.class, () -> service.resume("resumed"));
+    }
+
+    @Test
+    void testRejectsInvalidRequests() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.start(request("none", null, null, null, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.start(request("loop", null, null, topic, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.start(request("../escape", null, null, null, "out.ndjson")));
+        for (String outside : List.of(dir.resolve("abs.ndjson").toString(), "../out.ndjson",
+                "nested/../../out.ndjson", "")) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.start(request("outside", null, null, null, outside)), outside);
+        }
+        assertThrows(NoSuchElementException.class, () -> service.resume("missing"));
+    }
+
+    private ReplayService newService() {
+        return new ReplayService(admin, broker.getBrokersAsString(), new MathProcessorService(),
+                new MathMessageCodec(), objectMapper, meterRegistry, new ReplayService.Settings(topic,
+                List.of(topic), 3, dir.resolve("checkpoints"), Duration.ofMillis(200), dir.resolve("output")));
+    }
+
+    private ReplayRequest request(String jobId, Long fromOffset, Long toOffset, String targetTopic, String targetFile) {
+        return new ReplayRequest(jobId, topic, null, fromOffset, toOffset, null, null, targetTopic, targetFile, null);
+    }
+
+    private ReplayJob.Progress await(ReplayJob.Progress started) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        ReplayJob.Progress progress = started;
+        while (progress.state() == ReplayJob.State.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            progress = service.progress(started.jobId());
+        }
+        return progress;
+    }
+
+    private interface Value {
+        String of(int partition, int index);
+    }
+
+    private void produce(Instant base, Value value) throws Exception {
+        Map<String, Object> props = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(props)) {
+            for (int p = 0; p < PARTITIONS; p++) {
+                for (int i = 0; i < PER_PARTITION; i++) {
+                    producer.send(new ProducerRecord<>(topic, p, base.plusSeconds(i).toEpochMilli(),
+                            "key-" + i, value.of(p, i))).get();
+                }
+            }
+        }
+    }
+
+    private List<ConsumerRecord<String, String>> consume(String target, int count) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("replay-test-" + target, "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            consumer.subscribe(List.of(target));
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (records.size() < count && System.currentTimeMillis() < deadline) {
+                consumer.poll(Duration.ofMillis(200)).forEach(records::add);
+            }
+            assertEquals(count, records.size());
+            return records;
+        }
+    }
+
+    private List<JsonNode> readLines(Path file) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
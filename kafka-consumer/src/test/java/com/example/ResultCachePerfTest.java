@@ -0,0 +1,142 @@
+package com.example;
+
+import com.example.cache.ResultCache;
+import com.example.cache.SharedResultCache;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Warm-up time and hit rate of the shared result cache on a large keyspace
+ *
+ * Fills a compacted result topic with perf.cache.keys distinct expressions, then
+ * starts a SharedResultCache with FULL warm-up and measures how long loading takes.
+ * Lookups follow a Zipf distribution over the keyspace (a few expressions are asked
+ * for far more often than the rest); a miss is evaluated and cached, as in the
+ * listener. The cache holds only part of the keyspace, so the hit rate shows how well
+ * the LRU keeps the popular expressions.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=ResultCachePerfTest [-Dperf.cache.keys=1000000]
+ */
+@Tag("perf")
+@EmbeddedKafka
+class ResultCachePerfTest {
+
+    private static final String TOPIC = "math-results-perf";
+    private static final int PARTITIONS = 3;
+    private static final int KEYS = Integer.getInteger("perf.cache.keys", 200_000);
+    private static final int LOOKUPS = Integer.getInteger("perf.cache.lookups", 2_000_000);
+    private static final double ZIPF_EXPONENT = 1.0;
+    // Memory for about a quarter of the keyspace
+    private static final long MAX_MEMORY = KEYS / 4 * 160L;
+
+    @Test
+    void warmUpAndHitRateStayWithinBudget() throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        broker.addTopics(new NewTopic(TOPIC, PARTITIONS, (short) 1)
+                .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT)));
+        fill(broker);
+
+        PerfBudget budget = new PerfBudget();
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+             SharedResultCache shared = new SharedResultCache(new ResultCache(MAX_MEMORY), admin,
+                     broker.getBrokersAsString(), new SharedResultCache.Settings(TOPIC, PARTITIONS,
+                     SharedResultCache.WarmUp.FULL, 0, Duration.ofMinutes(5)))) {
+            shared.start();
+            assertTrue(shared.isWarmedUp());
+            assertEquals(KEYS, shared.warmUpRecords());
+            double warmUpSeconds = shared.warmUpSeconds();
+            System.out.printf("Warm-up: %d records in %.2f s, %d results cached (%d KB)%n", KEYS, warmUpSeconds,
+                    shared.cache().size(), shared.cache().bytes() / 1024);
+
+            ResultCache cache = shared.cache();
+            long[] cdf = zipfCdf(KEYS);
+            Random random = new Random(42);
+            long hits = cache.hits();
+            long misses = cache.misses();
+            for (int i = 0; i < LOOKUPS; i++) {
+                int rank = sample(cdf, random);
+                String key = expression(rank);
+                if (cache.get(key) == null) {
+                    cache.put(key, result(rank));
+                }
+            }
+            double hitRate = 100.0 * (cache.hits() - hits) / (cache.hits() - hits + cache.misses() - misses);
+            System.out.printf("Hit rate: %.1f%% of %d Zipf lookups with %d of %d keys cached%n",
+                    hitRate, LOOKUPS, cache.size(), KEYS);
+
+            budget.atMost("result-cache.warmup-seconds", warmUpSeconds);
+            budget.atLeast("result-cache.warmup-records-per-second", KEYS / warmUpSeconds);
+            budget.atLeast("result-cache.hit-rate-percent", hitRate);
+        }
+        budget.assertWithinBudget();
+    }
+
+    private static void fill(EmbeddedKafkaBroker broker) throws Exception {
+        Map<String, Object> props = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, 20,
+                ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(props)) {
+            for (int i = 0; i < KEYS; i++) {
+                producer.send(new ProducerRecord<>(TOPIC, expression(i), result(i)));
+            }
+            producer.flush();
+        }
+    }
+
+    private static String expression(int rank) {
+        return rank + "*7+" + (rank % 13);
+    }
+
+    private static String result(int rank) {
+        return Long.toString(rank * 7L + rank % 13);
+    }
+
+    /**
+     * Cumulative Zipf weights scaled to longs, rank 0 the most popular
+     */
+    private static long[] zipfCdf(int keys) {
+        double[] weights = new double[keys];
+        double total = 0;
+        for (int i = 0; i < keys; i++) {
+            weights[i] = 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            total += weights[i];
+        }
+        long[] cdf = new long[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += weights[i];
+            cdf[i] = (long) (sum / total * Long.MAX_VALUE);
+        }
+        cdf[keys - 1] = Long.MAX_VALUE;
+        return cdf;
+    }
+
+    private static int sample(long[] cdf, Random random) {
+        long point = random.nextLong() & Long.MAX_VALUE;
+        int index = Arrays.binarySearch(cdf, point);
+        return index >= 0 ? index : -index - 1;
+    }
+}
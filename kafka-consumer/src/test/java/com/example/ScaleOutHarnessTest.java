@@ -0,0 +1,270 @@
+package com.example;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scale-out harness for the math path
+ *
+ * Starts N consumer application instances (each with its MathConsumerListener)
+ * and M ReplyingKafkaTemplate producers against a multi-partition request topic
+ * on an embedded broker, then measures:
+ * - aggregate throughput at steady state
+ * - reply latency while the consumers are restarted one by one
+ * - rebalance pause: the longest stretch without any reply during the restarts
+ *
+ * Runs once per assignor, and with cooperative-sticky plus static membership,
+ * where restarted instances rejoin under the same group.instance.id. Excluded from the default build, run with:
+ *   mvn test -Pscale-test -Dscale.consumers=3 -Dscale.producers=2
+ */
+@Tag("scale")
+@EmbeddedKafka(partitions = 6, topics = ScaleOutHarnessTest.REPLY_TOPIC)
+class ScaleOutHarnessTest {
+
+    static final String REPLY_TOPIC = "math-replies";
+    private static final int PARTITIONS = 6;
+
+    private static final int CONSUMERS = Integer.getInteger("scale.consumers", 3);
+    private static final int PRODUCERS = Integer.getInteger("scale.producers", 2);
+    private static final int IN_FLIGHT_PER_PRODUCER = Integer.getInteger("scale.inflight", 16);
+    private static final int STEADY_SECONDS = Integer.getInteger("scale.steady.seconds", 10);
+
+    private static final AtomicInteger SCENARIO = new AtomicInteger();
+
+    @ParameterizedTest(name = "{0}, static membership {1}")
+    @CsvSource({
+            "org.apache.kafka.clients.consumer.RangeAssignor, false",
+            "org.apache.kafka.clients.consumer.CooperativeStickyAssignor, false",
+            "org.apache.kafka.clients.consumer.CooperativeStickyAssignor, true"
+    })
+    void rollingRestart(Class<?> assignor, boolean staticMembership) throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        String scenario = assignor.getSimpleName().toLowerCase() + "-" + SCENARIO.incrementAndGet();
+        String requestTopic = "math-requests-" + scenario;
+        broker.addTopics(new NewTopic(requestTopic, PARTITIONS, (short) 1));
+
+        String[] consumerArgs = {
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.consumer.group-id=math-consumer-group-" + scenario,
+                "--app.kafka.topic.request=" + requestTopic,
+                "--app.kafka.consumer.assignment-strategy=" + assignor.getName(),
+                "--app.kafka.consumer.static-membership.enabled=" + staticMembership,
+                "--spring.main.banner-mode=off",
+                "--logging.level.com.example=WARN",
+                "--logging.level.org.springframework.kafka=WARN"
+        };
+
+        List<ConfigurableApplicationContext> consumers = new ArrayList<>();
+        List<ReplyingKafkaTemplate<String, String, String>> producers = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONSUMERS; i++) {
+                consumers.add(startConsumer(consumerArgs, scenario, i));
+            }
+            for (int i = 0; i < PRODUCERS; i++) {
+                producers.add(startProducer(broker, scenario + "-" + i));
+            }
+
+            LoadGenerator load = new LoadGenerator(producers, requestTopic);
+            // Warm-up: wait until every consumer has its partitions and replies flow
+            load.start();
+            Thread.sleep(3000);
+
+            long steadyStart = System.nanoTime();
+            Thread.sleep(STEADY_SECONDS * 1000L);
+            long steadyEnd = System.nanoTime();
+
+            long restartStart = System.nanoTime();
+            for (int i = 0; i < consumers.size(); i++) {
+                consumers.get(i).close();
+                consumers.set(i, startConsumer(consumerArgs, scenario, i));
+                Thread.sleep(1000);
+            }
+            long restartEnd = System.nanoTime();
+            load.stop();
+
+            Window steady = load.window(steadyStart, steadyEnd);
+            Window restart = load.window(restartStart, restartEnd);
+
+            System.out.printf("%n=== %s%s: %d consumers, %d producers, %d partitions ===%n",
+                    assignor.getSimpleName(), staticMembership ? " + static membership" : "",
+                    CONSUMERS, PRODUCERS, PARTITIONS);
+            System.out.printf("steady state   : %8.0f replies/s, p50 %6.1f ms, p99 %6.1f ms%n",
+                    steady.throughput(), steady.percentileMillis(50), steady.percentileMillis(99));
+            System.out.printf("rolling restart: %8.0f replies/s, p50 %6.1f ms, p99 %6.1f ms, max %6.1f ms%n",
+                    restart.throughput(), restart.percentileMillis(50), restart.percentileMillis(99),
+                    restart.percentileMillis(100));
+            System.out.printf("rebalance pause: %8.1f ms (longest gap without replies)%n", restart.maxGapMillis());
+            System.out.printf("failed requests: %d%n", load.failures.get());
+
+            assertTrue(steady.count() > 0, "No replies received at steady state");
+            assertEquals(0, load.failures.get(), "Requests timed out or failed");
+        } finally {
+            producers.forEach(ReplyingKafkaTemplate::stop);
+            consumers.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    /**
+     * Starts consumer instance number slot; a restarted slot reuses its group.instance.id
+     */
+    private ConfigurableApplicationContext startConsumer(String[] args, String scenario, int slot) {
+        return new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .properties("app.kafka.consumer.instance-id=" + scenario + "-consumer-" + slot)
+                .run(args);
+    }
+
+    private ReplyingKafkaTemplate<String, String, String> startProducer(EmbeddedKafkaBroker broker, String id) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("scale-producer-" + id, "false", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        KafkaMessageListenerContainer<String, String> replyContainer = new KafkaMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), new ContainerProperties(REPLY_TOPIC));
+
+        ReplyingKafkaTemplate<String, String, String> template = new ReplyingKafkaTemplate<>(
+                new DefaultKafkaProducerFactory<>(producerProps), replyContainer);
+        template.setSharedReplyTopic(true);
+        template.setDefaultReplyTimeout(Duration.ofSeconds(60));
+        template.start();
+        try {
+            assertTrue(template.waitForAssignment(Duration.ofSeconds(30)), "Reply container not assigned");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return template;
+    }
+
+    /**
+     * Closed-loop load: each producer keeps a fixed number of requests in flight
+     * and records (completion time, latency) for every reply
+     */
+    private static class LoadGenerator {
+
+        private final List<ReplyingKafkaTemplate<String, String, String>> producers;
+        private final String requestTopic;
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong sequence = new AtomicLong();
+        private final List<long[]> samples = new ArrayList<>();
+        private volatile boolean running;
+
+        LoadGenerator(List<ReplyingKafkaTemplate<String, String, String>> producers, String requestTopic) {
+            this.producers = producers;
+            this.requestTopic = requestTopic;
+        }
+
+        void start() {
+            running = true;
+            for (ReplyingKafkaTemplate<String, String, String> producer : producers) {
+                for (int i = 0; i < IN_FLIGHT_PER_PRODUCER; i++) {
+                    sendNext(producer);
+                }
+            }
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            // Let the requests still in flight complete
+            Thread.sleep(2000);
+        }
+
+        private void sendNext(ReplyingKafkaTemplate<String, String, String> producer) {
+            if (!running) {
+                return;
+            }
+            long n = sequence.incrementAndGet();
+            String request = "{\"expression\":\"(" + n + "+1)*2\"}";
+            long sentAt = System.nanoTime();
+            producer.sendAndReceive(new ProducerRecord<>(requestTopic, Long.toString(n), request))
+                    .whenComplete((reply, ex) -> {
+                        long now = System.nanoTime();
+                        if (ex != null) {
+                            failures.incrementAndGet();
+                        } else {
+                            synchronized (samples) {
+                                samples.add(new long[] { now, now - sentAt });
+                            }
+                        }
+                        sendNext(producer);
+                    });
+        }
+
+        Window window(long fromNanos, long toNanos) {
+            List<long[]> inWindow = new ArrayList<>();
+            synchronized (samples) {
+                for (long[] sample : samples) {
+                    if (sample[0] >= fromNanos && sample[0] < toNanos) {
+                        inWindow.add(sample);
+                    }
+                }
+            }
+            return new Window(inWindow, fromNanos, toNanos);
+        }
+    }
+
+    private record Window(List<long[]> samples, long fromNanos, long toNanos) {
+
+        long count() {
+            return samples.size();
+        }
+
+        double throughput() {
+            return samples.size() / ((toNanos - fromNanos) / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            if (samples.isEmpty()) {
+                return Double.NaN;
+            }
+            long[] latencies = samples.stream().mapToLong(s -> s[1]).sorted().toArray();
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+
+        double maxGapMillis() {
+            long[] completions = samples.stream().mapToLong(s -> s[0]).sorted().toArray();
+            long previous = fromNanos;
+            long maxGap = 0;
+            for (long completion : completions) {
+                maxGap = Math.max(maxGap, completion - previous);
+                previous = completion;
+            }
+            maxGap = Math.max(maxGap, toNanos - previous);
+            return maxGap / 1e6;
+        }
+    }
+}
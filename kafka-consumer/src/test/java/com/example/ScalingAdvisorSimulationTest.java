@@ -0,0 +1,173 @@
+package com.example;
+
+import com.example.scaling.ScalingAdvisor;
+import com.example.scaling.ScalingAdvisor.GroupOffsets;
+import com.example.scaling.ScalingAdvisor.Recommendation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays per-second load traces against a simulated consumer group that follows
+ * the advisor's recommendations, applied after a provisioning delay, and checks
+ * the recommendations and the resulting lag
+ *
+ * Traces are generated from a rate per second with Poisson-like noise (standard
+ * deviation the square root of the rate) from a fixed seed, so every run sees the
+ * same arrivals.
+ */
+class ScalingAdvisorSimulationTest {
+
+    private static final int PARTITIONS = 12;
+    private static final int EVALUATION_INTERVAL_SECONDS = 10;
+    private static final int PROVISIONING_DELAY_SECONDS = 30;
+    private static final int TRACE_SECONDS = 900;
+    private static final long SEED = 42;
+
+    private static final ScalingAdvisor.Settings SETTINGS = new ScalingAdvisor.Settings(
+            0.7, Duration.ofSeconds(60), 4, 1, 0, Duration.ofSeconds(300));
+
+    @Test
+    void testSteadyLoadSettlesOnEnoughThreadsForTargetUtilization() {
+        // Interactive traffic at about 200 requests/s, 10 ms per request
+        Simulation sim = replay(second -> 200, 10);
+
+        // 200/s at 10 ms is 2 busy threads, 2.9 at 70% utilization
+        Recommendation last = sim.recommendations.get(sim.recommendations.size() - 1);
+        assertEquals(1, last.replicas());
+        assertEquals(3, last.concurrency());
+        assertEquals(10, last.serviceTimeMs(), 1e-9);
+        assertEquals(0, sim.lagAt(899), 250);
+    }
+
+    @Test
+    void testBurstScalesUpAtOnceAndDownAfterStabilization() {
+        // About 100 requests/s with a one-minute burst of 1500 requests/s at 120 s, 4 ms per request
+        Simulation sim = replay(second -> second >= 120 && second < 180 ? 1500 : 100, 4);
+
+        // 1500/s at 4 ms needs 9 threads at 70%; recommended at the first evaluation in the burst
+        assertTrue(sim.recommendedThreadsAt(130) >= 9, "recommended at 130s: " + sim.recommendedThreadsAt(130));
+        assertTrue(sim.maxLag() < 1500 * 60, "max lag " + sim.maxLag());
+        // Lag from the burst is worked off within two minutes of its end
+        assertTrue(sim.lagAt(300) < 500, "lag at 300s: " + sim.lagAt(300));
+        // Not scaled down while a burst recommendation is in the stabilization window
+        assertTrue(sim.threadsAt(400) >= 9, "threads at 400s: " + sim.threadsAt(400));
+        assertEquals(1, sim.threadsAt(899));
+        assertTrue(sim.changes() <= 6, "recommendation changed " + sim.changes() + " times");
+    }
+
+    @Test
+    void testRecommendationIsCappedAtPartitionCount() {
+        // Ramp from 0 to 3000 requests/s over 600 s, 8 ms per request; more than 12 partitions can serve
+        Simulation sim = replay(second -> 5.0 * Math.min(second, 600), 8);
+
+        Recommendation last = sim.recommendations.get(sim.recommendations.size() - 1);
+        assertEquals(PARTITIONS, last.replicas() * last.concurrency());
+        assertEquals(3, last.replicas());
+        assertTrue(last.reason().contains("capped"), last.reason());
+    }
+
+    @Test
+    void testKeepsRecommendationUntilProcessingIsMeasured() {
+        ScalingAdvisor advisor = new ScalingAdvisor(SETTINGS);
+        advisor.evaluate(0, new GroupOffsets(0, 0, PARTITIONS));
+
+        Recommendation recommendation = advisor.evaluate(10_000, new GroupOffsets(0, 50_000, PARTITIONS));
+
+        assertEquals(1, recommendation.replicas());
+        assertEquals(1, recommendation.concurrency());
+        assertEquals(50_000, recommendation.lag());
+        assertEquals(5000, recommendation.arrivalRatePerSecond(), 1e-9);
+    }
+
+    /**
+     * @param rate requests per second at each second of the trace
+     */
+    private Simulation replay(IntToDoubleFunction rate, int serviceMs) {
+        Random random = new Random(SEED);
+        long serviceNanos = serviceMs * 1_000_000L;
+
+        Simulation sim = new Simulation();
+        ScalingAdvisor advisor = new ScalingAdvisor(SETTINGS);
+        int replicas = 1;
+        int concurrency = 1;
+        long committed = 0;
+        long logEnd = 0;
+        List<int[]> pending = new ArrayList<>();
+        for (int second = 0; second < TRACE_SECONDS; second++) {
+            double mean = rate.applyAsDouble(second);
+            long arrivals = Math.max(Math.round(mean + Math.sqrt(mean) * random.nextGaussian()), 0);
+
+            // Recommendations take effect once the new replicas are up
+            for (int[] change : List.copyOf(pending)) {
+                if (change[0] <= second) {
+                    replicas = change[1];
+                    concurrency = change[2];
+                    pending.remove(change);
+                }
+            }
+
+            logEnd += arrivals;
+            int threads = Math.min(replicas * concurrency, PARTITIONS);
+            long processed = Math.min(logEnd - committed, threads * 1_000_000_000L / serviceNanos);
+            committed += processed;
+            // The advisor runs on one replica and sees its share of the records
+            for (long i = 0; i < processed / replicas; i++) {
+                advisor.recordProcessed(serviceNanos);
+            }
+            sim.lag.add(logEnd - committed);
+            sim.threads.add(replicas * concurrency);
+
+            if (second % EVALUATION_INTERVAL_SECONDS == 0) {
+                Recommendation recommendation = advisor.evaluate(second * 1000L,
+                        new GroupOffsets(committed, logEnd, PARTITIONS));
+                sim.recommendations.add(recommendation);
+                pending.add(new int[] {second + PROVISIONING_DELAY_SECONDS,
+                        recommendation.replicas(), recommendation.concurrency()});
+            }
+        }
+        return sim;
+    }
+
+    private static final class Simulation {
+
+        final List<Long> lag = new ArrayList<>();
+        final List<Integer> threads = new ArrayList<>();
+        final List<Recommendation> recommendations = new ArrayList<>();
+
+        long lagAt(int second) {
+            return lag.get(second);
+        }
+
+        long maxLag() {
+            return lag.stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+
+        int recommendedThreadsAt(int second) {
+            Recommendation recommendation = recommendations.get(second / EVALUATION_INTERVAL_SECONDS);
+            return recommendation.replicas() * recommendation.concurrency();
+        }
+
+        int threadsAt(int second) {
+            return threads.get(second);
+        }
+
+        long changes() {
+            long changes = 0;
+            for (int i = 1; i < recommendations.size(); i++) {
+                Recommendation previous = recommendations.get(i - 1);
+                Recommendation current = recommendations.get(i);
+                if (previous.replicas() != current.replicas() || previous.concurrency() != current.concurrency()) {
+                    changes++;
+                }
+            }
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example;
+
+import com.example.cache.ResultCache;
+import com.example.cache.SharedResultCache;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka
+class SharedResultCacheTest {
+
+    private static final AtomicInteger TOPICS = new AtomicInteger();
+
+    private final List<SharedResultCache> caches = new ArrayList<>();
+    private EmbeddedKafkaBroker broker;
+    private Admin admin;
+    private String topic;
+
+    @BeforeEach
+    void setUp() {
+        broker = EmbeddedKafkaCondition.getBroker();
+        admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+        topic = "math-results-" + TOPICS.incrementAndGet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        caches.forEach(SharedResultCache::close);
+        admin.close();
+    }
+
+    @Test
+    void testNormalize() throws Exception {
+        // Same cases as the producer's ExpressionHashPartitioner
+        NormalizationCases.assertAll(ResultCache::normalize);
+    }
+
+    @Test
+    void testMemoryBoundEvictsLeastRecentlyUsed() {
+        // 120 bytes overhead + 2 bytes per character: each entry below weighs 128
+        ResultCache cache = new ResultCache(3 * 128);
+        cache.put("1+1", "2");
+        cache.put("2+2", "4");
+        cache.put("3+3", "6");
+        assertEquals("2", cache.get("1+1"));
+        cache.put("4+4", "8");
+
+        assertEquals(3, cache.size());
+        assertEquals(3 * 128, cache.bytes());
+        assertNull(cache.get("2+2"));
+        assertEquals("2", cache.get("1+1"));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+
+        cache.put("x".repeat(200), "1");
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void testResultsAreSharedBetweenInstances() throws Exception {
+        SharedResultCache first = start(SharedResultCache.WarmUp.NONE);
+        SharedResultCache second = start(SharedResultCache.WarmUp.NONE);
+
+        assertNull(second.lookup("6*7"));
+        first.publish("6 * 7", "42");
+        assertEquals("42", first.lookup("6*7"));
+        awaitResult(second, "6*7", "42");
+
+        ConfigEntry policy = admin.describeConfigs(List.of(new ConfigResource(ConfigResource.Type.TOPIC, topic)))
+                .all().get(10, TimeUnit.SECONDS).values().iterator().next().get(TopicConfig.CLEANUP_POLICY_CONFIG);
+        assertEquals(TopicConfig.CLEANUP_POLICY_COMPACT, policy.value());
+    }
+
+    @Test
+    void testWarmUpStrategies() throws Exception {
+        SharedResultCache writer = start(SharedResultCache.WarmUp.NONE);
+        for (int i = 0; i < 20; i++) {
+            writer.publish(i + "+1", Integer.toString(i + 1));
+        }
+        // A late reader with FULL warm-up sees everything written before it started
+        SharedResultCache last = start(SharedResultCache.WarmUp.FULL);
+        awaitResult(last, "19+1", "20");
+
+        SharedResultCache full = start(SharedResultCache.WarmUp.FULL);
+        assertTrue(full.isWarmedUp());
+        assertEquals(20, full.warmUpRecords());
+        assertEquals(20, full.cache().size());
+
+        SharedResultCache none = start(SharedResultCache.WarmUp.NONE);
+        assertEquals(0, none.warmUpRecords());
+        assertNull(none.lookup("0+1"));
+    }
+
+    @Test
+    void testNotStartedDoesNothing() {
+        SharedResultCache cache = new SharedResultCache(new ResultCache(1024), admin, broker.getBrokersAsString(),
+                new SharedResultCache.Settings(topic, 1, SharedResultCache.WarmUp.FULL, 0, Duration.ofSeconds(1)));
+        cache.publish("1+1", "2");
+        assertNull(cache.lookup("1+1"));
+        assertEquals(0, cache.cache().size());
+    }
+
+    @Test
+    void testTopicThatCannotBePreparedKeepsResultsLocal() throws Exception {
+        SharedResultCache cache = new SharedResultCache(new ResultCache(1024), admin, broker.getBrokersAsString(),
+                new SharedResultCache.Settings("invalid topic!", 1, SharedResultCache.WarmUp.FULL, 0,
+                        Duration.ofSeconds(1)));
+        caches.add(cache);
+        cache.start();
+
+        assertFalse(cache.isShared());
+        cache.publish("1+1", "2");
+        assertEquals("2", cache.lookup("1 + 1"));
+    }
+
+    private SharedResultCache start(SharedResultCache.WarmUp warmUp) throws InterruptedException {
+        SharedResultCache cache = new SharedResultCache(new ResultCache(1024 * 1024), admin,
+                broker.getBrokersAsString(),
+                new SharedResultCache.Settings(topic, 2, warmUp, 1000, Duration.ofSeconds(30)));
+        caches.add(cache);
+        cache.start();
+        assertTrue(cache.isShared());
+        return cache;
+    }
+
+    private static void awaitResult(SharedResultCache cache, String expression, String expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!expected.equals(cache.lookup(expression)) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, cache.lookup(expression));
+    }
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class App {
+    
+    public static void main(String[] args) {
+        SpringApplication.run(App.class, args);
+    }
+}
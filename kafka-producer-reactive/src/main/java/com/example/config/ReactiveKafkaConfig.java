@@ -0,0 +1,84 @@
+package com.example.config;
+
+import com.example.dto.MathReply;
+import com.example.serialization.MathReplyDeserializer;
+import com.example.service.ReplyCorrelator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Slf4j
+@Configuration
+public class ReactiveKafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${app.kafka.topic.math.reply}")
+    private String replyTopic;
+
+    @Value("${app.kafka.reply.group-id}")
+    private String replyGroupId;
+
+    // Longest wait between two resubscriptions of the reply stream
+    @Value("${app.kafka.reply.max-backoff-ms:30000}")
+    private long replyMaxBackoffMs;
+
+    // ==================== SENDER CONFIG ====================
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, String> kafkaSender() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        return KafkaSender.create(SenderOptions.create(configProps));
+    }
+
+    // ==================== REPLY RECEIVER CONFIG ====================
+
+    @Bean
+    public KafkaReceiver<String, MathReply> replyReceiver() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, replyGroupId);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MathReplyDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        ReceiverOptions<String, MathReply> options = ReceiverOptions.<String, MathReply>create(props)
+                .subscription(List.of(replyTopic));
+        return KafkaReceiver.create(options);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public ReplyCorrelator replyCorrelator(KafkaReceiver<String, MathReply> replyReceiver) {
+        ReplyCorrelator correlator = new ReplyCorrelator();
+        correlator.start(replyReceiver.receiveAutoAck()
+                .concatMap(Function.identity())
+                // Resubscribe after broker errors instead of losing all future replies
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMillis(replyMaxBackoffMs))
+                        .doBeforeRetry(retry -> log.warn("Reply stream failed ({} in a row), resubscribing: {}",
+                                retry.totalRetriesInARow() + 1, retry.failure().getMessage()))));
+        return correlator;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.controller;
+
+import com.example.dto.MathRequest;
+import com.example.dto.MathResponse;
+import com.example.dto.MessageRequest;
+import com.example.model.Message;
+import com.example.service.ReactiveMathService;
+import com.example.service.ReactiveProducerService;
+import com.example.service.ReplyCorrelator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * WebFlux edition of KafkaProducerController
+ * Same /api/kafka endpoints, but no request thread waits on Kafka
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/kafka")
+@RequiredArgsConstructor
+public class ReactiveGatewayController {
+
+    private final ReactiveProducerService reactiveProducerService;
+    private final ReactiveMathService reactiveMathService;
+    private final ReplyCorrelator replyCorrelator;
+
+    // ==================== PRODUCER ENDPOINTS ====================
+
+    /**
+     * Send a simple string message
+     * POST /api/kafka/send?message=Hello
+     */
+    @PostMapping("/send")
+    public Mono<ResponseEntity<Map<String, String>>> sendMessage(@RequestParam String message) {
+        return reactiveProducerService.sendMessage(message)
+                .map(metadata -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("status", "Message sent successfully");
+                    response.put("message", message);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Send a message with a key
+     * POST /api/kafka/send-with-key?key=user123&message=Hello
+     */
+    @PostMapping("/send-with-key")
+    public Mono<ResponseEntity<Map<String, String>>> sendMessageWithKey(
+            @RequestParam String key,
+            @RequestParam String message) {
+        return reactiveProducerService.sendMessageWithKey(key, message)
+                .map(metadata -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("status", "Message sent successfully");
+                    response.put("key", key);
+                    response.put("message", message);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Send a JSON message object
+     * POST /api/kafka/send-json
+     * Body: { "content": "Hello", "sender": "John" }
+     */
+    @PostMapping("/send-json")
+    public Mono<ResponseEntity<Message>> sendJsonMessage(@RequestBody MessageRequest request) {
+        return reactiveProducerService.sendJsonMessage(request.getContent(), request.getSender())
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Send message to a specific topic
+     * POST /api/kafka/send-to-topic?topic=my-topic&key=key1&message=Hello
+     */
+    @PostMapping("/send-to-topic")
+    public Mono<ResponseEntity<Map<String, String>>> sendToTopic(
+            @RequestParam String topic,
+            @RequestParam(required = false) String key,
+            @RequestParam String message) {
+        return reactiveProducerService.sendToTopic(topic, key, message)
+                .map(metadata -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("status", "Message sent successfully");
+                    response.put("topic", topic);
+                    response.put("message", message);
+                    if (key != null) {
+                        response.put("key", key);
+                    }
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    // ==================== MATH CALCULATION ENDPOINTS ====================
+
+    /**
+     * Calculate a math expression and complete when the result arrives
+     * POST /api/kafka/calculate?expression=2+2
+     */
+    @PostMapping("/calculate")
+    public Mono<ResponseEntity<MathResponse>> calculate(@RequestParam String expression) {
+        return calculateResponse(expression, null);
+    }
+
+    /**
+     * Calculate a math expression via JSON body
+     * POST /api/kafka/calculate-json
+     * Body: { "expression": "2+2" } or { "expression": "sqrt(x*x + y*y)", "variables": { "x": 3, "y": 4 } }
+     */
+    @PostMapping("/calculate-json")
+    public Mono<ResponseEntity<MathResponse>> calculateJson(@RequestBody MathRequest request) {
+        return calculateResponse(request.getExpression(), request.getVariables());
+    }
+
+    /**
+     * Send a calculation request without waiting (fire and forget)
+     * POST /api/kafka/calculate-async?expression=2+2
+     */
+    @PostMapping("/calculate-async")
+    public Mono<ResponseEntity<Map<String, String>>> calculateAsync(@RequestParam String expression) {
+        return calculateAsyncResponse(expression, null);
+    }
+
+    /**
+     * Send a calculation request without waiting (fire and forget) via JSON body
+     * POST /api/kafka/calculate-async-json
+     * Body: { "expression": "2+2" }, optionally with "variables" as for calculate-json
+     */
+    @PostMapping("/calculate-async-json")
+    public Mono<ResponseEntity<Map<String, String>>> calculateAsyncJson(@RequestBody MathRequest request) {
+        return calculateAsyncResponse(request.getExpression(), request.getVariables());
+    }
+
+    private Mono<ResponseEntity<MathResponse>> calculateResponse(String expression, Map<String, Double> variables) {
+        return reactiveMathService.calculate(expression, variables)
+                .map(reply -> MathResponse.builder()
+                        .expression(expression)
+                        .result(reply.resultOrError())
+                        .status("SUCCESS")
+                        .build())
+                .onErrorResume(e -> {
+                    log.error("Calculation failed: {}", e.getMessage());
+                    return Mono.just(MathResponse.builder()
+                            .expression(expression)
+                            .result(null)
+                            .status("ERROR: " + e.getMessage())
+                            .build());
+                })
+                .map(ResponseEntity::ok);
+    }
+
+    private Mono<ResponseEntity<Map<String, String>>> calculateAsyncResponse(String expression,
+                                                                             Map<String, Double> variables) {
+        return reactiveMathService.sendCalculation(expression, variables)
+                .map(correlationId -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("status", "Request sent");
+                    response.put("expression", expression);
+                    response.put("correlationId", correlationId);
+                    response.put("message", "Check the math-replies topic for results");
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    // ==================== HEALTH CHECK ====================
+
+    /**
+     * Health check endpoint
+     */
+    @GetMapping("/health")
+    public Mono<ResponseEntity<Map<String, Object>>> health() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "UP");
+        response.put("service", "Kafka Producer (Reactive)");
+        response.put("pendingReplies", replyCorrelator.pendingCount());
+        return Mono.just(ResponseEntity.ok(response));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MathRequest {
+    private String expression;
+    // Optional: values of the variables named in the expression, e.g. {"x": 2}
+    private Map<String, Double> variables;
+}
+
@@ -0,0 +1,20 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Message {
+    
+    private String id;
+    private String content;
+    private String sender;
+    // Epoch milliseconds, same wire format as kafka-producer
+    private long timestamp;
+}
+
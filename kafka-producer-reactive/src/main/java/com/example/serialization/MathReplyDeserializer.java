@@ -0,0 +1,37 @@
+package com.example.serialization;
+
+import com.example.dto.MathReply;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Deserializes math replies straight from the record bytes into MathReply,
+ * so ReplyingKafkaTemplate hands back a ready object
+ * Payloads that are not JSON are returned as the result, unchanged
+ */
+public class MathReplyDeserializer implements Deserializer<MathReply> {
+
+    private static final ObjectReader READER = new ObjectMapper().readerFor(MathReply.class);
+
+    @Override
+    public MathReply deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            MathReply reply = READER.readValue(data);
+            if (reply != null) {
+                return reply;
+            }
+        } catch (IOException e) {
+            // Not a JSON object, fall through to the raw payload
+        }
+        return MathReply.builder()
+                .result(new String(data, StandardCharsets.UTF_8))
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.service;
+
+import com.example.dto.MathReply;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReactiveMathService {
+
+    private final KafkaSender<String, String> kafkaSender;
+    private final ReplyCorrelator replyCorrelator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.kafka.topic.math.request}")
+    private String requestTopic;
+
+    @Value("${app.kafka.topic.math.request-bulk}")
+    private String bulkRequestTopic;
+
+    @Value("${app.kafka.topic.math.reply}")
+    private String replyTopic;
+
+    @Value("${app.kafka.reply.timeout:30}")
+    private int replyTimeoutSeconds;
+
+    /**
+     * Send a math expression and complete when the reply arrives
+     * No thread waits: the reply is matched by ReplyCorrelator
+     */
+    public Mono<MathReply> calculate(String expression) {
+        return calculate(expression, null);
+    }
+
+    /**
+     * Same as calculate(expression), with values for the variables named in the expression
+     */
+    public Mono<MathReply> calculate(String expression, Map<String, Double> variables) {
+        // Registered per subscription, not when the Mono is assembled
+        return Mono.defer(() -> {
+            String correlationId = UUID.randomUUID().toString();
+            log.debug("Sending math request with correlationId {}: {}", correlationId, expression);
+
+            ProducerRecord<String, String> record =
+                    new ProducerRecord<>(requestTopic, correlationId, requestJson(expression, variables));
+            record.headers().add(new RecordHeader(ReplyCorrelator.CORRELATION_ID_HEADER,
+                    correlationId.getBytes(StandardCharsets.UTF_8)));
+            record.headers().add(new RecordHeader(ReplyCorrelator.REPLY_TOPIC_HEADER,
+                    replyTopic.getBytes(StandardCharsets.UTF_8)));
+
+            // Register before sending so a fast reply cannot be missed
+            Mono<MathReply> reply = replyCorrelator.expect(correlationId, Duration.ofSeconds(replyTimeoutSeconds));
+
+            return kafkaSender.send(Mono.just(SenderRecord.create(record, correlationId)))
+                    .next()
+                    .then(reply)
+                    // Also when the send fails and the reply is never subscribed
+                    .doFinally(signal -> replyCorrelator.discard(correlationId));
+        });
+    }
+
+    /**
+     * Send a math expression without waiting for the reply
+     * Completes with the correlationId once the broker acknowledged the request
+     * Sent to the bulk topic, which the consumer serves at low priority
+     */
+    public Mono<String> sendCalculation(String expression) {
+        return sendCalculation(expression, null);
+    }
+
+    /**
+     * Same as sendCalculation(expression), with values for the variables named in the expression
+     */
+    public Mono<String> sendCalculation(String expression, Map<String, Double> variables) {
+        String correlationId = UUID.randomUUID().toString();
+        log.debug("Sending math request (fire-and-forget) with correlationId {}: {}", correlationId, expression);
+
+        ProducerRecord<String, String> record =
+                new ProducerRecord<>(bulkRequestTopic, correlationId, requestJson(expression, variables));
+
+        return kafkaSender.send(Mono.just(SenderRecord.create(record, correlationId)))
+                .next()
+                .map(result -> correlationId);
+    }
+
+    private String requestJson(String expression, Map<String, Double> variables) {
+        ObjectNode json = objectMapper.createObjectNode().put("expression", expression);
+        if (variables != null && !variables.isEmpty()) {
+            ObjectNode values = json.putObject("variables");
+            variables.forEach(values::put);
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.service;
+
+import com.example.model.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReactiveProducerService {
+
+    private final KafkaSender<String, String> kafkaSender;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.kafka.topic.string}")
+    private String stringTopic;
+
+    @Value("${app.kafka.topic.json}")
+    private String jsonTopic;
+
+    /**
+     * Send a simple string message to Kafka
+     */
+    public Mono<RecordMetadata> sendMessage(String message) {
+        return sendToTopic(stringTopic, null, message);
+    }
+
+    /**
+     * Send a message with a specific key (useful for partitioning)
+     */
+    public Mono<RecordMetadata> sendMessageWithKey(String key, String message) {
+        return sendToTopic(stringTopic, key, message);
+    }
+
+    /**
+     * Send a JSON object message to Kafka
+     */
+    public Mono<Message> sendJsonMessage(String content, String sender) {
+        Message message = Message.builder()
+                .id(UUID.randomUUID().toString())
+                .content(content)
+                .sender(sender)
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(message))
+                .flatMap(json -> sendToTopic(jsonTopic, message.getId(), json))
+                .thenReturn(message);
+    }
+
+    /**
+     * Send message to a specific topic, completing when the broker acknowledged it
+     */
+    public Mono<RecordMetadata> sendToTopic(String topic, String key, String message) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, message);
+        return kafkaSender.send(Mono.just(SenderRecord.create(record, null)))
+                .next()
+                .flatMap(result -> result.exception() != null
+                        ? Mono.error(result.exception())
+                        : Mono.just(result.recordMetadata()))
+                .doOnError(ex -> log.error("Failed to send message to {}: {}", topic, ex.getMessage()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.service;
+
+import com.example.dto.MathReply;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches replies from the reply topic to pending requests without blocking
+ *
+ * A request registers its correlation ID before it is sent, and gets a Mono
+ * that completes when the reply with the same CORRELATION_ID header arrives.
+ * The registration ends when that Mono terminates or is cancelled.
+ * Replies for unknown IDs (other gateway instances, timed-out requests) are ignored.
+ */
+@Slf4j
+public class ReplyCorrelator {
+
+    /** Header names used by Spring Kafka's ReplyingKafkaTemplate and @SendTo */
+    public static final String CORRELATION_ID_HEADER = "kafka_correlationId";
+    public static final String REPLY_TOPIC_HEADER = "kafka_replyTopic";
+
+    private final Map<String, Sinks.One<MathReply>> pending = new ConcurrentHashMap<>();
+    private Disposable subscription;
+
+    /**
+     * Start routing replies from the given record stream
+     */
+    public void start(Flux<ConsumerRecord<String, MathReply>> replies) {
+        subscription = replies.subscribe(this::onReply,
+                ex -> log.error("Reply stream terminated: {}", ex.getMessage()));
+    }
+
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Register a pending request; must be called before the request is sent, at
+     * subscription time (inside Mono.defer) so an unsubscribed request registers nothing
+     */
+    public Mono<MathReply> expect(String correlationId, Duration timeout) {
+        Sinks.One<MathReply> sink = Sinks.one();
+        pending.put(correlationId, sink);
+        return sink.asMono()
+                .timeout(timeout)
+                .doFinally(signal -> pending.remove(correlationId, sink));
+    }
+
+    /**
+     * Forget a pending request (completed, timed out, failed or cancelled)
+     */
+    public void discard(String correlationId) {
+        pending.remove(correlationId);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void onReply(ConsumerRecord<String, MathReply> record) {
+        Header header = record.headers().lastHeader(CORRELATION_ID_HEADER);
+        if (header == null) {
+            return;
+        }
+        String correlationId = new String(header.value(), StandardCharsets.UTF_8);
+        Sinks.One<MathReply> sink = pending.remove(correlationId);
+        if (sink != null) {
+            sink.tryEmitValue(record.value());
+        }
+    }
+}
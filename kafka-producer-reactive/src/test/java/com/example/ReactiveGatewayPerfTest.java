@@ -0,0 +1,252 @@
+package com.example;
+
+import com.example.service.ReplyCorrelator;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput and memory of the reactive gateway with thousands of open requests
+ *
+ * Starts the gateway against an embedded broker, with a stand-in math consumer
+ * that answers every request on the reply topic, and keeps perf.reactive.concurrency
+ * /calculate requests in flight, one per connection:
+ * - replies per second and p99 round trip over SECONDS, after a warm-up that also
+ *   opens the connections
+ * - heap per in-flight request: the stand-in consumer holds its replies while every
+ *   connection sends one request, and the heap after GC is compared with the idle
+ *   connections' heap. Client and gateway share the JVM, so both sides count.
+ *
+ * Client and gateway also share the file descriptor limit, two per connection;
+ * the default of 8000 connections fits a limit of 20000. Use
+ * -Dperf.reactive.concurrency=10000 where the limit allows.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test [-Dperf.reactive.concurrency=10000] [-Dperf.seconds=10]
+ */
+@Tag("perf")
+@EmbeddedKafka(partitions = 3, topics = { "math-requests", "math-requests-bulk", "math-replies" })
+class ReactiveGatewayPerfTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("perf.reactive.concurrency", 8000);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup.seconds", 5);
+    private static final int SECONDS = Integer.getInteger("perf.seconds", 5);
+    private static final Duration WAIT = Duration.ofSeconds(120);
+
+    @Test
+    void gatewayStaysWithinBudget() throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        KafkaMessageListenerContainer<String, String> standInConsumer = startStandInConsumer(broker);
+        ConfigurableApplicationContext gateway = new SpringApplicationBuilder(App.class).run(
+                "--server.port=0",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka.reply.timeout=" + WAIT.toSeconds(),
+                "--spring.main.banner-mode=off",
+                "--logging.level.com.example=WARN");
+        ConnectionProvider connections = ConnectionProvider.builder("perf")
+                .maxConnections(CONCURRENCY)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(WAIT)
+                .build();
+        try {
+            int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port + "/api/kafka")
+                    .clientConnector(new ReactorClientHttpConnector(
+                            HttpClient.create(connections).responseTimeout(WAIT)))
+                    .build();
+            ReplyCorrelator correlator = gateway.getBean(ReplyCorrelator.class);
+            AtomicLong sequence = new AtomicLong();
+            awaitFirstReply(client, sequence);
+
+            closedLoop(client, sequence, WARMUP_SECONDS, new Samples(), new AtomicLong());
+            Samples samples = new Samples();
+            AtomicLong failures = new AtomicLong();
+            long elapsed = closedLoop(client, sequence, SECONDS, samples, failures);
+            assertEquals(0, failures.get(), "Requests failed");
+            long[] latencies = samples.latencies();
+            double throughput = latencies.length / (elapsed / 1e9);
+            double p99 = PerfBudget.percentileMillis(latencies, 99);
+
+            double bytesPerRequest = heapPerInFlightRequest(client, sequence, correlator, standInConsumer);
+            System.out.printf("%d connections: %.0f replies/s, p99 %.1f ms, %.0f B heap per in-flight request%n",
+                    CONCURRENCY, throughput, p99, bytesPerRequest);
+
+            PerfBudget budget = new PerfBudget();
+            budget.atLeast("reactive.calculate.throughput-per-second", throughput);
+            budget.atMost("reactive.calculate.latency-p99-ms", p99);
+            budget.atMost("reactive.calculate.bytes-per-in-flight-request", bytesPerRequest);
+            budget.assertWithinBudget();
+        } finally {
+            connections.dispose();
+            gateway.close();
+            standInConsumer.stop();
+        }
+    }
+
+    /**
+     * The gateway's reply receiver may not be assigned yet; retried until a reply arrives
+     */
+    private static void awaitFirstReply(WebClient client, AtomicLong sequence) {
+        long deadline = System.nanoTime() + WAIT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (calculate(client, sequence.incrementAndGet()).timeout(Duration.ofSeconds(5)).block() != null) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Not answered within 5 s, try again
+            }
+        }
+        fail("No reply from the gateway within " + WAIT);
+    }
+
+    /**
+     * CONCURRENCY requests outstanding until the time is up, each sent again when its reply arrives
+     */
+    private static long closedLoop(WebClient client, AtomicLong sequence, int seconds, Samples samples,
+                                   AtomicLong failures) {
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        Flux.range(0, CONCURRENCY)
+                .flatMap(slot -> Mono.defer(() -> {
+                            long sent = System.nanoTime();
+                            return calculate(client, sequence.incrementAndGet())
+                                    .doOnNext(body -> samples.record(System.nanoTime() - sent))
+                                    .onErrorResume(e -> {
+                                        failures.incrementAndGet();
+                                        return Mono.empty();
+                                    });
+                        })
+                        .repeat(() -> System.nanoTime() < end), CONCURRENCY)
+                .blockLast(WAIT.plusSeconds(seconds));
+        return System.nanoTime() - start;
+    }
+
+    private static double heapPerInFlightRequest(WebClient client, AtomicLong sequence, ReplyCorrelator correlator,
+                                                 KafkaMessageListenerContainer<String, String> standInConsumer)
+            throws InterruptedException {
+        standInConsumer.pause();
+        long deadline = System.nanoTime() + WAIT.toNanos();
+        while (!standInConsumer.isContainerPaused() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        long before = heapAfterGc();
+        Mono<Void> all = Flux.range(0, CONCURRENCY)
+                .flatMap(slot -> calculate(client, sequence.incrementAndGet()), CONCURRENCY)
+                .then()
+                .cache();
+        all.subscribe();
+        while (correlator.pendingCount() < CONCURRENCY && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(CONCURRENCY, correlator.pendingCount(), "Requests not in flight");
+        long after = heapAfterGc();
+        standInConsumer.resume();
+        all.block(WAIT);
+        return (double) (after - before) / CONCURRENCY;
+    }
+
+    private static Mono<String> calculate(WebClient client, long n) {
+        return client.post()
+                .uri(uri -> uri.path("/calculate").queryParam("expression", "{expression}").build(n + "+1"))
+                .retrieve()
+                .bodyToMono(String.class)
+                .doOnNext(body -> assertFalse(body.contains("\"ERROR"), body));
+    }
+
+    private static long heapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static class Samples {
+
+        private long[] latencies = new long[4096];
+        private int count;
+
+        synchronized void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        synchronized long[] latencies() {
+            return Arrays.copyOf(latencies, count);
+        }
+    }
+
+    /**
+     * Answers every math request on the reply topic named in its header, with the
+     * correlation ID copied over, like the consumer does; the result is not computed
+     */
+    private static KafkaMessageListenerContainer<String, String> startStandInConsumer(EmbeddedKafkaBroker broker) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        KafkaTemplate<String, String> replies = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("perf-stand-in-consumer", "true", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        ContainerProperties containerProps = new ContainerProperties("math-requests");
+        containerProps.setMessageListener((MessageListener<String, String>) request -> reply(replies, request));
+        KafkaMessageListenerContainer<String, String> container = new KafkaMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), containerProps);
+        container.start();
+        return container;
+    }
+
+    private static void reply(KafkaTemplate<String, String> replies, ConsumerRecord<String, String> request) {
+        Header replyTopic = request.headers().lastHeader(ReplyCorrelator.REPLY_TOPIC_HEADER);
+        String topic = replyTopic != null ? new String(replyTopic.value(), StandardCharsets.UTF_8) : "math-replies";
+        ProducerRecord<String, String> reply = new ProducerRecord<>(topic, request.key(),
+                "{\"expression\":\"perf\",\"result\":\"2\"}");
+        Header correlationId = request.headers().lastHeader(ReplyCorrelator.CORRELATION_ID_HEADER);
+        if (correlationId != null) {
+            reply.headers().add(correlationId);
+        }
+        replies.send(reply);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+import com.example.service.ReactiveMathService;
+import com.example.service.ReplyCorrelator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReactiveMathServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaSender<String, String> sender = mock(KafkaSender.class);
+    private final ReplyCorrelator correlator = new ReplyCorrelator();
+    private final ReactiveMathService service = new ReactiveMathService(sender, correlator, new ObjectMapper());
+
+    ReactiveMathServiceTest() {
+        ReflectionTestUtils.setField(service, "requestTopic", "math-requests");
+        ReflectionTestUtils.setField(service, "replyTopic", "math-replies");
+        ReflectionTestUtils.setField(service, "replyTimeoutSeconds", 5);
+        correlator.start(Flux.never());
+    }
+
+    @Test
+    void testNothingIsRegisteredOrSentUntilSubscribed() {
+        Mono<?> reply = service.calculate("1+1");
+
+        assertEquals(0, correlator.pendingCount());
+        verifyNoInteractions(sender);
+
+        when(sender.send(any())).thenReturn(Flux.never());
+        reply.subscribe().dispose();
+        assertEquals(0, correlator.pendingCount());
+    }
+
+    @Test
+    void testFailedSendEndsRegistration() {
+        when(sender.send(any())).thenReturn(Flux.error(new TimeoutException("no metadata")));
+
+        StepVerifier.create(service.calculate("1+1"))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, correlator.pendingCount());
+    }
+}
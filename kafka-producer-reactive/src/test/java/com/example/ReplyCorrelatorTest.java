@@ -0,0 +1,85 @@
+package com.example;
+
+import com.example.dto.MathReply;
+import com.example.service.ReplyCorrelator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplyCorrelatorTest {
+
+    private final Sinks.Many<ConsumerRecord<String, MathReply>> replies = Sinks.many().unicast().onBackpressureBuffer();
+    private final ReplyCorrelator correlator = new ReplyCorrelator();
+
+    ReplyCorrelatorTest() {
+        correlator.start(replies.asFlux());
+    }
+
+    private void reply(String correlationId, String result) {
+        ConsumerRecord<String, MathReply> record = new ConsumerRecord<>("math-replies", 0, 0L, correlationId,
+                MathReply.builder().result(result).build());
+        if (correlationId != null) {
+            record.headers().add(ReplyCorrelator.CORRELATION_ID_HEADER, correlationId.getBytes(StandardCharsets.UTF_8));
+        }
+        replies.tryEmitNext(record);
+    }
+
+    @Test
+    void testReplyCompletesMatchingRequest() {
+        var first = correlator.expect("a", Duration.ofSeconds(5));
+        var second = correlator.expect("b", Duration.ofSeconds(5));
+        assertEquals(2, correlator.pendingCount());
+
+        reply("b", "2");
+        reply("a", "1");
+
+        StepVerifier.create(first).assertNext(r -> assertEquals("1", r.getResult())).verifyComplete();
+        StepVerifier.create(second).assertNext(r -> assertEquals("2", r.getResult())).verifyComplete();
+        assertEquals(0, correlator.pendingCount());
+    }
+
+    @Test
+    void testReplyBeforeSubscriptionIsNotLost() {
+        var pending = correlator.expect("early", Duration.ofSeconds(5));
+        reply("early", "42");
+
+        StepVerifier.create(pending).assertNext(r -> assertEquals("42", r.getResult())).verifyComplete();
+    }
+
+    @Test
+    void testUnknownAndUncorrelatedRepliesAreIgnored() {
+        var pending = correlator.expect("mine", Duration.ofSeconds(5));
+        reply("someone-else", "1");
+        reply(null, "2");
+
+        assertEquals(1, correlator.pendingCount());
+        reply("mine", "3");
+        StepVerifier.create(pending).assertNext(r -> assertEquals("3", r.getResult())).verifyComplete();
+    }
+
+    @Test
+    void testCancelEndsRegistration() {
+        var pending = correlator.expect("cancelled", Duration.ofSeconds(5));
+        assertEquals(1, correlator.pendingCount());
+
+        pending.subscribe().dispose();
+        assertEquals(0, correlator.pendingCount());
+    }
+
+    @Test
+    void testTimeoutAndDiscard() {
+        var pending = correlator.expect("slow", Duration.ofMillis(50));
+
+        StepVerifier.create(pending.doFinally(s -> correlator.discard("slow")))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, correlator.pendingCount());
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.config;
+
+import com.example.id.CorrelationIdGenerator;
+import com.example.id.PrefixedCounterIdGenerator;
+import com.example.id.TimeOrderedIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CorrelationIdConfig {
+
+    @Value("${app.kafka.correlation-id.strategy:time-ordered}")
+    private String strategy;
+
+    @Value("${app.kafka.correlation-id.prefix:}")
+    private String prefix;
+
+    /**
+     * time-ordered: UUIDv7-style IDs, sortable by creation time
+     * prefixed-counter: instance prefix plus per-thread counter, cheapest under contention
+     */
+    @Bean
+    public CorrelationIdGenerator correlationIdGenerator() {
+        return switch (strategy) {
+            case "time-ordered" -> new TimeOrderedIdGenerator();
+            case "prefixed-counter" -> new PrefixedCounterIdGenerator(prefix);
+            default -> throw new IllegalArgumentException(
+                    "Unknown app.kafka.correlation-id.strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.config;
+
+import com.example.dto.MathReply;
+import com.example.health.ReplyListenerHealthIndicator;
+import com.example.health.ReplyPathHealthIndicator;
+import com.example.health.RoundTripProbe;
+import com.example.reply.ReplyRegistry;
+import com.example.service.MathRequestService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Indicators for the liveness and readiness health groups
+ * (management.endpoint.health.group.*): replyListenerLiveness and replyPath
+ */
+@Configuration
+public class HealthConfig {
+
+    // A reply listener that has not polled for this long is stuck; the instance is restarted
+    @Value("${app.kafka.health.liveness.max-poll-age-ms:120000}")
+    private long livenessMaxPollAgeMs;
+
+    @Value("${app.kafka.health.readiness.max-reply-age-ms:30000}")
+    private long readinessMaxReplyAgeMs;
+
+    @Value("${app.kafka.health.readiness.max-pending-requests:5000}")
+    private int readinessMaxPendingRequests;
+
+    @Value("${app.kafka.health.probe.enabled:true}")
+    private boolean probeEnabled;
+
+    @Value("${app.kafka.health.probe.interval-ms:10000}")
+    private long probeIntervalMs;
+
+    @Value("${app.kafka.health.probe.timeout-ms:5000}")
+    private long probeTimeoutMs;
+
+    @Bean
+    public ReplyListenerHealthIndicator replyListenerLivenessHealthIndicator(
+            ConcurrentMessageListenerContainer<String, MathReply> replyListenerContainer) {
+        return new ReplyListenerHealthIndicator(replyListenerContainer, Duration.ofMillis(livenessMaxPollAgeMs));
+    }
+
+    /**
+     * Sends "1+1" through the math path when no reply arrived within the interval
+     */
+    @Bean(destroyMethod = "close")
+    public RoundTripProbe roundTripProbe(ReplyRegistry pendingReplyRegistry,
+                                         MathRequestService mathRequestService) {
+        Duration timeout = Duration.ofMillis(probeTimeoutMs);
+        RoundTripProbe probe = new RoundTripProbe(pendingReplyRegistry,
+                () -> mathRequestService.calculateAndWait("1+1", timeout), Duration.ofMillis(probeIntervalMs));
+        if (probeEnabled) {
+            probe.start();
+        }
+        return probe;
+    }
+
+    @Bean
+    public ReplyPathHealthIndicator replyPathHealthIndicator(ReplyRegistry pendingReplyRegistry,
+                                                             RoundTripProbe roundTripProbe) {
+        return new ReplyPathHealthIndicator(pendingReplyRegistry, roundTripProbe,
+                Duration.ofMillis(readinessMaxReplyAgeMs), readinessMaxPendingRequests);
+    }
+}
@@ -1,17 +1,28 @@
 package com.example.config;
 
+import com.example.dto.MathReply;
+import com.example.model.Message;
+import com.example.reply.HopLatencyRecorder;
+import com.example.reply.PendingReplyRegistry;
+import com.example.reply.PrimitiveReplyRegistry;
+import com.example.reply.ReplyAssignment;
+import com.example.reply.ReplyRegistry;
+import com.example.serialization.MathReplyDeserializer;
+import com.example.serialization.MessageSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
-import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.listener.MessageListener;
 
 import java.time.Duration;
 import java.util.HashMap;
@@ -26,8 +37,31 @@ public class KafkaProducerConfig {
     @Value("${app.kafka.topic.math.reply}")
     private String replyTopic;
 
-    @Value("${app.kafka.reply.timeout:30}")
-    private int replyTimeoutSeconds;
+    @Value("${app.kafka.reply.timer.tick-ms:100}")
+    private long timerTickMs;
+
+    @Value("${app.kafka.reply.timer.ticks-per-wheel:512}")
+    private int timerTicksPerWheel;
+
+    @Value("${app.kafka.reply.registry.type:primitive}")
+    private String replyRegistryType;
+
+    @Value("${app.kafka.reply.registry.segments:16}")
+    private int replyRegistrySegments;
+
+    @Value("${app.kafka.reply.registry.initial-capacity:65536}")
+    private int replyRegistryInitialCapacity;
+
+    @Value("${app.kafka.reply.registry.off-heap:false}")
+    private boolean replyRegistryOffHeap;
+
+    // Micrometer observation on the math path (String template and reply container):
+    // spans linked through the traceparent header and spring.kafka.* timers
+    @Value("${spring.kafka.template.observation-enabled:true}")
+    private boolean templateObservationEnabled;
+
+    @Value("${spring.kafka.listener.observation-enabled:true}")
+    private boolean listenerObservationEnabled;
 
     // ==================== PRODUCER CONFIG ====================
 
@@ -45,59 +79,142 @@ public class KafkaProducerConfig {
 
     @Bean
     public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory());
+        template.setObservationEnabled(templateObservationEnabled);
+        return template;
     }
 
-    // ==================== REPLYING KAFKA TEMPLATE CONFIG ====================
+    // The raw, bulk and JSON producers below are @Lazy (also at their injection points):
+    // /calculate only needs the String producer and the replying template, so the others
+    // are created on first use instead of during startup
+
+    // ==================== RAW BYTES PRODUCER CONFIG ====================
 
+    /**
+     * Payloads are sent as the bytes received, without String decoding/encoding
+     */
     @Bean
-    public ConsumerFactory<String, String> replyConsumerFactory() {
+    @Lazy
+    public ProducerFactory<String, byte[]> bytesProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    @Lazy
+    public KafkaTemplate<String, byte[]> bytesKafkaTemplate() {
+        return new KafkaTemplate<>(bytesProducerFactory());
+    }
+
+    // ==================== BULK PRODUCER CONFIG ====================
+
+    /**
+     * Tuned for throughput: larger batches, a short linger and compression
+     */
+    @Bean
+    @Lazy
+    public ProducerFactory<String, String> bulkProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 10);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 128 * 1024);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    @Lazy
+    public KafkaTemplate<String, String> bulkKafkaTemplate() {
+        return new KafkaTemplate<>(bulkProducerFactory());
+    }
+
+    // ==================== REPLY CONFIG ====================
+
+    @Bean
+    public ConsumerFactory<String, MathReply> replyConsumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "math-reply-consumer");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MathReplyDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    /**
+     * primitive: correlation IDs as two longs in a segmented open-addressing table,
+     * deadlines swept every tick; only the future is allocated per request
+     * wheel: String-keyed map with per-request deadlines on a hashed timing wheel
+     */
+    @Bean(destroyMethod = "close")
+    public ReplyRegistry pendingReplyRegistry() {
+        return switch (replyRegistryType) {
+            case "primitive" -> new PrimitiveReplyRegistry(Duration.ofMillis(timerTickMs), replyRegistrySegments,
+                    replyRegistryInitialCapacity, replyRegistryOffHeap);
+            case "wheel" -> new PendingReplyRegistry(Duration.ofMillis(timerTickMs), timerTicksPerWheel);
+            default -> throw new IllegalArgumentException(
+                    "Unknown app.kafka.reply.registry.type: " + replyRegistryType);
+        };
+    }
+
+    @Bean
+    public HopLatencyRecorder hopLatencyRecorder(MeterRegistry meterRegistry) {
+        return new HopLatencyRecorder(meterRegistry);
+    }
+
+    @Bean
+    public ReplyAssignment replyAssignment() {
+        return new ReplyAssignment();
+    }
+
     @Bean
-    public ConcurrentMessageListenerContainer<String, String> replyListenerContainer() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentMessageListenerContainer<String, MathReply> replyListenerContainer(
+            HopLatencyRecorder hopLatencyRecorder) {
+        ConcurrentKafkaListenerContainerFactory<String, MathReply> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(replyConsumerFactory());
         
-        ConcurrentMessageListenerContainer<String, String> container =
+        ConcurrentMessageListenerContainer<String, MathReply> container =
                 factory.createContainer(replyTopic);
         container.getContainerProperties().setGroupId("math-reply-consumer");
-        container.setAutoStartup(false); // ReplyingKafkaTemplate will start it
+        container.getContainerProperties().setObservationEnabled(listenerObservationEnabled);
+        container.getContainerProperties().setConsumerRebalanceListener(replyAssignment());
+        // Replies are matched to pending requests by their correlation ID header
+        ReplyRegistry registry = pendingReplyRegistry();
+        container.setupMessageListener((MessageListener<String, MathReply>) reply -> {
+            hopLatencyRecorder.record(reply);
+            registry.onReply(reply);
+        });
         return container;
     }
 
-    @Bean
-    public ReplyingKafkaTemplate<String, String, String> replyingKafkaTemplate() {
-        ReplyingKafkaTemplate<String, String, String> template =
-                new ReplyingKafkaTemplate<>(producerFactory(), replyListenerContainer());
-        template.setDefaultReplyTimeout(Duration.ofSeconds(replyTimeoutSeconds));
-        template.setSharedReplyTopic(true); // Allow multiple instances to share the reply topic
-        return template;
-    }
-
     // ==================== JSON PRODUCER CONFIG ====================
 
     @Bean
-    public ProducerFactory<String, Object> jsonProducerFactory() {
+    @Lazy
+    public ProducerFactory<String, Message> jsonProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, MessageSerializer.class);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, Object> jsonKafkaTemplate() {
+    @Lazy
+    public KafkaTemplate<String, Message> jsonKafkaTemplate() {
         return new KafkaTemplate<>(jsonProducerFactory());
     }
 }
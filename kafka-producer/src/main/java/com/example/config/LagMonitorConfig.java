@@ -0,0 +1,58 @@
+package com.example.config;
+
+import com.example.lag.LagMonitor;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class LagMonitorConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${app.kafka.lag.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.kafka.lag.groups:math-consumer-group,math-consumer-group-bulk,math-reply-consumer}")
+    private List<String> groups;
+
+    @Value("${app.kafka.lag.interval-ms:5000}")
+    private long intervalMs;
+
+    @Value("${app.kafka.lag.history-size:120}")
+    private int historySize;
+
+    @Value("${app.kafka.lag.rate-window-samples:12}")
+    private int rateWindowSamples;
+
+    /**
+     * Shared by the lag sampler and the topic browsing endpoints
+     */
+    @Bean(destroyMethod = "close")
+    public Admin adminClient() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(AdminClientConfig.CLIENT_ID_CONFIG, "kafka-producer-admin");
+        configProps.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, 5000);
+        configProps.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, 10000);
+        return Admin.create(configProps);
+    }
+
+    @Bean(destroyMethod = "close")
+    public LagMonitor lagMonitor() {
+        LagMonitor monitor = new LagMonitor(adminClient(), groups, historySize, rateWindowSamples,
+                Duration.ofSeconds(10));
+        if (enabled) {
+            monitor.start(Duration.ofMillis(intervalMs));
+        }
+        return monitor;
+    }
+}
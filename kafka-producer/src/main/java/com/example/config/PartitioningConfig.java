@@ -0,0 +1,50 @@
+package com.example.config;
+
+import com.example.partition.ExpressionHashPartitioner;
+import com.example.partition.HotKeySpreadingPartitioner;
+import com.example.partition.MathRequestPartitioner;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PartitioningConfig {
+
+    @Value("${app.kafka.partitioning.strategy:expression-spread}")
+    private String strategy;
+
+    @Value("${app.kafka.partitioning.hot-key.window:10000}")
+    private long hotKeyWindow;
+
+    @Value("${app.kafka.partitioning.hot-key.fraction:0.5}")
+    private double hotKeyFraction;
+
+    @Value("${app.kafka.partitioning.hot-key.max-spread:8}")
+    private int hotKeyMaxSpread;
+
+    /**
+     * record-key: partition from the correlation ID, even load but no locality
+     * expression: partition from the normalized expression
+     * expression-spread: expression, with hot expressions spread over a few partitions
+     */
+    @Bean
+    public MathRequestPartitioner mathRequestPartitioner(MeterRegistry meterRegistry) {
+        return switch (strategy) {
+            case "record-key" -> MathRequestPartitioner.RECORD_KEY;
+            case "expression" -> new ExpressionHashPartitioner();
+            case "expression-spread" -> {
+                HotKeySpreadingPartitioner partitioner =
+                        new HotKeySpreadingPartitioner(hotKeyWindow, hotKeyFraction, hotKeyMaxSpread);
+                FunctionCounter.builder("math.partitioning.spread", partitioner,
+                                HotKeySpreadingPartitioner::spreadRequests)
+                        .description("Math requests of hot expressions sent outside their home partition")
+                        .register(meterRegistry);
+                yield partitioner;
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unknown app.kafka.partitioning.strategy: " + strategy);
+        };
+    }
+}
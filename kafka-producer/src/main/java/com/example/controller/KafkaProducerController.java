@@ -1,18 +1,34 @@
 package com.example.controller;
 
+import com.example.dto.BulkIngestResult;
 import com.example.dto.KafkaMessageDto;
+import com.example.dto.MathReply;
 import com.example.dto.MathRequest;
 import com.example.dto.MathResponse;
 import com.example.dto.MessageRequest;
+import com.example.lag.LagMonitor;
 import com.example.model.Message;
+import com.example.reply.ReplyNotReadyException;
+import com.example.reply.ReplyRegistry;
+import com.example.service.BulkIngestService;
 import com.example.service.KafkaConsumerService;
 import com.example.service.KafkaProducerService;
 import com.example.service.MathRequestService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +43,17 @@ public class KafkaProducerController {
     private final KafkaProducerService kafkaProducerService;
     private final KafkaConsumerService kafkaConsumerService;
     private final MathRequestService mathRequestService;
+    private final BulkIngestService bulkIngestService;
+    private final ReplyRegistry pendingReplyRegistry;
+    private final LagMonitor lagMonitor;
+    private final HealthEndpoint healthEndpoint;
+
+    @Value("${app.kafka.topic.string}")
+    private String stringTopic;
+
+    // Under the producer's max.request.size (1 MiB), which also counts the record's key and overhead
+    @Value("${app.kafka.raw.max-bytes:1000000}")
+    private int maxRawBytes;
 
     // ==================== PRODUCER ENDPOINTS ====================
 
@@ -100,6 +127,70 @@ public class KafkaProducerController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Send the request body as-is to a topic, without String conversion
+     * POST /api/kafka/send-to-topic/raw?topic=my-topic&key=key1
+     * Body: any bytes, at most app.kafka.raw.max-bytes (413 above)
+     */
+    @PostMapping("/send-to-topic/raw")
+    public ResponseEntity<Map<String, Object>> sendRawToTopic(
+            @RequestParam String topic,
+            @RequestParam(required = false) String key,
+            HttpServletRequest request) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxRawBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        // Read straight into an exactly sized array when the length is known; otherwise
+        // one byte past the limit tells a body that is too large
+        byte[] payload = contentLength >= 0
+                ? request.getInputStream().readNBytes((int) contentLength)
+                : request.getInputStream().readNBytes((int) Math.min(maxRawBytes + 1L, Integer.MAX_VALUE));
+        if (payload.length > maxRawBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        kafkaProducerService.sendRawToTopic(topic, key, payload);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "Message sent successfully");
+        response.put("topic", topic);
+        response.put("bytes", payload.length);
+        if (key != null) {
+            response.put("key", key);
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Stream many records in one call, pipelined into Kafka as the body is read
+     * POST /api/kafka/send-bulk?topic=my-topic&batchSize=500
+     * Content-Type: application/x-ndjson    -> {"key":"k1","value":"Hello"} per line
+     * Content-Type: application/octet-stream -> length-prefixed key/value frames
+     * A record over app.kafka.bulk.max-record-bytes or a truncated frame gives 400, a send
+     * that cannot be queued 503, both with the report of what was sent before it
+     */
+    @PostMapping(value = "/send-bulk", consumes = { "application/x-ndjson", MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    public ResponseEntity<BulkIngestResult> sendBulk(
+            @RequestParam(required = false) String topic,
+            @RequestParam(defaultValue = "500") int batchSize,
+            HttpServletRequest request) throws IOException {
+        BulkIngestService.Format format = MediaType.APPLICATION_OCTET_STREAM
+                .isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? BulkIngestService.Format.LENGTH_PREFIXED
+                : BulkIngestService.Format.NDJSON;
+        String targetTopic = topic != null ? topic : stringTopic;
+        log.info("Received bulk ingest request for topic {} ({})", targetTopic, format);
+
+        BulkIngestResult result = bulkIngestService.ingest(targetTopic, request.getInputStream(), format, batchSize);
+        if (result.getError() != null) {
+            return ResponseEntity.status(result.isInvalidBody() ? HttpStatus.BAD_REQUEST : HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
     // ==================== CONSUMER ENDPOINTS ====================
 
     /**
@@ -124,6 +215,28 @@ public class KafkaProducerController {
         return ResponseEntity.ok(info);
     }
 
+    /**
+     * Lag, consume and produce rates and time to catch up per watched consumer group,
+     * from the background sampler (app.kafka.lag.*)
+     * GET /api/kafka/lag
+     */
+    @GetMapping("/lag")
+    public ResponseEntity<List<LagMonitor.GroupLag>> getLag() {
+        return ResponseEntity.ok(lagMonitor.report());
+    }
+
+    /**
+     * Buffered lag samples of one group, oldest first
+     * GET /api/kafka/lag/{group}/history
+     */
+    @GetMapping("/lag/{group}/history")
+    public ResponseEntity<List<LagMonitor.LagPoint>> getLagHistory(@PathVariable String group) {
+        if (!lagMonitor.groups().contains(group)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(lagMonitor.history(group));
+    }
+
     /**
      * Read messages from a topic
      * GET /api/kafka/messages/{topic}?max=100&fromBeginning=true
@@ -138,28 +251,71 @@ public class KafkaProducerController {
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * Stream messages from a topic as raw length-prefixed frames (same format as /send-bulk)
+     * GET /api/kafka/messages/{topic}/raw?max=100&fromBeginning=true
+     */
+    @GetMapping("/messages/{topic}/raw")
+    public ResponseEntity<StreamingResponseBody> readMessagesRaw(
+            @PathVariable String topic,
+            @RequestParam(defaultValue = "100") int max,
+            @RequestParam(defaultValue = "true") boolean fromBeginning) {
+        log.info("Streaming {} raw messages from topic {} (fromBeginning={})", max, topic, fromBeginning);
+        StreamingResponseBody body = output -> kafkaConsumerService.readMessagesRaw(topic, max, fromBeginning, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    /**
+     * Read the value of a single record as raw bytes
+     * GET /api/kafka/messages/{topic}/{partition}/{offset}/raw
+     */
+    @GetMapping("/messages/{topic}/{partition}/{offset}/raw")
+    public ResponseEntity<byte[]> readMessageRaw(
+            @PathVariable String topic,
+            @PathVariable int partition,
+            @PathVariable long offset) {
+        byte[] value = kafkaConsumerService.readMessageRaw(topic, partition, offset);
+        if (value == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(value);
+    }
+
     // ==================== MATH CALCULATION ENDPOINTS ====================
 
     /**
      * Calculate a math expression and wait for the result
      * POST /api/kafka/calculate?expression=2+2
+     * Optional timeoutMs caps the wait below app.kafka.reply.timeout
+     * 503 while the reply consumer has no partitions yet (right after startup)
      * 
      * Flow: User -> Producer -> Kafka (math-requests) -> Consumer -> Kafka (math-replies) -> Producer -> User
      */
     @PostMapping("/calculate")
-    public ResponseEntity<MathResponse> calculate(@RequestParam String expression) {
+    public ResponseEntity<MathResponse> calculate(@RequestParam String expression,
+                                                  @RequestParam(required = false) Long timeoutMs) {
         log.info("Received calculation request: {}", expression);
         
         try {
-            String result = mathRequestService.calculateAndWait(expression);
+            MathReply reply = mathRequestService.calculateAndWait(expression, toDuration(timeoutMs));
             
             MathResponse response = MathResponse.builder()
                     .expression(expression)
-                    .result(result)
+                    .result(reply.resultOrError())
                     .status("SUCCESS")
                     .build();
             
             return ResponseEntity.ok(response);
+        } catch (ReplyNotReadyException e) {
+            log.warn("Calculation rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(MathResponse.builder()
+                    .expression(expression)
+                    .status("ERROR: " + e.getMessage())
+                    .build());
         } catch (Exception e) {
             log.error("Calculation failed: {}", e.getMessage());
             
@@ -176,22 +332,29 @@ public class KafkaProducerController {
     /**
      * Calculate a math expression via JSON body
      * POST /api/kafka/calculate
-     * Body: { "expression": "2+2" }
+     * Body: { "expression": "2+2" } or { "expression": "sqrt(x*x + y*y)", "variables": { "x": 3, "y": 4 } }
      */
     @PostMapping("/calculate-json")
     public ResponseEntity<MathResponse> calculateJson(@RequestBody MathRequest request) {
         log.info("Received JSON calculation request: {}", request.getExpression());
         
         try {
-            String result = mathRequestService.calculateAndWait(request.getExpression());
+            MathReply reply = mathRequestService.calculateAndWait(
+                    request.getExpression(), request.getVariables(), toDuration(request.getTimeoutMs()));
             
             MathResponse response = MathResponse.builder()
                     .expression(request.getExpression())
-                    .result(result)
+                    .result(reply.resultOrError())
                     .status("SUCCESS")
                     .build();
             
             return ResponseEntity.ok(response);
+        } catch (ReplyNotReadyException e) {
+            log.warn("Calculation rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(MathResponse.builder()
+                    .expression(request.getExpression())
+                    .status("ERROR: " + e.getMessage())
+                    .build());
         } catch (Exception e) {
             log.error("Calculation failed: {}", e.getMessage());
             
@@ -229,13 +392,13 @@ public class KafkaProducerController {
      * Send a calculation request without waiting (fire and forget) via JSON body
      * Returns correlationId for tracking
      * POST /api/kafka/calculate-async-json
-     * Body: { "expression": "2+2" }
+     * Body: { "expression": "2+2" }, optionally with "variables" as for calculate-json
      */
     @PostMapping("/calculate-async-json")
     public ResponseEntity<Map<String, String>> calculateAsyncJson(@RequestBody MathRequest request) {
         log.info("Received async JSON calculation request: {}", request.getExpression());
         
-        String correlationId = mathRequestService.sendCalculation(request.getExpression());
+        String correlationId = mathRequestService.sendCalculation(request.getExpression(), request.getVariables());
         
         Map<String, String> response = new HashMap<>();
         response.put("status", "Request sent");
@@ -246,16 +409,39 @@ public class KafkaProducerController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Requests waiting for a reply and how many expire
+     * GET /api/kafka/pending-replies
+     */
+    @GetMapping("/pending-replies")
+    public ResponseEntity<Map<String, Object>> pendingReplies() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("pending", pendingReplyRegistry.pendingCount());
+        response.put("expiredTotal", pendingReplyRegistry.expiredCount());
+        response.put("expiryRatePerSecond", pendingReplyRegistry.expiryRatePerSecond());
+        return ResponseEntity.ok(response);
+    }
+
+    private static Duration toDuration(Long timeoutMs) {
+        return timeoutMs == null ? null : Duration.ofMillis(Math.max(timeoutMs, 0));
+    }
+
     // ==================== HEALTH CHECK ====================
 
     /**
      * Health check endpoint
+     * Readiness (ReplyPathHealthIndicator): a reply, real or probe, within max-reply-age-ms
+     * and pending requests below max-pending-requests; 503 otherwise. Whether the reply
+     * listener still polls is liveness only, at /actuator/health/liveness
      */
     @GetMapping("/health")
-    public ResponseEntity<Map<String, String>> health() {
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
+    public ResponseEntity<Map<String, Object>> health() {
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", readiness.getStatus().getCode());
         response.put("service", "Kafka Producer");
-        return ResponseEntity.ok(response);
+        response.put("readiness", readiness);
+        return ResponseEntity.status(Status.UP.equals(readiness.getStatus())
+                ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(response);
     }
 }
@@ -0,0 +1,43 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestResult {
+    private String topic;
+    private long records;
+    private long acked;
+    private long failed;
+    private long elapsedMs;
+    private double recordsPerSecond;
+    private List<BatchResult> batches;
+    /** Why the body was not read to its end, null if it was */
+    private String error;
+    /** Index of the record the ingest stopped at: records before it were sent */
+    private Long errorAtRecord;
+    /** The error is in the body (a record too large or truncated), not in sending */
+    private boolean invalidBody;
+
+    /**
+     * Outcome of one batch of pipelined sends
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchResult {
+        private int batch;
+        private int records;
+        private int acked;
+        private int failed;
+        private String firstError;
+    }
+}
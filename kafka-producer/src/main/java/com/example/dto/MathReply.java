@@ -0,0 +1,32 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reply sent by the math consumer on the reply topic
+ * Either result or error is set
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MathReply {
+    private String expression;
+    private String result;
+    private String error;
+
+    /**
+     * The result, or the error prefixed with "Error: " when the consumer failed
+     */
+    public String resultOrError() {
+        if (result == null && error != null) {
+            return "Error: " + error;
+        }
+        return result;
+    }
+}
@@ -4,10 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class MathRequest {
     private String expression;
+    // Optional: values of the variables named in the expression, e.g. {"x": 2}
+    private Map<String, Double> variables;
+    // Optional: longest the caller waits for the reply, in milliseconds
+    private Long timeoutMs;
 }
 
@@ -0,0 +1,61 @@
+package com.example.health;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Liveness of the reply listener container: running, not stopped on an error, and
+ * polled within maxPollAge (last-poll-seconds-ago client metric)
+ *
+ * Readiness is left to ReplyPathHealthIndicator, which sees a reply path that is
+ * down (broker unreachable, group lost) as replies that stop arriving.
+ */
+public class ReplyListenerHealthIndicator implements HealthIndicator {
+
+    private final MessageListenerContainer container;
+    private final Duration maxPollAge;
+
+    public ReplyListenerHealthIndicator(MessageListenerContainer container, Duration maxPollAge) {
+        this.container = container;
+        this.maxPollAge = maxPollAge;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("running", container.isRunning());
+        String problem = problem(details);
+        if (problem != null) {
+            details.put("problem", problem);
+        }
+        return (problem == null ? Health.up() : Health.down()).withDetails(details).build();
+    }
+
+    private String problem(Map<String, Object> details) {
+        if (!container.isInExpectedState()) {
+            return "stopped after an error";
+        }
+        if (!container.isRunning()) {
+            return "not running";
+        }
+        // -1 until every consumer has polled once, which is not a stuck thread
+        double pollAge = -1;
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : clientMetrics.entrySet()) {
+                if ("last-poll-seconds-ago".equals(metric.getKey().name())
+                        && metric.getValue().metricValue() instanceof Double value) {
+                    pollAge = Math.max(pollAge, value);
+                }
+            }
+        }
+        details.put("lastPollSecondsAgo", pollAge);
+        return pollAge > maxPollAge.toSeconds() ? "no poll for " + (long) pollAge + "s" : null;
+    }
+}
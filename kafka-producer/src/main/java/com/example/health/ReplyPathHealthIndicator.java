@@ -0,0 +1,57 @@
+package com.example.health;
+
+import com.example.reply.ReplyRegistry;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+
+/**
+ * Readiness of the request-reply path, from the registry's cached state
+ *
+ * DOWN when no reply has completed a request recently, real or probe
+ * (RoundTripProbe), so /calculate would time out. OUT_OF_SERVICE when the
+ * pending requests reach the limit, so new requests go to other instances.
+ */
+public class ReplyPathHealthIndicator implements HealthIndicator {
+
+    private final ReplyRegistry registry;
+    private final RoundTripProbe probe;
+    private final Duration maxReplyAge;
+    private final int maxPending;
+
+    public ReplyPathHealthIndicator(ReplyRegistry registry, RoundTripProbe probe,
+                                    Duration maxReplyAge, int maxPending) {
+        this.registry = registry;
+        this.probe = probe;
+        this.maxReplyAge = maxReplyAge;
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public Health health() {
+        int pending = registry.pendingCount();
+        Duration replyAge = registry.lastReplyAge();
+        Duration roundTrip = registry.lastRoundTrip();
+
+        Health.Builder builder;
+        if (pending >= maxPending) {
+            builder = Health.outOfService().withDetail("problem", "pending requests at limit");
+        } else if (replyAge == null || replyAge.compareTo(maxReplyAge) > 0) {
+            builder = Health.down().withDetail("problem", "no reply within " + maxReplyAge.toSeconds() + "s");
+        } else {
+            builder = Health.up();
+        }
+        builder.withDetail("pendingRequests", pending)
+                .withDetail("maxPendingRequests", maxPending)
+                .withDetail("lastReplyAgeMs", replyAge == null ? -1 : replyAge.toMillis())
+                .withDetail("lastRoundTripMs", roundTrip == null ? -1 : roundTrip.toNanos() / 1e6)
+                .withDetail("probes", probe.probeCount())
+                .withDetail("probeFailures", probe.failureCount());
+        String lastError = probe.lastError();
+        if (lastError != null) {
+            builder.withDetail("lastProbeError", lastError);
+        }
+        return builder.build();
+    }
+}
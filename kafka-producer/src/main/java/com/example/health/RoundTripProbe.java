@@ -0,0 +1,95 @@
+package com.example.health;
+
+import com.example.dto.MathReply;
+import com.example.reply.ReplyRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the reply round trip measured while there is no traffic
+ *
+ * Every reply that completes a pending request already proves the path and is
+ * recorded by the ReplyRegistry. Only when none arrived within the interval
+ * does the probe send a request of its own through the same path.
+ */
+@Slf4j
+public class RoundTripProbe implements AutoCloseable {
+
+    private final ReplyRegistry registry;
+    private final Callable<MathReply> probe;
+    private final Duration interval;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile String lastError;
+
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param probe sends a request and waits for its reply
+     */
+    public RoundTripProbe(ReplyRegistry registry, Callable<MathReply> probe, Duration interval) {
+        this.registry = registry;
+        this.probe = probe;
+        this.interval = interval;
+    }
+
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reply-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::probeIfIdle, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send a probe request unless a reply arrived within the interval
+     */
+    public void probeIfIdle() {
+        Duration age = registry.lastReplyAge();
+        if (age != null && age.compareTo(interval) < 0) {
+            return;
+        }
+        probes.increment();
+        try {
+            MathReply reply = probe.call();
+            if (reply == null || reply.getError() != null) {
+                throw new IllegalStateException("Probe reply failed: " + (reply == null ? null : reply.getError()));
+            }
+            lastError = null;
+        } catch (Exception e) {
+            failures.increment();
+            lastError = e.getMessage();
+            log.warn("Reply round-trip probe failed: {}", e.getMessage());
+        }
+    }
+
+    public long probeCount() {
+        return probes.sum();
+    }
+
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    public String lastError() {
+        return lastError;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.id;
+
+/**
+ * Source of record keys, correlation IDs and message IDs
+ * Implementations must be thread-safe and must not block
+ * Selected with app.kafka.correlation-id.strategy (see CorrelationIdConfig)
+ */
+public interface CorrelationIdGenerator {
+
+    String nextId();
+}
@@ -0,0 +1,48 @@
+package com.example.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates IDs as {instance prefix}-{thread slot}-{counter}, all in base 36
+ *
+ * Each thread increments its own counter, so there is no shared state to
+ * contend on after the thread's first ID. IDs are unique per prefix but not
+ * time-ordered. The prefix is random per start, after the configured prefix if
+ * any, so a restarted instance or two sharing a name never repeat IDs.
+ */
+public class PrefixedCounterIdGenerator implements CorrelationIdGenerator {
+
+    private final String prefix;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final ThreadLocal<ThreadCounter> counters = ThreadLocal.withInitial(this::newThreadCounter);
+
+    public PrefixedCounterIdGenerator(String prefix) {
+        String random = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+        this.prefix = prefix == null || prefix.isBlank() ? random : prefix + "-" + random;
+    }
+
+    @Override
+    public String nextId() {
+        ThreadCounter counter = counters.get();
+        return counter.slotPrefix + Long.toString(++counter.value, 36);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    private ThreadCounter newThreadCounter() {
+        return new ThreadCounter(prefix + "-" + Integer.toString(nextSlot.getAndIncrement(), 36) + "-");
+    }
+
+    private static final class ThreadCounter {
+
+        private final String slotPrefix;
+        private long value;
+
+        private ThreadCounter(String slotPrefix) {
+            this.slotPrefix = slotPrefix;
+        }
+    }
+}
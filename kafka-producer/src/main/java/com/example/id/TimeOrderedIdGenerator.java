@@ -0,0 +1,50 @@
+package com.example.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered IDs in the UUID version 7 layout
+ *
+ * - 48 bits of epoch milliseconds, then a 12-bit sequence within the millisecond,
+ *   advanced with a CAS so IDs from this JVM are strictly increasing
+ * - 62 random bits from ThreadLocalRandom, which never blocks, unlike the
+ *   SecureRandom behind UUID.randomUUID()
+ *
+ * All threads share one CAS word; under heavy contention PrefixedCounterIdGenerator scales better
+ */
+public class TimeOrderedIdGenerator implements CorrelationIdGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+
+    // (epoch millis << 12) | sequence of the last generated ID
+    private final AtomicLong lastTimestampAndSequence = new AtomicLong();
+
+    public UUID nextUuid() {
+        long timestampAndSequence = nextTimestampAndSequence();
+        long millis = timestampAndSequence >>> SEQUENCE_BITS;
+        long sequence = timestampAndSequence & ((1L << SEQUENCE_BITS) - 1);
+
+        long mostSigBits = (millis << 16) | (0x7L << 12) | sequence;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    @Override
+    public String nextId() {
+        return nextUuid().toString();
+    }
+
+    private long nextTimestampAndSequence() {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        while (true) {
+            long last = lastTimestampAndSequence.get();
+            // Same millisecond (or clock moved back): continue the sequence, borrowing from the next ms if needed
+            long next = Math.max(now, last + 1);
+            if (lastTimestampAndSequence.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
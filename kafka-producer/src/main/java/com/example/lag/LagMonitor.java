@@ -0,0 +1,234 @@
+package com.example.lag;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsSpec;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Consumer group lag sampled in the background
+ *
+ * One thread reads the committed offsets of the watched groups and the log-end
+ * offsets of their partitions through a shared Admin client at a fixed interval,
+ * and keeps the samples in a ring buffer. Lag, consume and produce rates and the
+ * time to catch up are computed from the buffer, so REST calls never talk to Kafka.
+ */
+@Slf4j
+public class LagMonitor implements AutoCloseable {
+
+    private final Admin admin;
+    private final List<String> groups;
+    private final int rateWindow;
+    private final long timeoutMs;
+
+    // Ring buffer of samples, oldest overwritten first
+    private final LagSample[] samples;
+    private int next;
+    private int size;
+    private Map<String, List<PartitionLag>> latestPartitions = Map.of();
+
+    private ScheduledExecutorService sampler;
+    private String lastError;
+
+    /**
+     * @param capacity   samples kept in memory
+     * @param rateWindow samples back the rates are computed over
+     */
+    public LagMonitor(Admin admin, List<String> groups, int capacity, int rateWindow, Duration timeout) {
+        if (capacity < 2 || rateWindow < 1) {
+            throw new IllegalArgumentException("capacity must be at least 2 and rateWindow positive");
+        }
+        this.admin = admin;
+        this.groups = List.copyOf(groups);
+        this.samples = new LagSample[capacity];
+        this.rateWindow = Math.min(rateWindow, capacity - 1);
+        this.timeoutMs = timeout.toMillis();
+    }
+
+    /**
+     * Start sampling on a daemon thread at the given interval
+     */
+    public synchronized void start(Duration interval) {
+        if (sampler != null) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(this::sampleQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Take one sample now; also what the background thread runs
+     */
+    public void sampleNow() throws ExecutionException, InterruptedException, TimeoutException {
+        Map<String, ListConsumerGroupOffsetsSpec> specs = new LinkedHashMap<>();
+        groups.forEach(group -> specs.put(group, new ListConsumerGroupOffsetsSpec()));
+        Map<String, Map<TopicPartition, OffsetAndMetadata>> committed =
+                admin.listConsumerGroupOffsets(specs).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        // One log-end lookup for the partitions of all groups
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        committed.values().forEach(offsets -> offsets.forEach((partition, offset) -> {
+            if (offset != null) {
+                latest.put(partition, OffsetSpec.latest());
+            }
+        }));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> logEnd = latest.isEmpty()
+                ? Map.of()
+                : admin.listOffsets(latest).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        Map<String, LagSample.GroupOffsets> totals = new LinkedHashMap<>();
+        Map<String, List<PartitionLag>> partitions = new LinkedHashMap<>();
+        for (String group : groups) {
+            long committedSum = 0;
+            long logEndSum = 0;
+            List<PartitionLag> lags = new ArrayList<>();
+            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry
+                    : committed.getOrDefault(group, Map.of()).entrySet()) {
+                ListOffsetsResult.ListOffsetsResultInfo end = logEnd.get(entry.getKey());
+                if (entry.getValue() == null || end == null) {
+                    continue;
+                }
+                long offset = entry.getValue().offset();
+                committedSum += offset;
+                logEndSum += end.offset();
+                lags.add(new PartitionLag(entry.getKey().topic(), entry.getKey().partition(),
+                        offset, end.offset(), Math.max(end.offset() - offset, 0)));
+            }
+            lags.sort(Comparator.comparing(PartitionLag::topic).thenComparingInt(PartitionLag::partition));
+            totals.put(group, new LagSample.GroupOffsets(committedSum, logEndSum));
+            partitions.put(group, lags);
+        }
+        record(new LagSample(System.currentTimeMillis(), totals), partitions);
+    }
+
+    /**
+     * Append a sample to the ring buffer; the per-partition detail replaces the previous one
+     */
+    public synchronized void record(LagSample sample, Map<String, List<PartitionLag>> partitions) {
+        samples[next] = sample;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        latestPartitions = partitions;
+    }
+
+    /**
+     * Lag and rates per watched group from the latest sample; empty before the first one
+     */
+    public synchronized List<GroupLag> report() {
+        if (size == 0) {
+            return List.of();
+        }
+        LagSample newest = sample(size - 1);
+        LagSample oldest = sample(Math.max(size - 1 - rateWindow, 0));
+        double seconds = (newest.timestampMs() - oldest.timestampMs()) / 1000.0;
+
+        List<GroupLag> report = new ArrayList<>();
+        for (String group : groups) {
+            LagSample.GroupOffsets now = newest.groups().get(group);
+            if (now == null) {
+                continue;
+            }
+            LagSample.GroupOffsets then = Objects.requireNonNullElse(oldest.groups().get(group), now);
+            double consumeRate = rate(now.committed() - then.committed(), seconds);
+            double produceRate = rate(now.logEnd() - then.logEnd(), seconds);
+            long lag = now.lag();
+            report.add(new GroupLag(group, newest.timestampMs(), lag, consumeRate, produceRate,
+                    secondsToCatchUp(lag, consumeRate, produceRate),
+                    latestPartitions.getOrDefault(group, List.of())));
+        }
+        return report;
+    }
+
+    /**
+     * Buffered samples of one group, oldest first
+     */
+    public synchronized List<LagPoint> history(String group) {
+        List<LagPoint> history = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LagSample sample = sample(i);
+            LagSample.GroupOffsets offsets = sample.groups().get(group);
+            if (offsets != null) {
+                history.add(new LagPoint(sample.timestampMs(), offsets.committed(), offsets.logEnd(), offsets.lag()));
+            }
+        }
+        return history;
+    }
+
+    public List<String> groups() {
+        return groups;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * i-th buffered sample, 0 being the oldest
+     */
+    private LagSample sample(int i) {
+        return samples[(next - size + i + samples.length) % samples.length];
+    }
+
+    private void sampleQuietly() {
+        try {
+            sampleNow();
+            lastError = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Logged once per distinct failure while the broker is unreachable
+            String error = e.getCause() != null ? e.getCause().toString() : e.toString();
+            if (!error.equals(lastError)) {
+                log.warn("Lag sample failed: {}", error);
+                lastError = error;
+            }
+        }
+    }
+
+    private static double rate(long delta, double seconds) {
+        // Offsets go backwards when a group is reset; no rate rather than a negative one
+        return seconds > 0 && delta > 0 ? delta / seconds : 0;
+    }
+
+    /**
+     * Null when the group consumes no faster than the topic is produced to
+     */
+    private static Double secondsToCatchUp(long lag, double consumeRate, double produceRate) {
+        if (lag == 0) {
+            return 0.0;
+        }
+        double drainRate = consumeRate - produceRate;
+        return drainRate > 0 ? lag / drainRate : null;
+    }
+
+    public record PartitionLag(String topic, int partition, long committedOffset, long logEndOffset, long lag) {}
+
+    public record GroupLag(String group, long sampledAt, long lag, double consumeRatePerSecond,
+                           double produceRatePerSecond, Double secondsToCatchUp, List<PartitionLag> partitions) {}
+
+    public record LagPoint(long timestamp, long committed, long logEnd, long lag) {}
+}
@@ -0,0 +1,16 @@
+package com.example.lag;
+
+import java.util.Map;
+
+/**
+ * Offsets of the watched groups at one point in time, summed over each group's partitions
+ */
+public record LagSample(long timestampMs, Map<String, GroupOffsets> groups) {
+
+    public record GroupOffsets(long committed, long logEnd) {
+
+        public long lag() {
+            return Math.max(logEnd - committed, 0);
+        }
+    }
+}
@@ -5,8 +5,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.LocalDateTime;
-
 @Data
 @Builder
 @NoArgsConstructor
@@ -16,6 +14,7 @@ public class Message {
     private String id;
     private String content;
     private String sender;
-    private LocalDateTime timestamp;
+    // Epoch milliseconds
+    private long timestamp;
 }
 
@@ -0,0 +1,58 @@
+package com.example.partition;
+
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends every request for the same expression to the same partition
+ *
+ * The partition is the murmur2 hash (as Kafka's default partitioner uses for keys)
+ * of the normalized expression, so the consumer instance owning it sees every
+ * request for that expression and its per-instance caches (parsed and compiled
+ * expressions, results) stay hot. A few very popular expressions can overload
+ * their partitions; HotKeySpreadingPartitioner spreads those.
+ */
+public class ExpressionHashPartitioner implements MathRequestPartitioner {
+
+    @Override
+    public Integer partition(String expression, int partitions) {
+        String key = normalize(expression);
+        return key == null ? null : Utils.toPositive(hash(key)) % partitions;
+    }
+
+    /**
+     * Same rules as the consumer's cache key (ResultCache.normalize): whitespace removed
+     * except between two name or number characters, where it separates tokens
+     * ("2 + 2" and "2+2" share a key, "1 2" and "12" do not). Null for a null or blank expression.
+     * Both copies are tested against test-support/src/test/resources/normalization-cases.json.
+     */
+    public static String normalize(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(expression.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = key.length() > 0;
+                continue;
+            }
+            if (pendingSpace && isWordChar(key.charAt(key.length() - 1)) && isWordChar(c)) {
+                key.append(' ');
+            }
+            pendingSpace = false;
+            key.append(c);
+        }
+        return key.length() > 0 ? key.toString() : null;
+    }
+
+    static int hash(String normalized) {
+        return Utils.murmur2(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.partition;
+
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ExpressionHashPartitioner that spreads hot expressions over a few partitions
+ *
+ * Request counts per expression are estimated in a count-min sketch whose counters
+ * are halved every window requests, so they follow the recent traffic. An expression
+ * whose share of that traffic is above hotFraction of one partition's fair share
+ * (1 / partitions) goes to one of k partitions starting at its home partition, with k
+ * chosen so each of them gets at most about that much of it. Every other expression
+ * keeps a single partition, and a hot expression is cached by k instances instead of one.
+ */
+public class HotKeySpreadingPartitioner implements MathRequestPartitioner {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+
+    private final long window;
+    private final double hotFraction;
+    private final int maxSpread;
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(DEPTH * WIDTH);
+    private final AtomicLong seen = new AtomicLong();
+    private final LongAdder spreadRequests = new LongAdder();
+
+    /**
+     * @param window      requests between two halvings of the counts
+     * @param hotFraction share of one partition's fair share above which an expression is spread
+     * @param maxSpread   most partitions one expression is spread over
+     */
+    public HotKeySpreadingPartitioner(long window, double hotFraction, int maxSpread) {
+        if (window < 1 || hotFraction <= 0 || maxSpread < 1) {
+            throw new IllegalArgumentException("window and maxSpread must be positive, hotFraction above 0");
+        }
+        this.window = window;
+        this.hotFraction = hotFraction;
+        this.maxSpread = maxSpread;
+    }
+
+    @Override
+    public Integer partition(String expression, int partitions) {
+        String key = ExpressionHashPartitioner.normalize(expression);
+        if (key == null) {
+            return null;
+        }
+        int hash = ExpressionHashPartitioner.hash(key);
+        int home = Utils.toPositive(hash) % partitions;
+        int spread = spread(count(hash, key.hashCode()), partitions);
+        if (spread <= 1) {
+            return home;
+        }
+        spreadRequests.increment();
+        return (home + ThreadLocalRandom.current().nextInt(spread)) % partitions;
+    }
+
+    /**
+     * Requests sent to another partition than their expression's home partition
+     */
+    public long spreadRequests() {
+        return spreadRequests.sum();
+    }
+
+    /**
+     * Partitions for an expression with this count: a share s of the traffic settles
+     * between s * window and 2 * s * window, so count / (2 * window) does not overestimate it
+     */
+    public int spread(int count, int partitions) {
+        double share = count / (2.0 * window);
+        double perPartition = hotFraction / partitions;
+        int spread = (int) Math.ceil(share / perPartition);
+        return Math.max(1, Math.min(spread, Math.min(maxSpread, partitions)));
+    }
+
+    /**
+     * Counts this request and returns the estimate for its expression; the smallest
+     * of the DEPTH counters, which only overestimates through collisions
+     */
+    private int count(int hash1, int hash2) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * WIDTH + ((hash1 + row * hash2) & (WIDTH - 1));
+            min = Math.min(min, counts.incrementAndGet(index));
+        }
+        if (seen.incrementAndGet() % window == 0) {
+            // Concurrent increments during the pass may be halved late; estimates only
+            for (int i = 0; i < counts.length(); i++) {
+                counts.updateAndGet(i, c -> c >>> 1);
+            }
+        }
+        return min;
+    }
+}
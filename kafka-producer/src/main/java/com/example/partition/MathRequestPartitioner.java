@@ -0,0 +1,21 @@
+package com.example.partition;
+
+/**
+ * Chooses the partition of a math request from its expression
+ * Implementations must be thread-safe and must not block
+ * Selected with app.kafka.partitioning.strategy (see PartitioningConfig)
+ */
+public interface MathRequestPartitioner {
+
+    /**
+     * Leaves the choice to the producer, which hashes the record key (the correlation ID),
+     * so requests are spread evenly regardless of their expression
+     */
+    MathRequestPartitioner RECORD_KEY = (expression, partitions) -> null;
+
+    /**
+     * Partition in [0, partitions) for a request with this expression, or null
+     * to let the producer choose from the record key
+     */
+    Integer partition(String expression, int partitions);
+}
@@ -0,0 +1,142 @@
+package com.example.reply;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Correlation IDs as two longs, for tables keyed by primitives
+ *
+ * A canonical UUID string (lowercase, as TimeOrderedIdGenerator produces) is parsed
+ * into its most and least significant bits, so the encoding is exact. Any other ID
+ * (prefixed-counter, custom) is hashed into 128 bits over its UTF-8 bytes; two pending
+ * IDs sharing a hash are as unlikely as a random UUID collision. The String and byte[]
+ * forms of an ID encode the same, so replies are matched from the header bytes
+ * without decoding them.
+ */
+public final class CorrelationKey {
+
+    private static final int UUID_LENGTH = 36;
+    private static final long SEED_HIGH = 0xcbf29ce484222325L;
+    private static final long SEED_LOW = 0x84222325cbf29ce4L;
+    private static final long PRIME_HIGH = 0x100000001b3L;
+    private static final long PRIME_LOW = 0x9e3779b97f4a7c15L;
+
+    private CorrelationKey() {
+    }
+
+    public static long high(String id) {
+        if (isUuid(id)) {
+            return hex(id, 0, 8) << 32 | hex(id, 9, 13) << 16 | hex(id, 14, 18);
+        }
+        return isAscii(id) ? hash(id, SEED_HIGH, PRIME_HIGH) : high(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long low(String id) {
+        if (isUuid(id)) {
+            return hex(id, 19, 23) << 48 | hex(id, 24, 36);
+        }
+        return isAscii(id) ? hash(id, SEED_LOW, PRIME_LOW) : low(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long high(byte[] id) {
+        if (isUuid(id)) {
+            return hex(id, 0, 8) << 32 | hex(id, 9, 13) << 16 | hex(id, 14, 18);
+        }
+        return hash(id, SEED_HIGH, PRIME_HIGH);
+    }
+
+    public static long low(byte[] id) {
+        if (isUuid(id)) {
+            return hex(id, 19, 23) << 48 | hex(id, 24, 36);
+        }
+        return hash(id, SEED_LOW, PRIME_LOW);
+    }
+
+    /**
+     * Finalizer of MurmurHash3's 64-bit variant: every input bit affects every output bit
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static boolean isUuid(String id) {
+        if (id.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            if (!(isDash(i) ? id.charAt(i) == '-' : digit(id.charAt(i)) >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUuid(byte[] id) {
+        if (id.length != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            if (!(isDash(i) ? id[i] == '-' : digit(id[i]) >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDash(int index) {
+        return index == 8 || index == 13 || index == 18 || index == 23;
+    }
+
+    private static long hex(String id, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | digit(id.charAt(i));
+        }
+        return value;
+    }
+
+    private static long hex(byte[] id, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | digit(id[i]);
+        }
+        return value;
+    }
+
+    // Lowercase only: the canonical form, so each UUID has a single encoding
+    private static int digit(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        return c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+    }
+
+    private static boolean isAscii(String id) {
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String id, long seed, long prime) {
+        long h = seed;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * prime;
+        }
+        return mix(h ^ id.length());
+    }
+
+    private static long hash(byte[] id, long seed, long prime) {
+        long h = seed;
+        for (byte b : id) {
+            h = (h ^ (b & 0xff)) * prime;
+        }
+        return mix(h ^ id.length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.reply;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency breakdown of a math request from the HopTimestamps in its reply
+ *
+ * Timer math.request.latency with percentile histograms, tag hop:
+ * - queue: sent -> consumer listener invoked (producer send, broker, time waiting in math-requests)
+ * - processing: listener invoked -> evaluation done
+ * - return: evaluation done -> reply consumed here (reply send, broker, reply consumption)
+ * - total: sent -> reply consumed, both on this host's clock
+ *
+ * queue and return compare the clocks of two hosts, so skew moves time between
+ * them; negative values are recorded as zero.
+ */
+public class HopLatencyRecorder {
+
+    public static final String METRIC = "math.request.latency";
+
+    private final Timer queue;
+    private final Timer processing;
+    private final Timer replyReturn;
+    private final Timer total;
+
+    public HopLatencyRecorder(MeterRegistry meterRegistry) {
+        this.queue = timer(meterRegistry, "queue");
+        this.processing = timer(meterRegistry, "processing");
+        this.replyReturn = timer(meterRegistry, "return");
+        this.total = timer(meterRegistry, "total");
+    }
+
+    /**
+     * Record the hops of a reply; replies without hop headers are ignored
+     */
+    public void record(ConsumerRecord<?, ?> reply) {
+        long consumed = HopTimestamps.nowMicros();
+        long sent = HopTimestamps.read(reply.headers(), HopTimestamps.SENT);
+        long received = HopTimestamps.read(reply.headers(), HopTimestamps.RECEIVED);
+        long processed = HopTimestamps.read(reply.headers(), HopTimestamps.PROCESSED);
+        if (sent < 0 || received < 0 || processed < 0) {
+            return;
+        }
+        record(queue, received - sent);
+        record(processing, processed - received);
+        record(replyReturn, consumed - processed);
+        record(total, consumed - sent);
+    }
+
+    private static void record(Timer timer, long micros) {
+        timer.record(Math.max(micros, 0), TimeUnit.MICROSECONDS);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String hop) {
+        return Timer.builder(METRIC)
+                .description("Math request-reply latency per hop")
+                .tag("hop", hop)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.reply;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Per-hop wall-clock timestamps carried in math request and reply headers, epoch microseconds
+ *
+ * SENT is set on the request here; the consumer echoes it in the reply and adds
+ * RECEIVED (listener invoked) and PROCESSED (evaluation done).
+ */
+public final class HopTimestamps {
+
+    public static final String SENT = "math_sent_us";
+    public static final String RECEIVED = "math_received_us";
+    public static final String PROCESSED = "math_processed_us";
+
+    private HopTimestamps() {
+    }
+
+    public static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    public static byte[] encode(long micros) {
+        return Long.toString(micros).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The header value, or -1 when absent or malformed
+     */
+    public static long read(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.reply;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Fixed-size array of longs, on the heap or in a direct buffer outside it
+ *
+ * Off-heap slabs are not scanned or copied by the garbage collector and do not
+ * count towards the heap; their memory is bounded by -XX:MaxDirectMemorySize and
+ * released when the slab is collected.
+ */
+abstract class LongSlab {
+
+    static LongSlab onHeap(int length) {
+        return new Heap(length);
+    }
+
+    static LongSlab offHeap(int length) {
+        return new Direct(length);
+    }
+
+    abstract long get(int index);
+
+    abstract void set(int index, long value);
+
+    abstract int length();
+
+    private static final class Heap extends LongSlab {
+
+        private final long[] values;
+
+        private Heap(int length) {
+            this.values = new long[length];
+        }
+
+        @Override
+        long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, long value) {
+            values[index] = value;
+        }
+
+        @Override
+        int length() {
+            return values.length;
+        }
+    }
+
+    private static final class Direct extends LongSlab {
+
+        private final LongBuffer values;
+
+        private Direct(int length) {
+            this.values = ByteBuffer.allocateDirect(Math.multiplyExact(length, Long.BYTES))
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        @Override
+        long get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void set(int index, long value) {
+            values.put(index, value);
+        }
+
+        @Override
+        int length() {
+            return values.capacity();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.reply;
+
+import com.example.dto.MathReply;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests waiting for a reply on the shared reply topic, keyed by correlation ID
+ *
+ * Each request has its own deadline, tracked by a HashedTimingWheel; the map value
+ * is itself the timer entry and holds the future. Replies for unknown
+ * IDs (other instances sharing the topic, already expired requests) are ignored.
+ */
+@Slf4j
+public class PendingReplyRegistry implements ReplyRegistry {
+
+    private final Map<String, PendingReply> pending = new ConcurrentHashMap<>();
+    private final HashedTimingWheel wheel;
+    private final ReplyStats stats = new ReplyStats();
+
+    public PendingReplyRegistry(Duration tick, int ticksPerWheel) {
+        this.wheel = new HashedTimingWheel("pending-reply-timer", tick.toNanos(), TimeUnit.NANOSECONDS, ticksPerWheel);
+    }
+
+    @Override
+    public CompletableFuture<MathReply> register(String correlationId, Duration timeout) {
+        PendingReply reply = new PendingReply(correlationId);
+        if (pending.putIfAbsent(correlationId, reply) != null) {
+            throw new IllegalStateException("Correlation ID already pending: " + correlationId);
+        }
+        wheel.schedule(reply, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        return reply.future;
+    }
+
+    @Override
+    public void onReply(ConsumerRecord<String, MathReply> record) {
+        Header header = record.headers().lastHeader(KafkaHeaders.CORRELATION_ID);
+        if (header == null) {
+            return;
+        }
+        String correlationId = new String(header.value(), StandardCharsets.UTF_8);
+        if (!complete(correlationId, record.value())) {
+            log.debug("No pending request for reply {}", correlationId);
+        }
+    }
+
+    @Override
+    public boolean complete(String correlationId, MathReply reply) {
+        PendingReply pendingReply = pending.remove(correlationId);
+        if (pendingReply == null) {
+            return false;
+        }
+        pendingReply.cancel();
+        stats.recordReply(pendingReply.registeredNanos);
+        return pendingReply.future.complete(reply);
+    }
+
+    @Override
+    public void fail(String correlationId, Throwable ex) {
+        PendingReply pendingReply = pending.remove(correlationId);
+        if (pendingReply != null) {
+            pendingReply.cancel();
+            pendingReply.future.completeExceptionally(ex);
+        }
+    }
+
+    @Override
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public Duration lastReplyAge() {
+        return stats.lastReplyAge();
+    }
+
+    @Override
+    public Duration lastRoundTrip() {
+        return stats.lastRoundTrip();
+    }
+
+    @Override
+    public long expiredCount() {
+        return stats.expiredCount();
+    }
+
+    @Override
+    public double expiryRatePerSecond() {
+        return stats.expiryRatePerSecond();
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+        pending.values().forEach(reply -> reply.future.completeExceptionally(
+                new IllegalStateException("Shutting down before a reply arrived")));
+        pending.clear();
+    }
+
+    private final class PendingReply extends HashedTimingWheel.Timeout {
+
+        private final String correlationId;
+        private final long registeredNanos = System.nanoTime();
+        private final CompletableFuture<MathReply> future = new CompletableFuture<>();
+
+        private PendingReply(String correlationId) {
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        protected void expired() {
+            if (pending.remove(correlationId, this)) {
+                stats.recordExpiry();
+                future.completeExceptionally(new KafkaReplyTimeoutException("Reply timed out for " + correlationId));
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.reply;
+
+import com.example.dto.MathReply;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Requests waiting for a reply, in a table keyed by correlation IDs encoded as two longs
+ *
+ * The table is split into segments, each locked on its own, and uses open addressing
+ * with linear probing. The key, registration time and deadline of a request are four
+ * longs in the segment's slab (on the heap, or off it in a direct buffer); its future
+ * is the only object the registry keeps per request. There is no map entry, String
+ * key or timer entry to allocate, and replies are matched from the header bytes
+ * (CorrelationKey). A sweeper thread expires the requests past their deadline every
+ * tick, so expiry is late by up to one tick. Replies for unknown IDs are ignored.
+ */
+@Slf4j
+public class PrimitiveReplyRegistry implements ReplyRegistry {
+
+    // Longs per slot in a segment's slab
+    private static final int HIGH = 0;
+    private static final int LOW = 1;
+    private static final int REGISTERED = 2;
+    private static final int DEADLINE = 3;
+    private static final int SLOT_LONGS = 4;
+
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long tickNanos;
+    private final ReplyStats stats = new ReplyStats();
+    private final Thread sweeper;
+    private volatile boolean running = true;
+
+    /**
+     * @param tick            interval between two sweeps for requests past their deadline
+     * @param segments        independently locked parts of the table, rounded up to a power of two
+     * @param initialCapacity pending requests the table holds before it grows
+     * @param offHeap         keep the slots in direct buffers instead of long arrays
+     */
+    public PrimitiveReplyRegistry(Duration tick, int segments, int initialCapacity, boolean offHeap) {
+        if (tick.isNegative() || tick.isZero() || segments <= 0 || initialCapacity < 0) {
+            throw new IllegalArgumentException("tick and segments must be positive");
+        }
+        int segmentCount = Integer.highestOneBit(segments - 1) << 1;
+        this.segments = new Segment[Math.max(segmentCount, 1)];
+        this.segmentMask = this.segments.length - 1;
+        // Load factor 0.75, see Segment.add
+        int perSegment = (int) Math.min(1 << 26, (long) initialCapacity / this.segments.length * 4 / 3 + 1);
+        int capacity = Math.max(MIN_SEGMENT_CAPACITY, Integer.highestOneBit(perSegment - 1) << 1);
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new Segment(capacity, offHeap);
+        }
+        this.tickNanos = tick.toNanos();
+        this.sweeper = new Thread(this::sweep, "pending-reply-sweeper");
+        this.sweeper.setDaemon(true);
+        this.sweeper.start();
+    }
+
+    @Override
+    public CompletableFuture<MathReply> register(String correlationId, Duration timeout) {
+        if (!running) {
+            throw new IllegalStateException("Reply registry is closed");
+        }
+        long high = CorrelationKey.high(correlationId);
+        long low = CorrelationKey.low(correlationId);
+        long hash = hash(high, low);
+        CompletableFuture<MathReply> future = new CompletableFuture<>();
+        long now = System.nanoTime();
+        Segment segment = segment(hash);
+        boolean added;
+        synchronized (segment) {
+            added = segment.add(high, low, (int) hash, now, now + timeout.toNanos(), future);
+        }
+        if (!added) {
+            throw new IllegalStateException("Correlation ID already pending: " + correlationId);
+        }
+        return future;
+    }
+
+    @Override
+    public void onReply(ConsumerRecord<String, MathReply> record) {
+        Header header = record.headers().lastHeader(KafkaHeaders.CORRELATION_ID);
+        if (header == null) {
+            return;
+        }
+        byte[] id = header.value();
+        long high = CorrelationKey.high(id);
+        long low = CorrelationKey.low(id);
+        // Replies for other instances are common: no message built unless it is logged
+        if (!complete(high, low, record.value()) && log.isDebugEnabled()) {
+            log.debug("No pending request for reply {}", new UUID(high, low));
+        }
+    }
+
+    @Override
+    public boolean complete(String correlationId, MathReply reply) {
+        return complete(CorrelationKey.high(correlationId), CorrelationKey.low(correlationId), reply);
+    }
+
+    @Override
+    public void fail(String correlationId, Throwable ex) {
+        long high = CorrelationKey.high(correlationId);
+        long low = CorrelationKey.low(correlationId);
+        long hash = hash(high, low);
+        Segment segment = segment(hash);
+        CompletableFuture<MathReply> future;
+        synchronized (segment) {
+            int slot = segment.find(high, low, (int) hash);
+            if (slot < 0) {
+                return;
+            }
+            future = segment.futures[slot];
+            segment.removeAt(slot);
+        }
+        future.completeExceptionally(ex);
+    }
+
+    @Override
+    public int pendingCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count += segment.size;
+        }
+        return count;
+    }
+
+    /**
+     * Slots allocated over all segments, pending or free
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                capacity += segment.futures.length;
+            }
+        }
+        return capacity;
+    }
+
+    @Override
+    public Duration lastReplyAge() {
+        return stats.lastReplyAge();
+    }
+
+    @Override
+    public Duration lastRoundTrip() {
+        return stats.lastRoundTrip();
+    }
+
+    @Override
+    public long expiredCount() {
+        return stats.expiredCount();
+    }
+
+    @Override
+    public double expiryRatePerSecond() {
+        return stats.expiryRatePerSecond();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(sweeper);
+        try {
+            sweeper.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) * 2 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Expired> pending = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.expire(Long.MAX_VALUE, true, pending);
+            }
+        }
+        pending.forEach(request -> request.future().completeExceptionally(
+                new IllegalStateException("Shutting down before a reply arrived")));
+    }
+
+    private boolean complete(long high, long low, MathReply reply) {
+        long hash = hash(high, low);
+        Segment segment = segment(hash);
+        CompletableFuture<MathReply> future;
+        long registeredNanos;
+        synchronized (segment) {
+            int slot = segment.find(high, low, (int) hash);
+            if (slot < 0) {
+                return false;
+            }
+            future = segment.futures[slot];
+            registeredNanos = segment.slab.get(slot * SLOT_LONGS + REGISTERED);
+            segment.removeAt(slot);
+        }
+        stats.recordReply(registeredNanos);
+        return future.complete(reply);
+    }
+
+    private void sweep() {
+        List<Expired> expired = new ArrayList<>();
+        while (running) {
+            LockSupport.parkNanos(this, tickNanos);
+            long now = System.nanoTime();
+            for (Segment segment : segments) {
+                if (!running) {
+                    return;
+                }
+                if (segment.size == 0) {
+                    continue;
+                }
+                synchronized (segment) {
+                    segment.expire(now, false, expired);
+                }
+                // Completed outside the lock: dependent actions run on this thread
+                for (Expired request : expired) {
+                    stats.recordExpiry();
+                    request.future().completeExceptionally(new KafkaReplyTimeoutException(
+                            "Reply timed out for " + new UUID(request.high(), request.low())));
+                }
+                expired.clear();
+            }
+        }
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    /**
+     * Upper half picks the segment, lower half the first slot probed in it
+     */
+    private static long hash(long high, long low) {
+        return CorrelationKey.mix(high * 0x9e3779b97f4a7c15L ^ low);
+    }
+
+    private record Expired(long high, long low, CompletableFuture<MathReply> future) {
+    }
+
+    /**
+     * Open-addressing table; every method is called holding the segment's monitor
+     */
+    private static final class Segment {
+
+        private final boolean offHeap;
+        private LongSlab slab;
+        private CompletableFuture<MathReply>[] futures;
+        private int mask;
+        // Written under the monitor, read without it by pendingCount and the sweeper
+        private volatile int size;
+
+        private Segment(int capacity, boolean offHeap) {
+            this.offHeap = offHeap;
+            allocate(capacity);
+        }
+
+        /**
+         * Slot holding the key, -1 if absent
+         */
+        int find(long high, long low, int hash) {
+            for (int slot = hash & mask; futures[slot] != null; slot = (slot + 1) & mask) {
+                int base = slot * SLOT_LONGS;
+                if (slab.get(base + HIGH) == high && slab.get(base + LOW) == low) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * False if the key is already present; grows the table beyond three quarters full
+         */
+        boolean add(long high, long low, int hash, long registeredNanos, long deadlineNanos,
+                    CompletableFuture<MathReply> future) {
+            if (find(high, low, hash) >= 0) {
+                return false;
+            }
+            if (size + 1 > futures.length / 4 * 3) {
+                grow();
+            }
+            int slot = hash & mask;
+            while (futures[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            put(slot, high, low, registeredNanos, deadlineNanos, future);
+            size++;
+            return true;
+        }
+
+        /**
+         * Empties the slot and shifts back the entries after it that probed past it,
+         * so lookups need no tombstones
+         */
+        void removeAt(int slot) {
+            int hole = slot;
+            for (int next = (hole + 1) & mask; futures[next] != null; next = (next + 1) & mask) {
+                int base = next * SLOT_LONGS;
+                int home = (int) hash(slab.get(base + HIGH), slab.get(base + LOW)) & mask;
+                // Movable unless its home lies cyclically in (hole, next]
+                boolean movable = hole <= next ? home <= hole || home > next : home <= hole && home > next;
+                if (movable) {
+                    put(hole, slab.get(base + HIGH), slab.get(base + LOW), slab.get(base + REGISTERED),
+                            slab.get(base + DEADLINE), futures[next]);
+                    hole = next;
+                }
+            }
+            futures[hole] = null;
+            size--;
+        }
+
+        /**
+         * Removes the requests whose deadline is at or before now (all of them if all is set)
+         */
+        void expire(long nowNanos, boolean all, List<Expired> expired) {
+            int slot = 0;
+            while (slot < futures.length) {
+                int base = slot * SLOT_LONGS;
+                if (futures[slot] != null && (all || nowNanos - slab.get(base + DEADLINE) >= 0)) {
+                    expired.add(new Expired(slab.get(base + HIGH), slab.get(base + LOW), futures[slot]));
+                    // An entry may be shifted into this slot: look at it again
+                    removeAt(slot);
+                } else {
+                    slot++;
+                }
+            }
+        }
+
+        private void grow() {
+            LongSlab oldSlab = slab;
+            CompletableFuture<MathReply>[] oldFutures = futures;
+            allocate(oldFutures.length * 2);
+            for (int i = 0; i < oldFutures.length; i++) {
+                if (oldFutures[i] == null) {
+                    continue;
+                }
+                int base = i * SLOT_LONGS;
+                long high = oldSlab.get(base + HIGH);
+                long low = oldSlab.get(base + LOW);
+                int slot = (int) hash(high, low) & mask;
+                while (futures[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                put(slot, high, low, oldSlab.get(base + REGISTERED), oldSlab.get(base + DEADLINE), oldFutures[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void allocate(int capacity) {
+            slab = offHeap ? LongSlab.offHeap(capacity * SLOT_LONGS) : LongSlab.onHeap(capacity * SLOT_LONGS);
+            futures = new CompletableFuture[capacity];
+            mask = capacity - 1;
+        }
+
+        private void put(int slot, long high, long low, long registeredNanos, long deadlineNanos,
+                         CompletableFuture<MathReply> future) {
+            int base = slot * SLOT_LONGS;
+            slab.set(base + HIGH, high);
+            slab.set(base + LOW, low);
+            slab.set(base + REGISTERED, registeredNanos);
+            slab.set(base + DEADLINE, deadlineNanos);
+            futures[slot] = future;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.reply;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens once the reply container is first assigned partitions
+ *
+ * The reply consumer starts at the latest offset, so a reply produced before the
+ * assignment would be missed. Request threads wait on the one latch instead of
+ * each polling the container; once open, await returns at once.
+ */
+public class ReplyAssignment implements ConsumerRebalanceListener {
+
+    private final CountDownLatch assigned = new CountDownLatch(1);
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            assigned.countDown();
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+    }
+
+    public boolean isAssigned() {
+        return assigned.getCount() == 0;
+    }
+
+    /**
+     * False when the reply container still has no partitions after timeout
+     */
+    public boolean await(Duration timeout) throws InterruptedException {
+        return assigned.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
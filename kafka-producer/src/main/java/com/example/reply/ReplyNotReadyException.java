@@ -0,0 +1,12 @@
+package com.example.reply;
+
+/**
+ * The reply container has no partitions yet, so a reply to a request sent now
+ * could be missed; the request is not sent
+ */
+public class ReplyNotReadyException extends RuntimeException {
+
+    public ReplyNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.reply;
+
+import com.example.dto.MathReply;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Requests waiting for a reply on the shared reply topic, matched by correlation ID
+ * Selected with app.kafka.reply.registry.type (see KafkaProducerConfig)
+ */
+public interface ReplyRegistry extends AutoCloseable {
+
+    /**
+     * Register a request before it is sent; the future fails with
+     * KafkaReplyTimeoutException when no reply arrived within the timeout
+     */
+    CompletableFuture<MathReply> register(String correlationId, Duration timeout);
+
+    /**
+     * Route a record from the reply topic by its correlation ID header
+     */
+    void onReply(ConsumerRecord<String, MathReply> record);
+
+    boolean complete(String correlationId, MathReply reply);
+
+    /**
+     * Fail a request whose send failed
+     */
+    void fail(String correlationId, Throwable ex);
+
+    int pendingCount();
+
+    /**
+     * Time since a reply last completed a pending request, null if none has yet
+     */
+    Duration lastReplyAge();
+
+    /**
+     * Request-to-reply time of the last completed request, null if none has completed yet
+     */
+    Duration lastRoundTrip();
+
+    long expiredCount();
+
+    /**
+     * Average expirations per second over the last minute
+     */
+    double expiryRatePerSecond();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,67 @@
+package com.example.reply;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Last reply, round trip and expiry counts of a ReplyRegistry, for the reply-path health check
+ */
+final class ReplyStats {
+
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    private final LongAdder expired = new LongAdder();
+
+    // Last reply matched to a pending request
+    private volatile long lastReplyNanos;
+    private volatile long lastRoundTripNanos = -1;
+
+    // Expirations per epoch second over the last minute, written by the expiring thread only
+    private final AtomicLongArray expiredPerSecond = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray expiredSecond = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    void recordReply(long registeredNanos) {
+        long now = System.nanoTime();
+        lastReplyNanos = now;
+        lastRoundTripNanos = now - registeredNanos;
+    }
+
+    void recordExpiry() {
+        expired.increment();
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % RATE_WINDOW_SECONDS);
+        if (expiredSecond.get(slot) != second) {
+            expiredSecond.set(slot, second);
+            expiredPerSecond.set(slot, 0);
+        }
+        expiredPerSecond.incrementAndGet(slot);
+    }
+
+    Duration lastReplyAge() {
+        if (lastRoundTripNanos < 0) {
+            return null;
+        }
+        return Duration.ofNanos(System.nanoTime() - lastReplyNanos);
+    }
+
+    Duration lastRoundTrip() {
+        long roundTrip = lastRoundTripNanos;
+        return roundTrip < 0 ? null : Duration.ofNanos(roundTrip);
+    }
+
+    long expiredCount() {
+        return expired.sum();
+    }
+
+    double expiryRatePerSecond() {
+        long now = System.currentTimeMillis() / 1000;
+        long sum = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            if (now - expiredSecond.get(i) < RATE_WINDOW_SECONDS) {
+                sum += expiredPerSecond.get(i);
+            }
+        }
+        return (double) sum / RATE_WINDOW_SECONDS;
+    }
+}
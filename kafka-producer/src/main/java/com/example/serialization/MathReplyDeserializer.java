@@ -0,0 +1,72 @@
+package com.example.serialization;
+
+import com.example.dto.MathReply;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Deserializes math replies straight from the record bytes into MathReply,
+ * so the reply listener completes the pending request in the ReplyRegistry
+ * with a ready object
+ *
+ * The top-level "expression", "result" and "error" fields are read with a streaming
+ * JsonParser, without data binding; scalars are taken as text, other fields skipped.
+ * Payloads that are not a JSON object of those fields are returned as the result, unchanged
+ */
+public class MathReplyDeserializer implements Deserializer<MathReply> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public MathReply deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        MathReply reply = readFields(data);
+        if (reply != null) {
+            return reply;
+        }
+        return MathReply.builder()
+                .result(new String(data, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * Returns null if the payload is not a JSON object, or a known field is not a scalar
+     */
+    private static MathReply readFields(byte[] data) {
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            MathReply reply = new MathReply();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "expression" -> reply.setExpression(text(parser));
+                    case "result" -> reply.setResult(text(parser));
+                    case "error" -> reply.setError(text(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            return reply;
+        } catch (IOException e) {
+            // Not a JSON object, fall through to the raw payload
+            return null;
+        }
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            throw new JsonParseException(parser, "Expected text for " + parser.currentName());
+        }
+        return parser.getValueAsString(null);
+    }
+}
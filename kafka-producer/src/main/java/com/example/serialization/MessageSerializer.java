@@ -0,0 +1,30 @@
+package com.example.serialization;
+
+import com.example.model.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializes Message with a writer resolved once for the type,
+ * instead of Spring's JsonSerializer resolving it reflectively per record
+ * No type headers are added
+ */
+public class MessageSerializer implements Serializer<Message> {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerFor(Message.class);
+
+    @Override
+    public byte[] serialize(String topic, Message message) {
+        if (message == null) {
+            return null;
+        }
+        try {
+            return WRITER.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Can't serialize message " + message.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.service;
+
+import com.example.dto.BulkIngestResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Streams a bulk request body into Kafka
+ *
+ * The body is read one record at a time and sent straight away, so it is never
+ * buffered as a whole. Sends are grouped into batches for reporting; at most
+ * maxInFlightBatches batches are awaited lazily, which bounds memory while the
+ * producer keeps pipelining.
+ *
+ * Formats:
+ * - NDJSON: one JSON object per line, {"key": "k1", "value": ...}; key is optional,
+ *   a non-string value is sent as its JSON text
+ * - Length-prefixed: repeated [int32 key length][key][int32 value length][value],
+ *   big-endian, UTF-8, length -1 for a null key
+ *
+ * A line or frame over maxRecordBytes, a truncated frame or a send that fails
+ * before it is queued stops the ingest: the records sent so far are still awaited
+ * and reported, with the error and the index of the record it stopped at.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkIngestService {
+
+    public enum Format { NDJSON, LENGTH_PREFIXED }
+
+    private static final ObjectReader JSON_READER = new ObjectMapper().reader();
+
+    @Lazy
+    private final KafkaTemplate<String, String> bulkKafkaTemplate;
+
+    @Value("${app.kafka.bulk.max-in-flight-batches:4}")
+    private int maxInFlightBatches = 4;
+
+    // The producer's max.request.size by default: a larger record could not be sent anyway
+    @Value("${app.kafka.bulk.max-record-bytes:1048576}")
+    private int maxRecordBytes = 1_048_576;
+
+    /**
+     * Send every record of the body to the topic and report per-batch acks and failures
+     */
+    public BulkIngestResult ingest(String topic, InputStream body, Format format, int batchSize) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        long start = System.nanoTime();
+        RecordReader reader = format == Format.NDJSON
+                ? new NdjsonReader(body, maxRecordBytes)
+                : new LengthPrefixedReader(body, maxRecordBytes);
+
+        List<BulkIngestResult.BatchResult> results = new ArrayList<>();
+        Deque<PendingBatch> inFlight = new ArrayDeque<>();
+        PendingBatch current = new PendingBatch(0);
+        long position = 0;
+        String error = null;
+        boolean invalidBody = false;
+
+        while (true) {
+            BulkRecord record;
+            try {
+                record = reader.next();
+            } catch (InvalidBodyException e) {
+                error = e.getMessage();
+                invalidBody = true;
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            CompletableFuture<SendResult<String, String>> sent;
+            if (record.error() != null) {
+                sent = CompletableFuture.failedFuture(new IllegalArgumentException(record.error()));
+            } else {
+                try {
+                    sent = bulkKafkaTemplate.send(topic, record.key(), record.value());
+                } catch (RuntimeException e) {
+                    // Not queued, e.g. metadata or buffer space not available within max.block.ms
+                    error = "Send failed: " + e.getMessage();
+                    break;
+                }
+            }
+            current.add(sent);
+            position++;
+
+            if (current.size() == batchSize) {
+                inFlight.addLast(current);
+                current = new PendingBatch(current.index + 1);
+                while (inFlight.size() > maxInFlightBatches) {
+                    results.add(inFlight.removeFirst().await());
+                }
+            }
+        }
+        if (current.size() > 0) {
+            inFlight.addLast(current);
+        }
+        bulkKafkaTemplate.flush();
+        while (!inFlight.isEmpty()) {
+            results.add(inFlight.removeFirst().await());
+        }
+
+        long acked = results.stream().mapToLong(BulkIngestResult.BatchResult::getAcked).sum();
+        long failed = results.stream().mapToLong(BulkIngestResult.BatchResult::getFailed).sum();
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        if (error != null) {
+            log.warn("Bulk ingest to {} stopped at record {}: {}", topic, position, error);
+        }
+        log.info("Bulk ingest to {}: {} records, {} acked, {} failed in {} ms",
+                topic, acked + failed, acked, failed, elapsedMs);
+
+        return BulkIngestResult.builder()
+                .topic(topic)
+                .records(acked + failed)
+                .acked(acked)
+                .failed(failed)
+                .elapsedMs(elapsedMs)
+                .recordsPerSecond((acked + failed) * 1000.0 / elapsedMs)
+                .batches(results)
+                .error(error)
+                .errorAtRecord(error != null ? position : null)
+                .invalidBody(invalidBody)
+                .build();
+    }
+
+    private record BulkRecord(String key, String value, String error) {}
+
+    private interface RecordReader {
+        /** Next record, or null at the end of the body */
+        BulkRecord next() throws IOException;
+    }
+
+    /**
+     * The body cannot be read further: a record too large or cut short
+     */
+    private static class InvalidBodyException extends IOException {
+        InvalidBodyException(String message) {
+            super(message);
+        }
+    }
+
+    private static class NdjsonReader implements RecordReader {
+
+        private final Reader reader;
+        private final int maxLineChars;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private long lineNumber;
+
+        /**
+         * @param maxRecordBytes longest line accepted, counted in chars (at least one byte each)
+         */
+        NdjsonReader(InputStream body, int maxRecordBytes) {
+            this.reader = new InputStreamReader(body, StandardCharsets.UTF_8);
+            this.maxLineChars = maxRecordBytes;
+        }
+
+        @Override
+        public BulkRecord next() throws IOException {
+            String line;
+            do {
+                line = readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            try {
+                JsonNode node = JSON_READER.readTree(line);
+                JsonNode value = node.get("value");
+                if (value == null) {
+                    return new BulkRecord(null, null, "Missing \"value\" field");
+                }
+                JsonNode key = node.get("key");
+                return new BulkRecord(
+                        key == null || key.isNull() ? null : key.asText(),
+                        value.isTextual() ? value.asText() : value.toString(),
+                        null);
+            } catch (JsonProcessingException e) {
+                return new BulkRecord(null, null, "Invalid JSON line: " + e.getOriginalMessage());
+            }
+        }
+
+        /**
+         * Next line without its terminator (\n or \r\n), null at the end of the body;
+         * a line over the limit is rejected before it is read in full
+         */
+        private String readLine() throws IOException {
+            line.setLength(0);
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit < 0) {
+                        limit = 0;
+                        return line.isEmpty() ? null : lineRead();
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                line.append(buffer, start, position - start);
+                if (line.length() > maxLineChars) {
+                    throw new InvalidBodyException("Line " + (lineNumber + 1) + " is longer than "
+                            + maxLineChars + " bytes");
+                }
+                if (position < limit) {
+                    position++;
+                    if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                        line.setLength(line.length() - 1);
+                    }
+                    return lineRead();
+                }
+            }
+        }
+
+        private String lineRead() {
+            lineNumber++;
+            return line.toString();
+        }
+    }
+
+    private static class LengthPrefixedReader implements RecordReader {
+
+        private final DataInputStream input;
+        private final int maxRecordBytes;
+        // Body offset of the next frame
+        private long offset;
+
+        LengthPrefixedReader(InputStream body, int maxRecordBytes) {
+            this.input = new DataInputStream(body);
+            this.maxRecordBytes = maxRecordBytes;
+        }
+
+        @Override
+        public BulkRecord next() throws IOException {
+            int first = input.read();
+            if (first < 0) {
+                return null;
+            }
+            long frameOffset = offset;
+            try {
+                int keyLength = first << 24 | input.readUnsignedByte() << 16
+                        | input.readUnsignedByte() << 8 | input.readUnsignedByte();
+                String key = readString(keyLength, maxRecordBytes, frameOffset);
+                int valueLength = input.readInt();
+                String value = readString(valueLength, maxRecordBytes - Math.max(keyLength, 0), frameOffset);
+                offset += 8 + Math.max(keyLength, 0) + Math.max(valueLength, 0);
+                return new BulkRecord(key, value, null);
+            } catch (EOFException e) {
+                throw new InvalidBodyException("Frame at byte " + frameOffset + " is truncated");
+            }
+        }
+
+        private String readString(int length, int maxLength, long frameOffset) throws IOException {
+            if (length < 0) {
+                return null;
+            }
+            if (length > maxLength) {
+                throw new InvalidBodyException("Frame at byte " + frameOffset + " is larger than "
+                        + maxRecordBytes + " bytes");
+            }
+            byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class PendingBatch {
+
+        private final int index;
+        private final List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>();
+
+        PendingBatch(int index) {
+            this.index = index;
+        }
+
+        void add(CompletableFuture<SendResult<String, String>> future) {
+            futures.add(future);
+        }
+
+        int size() {
+            return futures.size();
+        }
+
+        BulkIngestResult.BatchResult await() {
+            int acked = 0;
+            int failed = 0;
+            String firstError = null;
+            for (CompletableFuture<SendResult<String, String>> future : futures) {
+                try {
+                    future.get();
+                    acked++;
+                } catch (ExecutionException e) {
+                    failed++;
+                    if (firstError == null) {
+                        firstError = e.getCause().getMessage();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for bulk acks", e);
+                }
+            }
+            return BulkIngestResult.BatchResult.builder()
+                    .batch(index)
+                    .records(futures.size())
+                    .acked(acked)
+                    .failed(failed)
+                    .firstError(firstError)
+                    .build();
+        }
+    }
+}
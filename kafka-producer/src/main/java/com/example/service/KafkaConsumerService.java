@@ -2,34 +2,57 @@ package com.example.service;
 
 import com.example.dto.KafkaMessageDto;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class KafkaConsumerService {
 
     private final ConsumerFactory<String, String> consumerFactory;
+    private final ConsumerFactory<String, byte[]> bytesConsumerFactory;
+    private final Admin adminClient;
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 10;
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
-    public KafkaConsumerService(ConsumerFactory<String, String> consumerFactory) {
+    public KafkaConsumerService(ConsumerFactory<String, String> consumerFactory,
+                                @Lazy ConsumerFactory<String, byte[]> bytesConsumerFactory,
+                                Admin adminClient) {
         this.consumerFactory = consumerFactory;
+        this.bytesConsumerFactory = bytesConsumerFactory;
+        this.adminClient = adminClient;
     }
 
     /**
@@ -41,24 +64,7 @@ public class KafkaConsumerService {
         try (KafkaConsumer<String, String> consumer = 
                 (KafkaConsumer<String, String>) consumerFactory.createConsumer("reader-" + System.currentTimeMillis(), null)) {
             
-            // Get partitions for the topic
-            List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
-                    .map(info -> new TopicPartition(topic, info.partition()))
-                    .toList();
-            
-            consumer.assign(partitions);
-            
-            if (fromBeginning) {
-                consumer.seekToBeginning(partitions);
-            } else {
-                // Seek to end and go back maxMessages
-                consumer.seekToEnd(partitions);
-                for (TopicPartition partition : partitions) {
-                    long endOffset = consumer.position(partition);
-                    long startOffset = Math.max(0, endOffset - maxMessages);
-                    consumer.seek(partition, startOffset);
-                }
-            }
+            assignForRead(consumer, topic, maxMessages, fromBeginning);
             
             // Poll for messages
             int pollAttempts = 0;
@@ -93,16 +99,92 @@ public class KafkaConsumerService {
         return messages;
     }
 
+    /**
+     * Stream record values to the output as raw bytes, without String decoding
+     * Each record is written as a length-prefixed frame:
+     * [int32 key length][key][int32 value length][value], length -1 for null,
+     * the same format POST /send-bulk accepts
+     */
+    public int readMessagesRaw(String topic, int maxMessages, boolean fromBeginning, OutputStream output) {
+        int written = 0;
+
+        try (KafkaConsumer<String, byte[]> consumer =
+                (KafkaConsumer<String, byte[]>) bytesConsumerFactory.createConsumer("raw-reader-" + System.currentTimeMillis(), null)) {
+
+            assignForRead(consumer, topic, maxMessages, fromBeginning);
+            DataOutputStream out = new DataOutputStream(output);
+
+            int pollAttempts = 0;
+            while (written < maxMessages && pollAttempts < 3) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(1000));
+
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (written >= maxMessages) break;
+
+                    writeFrame(out, record.key() != null ? record.key().getBytes(StandardCharsets.UTF_8) : null);
+                    writeFrame(out, record.value());
+                    written++;
+                }
+
+                if (records.isEmpty()) {
+                    pollAttempts++;
+                }
+            }
+            out.flush();
+
+            log.info("Streamed {} raw messages from topic {}", written, topic);
+
+        } catch (IOException e) {
+            log.warn("Client stopped reading raw messages from topic {}: {}", topic, e.getMessage());
+        } catch (Exception e) {
+            log.error("Error reading raw messages from topic {}: {}", topic, e.getMessage());
+            throw new RuntimeException("Failed to read messages from topic: " + topic, e);
+        }
+
+        return written;
+    }
+
+    /**
+     * Read the value of a single record as raw bytes
+     * Returns null when there is no record at that offset
+     */
+    public byte[] readMessageRaw(String topic, int partition, long offset) {
+        try (KafkaConsumer<String, byte[]> consumer =
+                (KafkaConsumer<String, byte[]>) bytesConsumerFactory.createConsumer("raw-reader-" + System.currentTimeMillis(), null)) {
+
+            TopicPartition topicPartition = new TopicPartition(topic, partition);
+            consumer.assign(Collections.singletonList(topicPartition));
+            consumer.seek(topicPartition, offset);
+
+            for (int pollAttempts = 0; pollAttempts < 3; pollAttempts++) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(1000));
+                if (!records.isEmpty()) {
+                    ConsumerRecord<String, byte[]> record = records.iterator().next();
+                    // A different offset means the one asked for was compacted or deleted
+                    return record.offset() == offset ? record.value() : null;
+                }
+            }
+            return null;
+
+        } catch (Exception e) {
+            log.error("Error reading raw message {}-{}@{}: {}", topic, partition, offset, e.getMessage());
+            throw new RuntimeException("Failed to read message from topic: " + topic, e);
+        }
+    }
+
     /**
      * Get list of all topics
      */
     public Set<String> listTopics() {
-        try (KafkaConsumer<String, String> consumer = 
-                (KafkaConsumer<String, String>) consumerFactory.createConsumer("topic-lister", null)) {
-            Set<String> topics = consumer.listTopics().keySet();
+        try {
+            Set<String> topics = new HashSet<>(
+                    adminClient.listTopics().names().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS));
             // Filter out internal topics
             topics.removeIf(t -> t.startsWith("__"));
             return topics;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to list topics", e);
         } catch (Exception e) {
             log.error("Error listing topics: {}", e.getMessage());
             throw new RuntimeException("Failed to list topics", e);
@@ -111,25 +193,32 @@ public class KafkaConsumerService {
 
     /**
      * Get topic info (partitions, offsets)
+     * Read through the shared admin client instead of a consumer per request
      */
     public List<TopicPartitionInfo> getTopicInfo(String topic) {
         List<TopicPartitionInfo> info = new ArrayList<>();
-        
-        try (KafkaConsumer<String, String> consumer = 
-                (KafkaConsumer<String, String>) consumerFactory.createConsumer("info-reader", null)) {
-            
-            List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
-                    .map(p -> new TopicPartition(topic, p.partition()))
-                    .toList();
-            
-            consumer.assign(partitions);
-            consumer.seekToEnd(partitions);
-            
-            for (TopicPartition partition : partitions) {
-                long endOffset = consumer.position(partition);
-                consumer.seekToBeginning(Collections.singletonList(partition));
-                long beginOffset = consumer.position(partition);
-                
+
+        try {
+            TopicDescription description = adminClient.describeTopics(List.of(topic))
+                    .allTopicNames().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS).get(topic);
+
+            Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            description.partitions().forEach(p -> {
+                TopicPartition partition = new TopicPartition(topic, p.partition());
+                earliest.put(partition, OffsetSpec.earliest());
+                latest.put(partition, OffsetSpec.latest());
+            });
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> beginOffsets =
+                    adminClient.listOffsets(earliest).all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets =
+                    adminClient.listOffsets(latest).all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            for (TopicPartition partition : earliest.keySet().stream()
+                    .sorted(Comparator.comparingInt(TopicPartition::partition)).toList()) {
+                long beginOffset = beginOffsets.get(partition).offset();
+                long endOffset = endOffsets.get(partition).offset();
+
                 info.add(new TopicPartitionInfo(
                         partition.partition(),
                         beginOffset,
@@ -137,15 +226,52 @@ public class KafkaConsumerService {
                         endOffset - beginOffset
                 ));
             }
-            
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to get topic info: " + topic, e);
         } catch (Exception e) {
             log.error("Error getting topic info for {}: {}", topic, e.getMessage());
             throw new RuntimeException("Failed to get topic info: " + topic, e);
         }
-        
+
         return info;
     }
 
+    /**
+     * Assign all partitions of the topic and seek to the beginning,
+     * or to the last maxMessages records of each partition
+     */
+    private void assignForRead(Consumer<?, ?> consumer, String topic, int maxMessages, boolean fromBeginning) {
+        // Get partitions for the topic
+        List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+                .map(info -> new TopicPartition(topic, info.partition()))
+                .toList();
+
+        consumer.assign(partitions);
+
+        if (fromBeginning) {
+            consumer.seekToBeginning(partitions);
+        } else {
+            // Seek to end and go back maxMessages
+            consumer.seekToEnd(partitions);
+            for (TopicPartition partition : partitions) {
+                long endOffset = consumer.position(partition);
+                long startOffset = Math.max(0, endOffset - maxMessages);
+                consumer.seek(partition, startOffset);
+            }
+        }
+    }
+
+    private void writeFrame(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
     private String formatTimestamp(long timestamp) {
         return Instant.ofEpochMilli(timestamp)
                 .atZone(ZoneId.systemDefault())
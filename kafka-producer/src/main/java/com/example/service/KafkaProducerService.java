@@ -1,15 +1,15 @@
 package com.example.service;
 
+import com.example.id.CorrelationIdGenerator;
 import com.example.model.Message;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 @Slf4j
@@ -18,7 +18,11 @@ import java.util.concurrent.CompletableFuture;
 public class KafkaProducerService {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
-    private final KafkaTemplate<String, Object> jsonKafkaTemplate;
+    @Lazy
+    private final KafkaTemplate<String, Message> jsonKafkaTemplate;
+    @Lazy
+    private final KafkaTemplate<String, byte[]> bytesKafkaTemplate;
+    private final CorrelationIdGenerator idGenerator;
 
     @Value("${app.kafka.topic.string}")
     private String stringTopic;
@@ -64,23 +68,24 @@ public class KafkaProducerService {
 
     /**
      * Send a JSON object message to Kafka
+     * The ID comes from the configured CorrelationIdGenerator, the timestamp is epoch millis
      */
     public Message sendJsonMessage(String content, String sender) {
         Message message = Message.builder()
-                .id(UUID.randomUUID().toString())
+                .id(idGenerator.nextId())
                 .content(content)
                 .sender(sender)
-                .timestamp(LocalDateTime.now())
+                .timestamp(System.currentTimeMillis())
                 .build();
 
-        log.info("Sending JSON message to topic {}: {}", jsonTopic, message);
+        log.debug("Sending JSON message to topic {}: {}", jsonTopic, message);
         
-        CompletableFuture<SendResult<String, Object>> future = 
+        CompletableFuture<SendResult<String, Message>> future = 
             jsonKafkaTemplate.send(jsonTopic, message.getId(), message);
         
         future.whenComplete((result, ex) -> {
             if (ex == null) {
-                log.info("JSON message sent successfully to topic {} with offset {}", 
+                log.debug("JSON message sent successfully to topic {} with offset {}", 
                     jsonTopic, result.getRecordMetadata().offset());
             } else {
                 log.error("Failed to send JSON message: {}", ex.getMessage());
@@ -106,6 +111,21 @@ public class KafkaProducerService {
             });
     }
 
+    /**
+     * Send raw bytes to a specific topic
+     * The payload goes into the record as-is: no String decoding, encoding or copy
+     */
+    public CompletableFuture<SendResult<String, byte[]>> sendRawToTopic(String topic, String key, byte[] payload) {
+        log.info("Sending {} raw bytes to topic {}", payload.length, topic);
+
+        return bytesKafkaTemplate.send(topic, key, payload)
+            .whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Failed to send raw message to {}: {}", topic, ex.getMessage());
+                }
+            });
+    }
+
     /**
      * Send message synchronously (blocks until acknowledgment)P
      */
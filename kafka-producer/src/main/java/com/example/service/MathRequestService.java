@@ -1,83 +1,186 @@
 package com.example.service;
 
+import com.example.dto.MathReply;
+import com.example.id.CorrelationIdGenerator;
+import com.example.partition.MathRequestPartitioner;
+import com.example.reply.HopTimestamps;
+import com.example.reply.ReplyAssignment;
+import com.example.reply.ReplyNotReadyException;
+import com.example.reply.ReplyRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
-import org.springframework.kafka.requestreply.RequestReplyFuture;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MathRequestService {
 
-    private final ReplyingKafkaTemplate<String, String, String> replyingKafkaTemplate;
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ReplyRegistry pendingReplyRegistry;
+    private final ReplyAssignment replyAssignment;
+    private final CorrelationIdGenerator correlationIdGenerator;
+    private final MathRequestPartitioner mathRequestPartitioner;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Epoch millis after which the consumer drops the request, read by its RequestDeadlines
+    public static final String DEADLINE_HEADER = "math_deadline_ms";
 
     @Value("${app.kafka.topic.math.request}")
     private String requestTopic;
 
+    @Value("${app.kafka.topic.math.request-bulk}")
+    private String bulkRequestTopic;
+
     @Value("${app.kafka.topic.math.reply}")
     private String replyTopic;
 
     @Value("${app.kafka.reply.timeout:30}")
     private int replyTimeoutSeconds;
 
+    // Longest a request waits for the reply container's first assignment before failing
+    @Value("${app.kafka.reply.assignment-wait-ms:2000}")
+    private long assignmentWaitMs;
+
     /**
-     * Send a math expression and wait for the result using ReplyingKafkaTemplate
+     * Send a math expression and wait for the result
      * This is the SYNCHRONOUS approach - blocks until reply is received
+     * The reply is already deserialized into a MathReply by the reply consumer
+     */
+    public MathReply calculateAndWait(String expression) throws Exception {
+        return calculateAndWait(expression, null);
+    }
+
+    /**
+     * Same as calculateAndWait(expression), never waiting longer than the caller's
+     * timeout (null or longer than app.kafka.reply.timeout uses the configured one)
+     *
+     * The deadline travels with the request in the DEADLINE_HEADER, so the consumer
+     * drops the request instead of evaluating it once nobody waits for the reply.
+     *
+     * Right after startup, before the reply container has its partitions, requests
+     * wait up to app.kafka.reply.assignment-wait-ms for it and then fail with
+     * ReplyNotReadyException without being sent.
+     */
+    public MathReply calculateAndWait(String expression, Duration callerTimeout) throws Exception {
+        return calculateAndWait(expression, null, callerTimeout);
+    }
+
+    /**
+     * Same as calculateAndWait(expression, callerTimeout), with values for the
+     * variables named in the expression (null or empty when there are none)
      */
-    public String calculateAndWait(String expression) throws Exception {
-        String correlationId = UUID.randomUUID().toString();
+    public MathReply calculateAndWait(String expression, Map<String, Double> variables,
+                                      Duration callerTimeout) throws Exception {
+        Duration timeout = Duration.ofSeconds(replyTimeoutSeconds);
+        if (callerTimeout != null && callerTimeout.compareTo(timeout) < 0) {
+            timeout = callerTimeout;
+        }
+        long deadlineNanos = System.nanoTime() + timeout.toNanos();
+        long deadlineMillis = System.currentTimeMillis() + timeout.toMillis();
+
+        String correlationId = correlationIdGenerator.nextId();
         
         log.info("Sending math request with correlationId {}: {}", correlationId, expression);
 
-        // Create the request JSON
-        String requestJson = String.format("{\"expression\":\"%s\"}", expression);
+        awaitReplyAssignment(deadlineNanos);
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new KafkaReplyTimeoutException("Deadline passed before sending " + correlationId);
+        }
 
-        // Create ProducerRecord with the request topic
-        ProducerRecord<String, String> record = new ProducerRecord<>(requestTopic, correlationId, requestJson);
-        
-        // ReplyingKafkaTemplate automatically:
-        // 1. Generates correlation ID (or we can set our own)
-        // 2. Sets the reply topic header
-        // 3. Sends the message
-        // 4. Waits for the reply with matching correlation ID
-        RequestReplyFuture<String, String, String> future = replyingKafkaTemplate.sendAndReceive(record);
+        // Create the request JSON
+        String requestJson = requestJson(expression, variables);
+
+        // The consumer copies the correlation ID header into its reply and sends it to the reply topic header
+        ProducerRecord<String, String> record = new ProducerRecord<>(requestTopic,
+                partition(requestTopic, expression), correlationId, requestJson);
+        record.headers().add(KafkaHeaders.CORRELATION_ID, correlationId.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.REPLY_TOPIC, replyTopic.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(DEADLINE_HEADER, Long.toString(deadlineMillis).getBytes(StandardCharsets.US_ASCII));
+
+        // Register before sending so a fast reply cannot arrive first
+        CompletableFuture<MathReply> future =
+                pendingReplyRegistry.register(correlationId, Duration.ofNanos(remainingNanos));
+        // Start of the queue hop, echoed back in the reply (HopLatencyRecorder)
+        record.headers().add(HopTimestamps.SENT, HopTimestamps.encode(HopTimestamps.nowMicros()));
+        kafkaTemplate.send(record).whenComplete((result, ex) -> {
+            if (ex != null) {
+                pendingReplyRegistry.fail(correlationId, ex);
+            }
+        });
 
         log.info("Request sent, waiting for reply...");
 
-        // Wait for the reply (blocking)
-        ConsumerRecord<String, String> response = future.get(replyTimeoutSeconds, TimeUnit.SECONDS);
-        
-        String result = response.value();
-        log.info("Received reply for correlationId {}: {}", correlationId, result);
+        // Wait for the reply (blocking); the registry fails the future at the deadline,
+        // the bounded get covers the up to one tick the timing wheel may be late
+        MathReply reply;
+        try {
+            reply = future.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            KafkaReplyTimeoutException timedOut =
+                    new KafkaReplyTimeoutException("Reply timed out for " + correlationId);
+            pendingReplyRegistry.fail(correlationId, timedOut);
+            throw timedOut;
+        }
+        log.info("Received reply for correlationId {}: {}", correlationId, reply);
 
-        // Parse the result from JSON response
-        return parseResult(result);
+        return reply;
+    }
+
+    /**
+     * The reply consumer starts at the latest offset, so a reply produced before it is
+     * assigned would be missed and the request would only fail at its deadline
+     */
+    private void awaitReplyAssignment(long deadlineNanos) throws InterruptedException {
+        if (replyAssignment.isAssigned()) {
+            return;
+        }
+        long waitNanos = Math.min(Duration.ofMillis(assignmentWaitMs).toNanos(), deadlineNanos - System.nanoTime());
+        if (!replyAssignment.await(Duration.ofNanos(Math.max(waitNanos, 0)))) {
+            throw new ReplyNotReadyException("Reply consumer has no partitions yet, retry shortly");
+        }
     }
 
     /**
      * Send a math expression without waiting (fire and forget)
      * This is the ASYNCHRONOUS approach - returns immediately with correlationId
+     * Sent to the bulk topic, which the consumer serves at low priority
      */
     public String sendCalculation(String expression) {
-        String correlationId = UUID.randomUUID().toString();
+        return sendCalculation(expression, null);
+    }
+
+    /**
+     * Same as sendCalculation(expression), with values for the variables named in the expression
+     */
+    public String sendCalculation(String expression, Map<String, Double> variables) {
+        String correlationId = correlationIdGenerator.nextId();
         
         log.info("Sending math request (fire-and-forget) with correlationId {}: {}", correlationId, expression);
 
-        String requestJson = String.format("{\"expression\":\"%s\"}", expression);
+        String requestJson = requestJson(expression, variables);
 
         // Use regular KafkaTemplate for fire-and-forget
-        kafkaTemplate.send(requestTopic, correlationId, requestJson)
+        kafkaTemplate.send(bulkRequestTopic, partition(bulkRequestTopic, expression), correlationId, requestJson)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
                         log.error("Failed to send math request: {}", ex.getMessage());
@@ -90,23 +193,26 @@ public class MathRequestService {
     }
 
     /**
-     * Parse the result from the JSON response
+     * Partition chosen by the MathRequestPartitioner, null to hash the correlation ID key;
+     * the partition count comes from the producer's cached metadata
      */
-    private String parseResult(String response) {
-        try {
-            // Simple JSON parsing - extract "result" field
-            if (response.contains("\"result\"")) {
-                int start = response.indexOf("\"result\":\"") + 10;
-                int end = response.indexOf("\"", start);
-                return response.substring(start, end);
-            } else if (response.contains("\"error\"")) {
-                int start = response.indexOf("\"error\":\"") + 9;
-                int end = response.indexOf("\"", start);
-                return "Error: " + response.substring(start, end);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to parse response, returning raw: {}", response);
+    private Integer partition(String topic, String expression) {
+        if (mathRequestPartitioner == MathRequestPartitioner.RECORD_KEY) {
+            return null;
+        }
+        return mathRequestPartitioner.partition(expression, kafkaTemplate.partitionsFor(topic).size());
+    }
+
+    /**
+     * {"expression": ..., "variables": {...}}, escaped by Jackson so quotes in the
+     * expression cannot break the JSON; variables are left out when there are none
+     */
+    static String requestJson(String expression, Map<String, Double> variables) {
+        ObjectNode json = JSON.createObjectNode().put("expression", expression);
+        if (variables != null && !variables.isEmpty()) {
+            ObjectNode values = json.putObject("variables");
+            variables.forEach(values::put);
         }
-        return response;
+        return json.toString();
     }
 }
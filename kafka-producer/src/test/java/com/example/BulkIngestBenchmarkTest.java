@@ -0,0 +1,112 @@
+package com.example;
+
+import com.example.config.KafkaProducerConfig;
+import com.example.dto.BulkIngestResult;
+import com.example.service.BulkIngestService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of /send-bulk ingest into an embedded broker
+ *
+ * Ingests perf.bulk.records records of about VALUE_BYTES bytes from an in-memory
+ * body, once per format, through the application's bulk producer (KafkaProducerConfig)
+ * in batches of BATCH_SIZE. The first pass of each format warms up the producer and
+ * the JIT and is not counted. Records per second include reading the body, sending
+ * and awaiting every ack.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=BulkIngestBenchmarkTest [-Dperf.bulk.records=500000]
+ */
+@Tag("perf")
+@EmbeddedKafka(partitions = 3, topics = BulkIngestBenchmarkTest.TOPIC)
+class BulkIngestBenchmarkTest {
+
+    static final String TOPIC = "perf-bulk";
+    private static final int RECORDS = Integer.getInteger("perf.bulk.records", 200_000);
+    private static final int VALUE_BYTES = 100;
+    private static final int BATCH_SIZE = 500;
+
+    @Test
+    void throughputStaysWithinBudget() throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        KafkaProducerConfig config = new KafkaProducerConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", broker.getBrokersAsString());
+        ProducerFactory<String, String> producerFactory = config.bulkProducerFactory();
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+        BulkIngestService service = new BulkIngestService(template);
+
+        try {
+            byte[] ndjson = ndjson();
+            byte[] frames = frames();
+            double ndjsonRate = run(service, ndjson, BulkIngestService.Format.NDJSON);
+            double framesRate = run(service, frames, BulkIngestService.Format.LENGTH_PREFIXED);
+            System.out.printf("ndjson          %8.0f records/s (%.1f MB body)%n", ndjsonRate, ndjson.length / 1e6);
+            System.out.printf("length-prefixed %8.0f records/s (%.1f MB body)%n", framesRate, frames.length / 1e6);
+
+            PerfBudget budget = new PerfBudget();
+            budget.atLeast("bulk.ndjson.records-per-second", ndjsonRate);
+            budget.atLeast("bulk.length-prefixed.records-per-second", framesRate);
+            budget.assertWithinBudget();
+        } finally {
+            template.destroy();
+            producerFactory.reset();
+        }
+    }
+
+    /**
+     * Records per second of the second of two passes
+     */
+    private static double run(BulkIngestService service, byte[] body, BulkIngestService.Format format)
+            throws IOException {
+        BulkIngestResult result = null;
+        for (int pass = 0; pass < 2; pass++) {
+            result = service.ingest(TOPIC, new ByteArrayInputStream(body), format, BATCH_SIZE);
+            assertNull(result.getError());
+            assertEquals(RECORDS, result.getAcked());
+        }
+        return result.getRecordsPerSecond();
+    }
+
+    private static byte[] ndjson() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            body.append("{\"key\":\"k").append(i).append("\",\"value\":\"").append(value(i)).append("\"}\n");
+        }
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] frames() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < RECORDS; i++) {
+            byte[] key = ("k" + i).getBytes(StandardCharsets.UTF_8);
+            byte[] value = value(i).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(key.length);
+            out.write(key);
+            out.writeInt(value.length);
+            out.write(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String value(int i) {
+        String prefix = i + ":";
+        return prefix + "x".repeat(VALUE_BYTES - prefix.length());
+    }
+}
@@ -0,0 +1,171 @@
+package com.example;
+
+import com.example.dto.BulkIngestResult;
+import com.example.service.BulkIngestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkIngestServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> template = mock(KafkaTemplate.class);
+    private final BulkIngestService service = new BulkIngestService(template);
+
+    BulkIngestServiceTest() {
+        when(template.send(anyString(), any(), anyString()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(mock(SendResult.class)));
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testNdjsonRecordsAreSentInBatches() throws IOException {
+        String ndjson = """
+                {"key":"k1","value":"one"}
+                {"value":"two"}
+
+                {"key":"k3","value":{"nested":true}}
+                """;
+
+        BulkIngestResult result = service.ingest("bulk", body(ndjson), BulkIngestService.Format.NDJSON, 2);
+
+        assertEquals(3, result.getRecords());
+        assertEquals(3, result.getAcked());
+        assertEquals(2, result.getBatches().size());
+        assertEquals(2, result.getBatches().get(0).getRecords());
+        assertEquals(1, result.getBatches().get(1).getRecords());
+        verify(template).send("bulk", "k1", "one");
+        verify(template).send("bulk", null, "two");
+        verify(template).send("bulk", "k3", "{\"nested\":true}");
+        verify(template).flush();
+    }
+
+    @Test
+    void testInvalidLinesAndSendFailuresAreReportedPerBatch() throws IOException {
+        when(template.send("bulk", null, "boom"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        String ndjson = """
+                {"value":"ok"}
+                not json
+                {"value":"boom"}
+                {"key":"no value"}
+                """;
+
+        BulkIngestResult result = service.ingest("bulk", body(ndjson), BulkIngestService.Format.NDJSON, 10);
+
+        assertEquals(4, result.getRecords());
+        assertEquals(1, result.getAcked());
+        assertEquals(3, result.getFailed());
+        BulkIngestResult.BatchResult batch = result.getBatches().get(0);
+        assertEquals(3, batch.getFailed());
+        assertTrue(batch.getFirstError().startsWith("Invalid JSON line"));
+    }
+
+    @Test
+    void testLengthPrefixedFrames() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeFrame(out, "k1", "line\nbreak");
+        writeFrame(out, null, "été");
+
+        BulkIngestResult result = service.ingest("bulk", new ByteArrayInputStream(bytes.toByteArray()),
+                BulkIngestService.Format.LENGTH_PREFIXED, 100);
+
+        assertEquals(2, result.getAcked());
+        verify(template).send("bulk", "k1", "line\nbreak");
+        verify(template).send("bulk", null, "été");
+    }
+
+    @Test
+    void testOversizedOrTruncatedFramesStopWithPartialReport() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeFrame(out, "k1", "one");
+        // A length no body this size could hold: rejected before anything is allocated
+        out.writeInt(-1);
+        out.writeInt(Integer.MAX_VALUE);
+
+        BulkIngestResult result = service.ingest("bulk", new ByteArrayInputStream(bytes.toByteArray()),
+                BulkIngestService.Format.LENGTH_PREFIXED, 100);
+
+        assertTrue(result.isInvalidBody());
+        assertEquals("Frame at byte 13 is larger than 1048576 bytes", result.getError());
+        assertEquals(1, result.getErrorAtRecord());
+        assertEquals(1, result.getAcked());
+
+        bytes.reset();
+        writeFrame(out, "k1", "one");
+        writeFrame(out, "k2", "two");
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 2);
+        result = service.ingest("bulk", new ByteArrayInputStream(truncated),
+                BulkIngestService.Format.LENGTH_PREFIXED, 100);
+
+        assertEquals("Frame at byte 13 is truncated", result.getError());
+        assertEquals(1, result.getErrorAtRecord());
+        assertEquals(1, result.getRecords());
+    }
+
+    @Test
+    void testLongLinesAreRejected() throws IOException {
+        ReflectionTestUtils.setField(service, "maxRecordBytes", 64);
+        String ndjson = "{\"value\":\"ok\"}\r\n{\"value\":\"" + "x".repeat(100) + "\"}\n{\"value\":\"never\"}\n";
+
+        BulkIngestResult result = service.ingest("bulk", body(ndjson), BulkIngestService.Format.NDJSON, 10);
+
+        assertTrue(result.isInvalidBody());
+        assertEquals("Line 2 is longer than 64 bytes", result.getError());
+        assertEquals(1, result.getErrorAtRecord());
+        verify(template).send("bulk", null, "ok");
+        verify(template, never()).send("bulk", null, "never");
+    }
+
+    @Test
+    void testSendThatCannotBeQueuedStopsWithPartialReport() throws IOException {
+        when(template.send("bulk", null, "blocked")).thenThrow(new KafkaException("Timeout expired"));
+        String ndjson = """
+                {"value":"one"}
+                {"value":"two"}
+                {"value":"blocked"}
+                {"value":"never"}
+                """;
+
+        BulkIngestResult result = service.ingest("bulk", body(ndjson), BulkIngestService.Format.NDJSON, 1);
+
+        assertFalse(result.isInvalidBody());
+        assertEquals("Send failed: Timeout expired", result.getError());
+        assertEquals(2, result.getErrorAtRecord());
+        assertEquals(2, result.getAcked());
+        assertEquals(2, result.getBatches().size());
+        verify(template, never()).send("bulk", null, "never");
+    }
+
+    private static void writeFrame(DataOutputStream out, String key, String value) throws IOException {
+        if (key == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+        }
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(valueBytes.length);
+        out.write(valueBytes);
+    }
+}
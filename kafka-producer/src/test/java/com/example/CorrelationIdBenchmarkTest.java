@@ -0,0 +1,93 @@
+package com.example;
+
+import com.example.id.CorrelationIdGenerator;
+import com.example.id.PrefixedCounterIdGenerator;
+import com.example.id.TimeOrderedIdGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Correlation IDs per second from 64 threads at once: UUID.randomUUID against the generators
+ *
+ * Every thread takes perf.ids.per-thread IDs as fast as it can, all released together;
+ * the rate is all IDs over the time until the last thread is done, best of PASSES
+ * after one unmeasured pass. With fewer cores than threads this is mostly the cost
+ * per ID plus what the shared state (SecureRandom, the time-ordered CAS word) adds.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=CorrelationIdBenchmarkTest [-Dperf.ids.per-thread=200000]
+ */
+@Tag("perf")
+class CorrelationIdBenchmarkTest {
+
+    private static final int THREADS = 64;
+    private static final int IDS_PER_THREAD = Integer.getInteger("perf.ids.per-thread", 200_000);
+    private static final int PASSES = 3;
+
+    @Test
+    void generatorsOutpaceRandomUuids() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            double random = idsPerSecond(pool, () -> UUID.randomUUID().toString());
+            double timeOrdered = idsPerSecond(pool, new TimeOrderedIdGenerator());
+            double prefixed = idsPerSecond(pool, new PrefixedCounterIdGenerator(null));
+            System.out.printf("UUID.randomUUID  %6.2f M IDs/s%ntime-ordered     %6.2f M IDs/s%nprefixed-counter %6.2f M IDs/s%n",
+                    random / 1e6, timeOrdered / 1e6, prefixed / 1e6);
+
+            assertTrue(timeOrdered > random, "time-ordered IDs are slower than UUID.randomUUID");
+            assertTrue(prefixed > random, "prefixed-counter IDs are slower than UUID.randomUUID");
+            PerfBudget budget = new PerfBudget();
+            budget.atLeast("correlation-id.time-ordered.ids-per-second", timeOrdered);
+            budget.atLeast("correlation-id.prefixed-counter.ids-per-second", prefixed);
+            budget.assertWithinBudget();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static double idsPerSecond(ExecutorService pool, CorrelationIdGenerator generator) throws Exception {
+        run(pool, generator);
+        double best = 0;
+        for (int pass = 0; pass < PASSES; pass++) {
+            best = Math.max(best, run(pool, generator));
+        }
+        return best;
+    }
+
+    private static double run(ExecutorService pool, CorrelationIdGenerator generator) throws Exception {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            threads.add(pool.submit(() -> {
+                ready.countDown();
+                start.await();
+                // Summed and returned so the IDs are not optimized away
+                int length = 0;
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    length += generator.nextId().length();
+                }
+                return length;
+            }));
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Integer> thread : threads) {
+            assertTrue(thread.get() > 0);
+        }
+        long elapsed = System.nanoTime() - begin;
+        return (double) THREADS * IDS_PER_THREAD / (elapsed / 1e9);
+    }
+}
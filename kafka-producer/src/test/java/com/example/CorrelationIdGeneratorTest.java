@@ -0,0 +1,85 @@
+package com.example;
+
+import com.example.id.CorrelationIdGenerator;
+import com.example.id.PrefixedCounterIdGenerator;
+import com.example.id.TimeOrderedIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationIdGeneratorTest {
+
+    private static final int THREADS = 64;
+    private static final int IDS_PER_THREAD = 5_000;
+
+    @Test
+    void testTimeOrderedIdsAreUuidV7AndIncreasing() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        UUID previous = generator.nextUuid();
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = generator.nextUuid();
+            assertEquals(7, next.version());
+            assertEquals(2, next.variant());
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = next;
+        }
+        long millis = previous.getMostSignificantBits() >>> 16;
+        assertTrue(Math.abs(System.currentTimeMillis() - millis) < 5000);
+    }
+
+    @Test
+    void testPrefixedCounterIds() {
+        assertTrue(new PrefixedCounterIdGenerator("gw-1").nextId().startsWith("gw-1-"));
+        assertFalse(new PrefixedCounterIdGenerator("").getPrefix().isEmpty());
+        assertNotEquals(new PrefixedCounterIdGenerator(null).getPrefix(), new PrefixedCounterIdGenerator(null).getPrefix());
+        // Same configured prefix, e.g. a host name after a restart: still distinct IDs
+        assertNotEquals(new PrefixedCounterIdGenerator("gw-1").nextId(), new PrefixedCounterIdGenerator("gw-1").nextId());
+    }
+
+    @Test
+    void testUniqueUnderContention() throws Exception {
+        for (CorrelationIdGenerator generator : List.of(
+                new TimeOrderedIdGenerator(), new PrefixedCounterIdGenerator("test"))) {
+            Set<String> ids = ConcurrentHashMap.newKeySet();
+            runConcurrently(() -> {
+                List<String> local = new ArrayList<>(IDS_PER_THREAD);
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    local.add(generator.nextId());
+                }
+                ids.addAll(local);
+            });
+            assertEquals(THREADS * IDS_PER_THREAD, ids.size(), generator.getClass().getSimpleName());
+        }
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example;
+
+import com.example.reply.HopLatencyRecorder;
+import com.example.reply.HopTimestamps;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HopLatencyRecorderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HopLatencyRecorder recorder = new HopLatencyRecorder(meterRegistry);
+
+    @Test
+    void testHopsFromReplyHeaders() {
+        long processed = HopTimestamps.nowMicros() - 1_000;
+        ConsumerRecord<String, String> reply = new ConsumerRecord<>("math-replies", 0, 0, "k", "v");
+        reply.headers().add(HopTimestamps.SENT, HopTimestamps.encode(processed - 7_000));
+        reply.headers().add(HopTimestamps.RECEIVED, HopTimestamps.encode(processed - 2_000));
+        reply.headers().add(HopTimestamps.PROCESSED, HopTimestamps.encode(processed));
+
+        recorder.record(reply);
+
+        assertEquals(5.0, hop("queue").totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(2.0, hop("processing").totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertTrue(hop("return").totalTime(TimeUnit.MILLISECONDS) >= 1.0);
+        assertTrue(hop("total").totalTime(TimeUnit.MILLISECONDS) >= 8.0);
+    }
+
+    @Test
+    void testClockSkewIsRecordedAsZero() {
+        long now = HopTimestamps.nowMicros();
+        ConsumerRecord<String, String> reply = new ConsumerRecord<>("math-replies", 0, 0, "k", "v");
+        // Consumer clock 50 ms behind the producer
+        reply.headers().add(HopTimestamps.SENT, HopTimestamps.encode(now));
+        reply.headers().add(HopTimestamps.RECEIVED, HopTimestamps.encode(now - 50_000));
+        reply.headers().add(HopTimestamps.PROCESSED, HopTimestamps.encode(now - 49_000));
+
+        recorder.record(reply);
+
+        assertEquals(1, hop("queue").count());
+        assertEquals(0.0, hop("queue").totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testReplyWithoutHopHeadersIsIgnored() {
+        recorder.record(new ConsumerRecord<>("math-replies", 0, 0, "k", "v"));
+
+        assertEquals(0, hop("total").count());
+    }
+
+    private Timer hop(String hop) {
+        return meterRegistry.get(HopLatencyRecorder.METRIC).tag("hop", hop).timer();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example;
+
+import com.example.id.TimeOrderedIdGenerator;
+import com.example.model.Message;
+import com.example.serialization.MessageSerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Building and serializing a json-messages record: MessageSerializer against the path it replaced
+ *
+ * The old path built the message with UUID.randomUUID() and LocalDateTime.now() and
+ * serialized it with Spring's JsonSerializer, type headers included (LegacyMessage is
+ * Message as it was). The new one takes the ID from TimeOrderedIdGenerator, the epoch
+ * millis from System.currentTimeMillis(), and serializes with MessageSerializer.
+ * Reported per message, on one thread: CPU time and bytes allocated, best of ROUNDS
+ * after WARMUP_ROUNDS.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=JsonMessageBenchmarkTest
+ */
+@Tag("perf")
+class JsonMessageBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final int MESSAGES = 500_000;
+    private static final String TOPIC = "json-messages";
+    private static final String CONTENT = "Hello from the benchmark";
+    private static final String SENDER = "perf";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private volatile int sink;
+
+    @Test
+    void prebuiltWriterBeatsJsonSerializer() throws Exception {
+        Serializer<Object> jsonSerializer = new JsonSerializer<>();
+        Serializer<Message> messageSerializer = new MessageSerializer();
+        TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator();
+        Sender legacy = () -> jsonSerializer.serialize(TOPIC, new RecordHeaders(),
+                new LegacyMessage(UUID.randomUUID().toString(), CONTENT, SENDER, LocalDateTime.now())).length;
+        Sender current = () -> messageSerializer.serialize(TOPIC, new RecordHeaders(), Message.builder()
+                .id(ids.nextId())
+                .content(CONTENT)
+                .sender(SENDER)
+                .timestamp(System.currentTimeMillis())
+                .build()).length;
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(legacy);
+            run(current);
+        }
+        Result legacyBest = null;
+        Result currentBest = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            legacyBest = Result.best(legacyBest, run(legacy));
+            currentBest = Result.best(currentBest, run(current));
+        }
+        System.out.printf("UUID + JsonSerializer              %6.0f ns CPU, %5.0f B per message%n",
+                legacyBest.cpuNanos(), legacyBest.bytes());
+        System.out.printf("time-ordered ID + MessageSerializer %5.0f ns CPU, %5.0f B per message%n",
+                currentBest.cpuNanos(), currentBest.bytes());
+
+        assertTrue(currentBest.cpuNanos() < legacyBest.cpuNanos(), "MessageSerializer path is slower than JsonSerializer");
+        assertTrue(currentBest.bytes() < legacyBest.bytes(), "MessageSerializer path allocates more than JsonSerializer");
+        PerfBudget budget = new PerfBudget();
+        budget.atMost("json-message.cpu-ns", currentBest.cpuNanos());
+        budget.atMost("json-message.bytes", currentBest.bytes());
+        budget.assertWithinBudget();
+    }
+
+    private Result run(Sender sender) {
+        long cpuBefore = THREADS.getCurrentThreadCpuTime();
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        int length = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            length += sender.buildAndSerialize();
+        }
+        Result result = new Result((double) (THREADS.getCurrentThreadCpuTime() - cpuBefore) / MESSAGES,
+                (double) (THREADS.getCurrentThreadAllocatedBytes() - bytesBefore) / MESSAGES);
+        sink = length;
+        return result;
+    }
+
+    private interface Sender {
+
+        int buildAndSerialize();
+    }
+
+    /**
+     * Message before MessageSerializer, with a LocalDateTime timestamp
+     */
+    record LegacyMessage(String id, String content, String sender, LocalDateTime timestamp) {
+    }
+
+    private record Result(double cpuNanos, double bytes) {
+
+        static Result best(Result previous, Result current) {
+            return previous == null || current.cpuNanos() < previous.cpuNanos() ? current : previous;
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package com.example;
 
+import com.example.controller.KafkaProducerController;
 import com.example.model.Message;
+import com.example.service.KafkaConsumerService;
 import com.example.service.KafkaProducerService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -18,6 +24,12 @@ class KafkaProducerServiceTest {
     @Autowired
     private KafkaProducerService kafkaProducerService;
 
+    @Autowired
+    private KafkaConsumerService kafkaConsumerService;
+
+    @Autowired
+    private KafkaProducerController kafkaProducerController;
+
     @Test
     void contextLoads() {
         assertNotNull(kafkaProducerService);
@@ -35,13 +47,63 @@ class KafkaProducerServiceTest {
 
     @Test
     void testSendJsonMessage() {
+        long before = System.currentTimeMillis();
         Message message = kafkaProducerService.sendJsonMessage("Test content", "TestSender");
+        long after = System.currentTimeMillis();
         
         assertNotNull(message);
         assertNotNull(message.getId());
         assertEquals("Test content", message.getContent());
         assertEquals("TestSender", message.getSender());
-        assertNotNull(message.getTimestamp());
+        // Epoch millis taken while sending
+        assertTrue(message.getTimestamp() >= before && message.getTimestamp() <= after,
+                "timestamp " + message.getTimestamp() + " outside [" + before + ", " + after + "]");
+    }
+
+    @Test
+    void testSendRawToTopicRoundTrip() throws Exception {
+        byte[] payload = new byte[100 * 1024];
+        new java.util.Random(42).nextBytes(payload);
+
+        kafkaProducerService.sendRawToTopic("raw-messages", "key1", payload).get();
+
+        assertArrayEquals(payload, kafkaConsumerService.readMessageRaw("raw-messages", 0, 0));
+        assertNull(kafkaConsumerService.readMessageRaw("raw-messages", 0, 1));
     }
-}
 
+    @Test
+    void testRawBodyOverTheLimitIsRejected() throws Exception {
+        byte[] tooLarge = new byte[1_000_001];
+        MockHttpServletRequest known = new MockHttpServletRequest();
+        known.setContent(tooLarge);
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+                kafkaProducerController.sendRawToTopic("raw-limit", null, known).getStatusCode());
+
+        // Chunked: no length up front, the body is read up to one byte past the limit
+        MockHttpServletRequest chunked = new MockHttpServletRequest() {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setContent(tooLarge);
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+                kafkaProducerController.sendRawToTopic("raw-limit", null, chunked).getStatusCode());
+
+        chunked.setContent(new byte[1_000_000]);
+        assertEquals(HttpStatus.OK,
+                kafkaProducerController.sendRawToTopic("raw-limit", null, chunked).getStatusCode());
+    }
+
+    @Test
+    void testGetTopicInfoCountsMessages() throws Exception {
+        kafkaProducerService.sendRawToTopic("info-messages", "key1", new byte[] {1}).get();
+        kafkaProducerService.sendRawToTopic("info-messages", "key2", new byte[] {2}).get();
+
+        List<KafkaConsumerService.TopicPartitionInfo> info = kafkaConsumerService.getTopicInfo("info-messages");
+
+        assertEquals(1, info.size());
+        assertEquals(2, info.get(0).messageCount());
+        assertTrue(kafkaConsumerService.listTopics().contains("info-messages"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example;
+
+import com.example.lag.LagMonitor;
+import com.example.lag.LagSample;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 2, topics = "lag-topic")
+class LagMonitorTest {
+
+    @Test
+    void testRatesAndTimeToCatchUpFromBufferedSamples() {
+        LagMonitor monitor = new LagMonitor(null, List.of("g"), 10, 4, Duration.ofSeconds(1));
+        assertTrue(monitor.report().isEmpty());
+
+        // Produced at 100/s, consumed at 300/s, 10 seconds apart
+        for (int i = 0; i <= 4; i++) {
+            monitor.record(sample(i * 10_000L, 3000L * i, 10_000 + 1000L * i), Map.of());
+        }
+
+        LagMonitor.GroupLag lag = monitor.report().get(0);
+        assertEquals("g", lag.group());
+        assertEquals(10_000 + 4000 - 12_000, lag.lag());
+        assertEquals(300.0, lag.consumeRatePerSecond(), 1e-9);
+        assertEquals(100.0, lag.produceRatePerSecond(), 1e-9);
+        assertEquals(2000 / 200.0, lag.secondsToCatchUp(), 1e-9);
+    }
+
+    @Test
+    void testNoCatchUpEstimateWhileFallingBehind() {
+        LagMonitor monitor = new LagMonitor(null, List.of("g"), 10, 4, Duration.ofSeconds(1));
+        monitor.record(sample(0, 0, 100), Map.of());
+        monitor.record(sample(1000, 50, 300), Map.of());
+
+        LagMonitor.GroupLag lag = monitor.report().get(0);
+        assertEquals(250, lag.lag());
+        assertNull(lag.secondsToCatchUp());
+    }
+
+    @Test
+    void testRingBufferKeepsNewestSamples() {
+        LagMonitor monitor = new LagMonitor(null, List.of("g"), 3, 2, Duration.ofSeconds(1));
+        for (int i = 0; i < 5; i++) {
+            monitor.record(sample(i * 1000L, i, 10), Map.of());
+        }
+
+        List<LagMonitor.LagPoint> history = monitor.history("g");
+        assertEquals(List.of(2000L, 3000L, 4000L), history.stream().map(LagMonitor.LagPoint::timestamp).toList());
+        assertEquals(6, history.get(2).lag());
+        assertTrue(monitor.history("other").isEmpty());
+    }
+
+    @Test
+    void testSampleReadsCommittedAndLogEndOffsets() throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class))) {
+            for (int i = 0; i < 10; i++) {
+                producer.send(new ProducerRecord<>("lag-topic", i % 2, null, "v" + i));
+            }
+            producer.flush();
+        }
+
+        try (Admin admin = Admin.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+             LagMonitor monitor = new LagMonitor(admin, List.of("lag-group", "idle-group"), 10, 4,
+                     Duration.ofSeconds(10))) {
+            admin.alterConsumerGroupOffsets("lag-group", Map.of(
+                    new TopicPartition("lag-topic", 0), new OffsetAndMetadata(2),
+                    new TopicPartition("lag-topic", 1), new OffsetAndMetadata(5))).all().get();
+
+            monitor.sampleNow();
+
+            List<LagMonitor.GroupLag> report = monitor.report();
+            assertEquals(2, report.size());
+            LagMonitor.GroupLag lag = report.get(0);
+            assertEquals("lag-group", lag.group());
+            assertEquals(3, lag.lag());
+            assertEquals(List.of(3L, 0L), lag.partitions().stream().map(LagMonitor.PartitionLag::lag).toList());
+            assertEquals(0, report.get(1).lag());
+            assertTrue(report.get(1).partitions().isEmpty());
+        }
+    }
+
+    private static LagSample sample(long timestampMs, long committed, long logEnd) {
+        return new LagSample(timestampMs, Map.of("g", new LagSample.GroupOffsets(committed, logEnd)));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example;
+
+import com.example.serialization.MathReplyDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reply payload to result text: MathReplyDeserializer against the string path it replaced
+ *
+ * The old path read the reply as a String (StringDeserializer) and cut the "result"
+ * or "error" value out with indexOf/substring (MathRequestService.parseResult, copied
+ * here as it was). The new one binds the bytes to MathReply. Both end with the text
+ * the controller returns, resultOrError() for the new one. Replies are the consumer's
+ * format, one in ERROR_EVERY an error. Reported per reply: CPU time and bytes allocated
+ * on the measuring thread, best of ROUNDS after WARMUP_ROUNDS.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=MathReplyDeserializerBenchmarkTest
+ */
+@Tag("perf")
+class MathReplyDeserializerBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final int REPLIES = 1_000_000;
+    private static final int PAYLOADS = 1024;
+    private static final int ERROR_EVERY = 16;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private volatile int sink;
+
+    @Test
+    void typedDeserializerStaysWithinBudget() throws Exception {
+        byte[][] payloads = new byte[PAYLOADS][];
+        for (int i = 0; i < PAYLOADS; i++) {
+            String reply = i % ERROR_EVERY == 0
+                    ? "{\"error\":\"Division by zero\"}"
+                    : "{\"expression\":\"(" + i + "+1)*2\",\"result\":\"" + (i + 1) * 2 + "\"}";
+            payloads[i] = reply.getBytes(StandardCharsets.UTF_8);
+        }
+        StringDeserializer strings = new StringDeserializer();
+        MathReplyDeserializer replies = new MathReplyDeserializer();
+        Decoder legacy = data -> parseResult(strings.deserialize("math-replies", data));
+        Decoder typed = data -> replies.deserialize("math-replies", data).resultOrError();
+        for (byte[] payload : payloads) {
+            assertEquals(legacy.decode(payload), typed.decode(payload));
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(legacy, payloads);
+            run(typed, payloads);
+        }
+        Result legacyBest = null;
+        Result typedBest = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            legacyBest = Result.best(legacyBest, run(legacy, payloads));
+            typedBest = Result.best(typedBest, run(typed, payloads));
+        }
+        System.out.printf("string + parseResult  %6.1f ns CPU, %5.0f B per reply%n", legacyBest.cpuNanos(), legacyBest.bytes());
+        System.out.printf("MathReplyDeserializer %6.1f ns CPU, %5.0f B per reply%n", typedBest.cpuNanos(), typedBest.bytes());
+
+        PerfBudget budget = new PerfBudget();
+        budget.atMost("reply-deserializer.typed.cpu-ns", typedBest.cpuNanos());
+        budget.atMost("reply-deserializer.typed.bytes", typedBest.bytes());
+        budget.assertWithinBudget();
+    }
+
+    private Result run(Decoder decoder, byte[][] payloads) {
+        long cpuBefore = THREADS.getCurrentThreadCpuTime();
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        int length = 0;
+        for (int i = 0; i < REPLIES; i++) {
+            length += decoder.decode(payloads[i & (PAYLOADS - 1)]).length();
+        }
+        Result result = new Result((double) (THREADS.getCurrentThreadCpuTime() - cpuBefore) / REPLIES,
+                (double) (THREADS.getCurrentThreadAllocatedBytes() - bytesBefore) / REPLIES);
+        sink = length;
+        return result;
+    }
+
+    /**
+     * MathRequestService.parseResult before MathReplyDeserializer, without its logging
+     */
+    private static String parseResult(String response) {
+        try {
+            if (response.contains("\"result\"")) {
+                int start = response.indexOf("\"result\":\"") + 10;
+                int end = response.indexOf("\"", start);
+                return response.substring(start, end);
+            } else if (response.contains("\"error\"")) {
+                int start = response.indexOf("\"error\":\"") + 9;
+                int end = response.indexOf("\"", start);
+                return "Error: " + response.substring(start, end);
+            }
+        } catch (Exception e) {
+            // Returned raw, as before
+        }
+        return response;
+    }
+
+    private interface Decoder {
+
+        String decode(byte[] data);
+    }
+
+    private record Result(double cpuNanos, double bytes) {
+
+        static Result best(Result previous, Result current) {
+            return previous == null || current.cpuNanos() < previous.cpuNanos() ? current : previous;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example;
+
+import com.example.dto.MathReply;
+import com.example.serialization.MathReplyDeserializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MathReplyDeserializerTest {
+
+    private final MathReplyDeserializer deserializer = new MathReplyDeserializer();
+
+    private MathReply deserialize(String payload) {
+        return deserializer.deserialize("math-replies", payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testResultReply() {
+        MathReply reply = deserialize("{\"expression\":\"2+2\",\"result\":\"4\"}");
+
+        assertEquals("2+2", reply.getExpression());
+        assertEquals("4", reply.getResult());
+        assertEquals("4", reply.resultOrError());
+    }
+
+    @Test
+    void testErrorReply() {
+        MathReply reply = deserialize("{\"error\":\"Division by zero\"}");
+
+        assertNull(reply.getResult());
+        assertEquals("Error: Division by zero", reply.resultOrError());
+    }
+
+    @Test
+    void testEscapedQuotesAndUnicode() {
+        MathReply reply = deserialize(
+                "{\"expression\":\"say \\\"hi\\\" \\u00e9\",\"result\":\"Error: Invalid \\\"x\\\"\"}");
+
+        assertEquals("say \"hi\" \u00e9", reply.getExpression());
+        assertEquals("Error: Invalid \"x\"", reply.getResult());
+    }
+
+    @Test
+    void testFieldOrderAndWhitespaceDoNotMatter() {
+        MathReply reply = deserialize("{ \"result\" : \"10\" ,\n \"expression\" : \"(10+5)*2/3\" }");
+
+        assertEquals("(10+5)*2/3", reply.getExpression());
+        assertEquals("10", reply.getResult());
+    }
+
+    @Test
+    void testNumericResultAndUnknownFields() {
+        MathReply reply = deserialize("{\"expression\":\"1+1\",\"result\":2,\"processedAt\":123}");
+
+        assertEquals("2", reply.getResult());
+    }
+
+    @Test
+    void testNonJsonPayloadIsReturnedRaw() {
+        assertEquals("42", deserialize("42").getResult());
+        assertEquals("not json", deserialize("not json").getResult());
+    }
+
+    @Test
+    void testNonScalarFieldsAndTruncatedJsonAreReturnedRaw() {
+        assertEquals("{\"result\":{\"value\":4}}", deserialize("{\"result\":{\"value\":4}}").getResult());
+        assertEquals("{\"result\":\"4\"", deserialize("{\"result\":\"4\"").getResult());
+        assertEquals("[\"4\"]", deserialize("[\"4\"]").getResult());
+        assertNull(deserialize("{\"result\":null,\"error\":\"x\",\"tags\":[{\"result\":1}]}").getResult());
+    }
+
+    @Test
+    void testNullPayload() {
+        assertNull(deserializer.deserialize("math-replies", null));
+    }
+}
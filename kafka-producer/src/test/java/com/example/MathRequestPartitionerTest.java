@@ -0,0 +1,76 @@
+package com.example;
+
+import com.example.partition.ExpressionHashPartitioner;
+import com.example.partition.HotKeySpreadingPartitioner;
+import com.example.partition.MathRequestPartitioner;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MathRequestPartitionerTest {
+
+    private static final int PARTITIONS = 12;
+
+    @Test
+    void testNormalize() throws Exception {
+        // Same cases as the consumer's ResultCache, whose keys partitioning has to match
+        NormalizationCases.assertAll(ExpressionHashPartitioner::normalize);
+    }
+
+    @Test
+    void testSameExpressionSamePartition() {
+        ExpressionHashPartitioner partitioner = new ExpressionHashPartitioner();
+        int partition = partitioner.partition("(10 + 5) * 2", PARTITIONS);
+        assertEquals(partition, partitioner.partition("(10+5)*2", PARTITIONS));
+        assertEquals(partition, partitioner.partition(" ( 10 +5 )*2\n", PARTITIONS));
+
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int p = partitioner.partition(i + "*3", PARTITIONS);
+            assertTrue(p >= 0 && p < PARTITIONS);
+            used.add(p);
+        }
+        assertEquals(PARTITIONS, used.size());
+
+        assertNull(partitioner.partition(" ", PARTITIONS));
+        assertNull(MathRequestPartitioner.RECORD_KEY.partition("1+1", PARTITIONS));
+    }
+
+    @Test
+    void testHotExpressionIsSpread() {
+        HotKeySpreadingPartitioner partitioner = new HotKeySpreadingPartitioner(1000, 0.5, 4);
+        ExpressionHashPartitioner unspread = new ExpressionHashPartitioner();
+        int home = unspread.partition("6*7", PARTITIONS);
+
+        // Half of the traffic: well above half a partition's fair share (1/24)
+        Set<Integer> hot = new HashSet<>();
+        int moved = 0;
+        for (int i = 0; i < 20_000; i++) {
+            hot.add(partitioner.partition("6 * 7", PARTITIONS));
+            if (!partitioner.partition(i + "+1", PARTITIONS).equals(unspread.partition(i + "+1", PARTITIONS))) {
+                moved++;
+            }
+        }
+        assertEquals(4, hot.size());
+        for (int k = 0; k < 4; k++) {
+            assertTrue(hot.contains((home + k) % PARTITIONS));
+        }
+        // Each of the others is requested once: never spread
+        assertEquals(0, moved);
+        assertTrue(partitioner.spreadRequests() > 0);
+    }
+
+    @Test
+    void testSpreadFollowsShare() {
+        HotKeySpreadingPartitioner partitioner = new HotKeySpreadingPartitioner(1000, 0.5, 8);
+        // count / (2 * window) is the share; one partition takes up to 0.5 / 12 of the traffic
+        assertEquals(1, partitioner.spread(10, PARTITIONS));
+        assertEquals(1, partitioner.spread(83, PARTITIONS));
+        assertEquals(2, partitioner.spread(84, PARTITIONS));
+        assertEquals(8, partitioner.spread(2000, PARTITIONS));
+        assertEquals(3, partitioner.spread(2000, 3));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+import com.example.id.TimeOrderedIdGenerator;
+import com.example.partition.MathRequestPartitioner;
+import com.example.reply.ReplyAssignment;
+import com.example.reply.ReplyNotReadyException;
+import com.example.service.MathRequestService;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MathRequestServiceTest {
+
+    @Test
+    void testFailsFastUntilReplyContainerIsAssigned() {
+        // No template or registry: the request must fail before anything is sent
+        MathRequestService service = new MathRequestService(null, null, new ReplyAssignment(),
+                new TimeOrderedIdGenerator(), MathRequestPartitioner.RECORD_KEY);
+        ReflectionTestUtils.setField(service, "replyTimeoutSeconds", 30);
+        ReflectionTestUtils.setField(service, "assignmentWaitMs", 100L);
+
+        long start = System.nanoTime();
+        assertThrows(ReplyNotReadyException.class, () -> service.calculateAndWait("2+2"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testAssignmentOpensForAllWaiters() throws Exception {
+        ReplyAssignment assignment = new ReplyAssignment();
+        assignment.onPartitionsAssigned(List.of());
+        assertFalse(assignment.isAssigned());
+        assertFalse(assignment.await(Duration.ofMillis(10)));
+
+        Thread waiter = new Thread(() -> {
+            try {
+                assertTrue(assignment.await(Duration.ofSeconds(10)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assignment.onPartitionsAssigned(List.of(new TopicPartition("math-replies", 0)));
+        waiter.join(5000);
+
+        assertFalse(waiter.isAlive());
+        assertTrue(assignment.isAssigned());
+        assertTrue(assignment.await(Duration.ZERO));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example;
+
+import com.example.partition.ExpressionHashPartitioner;
+import com.example.partition.HotKeySpreadingPartitioner;
+import com.example.partition.MathRequestPartitioner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache hit rate and partition balance of the partitioning strategies on a skewed workload
+ *
+ * Simulates perf.partitioning.requests requests over perf.partitioning.expressions
+ * expressions with Zipf popularity (exponent 1.1: the top expression takes about an
+ * eighth of the traffic, more than one partition's fair share), half of them written
+ * with spaces. Each partition is consumed by one instance with an LRU cache of
+ * CACHE_SIZE results. Balance is the busiest partition's load over the mean load.
+ * RECORD_KEY is modeled as a uniformly random partition, as the hash of a random ID.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=PartitioningBenchmarkTest
+ */
+@Tag("perf")
+class PartitioningBenchmarkTest {
+
+    private static final int PARTITIONS = Integer.getInteger("perf.partitioning.partitions", 12);
+    private static final int EXPRESSIONS = Integer.getInteger("perf.partitioning.expressions", 50_000);
+    private static final int REQUESTS = Integer.getInteger("perf.partitioning.requests", 2_000_000);
+    private static final int CACHE_SIZE = 1_000;
+    private static final double ZIPF_EXPONENT = 1.1;
+
+    @Test
+    void hitRateAndBalanceStayWithinBudget() throws Exception {
+        Map<String, Result> results = new LinkedHashMap<>();
+        results.put("record-key", run(MathRequestPartitioner.RECORD_KEY));
+        results.put("expression", run(new ExpressionHashPartitioner()));
+        results.put("expression-spread", run(new HotKeySpreadingPartitioner(10_000, 0.5, 8)));
+        results.forEach((name, result) -> System.out.printf("%-18s hit rate %5.1f%%, busiest partition %.2fx the mean%n",
+                name, result.hitRate(), result.imbalance()));
+
+        Result random = results.get("record-key");
+        Result expression = results.get("expression");
+        Result spread = results.get("expression-spread");
+        assertTrue(expression.hitRate() > random.hitRate());
+        assertTrue(spread.imbalance() < expression.imbalance());
+
+        PerfBudget budget = new PerfBudget();
+        budget.atLeast("partitioning.expression.hit-rate-percent", expression.hitRate());
+        budget.atLeast("partitioning.expression-spread.hit-rate-percent", spread.hitRate());
+        budget.atMost("partitioning.expression-spread.imbalance", spread.imbalance());
+        budget.assertWithinBudget();
+    }
+
+    private static Result run(MathRequestPartitioner partitioner) {
+        long[] cdf = zipfCdf(EXPRESSIONS);
+        Random random = new Random(42);
+        Map<String, Boolean>[] caches = newCaches();
+        long[] load = new long[PARTITIONS];
+        long hits = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            int rank = sample(cdf, random);
+            String expression = expression(rank, random.nextBoolean());
+            Integer partition = partitioner.partition(expression, PARTITIONS);
+            int p = partition != null ? partition : random.nextInt(PARTITIONS);
+            load[p]++;
+            String key = ExpressionHashPartitioner.normalize(expression);
+            if (caches[p].put(key, Boolean.TRUE) != null) {
+                hits++;
+            }
+        }
+        double mean = (double) REQUESTS / PARTITIONS;
+        return new Result(100.0 * hits / REQUESTS, Arrays.stream(load).max().orElse(0) / mean);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Boolean>[] newCaches() {
+        Map<String, Boolean>[] caches = new Map[PARTITIONS];
+        for (int p = 0; p < PARTITIONS; p++) {
+            caches[p] = new LinkedHashMap<>(CACHE_SIZE * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+        }
+        return caches;
+    }
+
+    private static String expression(int rank, boolean spaced) {
+        return spaced ? "(" + rank + " + 3) * 7" : "(" + rank + "+3)*7";
+    }
+
+    /**
+     * Cumulative Zipf weights scaled to longs, rank 0 the most popular
+     */
+    private static long[] zipfCdf(int keys) {
+        double[] weights = new double[keys];
+        double total = 0;
+        for (int i = 0; i < keys; i++) {
+            weights[i] = 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            total += weights[i];
+        }
+        long[] cdf = new long[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += weights[i];
+            cdf[i] = (long) (sum / total * Long.MAX_VALUE);
+        }
+        cdf[keys - 1] = Long.MAX_VALUE;
+        return cdf;
+    }
+
+    private static int sample(long[] cdf, Random random) {
+        long point = random.nextLong() & Long.MAX_VALUE;
+        int index = Arrays.binarySearch(cdf, point);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private record Result(double hitRate, double imbalance) {
+    }
+}
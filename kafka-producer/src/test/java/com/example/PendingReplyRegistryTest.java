@@ -0,0 +1,99 @@
+package com.example;
+
+import com.example.dto.MathReply;
+import com.example.reply.HashedTimingWheel;
+import com.example.reply.PendingReplyRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingReplyRegistryTest {
+
+    private final PendingReplyRegistry registry = new PendingReplyRegistry(Duration.ofMillis(10), 64);
+
+    @AfterEach
+    void close() {
+        registry.close();
+    }
+
+    @Test
+    void testReplyCompletesPendingRequest() throws Exception {
+        CompletableFuture<MathReply> future = registry.register("c-1", Duration.ofSeconds(30));
+        assertEquals(1, registry.pendingCount());
+
+        ConsumerRecord<String, MathReply> record = new ConsumerRecord<>("math-replies", 0, 0, "c-1",
+                new MathReply("2+2", "4", null));
+        record.headers().add(KafkaHeaders.CORRELATION_ID, "c-1".getBytes(StandardCharsets.UTF_8));
+        registry.onReply(record);
+
+        assertEquals("4", future.get(1, TimeUnit.SECONDS).getResult());
+        assertEquals(0, registry.pendingCount());
+        assertFalse(registry.complete("c-1", new MathReply()));
+    }
+
+    @Test
+    void testRequestExpiresAtItsOwnDeadline() {
+        CompletableFuture<MathReply> shortTimeout = registry.register("short", Duration.ofMillis(50));
+        CompletableFuture<MathReply> longTimeout = registry.register("long", Duration.ofSeconds(30));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> shortTimeout.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(KafkaReplyTimeoutException.class, ex.getCause());
+        assertFalse(longTimeout.isDone());
+        assertEquals(1, registry.pendingCount());
+        assertEquals(1, registry.expiredCount());
+        assertTrue(registry.expiryRatePerSecond() > 0);
+    }
+
+    @Test
+    void testDuplicateCorrelationIdIsRejected() {
+        registry.register("dup", Duration.ofSeconds(30));
+        assertThrows(IllegalStateException.class, () -> registry.register("dup", Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void testWheelExpiresAcrossRevolutionsAndSkipsCancelled() throws Exception {
+        try (HashedTimingWheel wheel = new HashedTimingWheel("test-wheel", 5, TimeUnit.MILLISECONDS, 8)) {
+            CountDownLatch expired = new CountDownLatch(1);
+            AtomicLong expiredAfterNanos = new AtomicLong();
+            long start = System.nanoTime();
+
+            // 8 ticks of 5 ms per revolution, so 200 ms needs several rounds
+            wheel.schedule(new HashedTimingWheel.Timeout() {
+                @Override
+                protected void expired() {
+                    expiredAfterNanos.set(System.nanoTime() - start);
+                    expired.countDown();
+                }
+            }, 200, TimeUnit.MILLISECONDS);
+
+            AtomicBoolean cancelledExpired = new AtomicBoolean();
+            HashedTimingWheel.Timeout cancelled = new HashedTimingWheel.Timeout() {
+                @Override
+                protected void expired() {
+                    cancelledExpired.set(true);
+                }
+            };
+            wheel.schedule(cancelled, 20, TimeUnit.MILLISECONDS);
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+
+            assertTrue(expired.await(5, TimeUnit.SECONDS));
+            assertTrue(expiredAfterNanos.get() >= TimeUnit.MILLISECONDS.toNanos(200));
+            assertFalse(cancelledExpired.get());
+            assertEquals(0, wheel.pendingCount());
+        }
+    }
+}
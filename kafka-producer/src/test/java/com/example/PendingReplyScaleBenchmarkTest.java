@@ -0,0 +1,195 @@
+package com.example;
+
+import com.example.dto.MathReply;
+import com.example.id.TimeOrderedIdGenerator;
+import com.example.reply.PendingReplyRegistry;
+import com.example.reply.PrimitiveReplyRegistry;
+import com.example.reply.ReplyRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.GenericMessageListenerContainer;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.requestreply.CorrelationKey;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Heap and CPU of a million pending replies: the registries against ReplyingKafkaTemplate
+ *
+ * Each variant sends perf.pending.count requests through a KafkaTemplate on an
+ * auto-completing MockProducer and keeps them pending, as the gateway does under a
+ * reply backlog: the registries register, then send (MathRequestService), the
+ * template registers inside sendAndReceive. Then every request gets its reply
+ * (ReplyRegistry.onReply, ReplyingKafkaTemplate.onMessage as its reply container
+ * would call it). Reported per request:
+ * - retained heap while all are pending, after GC; the IDs are built beforehand and not counted
+ * - process CPU time to send and register, and to complete from the reply, GC and timer threads included
+ * Every variant first runs at a tenth of the count, unmeasured.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=PendingReplyScaleBenchmarkTest [-Dperf.pending.count=1000000]
+ */
+@Tag("perf")
+class PendingReplyScaleBenchmarkTest {
+
+    private static final int COUNT = Integer.getInteger("perf.pending.count", 1_000_000);
+    private static final Duration TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration TICK = Duration.ofMillis(100);
+    private static final int CLEAR_EVERY = 10_000;
+    private static final String REQUEST = "{\"expression\":\"2+2\"}";
+
+    private static final com.sun.management.OperatingSystemMXBean OS =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    @Test
+    void registriesBeatTemplateAtOneMillionPending() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        String[] ids = new String[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            ids[i] = generator.nextId();
+        }
+
+        // Same code paths at a tenth of the scale first, so no variant runs cold
+        String[] warmUp = Arrays.copyOf(ids, Math.max(1, COUNT / 10));
+        runTemplate(warmUp);
+        runRegistry("wheel", new PendingReplyRegistry(TICK, 512), warmUp);
+        runRegistry("primitive", new PrimitiveReplyRegistry(TICK, 16, 65_536, false), warmUp);
+
+        Result template = runTemplate(ids);
+        Result wheel = runRegistry("wheel", new PendingReplyRegistry(TICK, 512), ids);
+        Result primitive = runRegistry("primitive", new PrimitiveReplyRegistry(TICK, 16, 65_536, false), ids);
+
+        for (Result result : new Result[]{template, wheel, primitive}) {
+            System.out.printf("%-10s %5.0f B retained, %6.0f ns CPU to send, %5.0f ns CPU to reply, per request%n",
+                    result.name(), result.retainedBytes(), result.sendNanos(), result.replyNanos());
+        }
+        assertTrue(primitive.retainedBytes() < template.retainedBytes(), "primitive registry retains more than the template");
+        assertTrue(wheel.retainedBytes() < template.retainedBytes(), "wheel registry retains more than the template");
+
+        PerfBudget budget = new PerfBudget();
+        for (Result result : new Result[]{wheel, primitive}) {
+            budget.atMost("pending." + result.name() + ".retained-bytes", result.retainedBytes());
+            budget.atMost("pending." + result.name() + ".send-ns", result.sendNanos());
+            budget.atMost("pending." + result.name() + ".reply-ns", result.replyNanos());
+        }
+        budget.assertWithinBudget();
+    }
+
+    private static Result runRegistry(String name, ReplyRegistry registry, String[] ids) {
+        MockProducer<String, String> producer = producer();
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        try {
+            long heapBefore = heapAfterGc();
+            long cpuBefore = OS.getProcessCpuTime();
+            for (int i = 0; i < ids.length; i++) {
+                String id = ids[i];
+                ProducerRecord<String, String> record = new ProducerRecord<>("math-requests", id, REQUEST);
+                record.headers().add(KafkaHeaders.CORRELATION_ID, id.getBytes(StandardCharsets.UTF_8));
+                registry.register(id, TIMEOUT);
+                template.send(record);
+                if (i % CLEAR_EVERY == 0) {
+                    producer.clear();
+                }
+            }
+            long sendCpu = OS.getProcessCpuTime() - cpuBefore;
+            producer.clear();
+            long retained = heapAfterGc() - heapBefore;
+            assertEquals(ids.length, registry.pendingCount());
+
+            cpuBefore = OS.getProcessCpuTime();
+            for (String id : ids) {
+                registry.onReply(reply(id));
+            }
+            long replyCpu = OS.getProcessCpuTime() - cpuBefore;
+            assertEquals(0, registry.pendingCount());
+            return new Result(name, (double) retained / ids.length, (double) sendCpu / ids.length,
+                    (double) replyCpu / ids.length);
+        } finally {
+            registry.close();
+        }
+    }
+
+    /**
+     * As the gateway ran before the registries: the template's timeout scheduler, shared reply
+     * topic, the record key as correlation ID
+     */
+    @SuppressWarnings("unchecked")
+    private static Result runTemplate(String[] ids) {
+        MockProducer<String, String> producer = producer();
+        GenericMessageListenerContainer<String, MathReply> container = mock(GenericMessageListenerContainer.class);
+        when(container.getContainerProperties()).thenReturn(new ContainerProperties("math-replies"));
+        ReplyingKafkaTemplate<String, String, MathReply> template =
+                new ReplyingKafkaTemplate<>(new MockProducerFactory<>(() -> producer), container);
+        template.setSharedReplyTopic(true);
+        template.setDefaultReplyTimeout(TIMEOUT);
+        template.setCorrelationIdStrategy(record -> new CorrelationKey(record.key().getBytes(StandardCharsets.UTF_8)));
+        template.afterPropertiesSet();
+        template.start();
+        try {
+            long heapBefore = heapAfterGc();
+            long cpuBefore = OS.getProcessCpuTime();
+            for (int i = 0; i < ids.length; i++) {
+                template.sendAndReceive(new ProducerRecord<>("math-requests", ids[i], REQUEST));
+                if (i % CLEAR_EVERY == 0) {
+                    producer.clear();
+                }
+            }
+            long sendCpu = OS.getProcessCpuTime() - cpuBefore;
+            producer.clear();
+            long retained = heapAfterGc() - heapBefore;
+
+            cpuBefore = OS.getProcessCpuTime();
+            for (String id : ids) {
+                template.onMessage(List.of(reply(id)));
+            }
+            long replyCpu = OS.getProcessCpuTime() - cpuBefore;
+            return new Result("template", (double) retained / ids.length, (double) sendCpu / ids.length,
+                    (double) replyCpu / ids.length);
+        } finally {
+            template.stop();
+            template.destroy();
+        }
+    }
+
+    private static MockProducer<String, String> producer() {
+        // KafkaTemplate closes the producer after each send unless the factory shares one
+        return new MockProducer<>(true, new StringSerializer(), new StringSerializer()) {
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+    }
+
+    private static ConsumerRecord<String, MathReply> reply(String id) {
+        ConsumerRecord<String, MathReply> record =
+                new ConsumerRecord<>("math-replies", 0, 0, id, new MathReply("2+2", "4", null));
+        record.headers().add(KafkaHeaders.CORRELATION_ID, id.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static long heapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private record Result(String name, double retainedBytes, double sendNanos, double replyNanos) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.example;
+
+import com.example.dto.MathReply;
+import com.example.id.PrefixedCounterIdGenerator;
+import com.example.id.TimeOrderedIdGenerator;
+import com.example.reply.CorrelationKey;
+import com.example.reply.PrimitiveReplyRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveReplyRegistryTest {
+
+    private final List<PrimitiveReplyRegistry> registries = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        registries.forEach(PrimitiveReplyRegistry::close);
+    }
+
+    @Test
+    void testUuidKeysAreExact() {
+        UUID uuid = new TimeOrderedIdGenerator().nextUuid();
+        String id = uuid.toString();
+        assertEquals(uuid.getMostSignificantBits(), CorrelationKey.high(id));
+        assertEquals(uuid.getLeastSignificantBits(), CorrelationKey.low(id));
+        assertEquals(CorrelationKey.high(id), CorrelationKey.high(id.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(CorrelationKey.low(id), CorrelationKey.low(id.getBytes(StandardCharsets.UTF_8)));
+
+        // Not canonical: hashed, so it does not alias the lowercase form
+        assertNotEquals(CorrelationKey.low(id), CorrelationKey.low(id.toUpperCase()));
+    }
+
+    @Test
+    void testOtherIdsAreHashedTheSameFromStringAndBytes() {
+        for (String id : List.of("gw-1-0-1", "probe", "\u00e9-1", "")) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            assertEquals(CorrelationKey.high(id), CorrelationKey.high(bytes), id);
+            assertEquals(CorrelationKey.low(id), CorrelationKey.low(bytes), id);
+        }
+        assertNotEquals(CorrelationKey.low("gw-1-0-1"), CorrelationKey.low("gw-1-0-2"));
+    }
+
+    @Test
+    void testReplyCompletesPendingRequest() throws Exception {
+        PrimitiveReplyRegistry registry = registry(false);
+        String id = new TimeOrderedIdGenerator().nextId();
+        CompletableFuture<MathReply> future = registry.register(id, Duration.ofSeconds(30));
+        assertEquals(1, registry.pendingCount());
+
+        ConsumerRecord<String, MathReply> record = new ConsumerRecord<>("math-replies", 0, 0, id,
+                new MathReply("2+2", "4", null));
+        record.headers().add(KafkaHeaders.CORRELATION_ID, id.getBytes(StandardCharsets.UTF_8));
+        registry.onReply(record);
+
+        assertEquals("4", future.get(1, TimeUnit.SECONDS).getResult());
+        assertEquals(0, registry.pendingCount());
+        assertFalse(registry.complete(id, new MathReply()));
+        assertNotNull(registry.lastRoundTrip());
+    }
+
+    @Test
+    void testRequestExpiresAtItsOwnDeadline() {
+        PrimitiveReplyRegistry registry = registry(true);
+        CompletableFuture<MathReply> shortTimeout = registry.register("short", Duration.ofMillis(50));
+        CompletableFuture<MathReply> longTimeout = registry.register("long", Duration.ofSeconds(30));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> shortTimeout.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(KafkaReplyTimeoutException.class, ex.getCause());
+        assertFalse(longTimeout.isDone());
+        assertEquals(1, registry.pendingCount());
+        assertEquals(1, registry.expiredCount());
+        assertTrue(registry.expiryRatePerSecond() > 0);
+    }
+
+    @Test
+    void testDuplicateCorrelationIdIsRejected() {
+        PrimitiveReplyRegistry registry = registry(false);
+        registry.register("dup", Duration.ofSeconds(30));
+        assertThrows(IllegalStateException.class, () -> registry.register("dup", Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void testGrowsAndKeepsEntriesAcrossRemovals() throws Exception {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            // One small segment: long probe runs, growth and backward shifts on removal
+            PrimitiveReplyRegistry registry = new PrimitiveReplyRegistry(Duration.ofMillis(10), 1, 0, offHeap);
+            registries.add(registry);
+            PrefixedCounterIdGenerator ids = new PrefixedCounterIdGenerator("grow");
+            List<String> registered = new ArrayList<>();
+            List<CompletableFuture<MathReply>> futures = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                String id = ids.nextId();
+                registered.add(id);
+                futures.add(registry.register(id, Duration.ofSeconds(30)));
+            }
+            assertEquals(10_000, registry.pendingCount());
+            assertTrue(registry.capacity() >= 10_000 * 4 / 3);
+
+            // Remove every other one, then the rest must still be found
+            for (int i = 0; i < registered.size(); i += 2) {
+                registry.fail(registered.get(i), new IllegalStateException("send failed"));
+            }
+            for (int i = 1; i < registered.size(); i += 2) {
+                assertTrue(registry.complete(registered.get(i), new MathReply(null, Integer.toString(i), null)));
+            }
+            assertEquals(0, registry.pendingCount());
+            assertTrue(futures.get(0).isCompletedExceptionally());
+            assertEquals("9999", futures.get(9_999).get().getResult());
+        }
+    }
+
+    @Test
+    void testCloseFailsPendingRequests() {
+        PrimitiveReplyRegistry registry = new PrimitiveReplyRegistry(Duration.ofMillis(10), 4, 16, false);
+        CompletableFuture<MathReply> future = registry.register("pending", Duration.ofSeconds(30));
+        registry.close();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertEquals(0, registry.pendingCount());
+        assertThrows(IllegalStateException.class, () -> registry.register("late", Duration.ofSeconds(30)));
+    }
+
+    private PrimitiveReplyRegistry registry(boolean offHeap) {
+        PrimitiveReplyRegistry registry = new PrimitiveReplyRegistry(Duration.ofMillis(10), 4, 1024, offHeap);
+        registries.add(registry);
+        return registry;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Performance regression suite for the producer's HTTP endpoints
+ *
+ * Starts the producer application against an embedded broker, with a stand-in
+ * math consumer that answers every request on the reply topic, and drives each
+ * endpoint from closed-loop HTTP clients:
+ * - /calculate: request-reply round trips per second and p99 latency
+ * - /calculate-async: accepted requests per second and p99 latency
+ * - /messages/{topic} and /topics/{topic}/info: p99 latency of topic browsing
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test [-Dperf.tolerance=0.5] [-Dperf.seconds=10]
+ */
+@Tag("perf")
+@EmbeddedKafka(partitions = 3, topics = { "math-requests", "math-requests-bulk", "math-replies",
+        ProducerPerfRegressionTest.BROWSE_TOPIC })
+class ProducerPerfRegressionTest {
+
+    static final String BROWSE_TOPIC = "perf-browse";
+    private static final int BROWSE_MESSAGES = 1000;
+
+    private static final int CLIENTS = Integer.getInteger("perf.clients", 8);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup.seconds", 3);
+    private static final int SECONDS = Integer.getInteger("perf.seconds", 5);
+
+    private static ConfigurableApplicationContext producer;
+    private static KafkaMessageListenerContainer<String, String> standInConsumer;
+    private static HttpClient http;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void start() throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        standInConsumer = startStandInConsumer(broker);
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+        for (int i = 0; i < BROWSE_MESSAGES; i++) {
+            template.send(BROWSE_TOPIC, "key-" + i, "{\"message\":\"browse " + i + "\"}");
+        }
+        template.flush();
+
+        producer = new SpringApplicationBuilder(App.class).run(
+                "--server.port=0",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka.lag.enabled=false",
+                "--app.kafka.health.probe.enabled=false",
+                "--management.tracing.sampling.probability=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.com.example=WARN",
+                "--logging.level.org.springframework.kafka=WARN");
+        int port = ((WebServerApplicationContext) producer).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/kafka";
+        http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    @AfterAll
+    static void stop() {
+        if (producer != null) {
+            producer.close();
+        }
+        if (standInConsumer != null) {
+            standInConsumer.stop();
+        }
+    }
+
+    @Test
+    void endpointsStayWithinBudget() throws Exception {
+        PerfBudget budget = new PerfBudget();
+
+        Result calculate = measure(n -> post("/calculate?expression=" + n + "%2B1"));
+        budget.atLeast("calculate.throughput-per-second", calculate.throughput());
+        budget.atMost("calculate.latency-p99-ms", calculate.p99Millis());
+
+        Result async = measure(n -> post("/calculate-async?expression=" + n + "%2B1"));
+        budget.atLeast("calculate-async.throughput-per-second", async.throughput());
+        budget.atMost("calculate-async.latency-p99-ms", async.p99Millis());
+
+        Result browse = measure(n -> get("/messages/" + BROWSE_TOPIC + "?max=100"));
+        budget.atMost("browse.messages.latency-p99-ms", browse.p99Millis());
+
+        Result info = measure(n -> get("/topics/" + BROWSE_TOPIC + "/info"));
+        budget.atMost("browse.topic-info.latency-p99-ms", info.p99Millis());
+
+        budget.assertWithinBudget();
+    }
+
+    private interface Call {
+        HttpResponse<String> send(long n) throws Exception;
+    }
+
+    /**
+     * CLIENTS threads calling in a loop: a warm-up, then SECONDS measured; any
+     * response other than 200 fails the test
+     */
+    private static Result measure(Call call) throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        run(call, sequence, WARMUP_SECONDS, null);
+        List<long[]> latencies = new ArrayList<>();
+        long elapsed = run(call, sequence, SECONDS, latencies);
+        long[] nanos = latencies.stream().flatMapToLong(Arrays::stream).toArray();
+        return new Result(nanos, elapsed);
+    }
+
+    private static long run(Call call, AtomicLong sequence, int seconds, List<long[]> latencies) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long start = System.nanoTime();
+            long end = start + seconds * 1_000_000_000L;
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = call.send(sequence.incrementAndGet());
+                        long latency = System.nanoTime() - sent;
+                        assertEquals(200, response.statusCode(), response.body());
+                        assertFalse(response.body().contains("\"ERROR"), response.body());
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = latency;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            for (Future<long[]> future : futures) {
+                long[] samples = future.get();
+                if (latencies != null) {
+                    latencies.add(samples);
+                }
+            }
+            return System.nanoTime() - start;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static HttpResponse<String> post(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private record Result(long[] latencies, long elapsedNanos) {
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        double p99Millis() {
+            return PerfBudget.percentileMillis(latencies, 99);
+        }
+    }
+
+    /**
+     * Answers every math request on the reply topic named in its header, with the
+     * correlation ID copied over, like the consumer does; the result is not computed
+     */
+    private static KafkaMessageListenerContainer<String, String> startStandInConsumer(EmbeddedKafkaBroker broker) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        KafkaTemplate<String, String> replies = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("perf-stand-in-consumer", "true", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        ContainerProperties containerProps = new ContainerProperties("math-requests", "math-requests-bulk");
+        containerProps.setMessageListener((MessageListener<String, String>) request -> reply(replies, request));
+        KafkaMessageListenerContainer<String, String> container = new KafkaMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), containerProps);
+        container.start();
+        return container;
+    }
+
+    private static void reply(KafkaTemplate<String, String> replies, ConsumerRecord<String, String> request) {
+        Header replyTopic = request.headers().lastHeader(KafkaHeaders.REPLY_TOPIC);
+        String topic = replyTopic != null ? new String(replyTopic.value(), StandardCharsets.UTF_8) : "math-replies";
+        ProducerRecord<String, String> reply = new ProducerRecord<>(topic, request.key(),
+                "{\"expression\":\"perf\",\"result\":\"2\"}");
+        Header correlationId = request.headers().lastHeader(KafkaHeaders.CORRELATION_ID);
+        if (correlationId != null) {
+            reply.headers().add(correlationId);
+        }
+        replies.send(reply);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example;
+
+import com.example.dto.KafkaMessageDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A 100 KB payload sent and browsed through the String paths and through the raw byte[] paths
+ *
+ * Client and broker are left out; what is measured is the conversion work the gateway
+ * does per message on each path:
+ * - String: body decoded to a String, StringSerializer, StringDeserializer, then the
+ *   KafkaMessageDto written as JSON, as /send-to-topic and /messages/{topic} do
+ * - raw: ByteArraySerializer, ByteArrayDeserializer, then the length-prefixed frame,
+ *   as /send-to-topic/raw and /messages/{topic}/raw do
+ * Responses go to a discarding stream. Reported per message: CPU time and bytes
+ * allocated on the measuring thread, best of ROUNDS after WARMUP_ROUNDS.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=RawPayloadBenchmarkTest
+ */
+@Tag("perf")
+class RawPayloadBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 3;
+    private static final int MESSAGES = 5_000;
+    private static final int PAYLOAD_BYTES = 100 * 1024;
+    private static final String TOPIC = "raw-bench";
+    private static final String KEY = "key-1";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // The response stream stays open, as with Spring's message converter
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    private final StringSerializer stringSerializer = new StringSerializer();
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final ByteArraySerializer bytesSerializer = new ByteArraySerializer();
+    private final ByteArrayDeserializer bytesDeserializer = new ByteArrayDeserializer();
+
+    private volatile int sink;
+
+    @Test
+    void rawPathBeatsStringPath() throws Exception {
+        byte[] payload = new byte[PAYLOAD_BYTES];
+        Arrays.fill(payload, (byte) 'a');
+        Path string = this::viaString;
+        Path raw = this::viaBytes;
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(string, payload);
+            run(raw, payload);
+        }
+        Result stringBest = null;
+        Result rawBest = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            stringBest = Result.best(stringBest, run(string, payload));
+            rawBest = Result.best(rawBest, run(raw, payload));
+        }
+        System.out.printf("String/JSON path %9.0f ns CPU, %8.0f B per message%n", stringBest.cpuNanos(), stringBest.bytes());
+        System.out.printf("raw byte path    %9.0f ns CPU, %8.0f B per message%n", rawBest.cpuNanos(), rawBest.bytes());
+
+        assertTrue(rawBest.cpuNanos() < stringBest.cpuNanos(), "raw path is slower than the String path");
+        assertTrue(rawBest.bytes() < stringBest.bytes(), "raw path allocates more than the String path");
+        PerfBudget budget = new PerfBudget();
+        budget.atMost("raw-payload.raw.cpu-ns", rawBest.cpuNanos());
+        budget.atMost("raw-payload.raw.bytes", rawBest.bytes());
+        budget.assertWithinBudget();
+    }
+
+    private int viaString(byte[] body, OutputStream response) throws IOException {
+        String message = new String(body, StandardCharsets.UTF_8);
+        byte[] record = stringSerializer.serialize(TOPIC, message);
+        String value = stringDeserializer.deserialize(TOPIC, record);
+        KafkaMessageDto dto = KafkaMessageDto.builder()
+                .topic(TOPIC)
+                .partition(0)
+                .offset(0L)
+                .key(KEY)
+                .value(value)
+                .timestamp(Instant.ofEpochMilli(0).atZone(ZoneId.systemDefault())
+                        .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .build();
+        objectMapper.writeValue(response, List.of(dto));
+        return value.length();
+    }
+
+    private int viaBytes(byte[] body, OutputStream response) throws IOException {
+        byte[] record = bytesSerializer.serialize(TOPIC, body);
+        byte[] value = bytesDeserializer.deserialize(TOPIC, record);
+        DataOutputStream out = new DataOutputStream(response);
+        byte[] key = KEY.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeInt(value.length);
+        out.write(value);
+        out.flush();
+        return value.length;
+    }
+
+    private Result run(Path path, byte[] payload) throws IOException {
+        OutputStream response = OutputStream.nullOutputStream();
+        long cpuBefore = THREADS.getCurrentThreadCpuTime();
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        int length = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            length += path.apply(payload, response);
+        }
+        Result result = new Result((double) (THREADS.getCurrentThreadCpuTime() - cpuBefore) / MESSAGES,
+                (double) (THREADS.getCurrentThreadAllocatedBytes() - bytesBefore) / MESSAGES);
+        sink = length;
+        return result;
+    }
+
+    private interface Path {
+
+        int apply(byte[] body, OutputStream response) throws IOException;
+    }
+
+    private record Result(double cpuNanos, double bytes) {
+
+        static Result best(Result previous, Result current) {
+            return previous == null || current.cpuNanos() < previous.cpuNanos() ? current : previous;
+        }
+    }
+}
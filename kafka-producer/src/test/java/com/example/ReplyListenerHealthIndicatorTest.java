@@ -0,0 +1,67 @@
+package com.example;
+
+import com.example.health.ReplyListenerHealthIndicator;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplyListenerHealthIndicatorTest {
+
+    private static final Duration MAX_POLL_AGE = Duration.ofSeconds(120);
+
+    @Test
+    void testPollingAndNotYetPolledListenerIsLive() {
+        assertEquals(Status.UP, health(container(true, true, 2)).getStatus());
+        assertEquals(Status.UP, health(container(true, true, -1)).getStatus());
+    }
+
+    @Test
+    void testStuckListenerIsDown() {
+        Health health = health(container(true, true, 200));
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("no poll for 200s", health.getDetails().get("problem"));
+    }
+
+    @Test
+    void testContainerStoppedByErrorIsDown() {
+        Health health = health(container(false, false, 1));
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("stopped after an error", health.getDetails().get("problem"));
+    }
+
+    private static Health health(MessageListenerContainer container) {
+        return new ReplyListenerHealthIndicator(container, MAX_POLL_AGE).health();
+    }
+
+    private static MessageListenerContainer container(boolean running, boolean expectedState, double pollAge) {
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(running);
+        when(container.isInExpectedState()).thenReturn(expectedState);
+        MetricName name = new MetricName("last-poll-seconds-ago", "consumer-metrics", "",
+                Map.of("client-id", "consumer-math-reply-0"));
+        Metric metric = new Metric() {
+            @Override
+            public MetricName metricName() {
+                return name;
+            }
+
+            @Override
+            public Object metricValue() {
+                return pollAge;
+            }
+        };
+        doReturn(Map.of("consumer-math-reply-0", Map.of(name, metric))).when(container).metrics();
+        return container;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example;
+
+import com.example.dto.MathReply;
+import com.example.health.ReplyPathHealthIndicator;
+import com.example.health.RoundTripProbe;
+import com.example.reply.PendingReplyRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplyPathHealthIndicatorTest {
+
+    private final PendingReplyRegistry registry = new PendingReplyRegistry(Duration.ofMillis(10), 64);
+    private final AtomicInteger probesSent = new AtomicInteger();
+
+    // Stands in for a request through the consumer: the reply completes a pending request
+    private final RoundTripProbe probe = new RoundTripProbe(registry, () -> {
+        String id = "probe-" + probesSent.incrementAndGet();
+        registry.register(id, Duration.ofSeconds(5));
+        MathReply reply = new MathReply("1+1", "2", null);
+        registry.complete(id, reply);
+        return reply;
+    }, Duration.ofSeconds(10));
+
+    @AfterEach
+    void close() {
+        registry.close();
+    }
+
+    @Test
+    void testDownUntilAReplyArrives() {
+        Health health = indicator(10).health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(-1L, health.getDetails().get("lastReplyAgeMs"));
+    }
+
+    @Test
+    void testProbeRunsOnlyWithoutRecentReplies() {
+        probe.probeIfIdle();
+        assertEquals(1, probesSent.get());
+
+        Health health = indicator(10).health();
+        assertEquals(Status.UP, health.getStatus());
+        assertTrue((double) health.getDetails().get("lastRoundTripMs") >= 0);
+
+        // The reply just recorded proves the path, no new probe within the interval
+        probe.probeIfIdle();
+        assertEquals(1, probesSent.get());
+        assertEquals(1, probe.probeCount());
+    }
+
+    @Test
+    void testFailedProbeIsCounted() {
+        RoundTripProbe failing = new RoundTripProbe(registry, () -> new MathReply(null, null, "broken"),
+                Duration.ofSeconds(10));
+
+        failing.probeIfIdle();
+
+        assertEquals(1, failing.failureCount());
+        assertTrue(failing.lastError().contains("broken"));
+    }
+
+    @Test
+    void testOutOfServiceWhenPendingRequestsReachTheLimit() {
+        probe.probeIfIdle();
+        registry.register("a", Duration.ofSeconds(30));
+        registry.register("b", Duration.ofSeconds(30));
+
+        assertEquals(Status.UP, indicator(3).health().getStatus());
+        registry.register("c", Duration.ofSeconds(30));
+        assertEquals(Status.OUT_OF_SERVICE, indicator(3).health().getStatus());
+    }
+
+    private ReplyPathHealthIndicator indicator(int maxPending) {
+        return new ReplyPathHealthIndicator(registry, probe, Duration.ofSeconds(30), maxPending);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example;
+
+import com.example.dto.MathReply;
+import com.example.id.TimeOrderedIdGenerator;
+import com.example.reply.PendingReplyRegistry;
+import com.example.reply.PrimitiveReplyRegistry;
+import com.example.reply.ReplyRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation and GC pauses of the reply registries at a sustained request rate
+ *
+ * One thread registers perf.registry.rate requests per second, paced every
+ * millisecond, and feeds each one its reply REPLY_LATENCY later, as the reply
+ * listener would; one request in EXPIRE_EVERY gets no reply in time and expires.
+ * About rate * REPLY_LATENCY requests are pending at any time. A pass without a
+ * registry (IDs, records and replies only) is the baseline subtracted from the
+ * bytes allocated per request; allocation is summed over all threads, so the
+ * timer and sweeper threads count too. GC pauses are the collectors' time and
+ * count during the measured seconds.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=ReplyRegistryBenchmarkTest [-Dperf.registry.rate=50000]
+ */
+@Tag("perf")
+class ReplyRegistryBenchmarkTest {
+
+    private static final int RATE = Integer.getInteger("perf.registry.rate", 50_000);
+    private static final int SECONDS = Integer.getInteger("perf.registry.seconds", 10);
+    private static final int WARM_UP_SECONDS = 3;
+    private static final Duration REPLY_LATENCY = Duration.ofSeconds(2);
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration ANSWERED_TIMEOUT = REPLY_LATENCY.multipliedBy(5);
+    private static final int EXPIRE_EVERY = 100;
+    private static final Duration TICK = Duration.ofMillis(100);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Every reply record escapes here, so the baseline allocates it too instead of
+    // having it scalar-replaced when no registry reads it
+    private static volatile ConsumerRecord<String, MathReply> lastReply;
+
+    @Test
+    void allocationAndGcPausesStayWithinBudget() throws Exception {
+        Result baseline = run("baseline", () -> null);
+        Result wheel = run("wheel", () -> new PendingReplyRegistry(TICK, 512));
+        Result primitive = run("primitive", () -> new PrimitiveReplyRegistry(TICK, 16, 65_536, false));
+        Result offHeap = run("primitive-off-heap", () -> new PrimitiveReplyRegistry(TICK, 16, 65_536, true));
+
+        for (Result result : new Result[]{wheel, primitive, offHeap}) {
+            System.out.printf("%-20s %6.0f B/request over baseline, %5.1f ms GC pause/s in %4.1f collections/s, %d pending%n",
+                    result.name(), result.bytesPerRequest() - baseline.bytesPerRequest(),
+                    result.gcMillisPerSecond(), result.gcCountPerSecond(), result.pending());
+        }
+        assertTrue(primitive.bytesPerRequest() < wheel.bytesPerRequest());
+
+        PerfBudget budget = new PerfBudget();
+        budget.atMost("registry.primitive.bytes-per-request", primitive.bytesPerRequest() - baseline.bytesPerRequest());
+        budget.atMost("registry.primitive-off-heap.bytes-per-request", offHeap.bytesPerRequest() - baseline.bytesPerRequest());
+        budget.atMost("registry.primitive.gc-pause-ms-per-second", primitive.gcMillisPerSecond());
+        budget.assertWithinBudget();
+    }
+
+    /**
+     * Warm-up then measured seconds at RATE; a null registry only builds IDs, records and replies
+     */
+    private static Result run(String name, Supplier<ReplyRegistry> factory) throws Exception {
+        TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator();
+        int inFlight = (int) (RATE * REPLY_LATENCY.toMillis() / 1000);
+        String[] pending = new String[inFlight];
+        MathReply reply = new MathReply("2+2", "4", null);
+        int perMilli = Math.max(1, RATE / 1000);
+        System.gc();
+
+        ReplyRegistry registry = factory.get();
+        try {
+            long start = System.nanoTime();
+            long measureFrom = start + Duration.ofSeconds(WARM_UP_SECONDS).toNanos();
+            long end = measureFrom + Duration.ofSeconds(SECONDS).toNanos();
+            long bytesBefore = 0;
+            long gcMillisBefore = 0;
+            long gcCountBefore = 0;
+            long requests = 0;
+            long measured = 0;
+            boolean measuring = false;
+            int maxPending = 0;
+            for (long tick = start; tick < end; tick += 1_000_000) {
+                while (System.nanoTime() < tick) {
+                    Thread.onSpinWait();
+                }
+                if (!measuring && tick >= measureFrom) {
+                    measuring = true;
+                    bytesBefore = allocatedBytes();
+                    gcMillisBefore = gcMillis();
+                    gcCountBefore = gcCount();
+                    measured = requests;
+                }
+                for (int i = 0; i < perMilli; i++, requests++) {
+                    int slot = (int) (requests % inFlight);
+                    String answered = pending[slot];
+                    // The reply for the request sent REPLY_LATENCY ago
+                    if (answered != null) {
+                        ConsumerRecord<String, MathReply> record =
+                                new ConsumerRecord<>("math-replies", 0, requests, answered, reply);
+                        record.headers().add(KafkaHeaders.CORRELATION_ID, answered.getBytes(StandardCharsets.UTF_8));
+                        lastReply = record;
+                        if (registry != null) {
+                            registry.onReply(record);
+                        }
+                    }
+                    String id = ids.nextId();
+                    if (registry != null) {
+                        registry.register(id, requests % EXPIRE_EVERY == 0 ? TIMEOUT : ANSWERED_TIMEOUT);
+                    }
+                    pending[slot] = id;
+                }
+                if (registry != null) {
+                    maxPending = Math.max(maxPending, registry.pendingCount());
+                }
+            }
+            double seconds = SECONDS;
+            return new Result(name, (double) (allocatedBytes() - bytesBefore) / (requests - measured),
+                    (gcMillis() - gcMillisBefore) / seconds, (gcCount() - gcCountBefore) / seconds, maxPending);
+        } finally {
+            if (registry != null) {
+                registry.close();
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private record Result(String name, double bytesPerRequest, double gcMillisPerSecond,
+                          double gcCountPerSecond, int pending) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.example;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.handler.PropagatingReceiverTracingObservationHandler;
+import io.micrometer.tracing.handler.PropagatingSenderTracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelBaggageManager;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelPropagator;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * CPU time and allocation that observation and tracing add to a math request send
+ *
+ * Sends through a KafkaTemplate on an auto-completing MockProducer, so only the
+ * client-side work is measured: once without observation, once with the handlers
+ * the application runs with (meter timer, OpenTelemetry bridge sampling every
+ * trace, W3C traceparent injection). No span exporter is configured, as in the
+ * default properties without management.otlp.tracing.endpoint. Passes alternate
+ * so both see the same JIT and GC state; the best of PASSES counts.
+ *
+ * Results are checked against src/test/resources/perf-budgets.properties (PerfBudget).
+ * Excluded from the default build, run with:
+ *   mvn test -Pperf-test -Dtest=TracingOverheadBenchmarkTest [-Dperf.tracing.sends=200000]
+ */
+@Tag("perf")
+class TracingOverheadBenchmarkTest {
+
+    private static final int SENDS = Integer.getInteger("perf.tracing.sends", 200_000);
+    private static final int PASSES = 5;
+    private static final int CLEAR_EVERY = 10_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void overheadStaysWithinBudget() throws Exception {
+        // KafkaTemplate closes the producer after each send unless the factory shares one
+        MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer()) {
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+        KafkaTemplate<String, String> plain = template(producer, null);
+        KafkaTemplate<String, String> traced = template(producer, tracingRegistry());
+
+        Result off = null;
+        Result on = null;
+        for (int pass = 0; pass < PASSES; pass++) {
+            off = Result.best(off, run(plain, producer));
+            on = Result.best(on, run(traced, producer));
+        }
+        System.out.printf("observation off %8.0f ns CPU, %6.0f B per send%n", off.cpuNanos(), off.bytes());
+        System.out.printf("observation on  %8.0f ns CPU, %6.0f B per send%n", on.cpuNanos(), on.bytes());
+
+        PerfBudget budget = new PerfBudget();
+        budget.atMost("tracing.send.overhead-ns", on.cpuNanos() - off.cpuNanos());
+        budget.atMost("tracing.send.overhead-bytes", on.bytes() - off.bytes());
+        budget.assertWithinBudget();
+    }
+
+    private static Result run(KafkaTemplate<String, String> template, MockProducer<String, String> producer) {
+        producer.clear();
+        long cpuBefore = THREADS.getCurrentThreadCpuTime();
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < SENDS; i++) {
+            template.send("math-requests", "k" + (i & 1023), "{\"expression\":\"2+2\"}");
+            if (i % CLEAR_EVERY == 0) {
+                producer.clear();
+            }
+        }
+        return new Result((double) (THREADS.getCurrentThreadCpuTime() - cpuBefore) / SENDS,
+                (double) (THREADS.getCurrentThreadAllocatedBytes() - bytesBefore) / SENDS);
+    }
+
+    /**
+     * Observation enabled with the given registry, null for none
+     */
+    private static KafkaTemplate<String, String> template(MockProducer<String, String> producer,
+                                                          ObservationRegistry registry) {
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        if (registry != null) {
+            GenericApplicationContext context = new GenericApplicationContext();
+            context.registerBean(ObservationRegistry.class, () -> registry);
+            context.refresh();
+            template.setObservationEnabled(true);
+            template.setApplicationContext(context);
+        }
+        template.afterSingletonsInstantiated();
+        return template;
+    }
+
+    /**
+     * The handlers Spring Boot's observation and tracing auto-configuration register
+     */
+    private static ObservationRegistry tracingRegistry() {
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(1.0)))
+                .build();
+        io.opentelemetry.api.trace.Tracer otelTracer = tracerProvider.get("perf");
+        OtelCurrentTraceContext currentTraceContext = new OtelCurrentTraceContext();
+        OtelTracer tracer = new OtelTracer(otelTracer, currentTraceContext, event -> { },
+                new OtelBaggageManager(currentTraceContext, List.of(), List.of()));
+        OtelPropagator propagator = new OtelPropagator(
+                ContextPropagators.create(W3CTraceContextPropagator.getInstance()), otelTracer);
+
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig()
+                .observationHandler(new DefaultMeterObservationHandler(new SimpleMeterRegistry()))
+                .observationHandler(new ObservationHandler.FirstMatchingCompositeObservationHandler(
+                        new PropagatingSenderTracingObservationHandler<>(tracer, propagator),
+                        new PropagatingReceiverTracingObservationHandler<>(tracer, propagator),
+                        new DefaultTracingObservationHandler(tracer)));
+        return registry;
+    }
+
+    private record Result(double cpuNanos, double bytes) {
+
+        static Result best(Result previous, Result current) {
+            return previous == null || current.cpuNanos() < previous.cpuNanos() ? current : previous;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Time from process start to the first successful POST /api/kafka/calculate
+#
+# Needs Kafka and the math consumer running, for example:
+#   docker compose up -d kafka kafka-consumer
+#
+# Usage:
+#   scripts/time-to-first-calculate.sh [runs] -- <command that starts the producer in the foreground>
+#
+# Examples:
+#   scripts/time-to-first-calculate.sh 5 -- java -jar kafka-producer/target/kafka-producer-1.0-SNAPSHOT.jar
+#   scripts/time-to-first-calculate.sh 5 -- docker run --rm --network stream_kafka-net -p 8080:8080 \
+#       -e SPRING_KAFKA_BOOTSTRAP_SERVERS=kafka:9092 kafka-producer:optimized
+#
+# Environment: URL (default http://localhost:8080), EXPRESSION (default 1+1, expected result 2)
+
+set -euo pipefail
+
+RUNS=1
+if [[ "${1:-}" != "--" ]]; then
+    RUNS="$1"
+    shift
+fi
+[[ "${1:-}" == "--" ]] && shift
+if [[ $# -eq 0 ]]; then
+    sed -n '2,16p' "$0"
+    exit 1
+fi
+
+URL="${URL:-http://localhost:8080}"
+EXPRESSION="${EXPRESSION:-1+1}"
+EXPECTED="${EXPECTED:-2}"
+QUERY="expression=$(printf '%s' "$EXPRESSION" | sed 's/+/%2B/g')"
+
+now_ms() { date +%s%3N; }
+
+results=()
+for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    setsid "$@" > "/tmp/time-to-first-calculate-$run.log" 2>&1 &
+    pid=$!
+
+    elapsed=""
+    while kill -0 "$pid" 2>/dev/null; do
+        body=$(curl -s -m 35 -X POST "$URL/api/kafka/calculate?$QUERY" || true)
+        if [[ "$body" == *"\"result\":\"$EXPECTED\""* ]]; then
+            elapsed=$(( $(now_ms) - start ))
+            break
+        fi
+        sleep 0.05
+    done
+
+    kill -- -"$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+
+    if [[ -z "$elapsed" ]]; then
+        echo "run $run: process exited before a successful /calculate, see /tmp/time-to-first-calculate-$run.log" >&2
+        exit 1
+    fi
+    echo "run $run: ${elapsed} ms"
+    results+=("$elapsed")
+done
+
+sorted=($(printf '%s\n' "${results[@]}" | sort -n))
+echo "median: ${sorted[$(( RUNS / 2 ))]} ms over $RUNS runs"
@@ -0,0 +1,47 @@
+package com.example;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Expressions and their normalized keys from normalization-cases.json on the test classpath
+ *
+ * The producer partitions by the normalized expression and the consumer caches
+ * results by it, each with its own copy of the rules; both are checked against
+ * these cases so requests for one key land where its results are cached.
+ */
+final class NormalizationCases {
+
+    private static final String CASES = "/normalization-cases.json";
+
+    private NormalizationCases() {
+    }
+
+    record Case(String expression, String key) {
+    }
+
+    /**
+     * Fails with every case the given normalization gets wrong
+     */
+    static void assertAll(UnaryOperator<String> normalize) throws IOException {
+        for (Case c : load()) {
+            assertEquals(c.key(), normalize.apply(c.expression()), "normalize(\"" + c.expression() + "\")");
+        }
+    }
+
+    static List<Case> load() throws IOException {
+        try (InputStream in = NormalizationCases.class.getResourceAsStream(CASES)) {
+            if (in == null) {
+                throw new IllegalStateException(CASES + " not on the test classpath");
+            }
+            return new ObjectMapper().readValue(in, new TypeReference<>() { });
+        }
+    }
+}
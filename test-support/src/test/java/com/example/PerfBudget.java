@@ -0,0 +1,117 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Throughput and latency budgets from perf-budgets.properties on the test classpath
+ *
+ * A budget is the baseline measurement; a result fails when it is worse than the
+ * baseline by more than perf.tolerance (a fraction). Any budget and the tolerance
+ * can be overridden with -D. Results are written to target/perf-results.properties
+ * in the same format, to refresh the baselines after an intended change.
+ */
+final class PerfBudget {
+
+    private static final String BUDGETS = "/perf-budgets.properties";
+    private static final Path RESULTS = Path.of("target", "perf-results.properties");
+
+    private final Properties budgets = new Properties();
+    private final Properties results = new Properties();
+    private final List<String> violations = new ArrayList<>();
+    private final double tolerance;
+
+    PerfBudget() {
+        try (InputStream in = PerfBudget.class.getResourceAsStream(BUDGETS)) {
+            if (in == null) {
+                throw new IllegalStateException(BUDGETS + " not on the test classpath");
+            }
+            budgets.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + BUDGETS, e);
+        }
+        tolerance = value("perf.tolerance");
+    }
+
+    /**
+     * Throughput-style result: fails below baseline * (1 - tolerance)
+     */
+    void atLeast(String key, double measured) {
+        double baseline = value(key);
+        double limit = baseline * (1 - tolerance);
+        check(key, measured, baseline, measured >= limit, ">= " + format(limit));
+    }
+
+    /**
+     * Latency-style result: fails above baseline * (1 + tolerance)
+     */
+    void atMost(String key, double measured) {
+        double baseline = value(key);
+        double limit = baseline * (1 + tolerance);
+        check(key, measured, baseline, measured <= limit, "<= " + format(limit));
+    }
+
+    /**
+     * Writes the results and fails with every budget that was missed
+     */
+    void assertWithinBudget() throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        Properties merged = new Properties();
+        if (Files.exists(RESULTS)) {
+            try (InputStream in = Files.newInputStream(RESULTS)) {
+                merged.load(in);
+            }
+        }
+        merged.putAll(results);
+        try (OutputStream out = Files.newOutputStream(RESULTS)) {
+            merged.store(out, "Measured by the perf-test profile");
+        }
+        if (!violations.isEmpty()) {
+            fail("Performance regression beyond " + format(tolerance * 100) + "% tolerance:\n  "
+                    + String.join("\n  ", violations));
+        }
+    }
+
+    /**
+     * Value at the given percentile (0-100] of unsorted nanosecond samples, in milliseconds
+     */
+    static double percentileMillis(long[] nanos, double percentile) {
+        if (nanos.length == 0) {
+            return Double.NaN;
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private void check(String key, double measured, double baseline, boolean ok, String limit) {
+        results.setProperty(key, format(measured));
+        String line = String.format("%-40s %10s (baseline %s, limit %s)", key, format(measured), format(baseline), limit);
+        System.out.println((ok ? "ok    " : "FAIL  ") + line);
+        if (!ok) {
+            violations.add(line);
+        }
+    }
+
+    private double value(String key) {
+        String value = System.getProperty(key, budgets.getProperty(key));
+        if (value == null) {
+            throw new IllegalStateException("No budget for " + key + " in " + BUDGETS);
+        }
+        return Double.parseDouble(value.trim());
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}